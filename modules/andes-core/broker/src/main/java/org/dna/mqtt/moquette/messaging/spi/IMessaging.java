@@ -9,7 +9,7 @@ public interface IMessaging {
 
     void disconnect(ServerChannel session);
     
-    void lostConnection(String clientID);
+    void lostConnection(ServerChannel session);
 
     void handleProtocolMessage(ServerChannel session, AbstractMessage msg);
 }
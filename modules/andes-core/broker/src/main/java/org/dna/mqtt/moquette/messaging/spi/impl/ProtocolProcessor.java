@@ -42,9 +42,9 @@ import org.wso2.andes.mqtt.utils.MQTTUtils;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
 import java.nio.ByteBuffer;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -58,7 +58,7 @@ public class ProtocolProcessor implements EventHandler<ValueEvent>, PubAckHandle
 
     public static final String CARBON_SUPER_TENANT_DOMAIN = "carbon.super";
 
-    private Map<String, ConnectionDescriptor> m_clientIDs = new HashMap<String, ConnectionDescriptor>();
+    private Map<String, ConnectionDescriptor> m_clientIDs = new ConcurrentHashMap<>();
     private SubscriptionsStore subscriptions;
     private IStorageService m_storageService;
     private IAuthenticator m_authenticator;
@@ -66,13 +66,13 @@ public class ProtocolProcessor implements EventHandler<ValueEvent>, PubAckHandle
     /**
      * Keeps client data in memory for authorization of publishing and subscribing later. <ClientID, AuthData>
      */
-    private Map<String, MQTTAuthorizationSubject> authSubjects = new HashMap<>();
+    private Map<String, MQTTAuthorizationSubject> authSubjects = new ConcurrentHashMap<>();
 
     /**
      * Channels which were forcibly closed by ProtocolProcessor in order to connect a new client with an already
      * existing clientId.
      */
-    private Map<String, ServerChannel> forciblyClosedChannels = new HashMap<>();
+    private Map<String, ServerChannel> forciblyClosedChannels = new ConcurrentHashMap<>();
 
     private RingBuffer<ValueEvent> m_ringBuffer;
 
@@ -694,6 +694,11 @@ public class ProtocolProcessor implements EventHandler<ValueEvent>, PubAckHandle
 
     void proccessConnectionLost(String clientID) {
 
+        if (null == clientID) {
+            // Connection was lost before the client connected, hence there is no session data to clear
+            return;
+        }
+
         boolean forciblyClosed = false;
 
         if (forciblyClosedChannels.containsKey(clientID)) {
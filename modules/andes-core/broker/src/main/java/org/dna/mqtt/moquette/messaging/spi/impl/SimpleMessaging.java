@@ -4,6 +4,7 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.lmax.disruptor.BatchEventProcessor;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
 import com.lmax.disruptor.SequenceBarrier;
 import com.lmax.disruptor.dsl.Disruptor;
 import org.apache.commons.logging.Log;
@@ -11,7 +12,6 @@ import org.apache.commons.logging.LogFactory;
 import org.dna.mqtt.moquette.messaging.spi.IMessaging;
 import org.dna.mqtt.moquette.messaging.spi.IStorageService;
 import org.dna.mqtt.moquette.messaging.spi.impl.events.DisconnectEvent;
-import org.dna.mqtt.moquette.messaging.spi.impl.events.InitEvent;
 import org.dna.mqtt.moquette.messaging.spi.impl.events.LostConnectionEvent;
 import org.dna.mqtt.moquette.messaging.spi.impl.events.MessagingEvent;
 import org.dna.mqtt.moquette.messaging.spi.impl.events.ProtocolEvent;
@@ -36,6 +36,11 @@ import org.dna.mqtt.wso2.MQTTPingRequest;
 import org.dna.mqtt.wso2.MQTTSubscriptionStore;
 import org.wso2.andes.configuration.AndesConfigurationManager;
 import org.wso2.andes.configuration.enums.AndesConfiguration;
+import org.wso2.andes.metrics.MetricsConstants;
+import org.wso2.carbon.metrics.manager.Gauge;
+import org.wso2.carbon.metrics.manager.Level;
+import org.wso2.carbon.metrics.manager.Meter;
+import org.wso2.carbon.metrics.manager.MetricManager;
 
 import java.util.Properties;
 import java.util.concurrent.CountDownLatch;
@@ -44,10 +49,21 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
-public class SimpleMessaging implements IMessaging, EventHandler<ValueEvent> {
+/**
+ * Inbound MQTT events are processed by a set of processors reading the same ring buffer. Events are partitioned
+ * among the processors by client ID so that the events of a client are processed in the order they were received.
+ * Events which change the subscription or storage state (connect, disconnect, subscribe etc.) are serialized across
+ * processors since the subscription store and the storage service are not thread safe.
+ */
+public class SimpleMessaging implements IMessaging {
 
     private static Log log = LogFactory.getLog(SimpleMessaging.class);
 
+    /**
+     * Shard value of events which should be handled by all the processors
+     */
+    private static final int ALL_SHARDS = -1;
+
     private SubscriptionsStore subscriptions;
 
     private RingBuffer<ValueEvent> m_ringBuffer;
@@ -65,6 +81,16 @@ public class SimpleMessaging implements IMessaging, EventHandler<ValueEvent> {
 
     CountDownLatch m_stopLatch;
 
+    /**
+     * Number of processors inbound events are partitioned to
+     */
+    private int processorCount;
+
+    /**
+     * Lock serializing the events which modify subscription and storage state across processors
+     */
+    private final Object structuralEventLock = new Object();
+
     private SimpleMessaging() {
     }
 
@@ -86,51 +112,96 @@ public class SimpleMessaging implements IMessaging, EventHandler<ValueEvent> {
         Integer ringBufferSize = AndesConfigurationManager.readValue(
                 AndesConfiguration.TRANSPORTS_MQTT_INBOUND_BUFFER_SIZE);
 
+        processorCount = AndesConfigurationManager.readValue(
+                AndesConfiguration.TRANSPORTS_MQTT_INBOUND_PROCESSOR_COUNT);
+
+        // Initialise before accepting events so that the processors never see an uninitialised protocol processor
+        processInit(configProps);
+
         disruptor = new Disruptor<ValueEvent>( ValueEvent.EVENT_FACTORY, ringBufferSize, executor);
         //Added by WSO2, we do not want to ignore the exception here
         disruptor.handleExceptionsWith(new MQTTLogExceptionHandler());
         SequenceBarrier barrier = disruptor.getRingBuffer().newBarrier();
-        BatchEventProcessor<ValueEvent> eventProcessor = new BatchEventProcessor<ValueEvent>(
-                disruptor.getRingBuffer(), barrier, this);
-        //Added by WSO2, we need to make sure the exceptions aren't ignored
-        eventProcessor.setExceptionHandler(new MQTTLogExceptionHandler());
-        disruptor.handleEventsWith(eventProcessor);
+        BatchEventProcessor[] eventProcessors = new BatchEventProcessor[processorCount];
+        for (int shard = 0; shard < processorCount; shard++) {
+            BatchEventProcessor<ValueEvent> eventProcessor = new BatchEventProcessor<ValueEvent>(
+                    disruptor.getRingBuffer(), barrier, new ShardEventHandler(shard));
+            //Added by WSO2, we need to make sure the exceptions aren't ignored
+            eventProcessor.setExceptionHandler(new MQTTLogExceptionHandler());
+            eventProcessors[shard] = eventProcessor;
+        }
+        disruptor.handleEventsWith(eventProcessors);
         m_ringBuffer = disruptor.start();
-        
-        disruptorPublish(new InitEvent(configProps));
+
+        for (int shard = 0; shard < processorCount; shard++) {
+            MetricManager.gauge(Level.INFO, MetricsConstants.MQTT_INBOUND_SHARD_PENDING + shard,
+                    new ShardPendingEventGauge(eventProcessors[shard].getSequence()));
+        }
     }
 
 
-    private void disruptorPublish(MessagingEvent msgEvent) {
+    private void disruptorPublish(MessagingEvent msgEvent, int shard) {
         if (log.isDebugEnabled()) {
-            log.debug("disruptorPublish publishing event " + msgEvent);
+            log.debug("disruptorPublish publishing event " + msgEvent + " to shard " + shard);
         }
         long sequence = m_ringBuffer.next();
         ValueEvent event = m_ringBuffer.get(sequence);
 
         event.setEvent(msgEvent);
+        event.setShard(shard);
 
         m_ringBuffer.publish(sequence);
     }
 
+    /**
+     * Get the processor which handles the events of a client.
+     *
+     * @param clientID client ID of the client
+     * @return index of the processor
+     */
+    private int getShard(String clientID) {
+        return (clientID.hashCode() & Integer.MAX_VALUE) % processorCount;
+    }
+
+    /**
+     * Get the processor which handles the events of a channel. The processor is selected by the client ID when the
+     * CONNECT of the channel is received and kept as a channel attribute, so that all later events of the channel
+     * are processed after the CONNECT and by the same processor. Events of a channel which did not send a CONNECT
+     * are handled by the first processor.
+     *
+     * @param session channel of the event
+     * @return index of the processor
+     */
+    private int getShard(ServerChannel session) {
+        Object shard = session.getAttribute(Constants.ATTR_SHARD);
+        return (null == shard) ? 0 : (Integer) shard;
+    }
 
     public void disconnect(ServerChannel session) {
-        disruptorPublish(new DisconnectEvent(session));
+        disruptorPublish(new DisconnectEvent(session), getShard(session));
     }
 
-    public void lostConnection(String clientID) {
-        disruptorPublish(new LostConnectionEvent(clientID));
+    public void lostConnection(ServerChannel session) {
+        disruptorPublish(new LostConnectionEvent(session), getShard(session));
     }
 
     public void handleProtocolMessage(ServerChannel session, AbstractMessage msg) {
-        disruptorPublish(new ProtocolEvent(session, msg));
+        int shard;
+        if (msg instanceof ConnectMessage && null != ((ConnectMessage) msg).getClientID()) {
+            // Called in the IO thread of the channel, hence later messages of the channel see the shard
+            shard = getShard(((ConnectMessage) msg).getClientID());
+            session.setAttribute(Constants.ATTR_SHARD, shard);
+        } else {
+            shard = getShard(session);
+        }
+        disruptorPublish(new ProtocolEvent(session, msg), shard);
     }
 
     public void stop() {
-        m_stopLatch = new CountDownLatch(1);
-        disruptorPublish(new StopEvent());
+        m_stopLatch = new CountDownLatch(processorCount);
+        disruptorPublish(new StopEvent(), ALL_SHARDS);
         try {
-            //wait the callback notification from the protocol processor thread
+            //wait the callback notification from all the protocol processor threads
             boolean elapsed = !m_stopLatch.await(10, TimeUnit.SECONDS);
             if (elapsed) {
                 log.warn("Can't stop the server in 10 seconds");
@@ -138,17 +209,35 @@ public class SimpleMessaging implements IMessaging, EventHandler<ValueEvent> {
         } catch (InterruptedException ex) {
             log.error(null, ex);
         }
+        processStop();
     }
 
-    public void onEvent(ValueEvent t, long l, boolean bln) throws Exception {
-        MessagingEvent evt = t.getEvent();
+    /**
+     * Check whether an event modifies the subscription or storage state and hence should not run concurrently with
+     * such events of other processors.
+     *
+     * @param evt inbound event
+     * @return true if the event should be serialized across processors
+     */
+    private boolean isStructuralEvent(MessagingEvent evt) {
+        if (evt instanceof ProtocolEvent) {
+            AbstractMessage message = ((ProtocolEvent) evt).getMessage();
+            if (message instanceof PublishMessage) {
+                // QoS 2 messages are persisted in the storage service until released
+                return AbstractMessage.QOSType.EXACTLY_ONCE == message.getQos();
+            }
+            return !(message instanceof PubAckMessage || message instanceof PubRecMessage
+                     || message instanceof PubCompMessage || message instanceof MQTTPingRequest);
+        }
+        return !(evt instanceof PublishEvent);
+    }
+
+    private void processEvent(MessagingEvent evt) {
         if (log.isDebugEnabled()) {
             log.debug("onEvent processing messaging event from input ringbuffer " + evt);
         }
         if (evt instanceof PublishEvent) {
             mqttProcessor.processPublish((PublishEvent) evt);
-        } else if (evt instanceof StopEvent) {
-            processStop();
         } else if (evt instanceof DisconnectEvent) {
             DisconnectEvent disEvt = (DisconnectEvent) evt;
             String clientID = (String) disEvt.getSession().getAttribute(Constants.ATTR_CLIENTID);
@@ -208,8 +297,6 @@ public class SimpleMessaging implements IMessaging, EventHandler<ValueEvent> {
                 throw new RuntimeException("Illegal message received " + message);
             }
 
-        } else if (evt instanceof InitEvent) {
-            processInit(((InitEvent) evt).getConfig());
         } else if (evt instanceof LostConnectionEvent) {
             LostConnectionEvent lostEvt = (LostConnectionEvent) evt;
             mqttProcessor.proccessConnectionLost(lostEvt.getClientID());
@@ -253,6 +340,66 @@ public class SimpleMessaging implements IMessaging, EventHandler<ValueEvent> {
         disruptor.shutdown();
 
         subscriptions = null;
-        m_stopLatch.countDown();
+    }
+
+    /**
+     * Handles the inbound events of a single shard
+     */
+    private class ShardEventHandler implements EventHandler<ValueEvent> {
+
+        private final int shard;
+
+        /**
+         * Rate of events processed by this shard
+         */
+        private final Meter eventMeter;
+
+        private ShardEventHandler(int shard) {
+            this.shard = shard;
+            this.eventMeter = MetricManager.meter(Level.INFO, MetricsConstants.MQTT_INBOUND_SHARD_EVENTS + shard);
+        }
+
+        @Override
+        public void onEvent(ValueEvent valueEvent, long sequence, boolean endOfBatch) throws Exception {
+            int eventShard = valueEvent.getShard();
+            MessagingEvent evt = valueEvent.getEvent();
+
+            if (ALL_SHARDS == eventShard) {
+                if (evt instanceof StopEvent) {
+                    m_stopLatch.countDown();
+                }
+                return;
+            }
+
+            if (eventShard != shard) {
+                return;
+            }
+
+            eventMeter.mark();
+            if (isStructuralEvent(evt)) {
+                synchronized (structuralEventLock) {
+                    processEvent(evt);
+                }
+            } else {
+                processEvent(evt);
+            }
+        }
+    }
+
+    /**
+     * Number of events published to the ring buffer which are not yet seen by a shard
+     */
+    private class ShardPendingEventGauge implements Gauge<Long> {
+
+        private final Sequence processedSequence;
+
+        private ShardPendingEventGauge(Sequence processedSequence) {
+            this.processedSequence = processedSequence;
+        }
+
+        @Override
+        public Long getValue() {
+            return m_ringBuffer.getCursor() - processedSequence.get();
+        }
     }
 }
@@ -7,6 +7,11 @@ public final class ValueEvent {
 
     private MessagingEvent m_event;
 
+    /**
+     * Index of the processor which handles the event. Negative for events handled by all processors
+     */
+    private int m_shard;
+
     public MessagingEvent getEvent() {
         return m_event;
     }
@@ -14,6 +19,14 @@ public final class ValueEvent {
     public void setEvent(MessagingEvent event) {
         m_event = event;
     }
+
+    public int getShard() {
+        return m_shard;
+    }
+
+    public void setShard(int shard) {
+        m_shard = shard;
+    }
     
     public final static EventFactory<ValueEvent> EVENT_FACTORY = new EventFactory<ValueEvent>() {
 
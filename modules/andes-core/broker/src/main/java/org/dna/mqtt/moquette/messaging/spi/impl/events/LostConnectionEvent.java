@@ -1,18 +1,27 @@
 package org.dna.mqtt.moquette.messaging.spi.impl.events;
 
+import org.dna.mqtt.moquette.server.Constants;
+import org.dna.mqtt.moquette.server.ServerChannel;
+
 /**
  * Used to model the connection lost event
  *
  */
 public class LostConnectionEvent extends MessagingEvent{
-    private String m_clientID;
+    private ServerChannel m_session;
 
-    public LostConnectionEvent(String clienID) {
-        m_clientID = clienID;
+    public LostConnectionEvent(ServerChannel session) {
+        m_session = session;
     }
 
+    /**
+     * The client ID is read when the event is processed, since the CONNECT of the channel may still be in process
+     * when the connection is lost.
+     *
+     * @return client ID of the channel or null if the channel did not connect
+     */
     public String getClientID() {
-        return m_clientID;
+        return (String) m_session.getAttribute(Constants.ATTR_CLIENTID);
     }
     
 }
@@ -7,4 +7,8 @@ public class Constants {
     public static final String ATTR_CLIENTID = "ClientID";
     public static final String CLEAN_SESSION = "cleanSession";
     public static final String KEEP_ALIVE = "keepAlive";
+    /**
+     * Inbound processor shard of the client of a channel. Set in the IO thread when the CONNECT is received.
+     */
+    public static final String ATTR_SHARD = "Shard";
 }
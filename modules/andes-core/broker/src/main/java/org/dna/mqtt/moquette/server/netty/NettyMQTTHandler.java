@@ -88,8 +88,7 @@ public class NettyMQTTHandler extends ChannelInboundHandlerAdapter {
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         NettyChannel channel = mqttChannelMapper.get(ctx);
         if(null != channel) {
-            String clientID = (String) channel.getAttribute(Constants.ATTR_CLIENTID);
-            m_messaging.lostConnection(clientID);
+            m_messaging.lostConnection(channel);
             ctx.close(/*false*/);
         }
         synchronized (mqttChannelMapper) {
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.amqp;
+
+import org.wso2.andes.framing.BasicContentHeaderProperties;
+import org.wso2.andes.kernel.AndesMessageMetadata;
+import org.wso2.andes.server.message.AMQMessageHeader;
+import org.wso2.andes.server.message.MessageMetaData;
+import org.wso2.andes.server.queue.Filterable;
+
+/**
+ * Read only view of the header properties of an AMQP message used to evaluate selectors. The metadata is decoded
+ * once when the view is created, hence a single view can be shared by all the subscriptions evaluating their
+ * selectors on the message instead of each creating a queue entry out of the metadata bytes.
+ */
+public class AMQPFilterableMessage implements Filterable {
+
+    /**
+     * Decoded header of the message
+     */
+    private final AMQMessageHeader messageHeader;
+
+    private final boolean persistent;
+
+    /**
+     * Decode the AMQP metadata of a message
+     *
+     * @param metadata andes metadata of the message
+     */
+    public AMQPFilterableMessage(AndesMessageMetadata metadata) {
+        MessageMetaData amqMetadata = (MessageMetaData) AMQPUtils.convertAndesMetadataToAMQMetadata(metadata);
+
+        // Application headers are decoded lazily. Decode them here so that concurrent reads of the shared view do
+        // not race on decoding.
+        BasicContentHeaderProperties properties =
+                (BasicContentHeaderProperties) amqMetadata.getContentHeaderBody().getProperties();
+        properties.getHeaders().size();
+
+        this.messageHeader = amqMetadata.getMessageHeader();
+        this.persistent = amqMetadata.isPersistent();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AMQMessageHeader getMessageHeader() {
+        return messageHeader;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    /**
+     * A message being routed to subscribers is not marked as redelivered, same as a newly created queue entry.
+     *
+     * @return false
+     */
+    @Override
+    public boolean isRedelivered() {
+        return false;
+    }
+}
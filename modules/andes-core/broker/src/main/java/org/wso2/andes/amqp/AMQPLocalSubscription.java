@@ -27,25 +27,26 @@ import org.wso2.andes.kernel.AndesContent;
 import org.wso2.andes.kernel.AndesException;
 import org.wso2.andes.kernel.AndesMessageMetadata;
 import org.wso2.andes.kernel.AndesUtils;
+import org.wso2.andes.kernel.DeliverableAndesMetadata;
 import org.wso2.andes.kernel.DestinationType;
 import org.wso2.andes.kernel.ProtocolDeliveryFailureException;
 import org.wso2.andes.kernel.ProtocolDeliveryRulesFailureException;
 import org.wso2.andes.kernel.ProtocolMessage;
 import org.wso2.andes.server.AMQChannel;
+import org.wso2.andes.server.filter.PropertyEqualityPredicate;
 import org.wso2.andes.server.message.AMQMessage;
-import org.wso2.andes.server.message.MessageMetaData;
 import org.wso2.andes.server.queue.AMQQueue;
+import org.wso2.andes.server.queue.Filterable;
 import org.wso2.andes.server.queue.QueueEntry;
-import org.wso2.andes.server.store.StoredMessage;
 import org.wso2.andes.server.subscription.Subscription;
 import org.wso2.andes.server.subscription.SubscriptionImpl;
+import org.wso2.andes.subscription.EqualitySelector;
 import org.wso2.andes.subscription.OutboundSubscription;
 import org.wso2.andes.tools.utils.MessageTracer;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 
@@ -73,15 +74,12 @@ public class AMQPLocalSubscription implements OutboundSubscription {
     //if this subscription represent a topic subscription
     private  boolean isBoundToTopic;
 
-    /*
-     * This map works as a cache for queue entries, preventing need to convert
-     * DeliverableAndesMetadata to queue entries two times
-     */
-    private Map<Long, StoredMessage<MessageMetaData>> storedMessageCache;
-
     //List of Delivery Rules to evaluate
     private List<AMQPDeliveryRule> AMQPDeliveryRulesList = new ArrayList<>();
 
+    //selector of the subscription if it is a simple property equality
+    private EqualitySelector equalitySelector;
+
 
     public AMQPLocalSubscription(AMQQueue amqQueue, Subscription amqpSubscription, boolean isDurable, boolean
             isBoundToTopic) {
@@ -92,12 +90,16 @@ public class AMQPLocalSubscription implements OutboundSubscription {
         if (amqpSubscription != null && amqpSubscription instanceof SubscriptionImpl) {
             channel = ((SubscriptionImpl) amqpSubscription).getChannel();
             initializeDeliveryRules();
+
+            PropertyEqualityPredicate equalityPredicate =
+                    ((SubscriptionImpl) amqpSubscription).getEqualityPredicate();
+            if (null != equalityPredicate) {
+                equalitySelector = new AMQPEqualitySelector(equalityPredicate);
+            }
         }
 
         this.isDurable = isDurable;
         this.isBoundToTopic = isBoundToTopic;
-
-        this.storedMessageCache = new HashMap<>();
     }
 
     /**
@@ -143,15 +145,43 @@ public class AMQPLocalSubscription implements OutboundSubscription {
     public boolean isMessageAcceptedBySelector(AndesMessageMetadata messageMetadata)
             throws AndesException {
 
+        if (amqpSubscription instanceof SubscriptionImpl) {
+            SubscriptionImpl subscription = (SubscriptionImpl) amqpSubscription;
+            // Message need not be decoded if the subscription has no selector
+            return !subscription.hasFilters() || subscription.isAcceptedByFilters(getFilterableView(messageMetadata));
+        }
+
         AMQMessage amqMessage = AMQPUtils.getAMQMessageFromAndesMetaData(messageMetadata);
         QueueEntry message = AMQPUtils.convertAMQMessageToQueueEntry(amqMessage, amqQueue);
+        return amqpSubscription.hasInterest(message);
+    }
 
-        if(amqpSubscription.hasInterest(message)) {
-            storedMessageCache.put(message.getMessage().getMessageNumber(), amqMessage.getStoredMessage());
-            return true;
-        } else {
-            return false;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EqualitySelector getEqualitySelector() {
+        return equalitySelector;
+    }
+
+    /**
+     * Get the decoded properties of a message to evaluate the selector. The view is shared through the message
+     * metadata with the other subscriptions evaluating selectors on the same message.
+     *
+     * @param messageMetadata message to evaluate
+     * @return decoded message properties
+     */
+    private Filterable getFilterableView(AndesMessageMetadata messageMetadata) {
+        if (messageMetadata instanceof DeliverableAndesMetadata) {
+            DeliverableAndesMetadata deliverableMetadata = (DeliverableAndesMetadata) messageMetadata;
+            Filterable filterableView = deliverableMetadata.getFilterableView();
+            if (null == filterableView) {
+                filterableView = new AMQPFilterableMessage(messageMetadata);
+                deliverableMetadata.setFilterableView(filterableView);
+            }
+            return filterableView;
         }
+        return new AMQPFilterableMessage(messageMetadata);
     }
 
     /**
@@ -161,17 +191,7 @@ public class AMQPLocalSubscription implements OutboundSubscription {
     public boolean sendMessageToSubscriber(ProtocolMessage messageMetadata, AndesContent content)
             throws AndesException {
 
-        StoredMessage<MessageMetaData> cachedStoredMessage = storedMessageCache.get(messageMetadata.getMessageID());
-
-        AMQMessage message;
-
-        if(null != cachedStoredMessage) {
-            message = AMQPUtils.getQueueEntryFromStoredMessage(cachedStoredMessage, content);
-            storedMessageCache.remove(messageMetadata.getMessageID());
-            message.setAndesMetadataReference(messageMetadata);
-        } else {
-            message = AMQPUtils.getAMQMessageForDelivery(messageMetadata, content);
-        }
+        AMQMessage message = AMQPUtils.getAMQMessageForDelivery(messageMetadata, content);
 
         QueueEntry messageToSend = AMQPUtils.convertAMQMessageToQueueEntry(message, amqQueue);
 
@@ -281,4 +301,40 @@ public class AMQPLocalSubscription implements OutboundSubscription {
 
         return storageQueueName;
     }
+
+    /**
+     * Equality selector reading the message property from the decoded properties shared between the subscriptions
+     */
+    private class AMQPEqualitySelector implements EqualitySelector {
+
+        private final PropertyEqualityPredicate predicate;
+
+        private AMQPEqualitySelector(PropertyEqualityPredicate predicate) {
+            this.predicate = predicate;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getPropertyName() {
+            return predicate.getPropertyName();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Set<String> getAcceptedValues() {
+            return predicate.getValues();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getPropertyValue(AndesMessageMetadata messageMetadata) throws AndesException {
+            return predicate.getPropertyValue(getFilterableView(messageMetadata));
+        }
+    }
 }
@@ -24,7 +24,6 @@ import org.wso2.andes.AMQException;
 import org.wso2.andes.AMQInternalException;
 import org.wso2.andes.exchange.ExchangeDefaults;
 import org.wso2.andes.framing.AMQShortString;
-import org.wso2.andes.framing.abstraction.ContentChunk;
 import org.wso2.andes.kernel.Andes;
 import org.wso2.andes.kernel.AndesAckData;
 import org.wso2.andes.kernel.AndesBinding;
@@ -131,15 +130,7 @@ public class QpidAndesBridge {
             AndesMessage andesMessage = new AMQPMessage(metadata);
 
             // Update Andes message with all the chunk details
-            int contentChunks = incomingMessage.getBodyCount();
-            int offset = 0;
-            for (int i = 0; i < contentChunks; i++) {
-                ContentChunk chunk = incomingMessage.getContentChunk(i);
-                AndesMessagePart messagePart = messageContentChunkReceived(
-                                                        metadata.getMessageID(), offset, chunk.getData().buf());
-                offset = offset + chunk.getSize();
-                andesMessage.addMessagePart(messagePart);
-            }
+            andesMessage.setChunkList(assembleContentChunks(incomingMessage, metadata.getMessageID()));
 
             // Handover message to Andes
             if(null == transactionEvent) { // not a transaction
@@ -184,27 +175,80 @@ public class QpidAndesBridge {
     }
 
     /**
-     * message content chunk received to the server
+     * Copy the content frames of the incoming message into message parts of the store chunk size. Each content
+     * byte is copied once, straight from the frame buffer into the part stored by Andes. Therefore the parts need
+     * no further resizing before they are written to the store or the cache.
      *
-     * @param messageID       id of message to which content belongs
-     * @param offsetInMessage chunk offset
-     * @param src             Bytebuffer with content bytes
+     * @param incomingMessage message coming in
+     * @param messageID       id of the message
+     * @return list of message parts in the order of offset
+     * @throws AMQException
      */
-    public static AndesMessagePart messageContentChunkReceived(long messageID, int offsetInMessage, ByteBuffer src) {
+    private static List<AndesMessagePart> assembleContentChunks(IncomingMessage incomingMessage, long messageID)
+            throws AMQException {
+
+        int contentChunks = incomingMessage.getBodyCount();
+        int contentLength = 0;
+        for (int i = 0; i < contentChunks; i++) {
+            contentLength = contentLength + incomingMessage.getContentChunk(i).getSize();
+        }
+
+        // Chunk size is known only after the kernel is booted. Keep the frame boundaries till then and let the
+        // content chunk handler resize the parts.
+        int chunkSize = AMQPUtils.DEFAULT_CONTENT_CHUNK_SIZE;
+        boolean keepFrameBoundaries = chunkSize <= 0;
+
+        List<AndesMessagePart> partList = new ArrayList<>(keepFrameBoundaries ? contentChunks
+                                                                               : (contentLength / chunkSize) + 1);
+        byte[] data = null;
+        int written = 0;    // Bytes copied into completed parts
+        int position = 0;   // Bytes copied into the current part
+
+        for (int i = 0; i < contentChunks; i++) {
+            ByteBuffer src = incomingMessage.getContentChunk(i).getData().buf().duplicate();
+
+            while (src.hasRemaining()) {
+                if (null == data) {
+                    int partLength = keepFrameBoundaries ? src.remaining()
+                                                         : Math.min(chunkSize, contentLength - written);
+                    data = new byte[partLength];
+                    position = 0;
+                }
+
+                int copyLength = Math.min(src.remaining(), data.length - position);
+                src.get(data, position, copyLength);
+                position = position + copyLength;
+
+                if (position == data.length) {
+                    partList.add(createMessagePart(messageID, written, data));
+                    written = written + data.length;
+                    data = null;
+                }
+            }
+        }
 
         if (log.isDebugEnabled()) {
-            log.debug("Content Part Received id " + messageID + ", offset " + offsetInMessage);
+            log.debug("Content of message id " + messageID + " assembled into " + partList.size() + " parts from "
+                      + contentChunks + " frames");
         }
-        AndesMessagePart part = new AndesMessagePart();
-        src = src.slice();
-        final byte[] chunkData = new byte[src.limit()];
-        src.duplicate().get(chunkData);
 
-        part.setData(chunkData);
+        return partList;
+    }
+
+    /**
+     * Create a message part wrapping the given content bytes
+     *
+     * @param messageID       id of the message
+     * @param offsetInMessage offset of the part within the message content
+     * @param data            content bytes of the part
+     * @return message part
+     */
+    private static AndesMessagePart createMessagePart(long messageID, int offsetInMessage, byte[] data) {
+        AndesMessagePart part = new AndesMessagePart();
+        part.setData(data);
         part.setMessageID(messageID);
         part.setOffSet(offsetInMessage);
-        part.setDataLength(chunkData.length);
-
+        part.setDataLength(data.length);
         return part;
     }
 
@@ -49,6 +49,12 @@ public enum AndesConfiguration implements ConfigurationProperty {
      */
     COORDINATOR_THRIFT_RECONNECT_TIMEOUT("coordination/thriftServerReconnectTimeout", "5", Long.class),
 
+    /**
+     * Maximum number of thrift connections a node keeps open towards the slot coordinator. This also bounds the
+     * number of in-flight slot coordination requests sent from the node at a given time.
+     */
+    COORDINATION_THRIFT_CLIENT_POOL_SIZE("coordination/thriftClientPoolSize", "4", Integer.class),
+
     /**
      * We use Hazelcast reliable topics to share all notifications across the cluster (e.g. subscription changes).
      * And this property defines the time-to-live for a notification since its creation. (in Seconds)
@@ -181,6 +187,12 @@ public enum AndesConfiguration implements ConfigurationProperty {
      */
     TRANSPORTS_MQTT_INBOUND_BUFFER_SIZE("transports/mqtt/inboundBufferSize", "32768", Integer.class),
 
+    /**
+     * Number of threads processing MQTT inbound events. Events are partitioned by client ID, hence events of a
+     * single client are always processed in order by the same thread.
+     */
+    TRANSPORTS_MQTT_INBOUND_PROCESSOR_COUNT("transports/mqtt/inboundProcessorCount", "4", Integer.class),
+
     /**
      * Ring buffer size of MQTT delivery event Disruptor. Default is set to 32768 (1024 * 32)
      */
@@ -278,6 +290,28 @@ public enum AndesConfiguration implements ConfigurationProperty {
      * Indicates weather print cache related statistics in 2 minutes interval in carbon log.
      */
     PERSISTENCE_CACHE_PRINT_STATS("persistence/cache/printStats", "false", Boolean.class),
+
+    /**
+     * Where cached message content is kept.
+     * <ul>
+     *     <li>onHeap - messages are kept as java objects on the heap.</li>
+     *     <li>offHeap - message content is copied to direct memory slabs outside of the heap, so that a large cache
+     *     does not increase garbage collection pauses. Only an index of the cached messages is kept on the heap.</li>
+     * </ul>
+     */
+    PERSISTENCE_CACHE_TYPE("persistence/cache/type", "onHeap", String.class),
+
+    /**
+     * Size in KBs of a page of the off heap cache. Message content is stored in one or more pages. A smaller page
+     * size wastes less memory for small messages.
+     */
+    PERSISTENCE_CACHE_OFF_HEAP_PAGE_SIZE("persistence/cache/offHeapPageSizeInKB", "4", Integer.class),
+
+    /**
+     * Size in MBs of a single direct memory slab of the off heap cache. Slabs are allocated on demand until the
+     * cache size is reached.
+     */
+    PERSISTENCE_CACHE_OFF_HEAP_SLAB_SIZE("persistence/cache/offHeapSlabSizeInMB", "64", Integer.class),
     
     /**
      * The ID generation class that is used to maintain unique IDs for each message that arrives at the server.
@@ -343,6 +377,48 @@ public enum AndesConfiguration implements ConfigurationProperty {
     PERFORMANCE_TUNING_SLOTS_WORKER_THREAD_COUNT("performanceTuning/slots/workerThreadCount", "5",
             Integer.class),
 
+    /**
+     * Slot delivery workers serve a storage queue as soon as a slot is submitted for it from the local node. A
+     * storage queue which had no slots to deliver is checked again after this delay (in milliseconds), doubled for
+     * each consecutive idle check. This picks up slots submitted by other nodes of the cluster.
+     */
+    PERFORMANCE_TUNING_SLOTS_IDLE_QUEUE_MIN_RECHECK_INTERVAL
+            ("performanceTuning/slots/idleQueueRecheckInterval/minimum", "10", Long.class),
+
+    /**
+     * Upper bound (in milliseconds) of the delay before an idle storage queue is checked again for slots.
+     */
+    PERFORMANCE_TUNING_SLOTS_IDLE_QUEUE_MAX_RECHECK_INTERVAL
+            ("performanceTuning/slots/idleQueueRecheckInterval/maximum", "1000", Long.class),
+
+    /**
+     * Maximum number of slots a slot delivery worker requests from the coordinator for a storage queue at once.
+     * Slots which are not read right away are kept in memory until the storage queue is served again. Slots for all
+     * storage queues of a worker which are ready to be served are requested in a single call to the coordinator.
+     */
+    PERFORMANCE_TUNING_SLOTS_PREFETCH_COUNT("performanceTuning/slots/slotPrefetchCount", "1", Integer.class),
+
+    /**
+     * Number of messages a slot delivery worker may read for a storage queue of weight 1 in one turn before moving
+     * on to the next ready storage queue. Slots are read whole, hence a storage queue may go over its share in a turn.
+     * The excess is deducted from its next turn.
+     */
+    PERFORMANCE_TUNING_SLOTS_DELIVERY_QUANTUM("performanceTuning/slots/deliveryQuantum", "1000", Integer.class),
+
+    /**
+     * List of storage queues (or destinations) which are given a delivery weight other than 1.
+     */
+    LIST_PERFORMANCE_TUNING_SLOTS_DELIVERY_WEIGHTS("performanceTuning/slots/deliveryWeights/queue/@name", "",
+            List.class),
+
+    /**
+     * Delivery weight of a storage queue (or destination) by its name. A storage queue of weight n is given n times
+     * the delivery quantum in each turn and counts n times towards the load of the worker serving it.
+     * e.g. <queue name="orders">4</queue>
+     */
+    PERFORMANCE_TUNING_SLOTS_DELIVERY_WEIGHT("performanceTuning/slots/deliveryWeights/queue[@name = '{key}']", "1",
+            Integer.class),
+
     /**
      * Published message information is sent to slot coordinator by the node when it either reaches the slot window
      * size or the window creation timeout in milliseconds. This configures the timeout for slot window creation task.
@@ -398,6 +474,33 @@ public enum AndesConfiguration implements ConfigurationProperty {
     PERFORMANCE_TUNING_DELIVERY_CONTENT_READ_BATCH_SIZE("performanceTuning/delivery/contentReadBatchSize", "65000",
             Integer.class),
 
+    /**
+     * Load the content of all the messages of a slot into the message cache when the slot is read for delivery,
+     * instead of reading content in batches while delivering. Has no effect if the message cache is disabled.
+     */
+    PERFORMANCE_TUNING_DELIVERY_CONTENT_PREFETCH_ENABLED("performanceTuning/delivery/contentPrefetch/@enabled",
+            "true", Boolean.class),
+
+    /**
+     * Number of threads used to prefetch slot content from the message store.
+     */
+    PERFORMANCE_TUNING_DELIVERY_CONTENT_PREFETCH_THREADS("performanceTuning/delivery/contentPrefetch/threads",
+            "2", Integer.class),
+
+    /**
+     * Number of messages read from the message store at a time when delivering to a queue browser.
+     */
+    PERFORMANCE_TUNING_DELIVERY_QUEUE_BROWSER_PAGE_SIZE("performanceTuning/delivery/queueBrowserPageSize",
+            "1000", Integer.class),
+
+    /**
+     * Maximum number of bytes written to a queue browser's connection which may still be waiting to be sent when
+     * the next page is read. Reading waits until the client has drained the connection below this limit, so that
+     * a slow browser does not pile up messages in memory.
+     */
+    PERFORMANCE_TUNING_DELIVERY_QUEUE_BROWSER_MAX_PENDING_WRITE_BYTES(
+            "performanceTuning/delivery/queueBrowserMaxPendingWriteBytes", "4194304", Integer.class),
+
     /**
      * Specify the maximum number of entries the cache may contain
      */
@@ -440,6 +543,40 @@ public enum AndesConfiguration implements ConfigurationProperty {
     PERFORMANCE_TUNING_MESSAGE_WRITER_BATCH_SIZE
             ("performanceTuning/inboundEvents/messageWriterBatchSize", "70", Integer.class),
 
+    /**
+     * Enable adaptive batch sizing for inbound message writers. When enabled the batch size starts at
+     * messageWriterBatchSize and is changed within the min and max batch size depending on the observed store
+     * commit latency and the number of events waiting in the ring.
+     */
+    PERFORMANCE_TUNING_ADAPTIVE_BATCHING_ENABLED
+            ("performanceTuning/inboundEvents/adaptiveBatching/@enabled", "false", Boolean.class),
+
+    /**
+     * Lower bound for the adaptive message writer batch size.
+     */
+    PERFORMANCE_TUNING_ADAPTIVE_BATCHING_MIN_BATCH_SIZE
+            ("performanceTuning/inboundEvents/adaptiveBatching/minBatchSize", "10", Integer.class),
+
+    /**
+     * Upper bound for the adaptive message writer batch size.
+     */
+    PERFORMANCE_TUNING_ADAPTIVE_BATCHING_MAX_BATCH_SIZE
+            ("performanceTuning/inboundEvents/adaptiveBatching/maxBatchSize", "500", Integer.class),
+
+    /**
+     * Batch size is reduced when writing a batch to the store takes longer than this.
+     */
+    PERFORMANCE_TUNING_ADAPTIVE_BATCHING_TARGET_COMMIT_LATENCY
+            ("performanceTuning/inboundEvents/adaptiveBatching/targetCommitLatencyInMilliseconds", "20",
+             Integer.class),
+
+    /**
+     * Maximum time a message waits in a message writer batch before the batch is written even if it is not full.
+     * A batch is always written when no more events are available in the ring. Zero disables this bound.
+     */
+    PERFORMANCE_TUNING_ADAPTIVE_BATCHING_MAX_LINGER
+            ("performanceTuning/inboundEvents/adaptiveBatching/maxLingerInMicroseconds", "0", Integer.class),
+
     /**
      * Timeout for waiting for a queue purge event to end to get the purged count. Doesn't affect actual purging.
      * If purge takes time, increasing the value will improve the possibility of retrieving the correct purged count.
@@ -468,6 +605,21 @@ public enum AndesConfiguration implements ConfigurationProperty {
     PERFORMANCE_TUNING_ACK_HANDLING_MAX_UNACKED_MESSAGES("performanceTuning/ackHandling" +
             "/maxUnackedMessages", "1000", Integer.class),
 
+    /**
+     * Interval in milliseconds at which message count changes of queues tracked in memory are written to the
+     * queue counter table. Message counts of the other nodes of the cluster are refreshed at the same interval.
+     */
+    PERFORMANCE_TUNING_MESSAGE_COUNTER_CHECKPOINT_INTERVAL
+            ("performanceTuning/messageCounter/checkpointIntervalInMilliseconds", "5000", Integer.class),
+
+    /**
+     * Interval in milliseconds at which the coordinator compares the queue counters with the messages in the message
+     * store. A counter is corrected only if it disagreed with the store by the same amount in two consecutive
+     * comparisons without any change to the queue in between. The interval is at least three checkpoint intervals.
+     */
+    PERFORMANCE_TUNING_MESSAGE_COUNTER_RECONCILE_INTERVAL
+            ("performanceTuning/messageCounter/reconcileIntervalInMilliseconds", "60000", Integer.class),
+
     /**
      * When delivering topic messages to multiple topic subscribers a strategy can be chosen.
      */
@@ -517,6 +669,12 @@ public enum AndesConfiguration implements ConfigurationProperty {
     MANAGEMENT_CONSOLE_MESSAGE_BROWSE_PAGE_SIZE("managementConsole" +
             "/messageBrowsePageSize", "100", Integer.class),
 
+    /**
+     * The number of messages moved from the dead letter channel in a single store operation when restoring messages
+     * from the management console.
+     */
+    MANAGEMENT_CONSOLE_DLC_RESTORE_BATCH_SIZE("managementConsole/dlcRestoreBatchSize", "1000", Integer.class),
+
     /**
      * This property defines the maximum message content length that can be displayed at the management console when
      * browsing queues. If the message length exceeds the value, a truncated content will be displayed with a statement
@@ -114,6 +114,7 @@ public class AMQPConstructStore {
             andesContextStore.storeQueueInformation(queue.queueName, queue.encodeAsString());
             //create a space to keep message counter on this queue
             messageStore.addQueue(queue.queueName);
+            MessagingEngine.getInstance().getQueueMessageCounter().registerQueue(queue.queueName);
         }
         andesQueues.put(queue.queueName, queue);
     }
@@ -132,6 +133,7 @@ public class AMQPConstructStore {
         // Remove queue information from database
         andesContextStore.deleteQueueInformation(queueName);
         messageStore.removeQueue(queueName);
+        MessagingEngine.getInstance().getQueueMessageCounter().removeQueue(queueName);
     }
 
     /**
@@ -143,6 +145,7 @@ public class AMQPConstructStore {
     public void removeLocalQueueData(String queueName) throws AndesException {
         andesQueues.remove(queueName);
         messageStore.removeLocalQueueData(queueName);
+        MessagingEngine.getInstance().getQueueMessageCounter().removeLocalQueueData(queueName);
     }
 
     /**
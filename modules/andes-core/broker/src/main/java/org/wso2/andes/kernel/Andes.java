@@ -30,6 +30,7 @@ import org.wso2.andes.kernel.disruptor.inbound.InboundEventManager;
 import org.wso2.andes.kernel.disruptor.inbound.InboundExchangeEvent;
 import org.wso2.andes.kernel.disruptor.inbound.InboundKernelOpsEvent;
 import org.wso2.andes.kernel.disruptor.inbound.InboundQueueEvent;
+import org.wso2.andes.kernel.disruptor.inbound.InboundRestoreDLCMessagesEvent;
 import org.wso2.andes.kernel.disruptor.inbound.InboundSubscriptionEvent;
 import org.wso2.andes.kernel.disruptor.inbound.InboundTransactionEvent;
 import org.wso2.andes.kernel.disruptor.inbound.PubAckHandler;
@@ -109,6 +110,16 @@ public class Andes {
      */
     private final int MAX_TX_BATCH_SIZE;
 
+    /**
+     * Rate of messages received from publishers
+     */
+    private final Meter messageReceiveMeter;
+
+    /**
+     * Rate of acknowledgements received from subscribers
+     */
+    private final Meter ackReceiveMeter;
+
     /**
      * Instance of AndesAPI returned.
      *
@@ -126,6 +137,8 @@ public class Andes {
         this.flowControlManager = new FlowControlManager();
         MAX_TX_BATCH_SIZE = AndesConfigurationManager.
                 readValue(AndesConfiguration.MAX_TRANSACTION_BATCH_SIZE);
+        messageReceiveMeter = MetricManager.meter(Level.INFO, MetricsConstants.MSG_RECEIVE_RATE);
+        ackReceiveMeter = MetricManager.meter(Level.INFO, MetricsConstants.ACK_RECEIVE_RATE);
     }
 
     /**
@@ -174,8 +187,7 @@ public class Andes {
         inboundEventManager.messageReceived(message, andesChannel, pubAckHandler);
 
         //Adding metrics meter for message rate
-        Meter messageMeter = MetricManager.meter(Level.INFO, MetricsConstants.MSG_RECEIVE_RATE);
-        messageMeter.mark();
+        messageReceiveMeter.mark();
     }
 
     /**
@@ -190,8 +202,7 @@ public class Andes {
                 .getDestination(), MessageTracer.ACK_RECEIVED_FROM_PROTOCOL);
 
         //Adding metrics meter for ack rate
-        Meter ackMeter = MetricManager.meter(Level.INFO, MetricsConstants.ACK_RECEIVE_RATE);
-        ackMeter.mark();
+        ackReceiveMeter.mark();
 
         //We call this later as this call removes the ackData.getAcknowledgedMessage() message
         inboundEventManager.ackReceived(ackData);
@@ -357,6 +368,23 @@ public class Andes {
         inboundEventManager.publishStateEvent(deleteDLCMessagesEvent);
     }
 
+    /**
+     * Method to restore messages from the dead letter channel. Messages are moved within the message store under new
+     * message IDs and delivered to the destination and storage queue set in the given metadata. Call blocks until
+     * the messages are restored.
+     *
+     * @param messagesToRestore Metadata of the messages in the dead letter channel, with the destination and storage
+     *                          queue to restore them to
+     * @throws AndesException if the messages could not be restored
+     */
+    public void restoreMessagesFromDLC(List<AndesMessageMetadata> messagesToRestore) throws AndesException {
+        InboundRestoreDLCMessagesEvent restoreDLCMessagesEvent
+                = new InboundRestoreDLCMessagesEvent(messagesToRestore);
+        restoreDLCMessagesEvent.prepareForRestore(messagingEngine);
+        inboundEventManager.publishStateEvent(restoreDLCMessagesEvent);
+        restoreDLCMessagesEvent.waitForCompletion();
+    }
+
     /**
      * Create queue in Andes kernel.
      *
@@ -578,6 +606,19 @@ public class Andes {
         return MessagingEngine.getInstance().getNextNMessageMetadataFromDLC(dlcQueueName, firstMsgId, count);
     }
 
+    /**
+     * Get message metadata of the given messages in dlc.
+     *
+     * @param dlcQueueName  name of the dead letter channel queue
+     * @param messageIdList ids of the messages to read
+     * @return List of message metadata of the messages in the dlc
+     * @throws AndesException
+     */
+    public List<AndesMessageMetadata> getMessageMetadataFromDLC(final String dlcQueueName, List<Long> messageIdList)
+            throws AndesException {
+        return MessagingEngine.getInstance().getMessageMetadataFromDLC(dlcQueueName, messageIdList);
+    }
+
     /**
      * Get expired but not yet deleted messages from message store.
      * @param limit upper bound for number of messages to be returned
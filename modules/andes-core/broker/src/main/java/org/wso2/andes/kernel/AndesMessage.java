@@ -37,6 +37,12 @@ public class AndesMessage {
      */
     private List<AndesMessagePart> contentChunkList;
 
+    /**
+     * Reference count of the content when this message is one of several topic clones whose chunks refer to
+     * the same content bytes. Null if the content is not shared
+     */
+    private SharedMessageContent sharedContent;
+
     public AndesMessage(AndesMessageMetadata metadata) {
         this.metadata = metadata;
         contentChunkList = new ArrayList<AndesMessagePart>();
@@ -64,6 +70,22 @@ public class AndesMessage {
         return contentChunkList;
     }
 
+    /**
+     * Get the reference count of the content shared with other clones of the same message
+     * @return shared content reference count, or null if the content is not shared
+     */
+    public SharedMessageContent getSharedContent() {
+        return sharedContent;
+    }
+
+    /**
+     * Set the reference count of the content shared with other clones of the same message
+     * @param sharedContent reference count shared by all clones referring to the same content bytes
+     */
+    public void setSharedContent(SharedMessageContent sharedContent) {
+        this.sharedContent = sharedContent;
+    }
+
     public void addMessagePart(AndesMessagePart messagePart) {
         contentChunkList.add(messagePart);
     }
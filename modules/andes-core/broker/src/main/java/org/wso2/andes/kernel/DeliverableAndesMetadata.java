@@ -21,26 +21,73 @@ package org.wso2.andes.kernel;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.andes.kernel.slot.Slot;
+import org.wso2.andes.server.queue.Filterable;
 import org.wso2.andes.subscription.LocalSubscription;
 import org.wso2.andes.tools.utils.MessageTracer;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * This class represents the message metadata and all the delivery aspects of it to the subscribers (outbound path).
  * The lifecycle of the message is maintained here itself.
+ * <p/>
+ * Many of these objects are kept in memory for buffered messages. Therefore message state is kept as a packed int
+ * and per channel state in small arrays indexed by the order channels are added. Full status histories are kept
+ * only if {@link MessageTracer} is enabled when the message is read.
  */
 public class DeliverableAndesMetadata extends AndesMessageMetadata{
 
     /**
-     * Map to keep message status and delivery information of this message to vivid channels
+     * Number of bits used to keep the ordinal of a status
      */
-    private Map<UUID, ChannelInformation> channelDeliveryInfo;
+    private static final int STATUS_BITS = 8;
+
+    /**
+     * Mask to extract the status ordinal from a packed state
+     */
+    private static final int STATUS_MASK = (1 << STATUS_BITS) - 1;
+
+    /**
+     * Packed message state. Lower bits hold the ordinal of the latest {@link MessageStatus} plus one (zero if the
+     * message has no status). Each upper bit is set when the message has gone through the {@link MessageStatus}
+     * with the ordinal of that bit position minus STATUS_BITS.
+     */
+    private volatile int messageState;
+
     /**
-     * State transition of the message
+     * State transition of the message. Null unless message tracing was enabled when the message was read
      */
-    private List<MessageStatus> messageStatus;
+    private final List<MessageStatus> messageStatus;
+
+    /**
+     * Channels this message is scheduled to. Only the first channelCount entries are in use
+     */
+    private UUID[] channelIDs;
+
+    /**
+     * Packed state of each channel at the same index of channelIDs. Lower bits hold the ordinal of the latest
+     * {@link ChannelMessageStatus} plus one (zero if there is no status yet), upper bits the number of deliveries
+     * to the channel.
+     */
+    private int[] channelStates;
+
+    /**
+     * Number of channels this message is scheduled to
+     */
+    private int channelCount;
+
+    /**
+     * Status transitions for each channel at the same index of channelIDs. Null unless message tracing was enabled
+     * when the message was read
+     */
+    private final List<List<ChannelMessageStatus>> channelStatusHistories;
     /**
      * Parent slot of message.
      */
@@ -64,15 +111,35 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      */
     private boolean stale;
 
+    /**
+     * Decoded message properties used to evaluate subscription selectors. Decoded by the first subscription
+     * evaluating its selector on the message and shared by the rest.
+     */
+    private volatile Filterable filterableView;
+
     private static Log log = LogFactory.getLog(DeliverableAndesMetadata.class);
 
+    /**
+     * Cached enum values to resolve packed ordinals without cloning the values array
+     */
+    private static final MessageStatus[] MESSAGE_STATUSES = MessageStatus.values();
+
+    private static final ChannelMessageStatus[] CHANNEL_MESSAGE_STATUSES = ChannelMessageStatus.values();
+
     public DeliverableAndesMetadata(Slot slot, long messageID, byte[] metadata, boolean parse) {
         super(messageID, metadata, parse);
         this.slot = slot;
         this.timeMessageIsRead = System.currentTimeMillis();
-        this.channelDeliveryInfo = new ConcurrentHashMap<>();
-        this.messageStatus = Collections.synchronizedList(new ArrayList<MessageStatus>());
-        this.messageStatus.add(MessageStatus.READ);
+        this.channelIDs = new UUID[1];
+        this.channelStates = new int[1];
+        if (MessageTracer.isEnabled()) {
+            this.messageStatus = new ArrayList<>(5);
+            this.channelStatusHistories = new ArrayList<>(1);
+        } else {
+            this.messageStatus = null;
+            this.channelStatusHistories = null;
+        }
+        addMessageStatus(MessageStatus.READ);
     }
 
     /**
@@ -123,11 +190,11 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      * @return encoded status history
      */
     public String getStatusHistoryAsString() {
-        String history = "";
-        for (MessageStatus status : messageStatus) {
-            history = history + status + ">>";
+        StringBuilder history = new StringBuilder();
+        for (MessageStatus status : getStatusHistory()) {
+            history.append(status).append(">>");
         }
-        return history;
+        return history.toString();
     }
 
     /**
@@ -136,24 +203,26 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      */
     public String getMessageStatusWithAllChannelStatus() {
         String messageStatusHistory = getStatusHistoryAsString();
-        String deliveries = "";
-        for (UUID channelID : getAllDeliveredChannels()) {
-            deliveries = deliveries + channelID + " : " + channelDeliveryInfo.get(channelID)
-                    .getMessageStatusHistoryForChannelAsString() + " | ";
-        }
-
-        String completeInfo = "[" + messageStatusHistory + "]" + deliveries;
+        String completeInfo = "[" + messageStatusHistory + "]" + getChannelStatusHistoriesAsString();
         return completeInfo;
 
     }
 
     /**
-     * Get message status this message went through as a list
+     * Get message status this message went through as a list. If message tracing was not enabled when the
+     * message was read, only the latest status is available.
      *
      * @return list of MessageStatus
      */
-    public List<MessageStatus> getStatusHistory() {
-        return messageStatus;
+    public synchronized List<MessageStatus> getStatusHistory() {
+        if (null != messageStatus) {
+            return new ArrayList<>(messageStatus);
+        }
+        MessageStatus latest = getLatestState();
+        if (null == latest) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(latest);
     }
 
     /**
@@ -161,11 +230,18 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      * @return message status
      */
     public MessageStatus getLatestState() {
-        MessageStatus latest = null;
-        if (messageStatus.size() > 0) {
-            latest = messageStatus.get(messageStatus.size() - 1);
-        }
-        return latest;
+        int ordinal = (messageState & STATUS_MASK) - 1;
+        return (ordinal < 0) ? null : MESSAGE_STATUSES[ordinal];
+    }
+
+    /**
+     * Check if the message has gone through the given status at any point
+     *
+     * @param status status to check
+     * @return true if the message was in the given status
+     */
+    private boolean hasBeenIn(MessageStatus status) {
+        return (messageState & (1 << (STATUS_BITS + status.ordinal()))) != 0;
     }
 
     /**
@@ -174,9 +250,9 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      * @param channelID ID of the channel to deliver
      * @return if message is a redelivery
      */
-    public boolean isRedelivered(UUID channelID) {
-        Integer numOfDeliveries = channelDeliveryInfo.get(channelID).getDeliveryCount();
-        return numOfDeliveries > 0;
+    public synchronized boolean isRedelivered(UUID channelID) {
+        int channelIndex = getChannelIndex(channelID);
+        return (channelIndex >= 0) && (getDeliveryCount(channelIndex) > 0);
     }
 
     /**
@@ -192,13 +268,9 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      * @param localSubscriptions local subscriptions to deliver. AMQP/MQTT subscribers have individual
      *                           delivery channels
      */
-    public void markAsScheduledToDeliver(Collection<LocalSubscription> localSubscriptions) {
+    public synchronized void markAsScheduledToDeliver(Collection<LocalSubscription> localSubscriptions) {
         for (LocalSubscription subscription : localSubscriptions) {
-            ChannelInformation channelInformation = channelDeliveryInfo.get(subscription.getChannelID());
-            if (null == channelInformation) {
-                channelInformation = new ChannelInformation();
-                channelDeliveryInfo.put(subscription.getChannelID(), channelInformation);
-            }
+            addChannelIfAbsent(subscription.getChannelID());
         }
         addMessageStatus(MessageStatus.SCHEDULED_TO_SEND);
     }
@@ -208,12 +280,8 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      *
      * @param subscription subscription to deliver message
      */
-    public void markAsScheduledToDeliver(LocalSubscription subscription) {
-        ChannelInformation channelInformation = channelDeliveryInfo.get(subscription.getChannelID());
-        if (null == channelInformation) {
-            channelInformation = new ChannelInformation();
-            channelDeliveryInfo.put(subscription.getChannelID(), channelInformation);
-        }
+    public synchronized void markAsScheduledToDeliver(LocalSubscription subscription) {
+        addChannelIfAbsent(subscription.getChannelID());
         addMessageStatus(MessageStatus.SCHEDULED_TO_SEND);
     }
 
@@ -222,12 +290,12 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      * First status of a message recorded channel-wise
      * @param channelID ID of the channel
      */
-    public void markAsDispatchedToDeliver(UUID channelID) {
-        ChannelInformation channelInformation = channelDeliveryInfo.get(channelID);
-        channelInformation.addChannelStatus(ChannelMessageStatus.DISPATCHED);
+    public synchronized void markAsDispatchedToDeliver(UUID channelID) {
+        int channelIndex = getChannelIndex(channelID);
+        addChannelStatus(channelIndex, channelID, ChannelMessageStatus.DISPATCHED);
 
         if (!this.isBeyondLastRollbackedMessage) {
-            channelInformation.incrementDeliveryCount();
+            addToDeliveryCount(channelIndex, 1);
         } else {
             // No need to increase deliveryCount if this message is beyond the last rollback.
             MessageTracer.trace(getMessageID(), getDestination(),MessageTracer.MESSAGE_BEYOND_LAST_ROLLBACK);
@@ -240,11 +308,9 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      * @param channelID Id of the channel
      * @return if acknowledges by all the channels are received
      */
-    public boolean markAsAcknowledgedByChannel(UUID channelID) {
+    public synchronized boolean markAsAcknowledgedByChannel(UUID channelID) {
         boolean isAcknowledgedByAll = false;
-        ChannelInformation channelInformation = channelDeliveryInfo.get(channelID);
-        channelInformation.addChannelStatus(ChannelMessageStatus.ACKED);
-        channelDeliveryInfo.put(channelID, channelInformation);
+        addChannelStatus(getChannelIndex(channelID), channelID, ChannelMessageStatus.ACKED);
 
         if(isMarkAsAcked()) {
             addMessageStatus(MessageStatus.ACKED_BY_ALL);
@@ -258,9 +324,8 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      *
      * @param channelID ID of the channel
      */
-    public void markAsNackedByClient(UUID channelID) {
-        ChannelInformation channelInformation = channelDeliveryInfo.get(channelID);
-        channelInformation.addChannelStatus(ChannelMessageStatus.NACKED);
+    public synchronized void markAsNackedByClient(UUID channelID) {
+        addChannelStatus(getChannelIndex(channelID), channelID, ChannelMessageStatus.NACKED);
     }
 
     /**
@@ -269,9 +334,8 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      *
      * @param channelID ID of the channel
      */
-    public void markAsRejectedByClient(UUID channelID) {
-        ChannelInformation channelInformation = channelDeliveryInfo.get(channelID);
-        channelInformation.addChannelStatus(ChannelMessageStatus.CLIENT_REJECTED);
+    public synchronized void markAsRejectedByClient(UUID channelID) {
+        addChannelStatus(getChannelIndex(channelID), channelID, ChannelMessageStatus.CLIENT_REJECTED);
     }
 
     /**
@@ -316,7 +380,13 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      * @return true if conditions are met
      */
     public boolean isOKToDispose() {
-        return MessageStatus.isOKToRemove(messageStatus);
+        MessageStatus latest = getLatestState();
+        return hasBeenIn(MessageStatus.EXPIRED)
+               || hasBeenIn(MessageStatus.DLC_MESSAGE)
+               || hasBeenIn(MessageStatus.PURGED)
+               || hasBeenIn(MessageStatus.DELETED)
+               || MessageStatus.SLOT_REMOVED.equals(latest)
+               || MessageStatus.SLOT_RETURNED.equals(latest);
     }
 
     /**
@@ -369,10 +439,10 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      * @param channelID id of the channel
      * @return current number of times this message is delivered to the given channel
      */
-    public int markDeliveryFailureOfASentMessage(UUID channelID) {
-        channelDeliveryInfo.get(channelID).
-                addChannelStatus(ChannelMessageStatus.SEND_FAILED);
-        return channelDeliveryInfo.get(channelID).decrementDeliveryCount();
+    public synchronized int markDeliveryFailureOfASentMessage(UUID channelID) {
+        int channelIndex = getChannelIndex(channelID);
+        addChannelStatus(channelIndex, channelID, ChannelMessageStatus.SEND_FAILED);
+        return addToDeliveryCount(channelIndex, -1);
     }
 
     /**
@@ -384,9 +454,8 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      *
      * @param channelID id of the channel message is sent
      */
-    public void markDeliveryFailureByProtocol(UUID channelID) {
-        channelDeliveryInfo.get(channelID).
-                addChannelStatus(ChannelMessageStatus.SEND_FAILED);
+    public synchronized void markDeliveryFailureByProtocol(UUID channelID) {
+        addChannelStatus(getChannelIndex(channelID), channelID, ChannelMessageStatus.SEND_FAILED);
     }
 
     /**
@@ -395,7 +464,7 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      * if ACKED_BY_ALL evaluation returned success
      *
      */
-    public void evaluateMessageAcknowledgement() {
+    public synchronized void evaluateMessageAcknowledgement() {
         if(isMarkAsAcked()) {
             addMessageStatus(MessageStatus.ACKED_BY_ALL);
         }
@@ -406,9 +475,8 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      * is already scheduled mark it as closed.
      * @param channelID ID of the channel
      */
-    public void markDeliveredChannelAsClosed(UUID channelID) {
-        channelDeliveryInfo.get(channelID).
-                addChannelStatus(ChannelMessageStatus.CLOSED);
+    public synchronized void markDeliveredChannelAsClosed(UUID channelID) {
+        addChannelStatus(getChannelIndex(channelID), channelID, ChannelMessageStatus.CLOSED);
     }
 
 
@@ -416,8 +484,8 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      * Get the channels this message is delivered to
      * @return Set of channel IDs
      */
-    public Set<UUID> getAllDeliveredChannels() {
-        return channelDeliveryInfo.keySet();
+    public synchronized Set<UUID> getAllDeliveredChannels() {
+        return new HashSet<>(Arrays.asList(channelIDs).subList(0, channelCount));
     }
 
     /**
@@ -426,8 +494,8 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      */
     private boolean isMarkAsAcked() {
         boolean isAcked = true;
-        for (Map.Entry<UUID, ChannelInformation> channelInfoEntry : channelDeliveryInfo.entrySet()) {
-            ChannelMessageStatus messageStatus = channelInfoEntry.getValue().getLatestMessageStatus();
+        for (int channelIndex = 0; channelIndex < channelCount; channelIndex++) {
+            ChannelMessageStatus messageStatus = getLatestChannelStatus(channelIndex);
 
             //if channel is closed ignore it from considering
             if(null != messageStatus && messageStatus.equals(ChannelMessageStatus.CLOSED)) {
@@ -442,7 +510,7 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
                 break;
             }
         }
-        if(channelDeliveryInfo.isEmpty()) {
+        if(0 == channelCount) {
             isAcked = false;
         }
         return isAcked;
@@ -453,13 +521,14 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      * @param channelID Id of the channel
      * @return number of deliveries
      */
-    public int getNumOfDeliveries4Channel(UUID channelID) {
+    public synchronized int getNumOfDeliveries4Channel(UUID channelID) {
          /* Since sometimes Broker tries to send stored messages when it initialised a subscription
-            so then it returns null value for that subscription's channel's amount of deliveries,
-            Since we need to the evaluate the rules before we send message, therefore we have to ignore the null value,
-            then we have to check the number of deliveries for the particular channel */
-        if (null != channelDeliveryInfo.get(channelID)) {
-            return channelDeliveryInfo.get(channelID).getDeliveryCount();
+            so then there is no entry for that subscription's channel's amount of deliveries,
+            Since we need to the evaluate the rules before we send message, therefore we have to ignore the missing
+            entry, then we have to check the number of deliveries for the particular channel */
+        int channelIndex = getChannelIndex(channelID);
+        if (channelIndex >= 0) {
+            return getDeliveryCount(channelIndex);
         } else {
             return 0;
         }
@@ -470,32 +539,46 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
      * transition compared to current latest state.
      * @param state state to be transferred
      */
-    public boolean addMessageStatus(MessageStatus state) {
+    public synchronized boolean addMessageStatus(MessageStatus state) {
 
         boolean isValidTransition = false;
+        MessageStatus latest = getLatestState();
 
-        if(messageStatus.isEmpty()) {
+        if(null == latest) {
             if(MessageStatus.READ.equals(state)) {
                 isValidTransition = true;
-                messageStatus.add(state);
+                recordMessageStatus(state);
             } else {
                 log.warn("Invalid message state transition suggested: " + state  + " Message ID: " + messageID
                         + "slot = " + slot.getId());
             }
         } else {
-            isValidTransition = messageStatus.get(messageStatus.size() - 1).isValidNextTransition(state);
+            isValidTransition = latest.isValidNextTransition(state);
             if(isValidTransition) {
-                messageStatus.add(state);
+                recordMessageStatus(state);
             } else {
-                log.warn("Invalid message state transition from " + messageStatus.get
-                        (messageStatus.size() - 1) + " suggested: " + state + " Message ID: " + messageID
-                        + " slot = "+ slot.getId() + " Message Status History >> " + messageStatus);
+                log.warn("Invalid message state transition from " + latest + " suggested: " + state
+                        + " Message ID: " + messageID + " slot = "+ slot.getId() + " Message Status History >> "
+                        + getStatusHistory());
             }
         }
 
         return isValidTransition;
     }
 
+    /**
+     * Record the given status as the latest status of the message
+     *
+     * @param state new status
+     */
+    private void recordMessageStatus(MessageStatus state) {
+        int visitedStates = (messageState & ~STATUS_MASK) | (1 << (STATUS_BITS + state.ordinal()));
+        messageState = visitedStates | (state.ordinal() + 1);
+        if (null != messageStatus) {
+            messageStatus.add(state);
+        }
+    }
+
     /**
      * Check if state going to be added is valid considering it as the next transition compared
      * to current latest state. This status is for individual delivery channels
@@ -538,90 +621,151 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
         information.append(Long.toString(expirationTime));
         information.append(',');
         information.append("Channels sent ");
-        String deliveries = "";
-        for (UUID channelID : getAllDeliveredChannels()) {
-            deliveries = deliveries + channelID + " : " + channelDeliveryInfo.get(channelID)
-                    .getMessageStatusHistoryForChannelAsString() + " | ";
-        }
-        information.append(deliveries);
+        information.append(getChannelStatusHistoriesAsString());
         information.append('\n');
 
         return information.toString();
     }
 
     /**
-     * Inner class to hold Message status channel-wise
+     * Get the index of the given channel in channelIDs
+     *
+     * @param channelID ID of the channel
+     * @return index of the channel or -1 if this message is not scheduled to the channel
      */
-    private class ChannelInformation {
-
-        private Integer channelToNumOfDeliveries = 0;
-        private List<ChannelMessageStatus> messageStatusesForChannel = new ArrayList<>(5);
+    private int getChannelIndex(UUID channelID) {
+        for (int channelIndex = 0; channelIndex < channelCount; channelIndex++) {
+            if (channelIDs[channelIndex].equals(channelID)) {
+                return channelIndex;
+            }
+        }
+        return -1;
+    }
 
-        private int incrementDeliveryCount() {
-            channelToNumOfDeliveries = channelToNumOfDeliveries + 1;
-            return channelToNumOfDeliveries;
+    /**
+     * Start tracking the given channel if it is not tracked already
+     *
+     * @param channelID ID of the channel
+     */
+    private void addChannelIfAbsent(UUID channelID) {
+        if (getChannelIndex(channelID) >= 0) {
+            return;
+        }
+        if (channelCount == channelIDs.length) {
+            int newLength = channelIDs.length * 2;
+            channelIDs = Arrays.copyOf(channelIDs, newLength);
+            channelStates = Arrays.copyOf(channelStates, newLength);
         }
+        channelIDs[channelCount] = channelID;
+        channelStates[channelCount] = 0;
+        if (null != channelStatusHistories) {
+            channelStatusHistories.add(new ArrayList<ChannelMessageStatus>(5));
+        }
+        channelCount++;
+    }
+
+    private ChannelMessageStatus getLatestChannelStatus(int channelIndex) {
+        int ordinal = (channelStates[channelIndex] & STATUS_MASK) - 1;
+        return (ordinal < 0) ? null : CHANNEL_MESSAGE_STATUSES[ordinal];
+    }
+
+    private int getDeliveryCount(int channelIndex) {
+        return channelStates[channelIndex] >> STATUS_BITS;
+    }
 
-        private int decrementDeliveryCount() {
-            channelToNumOfDeliveries = channelToNumOfDeliveries - 1;
-            return channelToNumOfDeliveries;
+    /**
+     * Add to the number of deliveries of a channel
+     *
+     * @param channelIndex index of the channel
+     * @param delta        value to add
+     * @return the new delivery count
+     */
+    private int addToDeliveryCount(int channelIndex, int delta) {
+        if (channelIndex < 0) {
+            return 0;
         }
+        int deliveryCount = getDeliveryCount(channelIndex) + delta;
+        channelStates[channelIndex] = (deliveryCount << STATUS_BITS) | (channelStates[channelIndex] & STATUS_MASK);
+        return deliveryCount;
+    }
 
-        private int getDeliveryCount() {
-            return channelToNumOfDeliveries;
+    /**
+     * Check if state going to be added is valid considering it as the next transition compared
+     * to current latest state. This status is for individual delivery channels
+     * @param channelIndex index of the channel
+     * @param channelID ID of the channel
+     * @param state state to be transferred
+     */
+    private boolean addChannelStatus(int channelIndex, UUID channelID, ChannelMessageStatus state) {
+
+        boolean isValidTransition = false;
+
+        if (channelIndex < 0) {
+            log.warn("Message is not scheduled to channel " + channelID + " suggested: " + state + " Message ID: "
+                     + messageID + " Slot = " + slot.getId());
+            return false;
         }
 
-        /**
-         * Check if state going to be added is valid considering it as the next transition compared
-         * to current latest state. This status is for individual delivery channels
-         * @param state state to be transferred
-         */
-        private boolean addChannelStatus(ChannelMessageStatus state) {
-
-            boolean isValidTransition = false;
-
-            if(messageStatusesForChannel.isEmpty()) {
-                if(ChannelMessageStatus.DISPATCHED.equals(state)) {
-                    isValidTransition = true;
-                    messageStatusesForChannel.add(state);
-                } else {
-                    log.warn("Invalid channel message state transition suggested: " + state  + " Message ID: "
-							+ messageID + " Slot = " + slot.getId() + " Message Status History >> " + messageStatus);
-                }
+        ChannelMessageStatus latest = getLatestChannelStatus(channelIndex);
+
+        if(null == latest) {
+            if(ChannelMessageStatus.DISPATCHED.equals(state)) {
+                isValidTransition = true;
+                recordChannelStatus(channelIndex, state);
             } else {
-                isValidTransition = messageStatusesForChannel.
-                        get(messageStatusesForChannel.size() - 1).isValidNextTransition(state);
-
-                if(isValidTransition) {
-                    messageStatusesForChannel.add(state);
-                } else {
-                    log.warn("Invalid channel message state transition from " + messageStatusesForChannel.get
-                            (messageStatusesForChannel.size() - 1) + " suggested: " + state + " Message ID: "
-							+ messageID + " Slot = " + slot.getId() +" Channel Status History >> "
-							+ messageStatusesForChannel);
-                }
+                log.warn("Invalid channel message state transition suggested: " + state  + " Message ID: "
+                        + messageID + " Slot = " + slot.getId() + " Message Status History >> "
+                        + getStatusHistory());
             }
+        } else {
+            isValidTransition = latest.isValidNextTransition(state);
 
-            return isValidTransition;
-        }
-
-        private ChannelMessageStatus getLatestMessageStatus() {
-            if(!messageStatusesForChannel.isEmpty()) {
-                return messageStatusesForChannel.get(messageStatusesForChannel.size() - 1);
+            if(isValidTransition) {
+                recordChannelStatus(channelIndex, state);
             } else {
-                return null;
+                log.warn("Invalid channel message state transition from " + latest + " suggested: " + state
+                        + " Message ID: " + messageID + " Slot = " + slot.getId() + " Channel Status History >> "
+                        + getChannelStatusHistoryAsString(channelIndex));
             }
         }
 
-        private String getMessageStatusHistoryForChannelAsString() {
-            StringBuilder channelInfo = new StringBuilder();
-            for (ChannelMessageStatus channelMessageStatus : messageStatusesForChannel) {
+        return isValidTransition;
+    }
+
+    private void recordChannelStatus(int channelIndex, ChannelMessageStatus state) {
+        channelStates[channelIndex] = (channelStates[channelIndex] & ~STATUS_MASK) | (state.ordinal() + 1);
+        if (null != channelStatusHistories) {
+            channelStatusHistories.get(channelIndex).add(state);
+        }
+    }
+
+    /**
+     * Get status history of a channel as a string. If message tracing was not enabled when the message was read,
+     * only the latest status is available.
+     */
+    private String getChannelStatusHistoryAsString(int channelIndex) {
+        StringBuilder channelInfo = new StringBuilder();
+        if (null != channelStatusHistories) {
+            for (ChannelMessageStatus channelMessageStatus : channelStatusHistories.get(channelIndex)) {
                 channelInfo.append(channelMessageStatus)
                         .append(">>");
             }
-            return channelInfo.toString();
+        } else if (null != getLatestChannelStatus(channelIndex)) {
+            channelInfo.append(getLatestChannelStatus(channelIndex)).append(">>");
         }
+        return channelInfo.toString();
+    }
 
+    /**
+     * Get status history of all channels as a string
+     */
+    private synchronized String getChannelStatusHistoriesAsString() {
+        StringBuilder deliveries = new StringBuilder();
+        for (int channelIndex = 0; channelIndex < channelCount; channelIndex++) {
+            deliveries.append(channelIDs[channelIndex]).append(" : ")
+                      .append(getChannelStatusHistoryAsString(channelIndex)).append(" | ");
+        }
+        return deliveries.toString();
     }
 
     /**
@@ -635,4 +779,23 @@ public class DeliverableAndesMetadata extends AndesMessageMetadata{
         isBeyondLastRollbackedMessage = beyondLastRollbackedMessage;
     }
 
+    /**
+     * Get the decoded message properties used to evaluate subscription selectors
+     *
+     * @return decoded properties or null if not decoded yet
+     */
+    public Filterable getFilterableView() {
+        return filterableView;
+    }
+
+    /**
+     * Set the decoded message properties used to evaluate subscription selectors. The view should not be modified
+     * once set since it is shared by all the subscriptions of the message.
+     *
+     * @param filterableView decoded properties
+     */
+    public void setFilterableView(Filterable filterableView) {
+        this.filterableView = filterableView;
+    }
+
 }
@@ -25,6 +25,7 @@ import org.wso2.andes.subscription.SubscriptionEngine;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
@@ -72,6 +73,9 @@ public class FlowControlledQueueMessageDeliveryImpl implements MessageDeliverySt
             // clear all tracking when orphan slot situation
             messages.clear();
         } else {
+            // Subscriptions with simple property equality selectors are matched through the index
+            SelectorRoutingIndex selectorRoutingIndex = SelectorRoutingIndex.build(subscriptions4Queue);
+
             while (iterator.hasNext()) {
 
                 try {
@@ -80,41 +84,74 @@ public class FlowControlledQueueMessageDeliveryImpl implements MessageDeliverySt
 
                     int numOfCurrentMsgDeliverySchedules = 0;
 
-                    boolean subscriberWithMatchingSelectorFound = true;
+                    boolean subscriberWithoutRoomFound = false;
+
+                    /**
+                     * With a selector routing index only the indexed subscriptions accepting the message and
+                     * the subscriptions which are not indexed are tried, in round robin order. Otherwise every
+                     * subscription of the queue is tried in round robin order.
+                     */
+                    List<LocalSubscription> candidates = null;
+                    int candidateCount = subscriptions4Queue.size();
+                    int startPosition = 0;
+                    if (null != selectorRoutingIndex) {
+                        candidates = selectorRoutingIndex.getCandidateSubscriptions(message);
+                        candidateCount = candidates.size();
+                        if (candidateCount > 0) {
+                            startPosition = messageDeliveryInfo.getSelectorRoutingPosition() % candidateCount;
+                        }
+                    }
 
                     /**
                      * if message is addressed to queues, only ONE subscriber should
                      * get the message. Otherwise, loop for every subscriber
                      */
-                    for (int j = 0; j < subscriptions4Queue.size(); j++) {
+                    for (int j = 0; j < candidateCount; j++) {
 
-                        LocalSubscription localSubscription = MessageFlusher.getInstance().
-                                findNextSubscriptionToSent(messageDeliveryInfo, subscriptions4Queue);
-                        if (localSubscription.hasRoomToAcceptMessages()) {
+                        LocalSubscription localSubscription;
+                        boolean selectorMatched = false;
+                        if (null == candidates) {
+                            localSubscription = MessageFlusher.getInstance().
+                                    findNextSubscriptionToSent(messageDeliveryInfo, subscriptions4Queue);
+                        } else {
+                            localSubscription = candidates.get((startPosition + j) % candidateCount);
+                            selectorMatched = selectorRoutingIndex.isIndexed(localSubscription);
+                        }
 
-                            if (!localSubscription.isMessageAcceptedBySelector(message)) {
-                                // If this doesn't match a selector we skip sending the message
-                                subscriberWithMatchingSelectorFound = false;
-                                break;
-                            }
-                            if (log.isDebugEnabled()) {
-                                log.debug("Scheduled to send id = " + message.getMessageID());
-                            }
+                        if (!selectorMatched && !localSubscription.isMessageAcceptedBySelector(message)) {
+                            // If this doesn't match a selector we try the next subscriber
+                            continue;
+                        }
 
-                            // In a re-queue for delivery scenario we need the correct destination. Hence setting
-                            // it back correctly in AndesMetadata for durable subscription for topics
-                            if (DestinationType.DURABLE_TOPIC == localSubscription.getDestinationType()) {
-                                message.setDestination(localSubscription.getTargetQueue());
-                            }
+                        // Only a full subscriber which accepts the message keeps it from the dead letter channel
+                        if (!localSubscription.hasRoomToAcceptMessages()) {
+                            subscriberWithoutRoomFound = true;
+                            continue;
+                        }
+
+                        if (log.isDebugEnabled()) {
+                            log.debug("Scheduled to send id = " + message.getMessageID());
+                        }
 
-                            message.markAsScheduledToDeliver(localSubscription);
-                            MessageFlusher.getInstance().deliverMessageAsynchronously(localSubscription, message);
-                            numOfCurrentMsgDeliverySchedules++;
+                        // In a re-queue for delivery scenario we need the correct destination. Hence setting
+                        // it back correctly in AndesMetadata for durable subscription for topics
+                        if (DestinationType.DURABLE_TOPIC == localSubscription.getDestinationType()) {
+                            message.setDestination(localSubscription.getTargetQueue());
+                        }
 
-                            //for queue messages and durable topic messages (as they are now queue messages)
-                            // we only send to one selected subscriber if it is a queue message
-                            break;
+                        if (null != candidates) {
+                            // Next message starts from the candidate after the selected one
+                            messageDeliveryInfo.setSelectorRoutingPosition(
+                                    (startPosition + j + 1) % candidateCount);
                         }
+
+                        message.markAsScheduledToDeliver(localSubscription);
+                        MessageFlusher.getInstance().deliverMessageAsynchronously(localSubscription, message);
+                        numOfCurrentMsgDeliverySchedules++;
+
+                        //for queue messages and durable topic messages (as they are now queue messages)
+                        // we only send to one selected subscriber if it is a queue message
+                        break;
                     }
 
                     if (numOfCurrentMsgDeliverySchedules == 1) {
@@ -130,13 +167,14 @@ public class FlowControlledQueueMessageDeliveryImpl implements MessageDeliverySt
                     } else {
 
                         //if no subscriber has a matching selector, route message to DLC queue
-                        if(!subscriberWithMatchingSelectorFound) {
+                        if (!subscriberWithoutRoomFound) {
                             Andes.getInstance().moveMessageToDeadLetterChannel(message, message.getDestination());
                             iterator.remove();
                         } else {
                             if (log.isDebugEnabled()) {
                                 log.debug("All subscriptions for destination " + destination
-                                        + " have max unacked " + "messages " + message.getDestination());
+                                        + " with a matching selector have max unacked " + "messages "
+                                        + message.getDestination());
                             }
                             //if we continue message order will break
                             break;
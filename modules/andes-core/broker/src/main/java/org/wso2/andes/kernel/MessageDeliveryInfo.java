@@ -42,6 +42,11 @@ public class MessageDeliveryInfo {
      */
     private Iterator<LocalSubscription> iterator;
 
+    /**
+     * Round robin position among the subscriptions matched through a selector routing index
+     */
+    private int selectorRoutingPosition;
+
     /**
      * In-memory message list scheduled to be delivered. These messages will be flushed
      * to subscriber
@@ -166,6 +171,14 @@ public class MessageDeliveryInfo {
         this.iterator = iterator;
     }
 
+    public int getSelectorRoutingPosition() {
+        return selectorRoutingPosition;
+    }
+
+    public void setSelectorRoutingPosition(int selectorRoutingPosition) {
+        this.selectorRoutingPosition = selectorRoutingPosition;
+    }
+
     public DestinationType getDestinationType() {
         return destinationType;
     }
@@ -25,8 +25,12 @@ import org.wso2.andes.configuration.enums.AndesConfiguration;
 import org.wso2.andes.configuration.util.TopicMessageDeliveryStrategy;
 import org.wso2.andes.kernel.disruptor.delivery.DisruptorBasedFlusher;
 import org.wso2.andes.kernel.slot.Slot;
+import org.wso2.andes.metrics.MetricsConstants;
 import org.wso2.andes.subscription.LocalSubscription;
 import org.wso2.andes.subscription.SubscriptionEngine;
+import org.wso2.carbon.metrics.manager.Level;
+import org.wso2.carbon.metrics.manager.MetricManager;
+import org.wso2.carbon.metrics.manager.Timer;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -34,6 +38,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -77,6 +82,11 @@ public class MessageFlusher {
      */
     private List<CommonDeliveryRule> DeliveryRulesList = new ArrayList<>();
 
+    /**
+     * Time from the arrival of messages until they are read for delivery
+     */
+    private final Timer slotWaitTimer;
+
 
 
     private static MessageFlusher messageFlusher = new MessageFlusher();
@@ -85,6 +95,7 @@ public class MessageFlusher {
 
         this.subscriptionEngine = AndesContext.getInstance().getSubscriptionEngine();
         flusherExecutor = new DisruptorBasedFlusher();
+        slotWaitTimer = MetricManager.timer(Level.DEBUG, MetricsConstants.SLOT_WAIT);
 
         this.maxNumberOfReadButUndeliveredMessages = AndesConfigurationManager.readValue
                 (AndesConfiguration.PERFORMANCE_TUNING_DELIVERY_MAX_READ_BUT_UNDELIVERED_MESSAGES);
@@ -250,8 +261,12 @@ public class MessageFlusher {
             , MessageDeliveryInfo messageDeliveryInfo) {
         try {
             slot.incrementPendingMessageCount(messagesRead.size());
+            long currentTime = System.currentTimeMillis();
             for (DeliverableAndesMetadata message : messagesRead) {
                 messageDeliveryInfo.bufferMessage(message);
+                if (message.getArrivalTime() > 0) {
+                    slotWaitTimer.update(Math.max(0, currentTime - message.getArrivalTime()), TimeUnit.MILLISECONDS);
+                }
             }
         } catch (Throwable e) {
             log.fatal("Error scheduling messages for delivery", e);
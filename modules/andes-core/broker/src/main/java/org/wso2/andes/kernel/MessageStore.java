@@ -67,6 +67,15 @@ public interface MessageStore extends HealthAwareStore{
      */
     Map<Long, List<AndesMessagePart>> getContent(List<Long> messageIDList) throws AndesException;
 
+    /**
+     * Load the content of the given messages into the message cache ahead of delivery so that content reads of
+     * the delivery path are served from memory. Messages already in the cache are skipped.
+     *
+     * @param metadataList metadata of the messages to prefetch content
+     * @throws AndesException on an error while reading content
+     */
+    void prefetchContent(List<? extends AndesMessageMetadata> metadataList) throws AndesException;
+
     /**
      * Store messages into database.
      * @param messageList messages to be stored
@@ -101,6 +110,17 @@ public interface MessageStore extends HealthAwareStore{
      */
     void moveMetadataToDLC(List<AndesMessageMetadata> messages, String dlcQueueName) throws AndesException;
 
+    /**
+     * Move messages out of the dead letter channel. Each message is stored under the message ID and in the storage
+     * queue of the given metadata and removed from the dead letter channel. Message content is copied within the
+     * store without being read.
+     *
+     * @param restoredMessages metadata to store the messages with against the ID of the message in the dead letter
+     *                         channel
+     * @throws AndesException
+     */
+    void restoreMessagesFromDLC(Map<Long, AndesMessageMetadata> restoredMessages) throws AndesException;
+
     /**
      * Update the meta data for the given message with the given information in the AndesMetaData. Update destination
      * and meta data bytes.
@@ -189,6 +209,18 @@ public interface MessageStore extends HealthAwareStore{
     List<AndesMessageMetadata> getNextNMessageMetadataFromDLC(String dlcQueueName, long firstMsgId, int count)
             throws AndesException;
 
+    /**
+     * Retrieve the metadata of the given messages from a dead letter channel. Messages which are not in the dead
+     * letter channel are skipped
+     *
+     * @param dlcQueueName  name of the dead letter channel queue
+     * @param messageIdList ids of the messages to read
+     * @return list of metadata
+     * @throws AndesException
+     */
+    List<AndesMessageMetadata> getMessageMetadataFromDLC(String dlcQueueName, List<Long> messageIdList)
+            throws AndesException;
+
     /**
      * delete message metadata of messages for a queue
      *
@@ -26,6 +26,7 @@ import org.wso2.andes.kernel.slot.ConnectionException;
 import org.wso2.andes.kernel.slot.Slot;
 import org.wso2.andes.kernel.slot.SlotCoordinator;
 import org.wso2.andes.kernel.slot.SlotCoordinatorCluster;
+import org.wso2.andes.kernel.slot.SlotContentPrefetcher;
 import org.wso2.andes.kernel.slot.SlotCoordinatorStandalone;
 import org.wso2.andes.kernel.slot.SlotDeliveryWorkerManager;
 import org.wso2.andes.kernel.slot.SlotManagerClusterMode;
@@ -90,6 +91,11 @@ public class MessagingEngine {
      */
     private SlotCoordinator slotCoordinator;
 
+    /**
+     * Keeps message counts of storage queues in memory
+     */
+    private QueueMessageCounter queueMessageCounter;
+
     /**
      * private constructor for singleton pattern
      */
@@ -127,6 +133,10 @@ public class MessagingEngine {
         this.messageStore = messageStore;
         this.subscriptionEngine = subscriptionEngine;
 
+        queueMessageCounter = new QueueMessageCounter(AndesContext.getInstance().getAndesContextStore(),
+                                                      messageStore);
+        queueMessageCounter.start();
+
         //register listeners for queue changes
         queueListener = new ClusterCoordinationHandler(HazelcastAgent.getInstance());
 
@@ -171,6 +181,10 @@ public class MessagingEngine {
      */
     public void messagesReceived(List<AndesMessage> messageList) throws AndesException{
         messageStore.storeMessages(messageList);
+
+        for (AndesMessage message : messageList) {
+            queueMessageCounter.messagesAdded(message.getMetadata().getStorageQueueName(), 1);
+        }
     }
 
     /**
@@ -257,6 +271,7 @@ public class MessagingEngine {
         messageStore.moveMetadataToDLC(messageToRemove.getMessageID(), deadLetterQueueName);
 
         // Increment count by 1 in DLC and decrement by 1 in original queue
+        queueMessageCounter.messagesRemoved(messageToRemove.getStorageQueueName(), 1);
 
         messageToRemove.markAsDLCMessage();
         messageToRemove.getSlot().decrementPendingMessageCount();
@@ -353,6 +368,7 @@ public class MessagingEngine {
             if (!(DLCQueueUtils.isDeadLetterQueue(storageQueueName))) {
                 // delete all messages for the queue
                 deletedMessageCount = messageStore.deleteAllMessageMetadata(storageQueueName);
+                queueMessageCounter.messagesRemoved(storageQueueName, deletedMessageCount);
             } else {
                 //delete all the messages in dlc
                 deletedMessageCount = messageStore.clearDLCQueue(storageQueueName);
@@ -389,6 +405,7 @@ public class MessagingEngine {
         for (Map.Entry<String, List<AndesMessageMetadata>> entry : storageSeparatedMessages
                 .entrySet()) {
             messageStore.deleteMessages(entry.getKey(), entry.getValue());
+            queueMessageCounter.messagesRemoved(entry.getKey(), entry.getValue().size());
         }
 
         //TODO:message can be in delivery path. If so we need to decrement slot message count
@@ -404,6 +421,21 @@ public class MessagingEngine {
         messageStore.deleteDLCMessages(messagesToRemove);
     }
 
+    /**
+     * Move messages from the dead letter channel to the storage queues set in the given metadata without reading
+     * their content. Message counts of the storage queues are updated.
+     *
+     * @param restoredMessages metadata of the restored messages against the message ID in the dead letter channel
+     * @throws AndesException
+     */
+    public void restoreMessagesFromDLC(Map<Long, AndesMessageMetadata> restoredMessages) throws AndesException {
+        messageStore.restoreMessagesFromDLC(restoredMessages);
+
+        for (AndesMessageMetadata metadata : restoredMessages.values()) {
+            queueMessageCounter.messagesAdded(metadata.getStorageQueueName(), 1);
+        }
+    }
+
     /**
      * Delete messages from store. Optionally move to dead letter channel.  Delete
      * call is blocking and then slot message count is dropped in order. Message state
@@ -432,6 +464,7 @@ public class MessagingEngine {
         for (Map.Entry<String, List<AndesMessageMetadata>> entry : storageSeparatedMessages
                 .entrySet()) {
             messageStore.deleteMessages(entry.getKey(), entry.getValue());
+            queueMessageCounter.messagesRemoved(entry.getKey(), entry.getValue().size());
         }
         for (DeliverableAndesMetadata message : messagesToRemove) {
             //mark messages as deleted
@@ -457,6 +490,7 @@ public class MessagingEngine {
             //move messages to dead letter channel
             String dlcQueueName = DLCQueueUtils.identifyTenantInformationAndGenerateDLCString(entry.getKey());
             messageStore.moveMetadataToDLC(entry.getValue(), dlcQueueName);
+            queueMessageCounter.messagesRemoved(entry.getKey(), entry.getValue().size());
         }
 
         //mark the messages as DLC messages
@@ -485,6 +519,7 @@ public class MessagingEngine {
             //move messages to dead letter channel
             String dlcQueueName = DLCQueueUtils.identifyTenantInformationAndGenerateDLCString(entry.getKey());
             messageStore.moveMetadataToDLC(entry.getValue(), dlcQueueName);
+            queueMessageCounter.messagesRemoved(entry.getKey(), entry.getValue().size());
         }
 
         //TODO:message can be in delivery path. If so we need to decrement slot message count
@@ -503,13 +538,20 @@ public class MessagingEngine {
     }
 
     /**
-     * Get a map of queue names and the message count for each queue from the message store.
+     * Get a map of queue names and the message count for each queue. Counts are served from the in memory queue
+     * message counters.
      *
      * @param queueNames list of queue names of which the message count should be retrieved
      * @return Map of queue names and the message count for each queue
      */
     public Map<String, Integer> getMessageCountForAllQueues(List<String> queueNames) throws AndesException {
-        return messageStore.getMessageCountForAllQueues(queueNames);
+        Map<String, Integer> messageCounts = new HashMap<>();
+        for (String queueName : queueNames) {
+            if (!DLCQueueUtils.isDeadLetterQueue(queueName)) {
+                messageCounts.put(queueName, (int) queueMessageCounter.getMessageCount(queueName));
+            }
+        }
+        return messageCounts;
     }
 
     /**
@@ -520,7 +562,7 @@ public class MessagingEngine {
      * @throws AndesException
      */
     public long getMessageCountOfQueue(String queueName) throws AndesException {
-        return messageStore.getMessageCountForQueue(queueName);
+        return queueMessageCounter.getMessageCount(queueName);
     }
 
     /**
@@ -560,6 +602,16 @@ public class MessagingEngine {
         return messageStore.getMetadataList(slot, queueName, firstMsgId, lastMsgID);
     }
 
+    /**
+     * Load the content of messages into the message cache ahead of delivery
+     *
+     * @param metadataList metadata of the messages
+     * @throws AndesException on an error while reading content
+     */
+    public void prefetchContent(List<DeliverableAndesMetadata> metadataList) throws AndesException {
+        messageStore.prefetchContent(metadataList);
+    }
+
     /**
      * Get message metadata from queue starting from given id up a given
      * message count
@@ -605,6 +657,19 @@ public class MessagingEngine {
         return messageStore.getNextNMessageMetadataFromDLC(dlcQueueName, firstMsgId, count);
     }
 
+    /**
+     * Get message metadata of the given messages from a dead letter channel
+     *
+     * @param dlcQueueName  name of the dead letter channel queue name
+     * @param messageIdList ids of the messages to read
+     * @return List of message metadata of the messages in the dead letter channel
+     * @throws AndesException
+     */
+    public List<AndesMessageMetadata> getMessageMetadataFromDLC(final String dlcQueueName, List<Long> messageIdList)
+            throws AndesException {
+        return messageStore.getMessageMetadataFromDLC(dlcQueueName, messageIdList);
+    }
+
     /**
      * Get expired but not yet deleted messages from message store
      * @param limit upper bound for number of messages to be returned
@@ -626,6 +691,11 @@ public class MessagingEngine {
     public void updateMetaDataInformation(String currentQueueName, List<AndesMessageMetadata> metadataList) throws
             AndesException {
         messageStore.updateMetadataInformation(currentQueueName, metadataList);
+
+        queueMessageCounter.messagesRemoved(currentQueueName, metadataList.size());
+        for (AndesMessageMetadata metadata : metadataList) {
+            queueMessageCounter.messagesAdded(metadata.getStorageQueueName(), 1);
+        }
     }
 
     /**
@@ -701,12 +771,14 @@ public class MessagingEngine {
     public void close() throws InterruptedException {
 
         stopMessageDelivery();
+        SlotContentPrefetcher.getInstance().stop();
         stopMessageExpirationWorker();
 
         completePendingStoreOperations();
     }
 
     public void completePendingStoreOperations() {
+        queueMessageCounter.stop();
         messageStore.close();
     }
 
@@ -745,6 +817,15 @@ public class MessagingEngine {
         return slotCoordinator;
     }
 
+    /**
+     * Get the in memory message counter of storage queues
+     *
+     * @return queue message counter
+     */
+    public QueueMessageCounter getQueueMessageCounter() {
+        return queueMessageCounter;
+    }
+
     /**
      * Store retained messages in the message store.
      *
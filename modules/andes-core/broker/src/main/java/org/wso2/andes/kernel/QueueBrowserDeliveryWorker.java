@@ -20,16 +20,14 @@ package org.wso2.andes.kernel;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.andes.amqp.AMQPUtils;
+import org.wso2.andes.configuration.AndesConfigurationManager;
+import org.wso2.andes.configuration.enums.AndesConfiguration;
 import org.wso2.andes.server.message.AMQMessage;
 import org.wso2.andes.server.protocol.AMQProtocolSession;
 import org.wso2.andes.server.queue.AMQQueue;
-import org.wso2.andes.server.queue.QueueEntry;
 import org.wso2.andes.server.subscription.Subscription;
 import org.wso2.andes.server.subscription.SubscriptionImpl;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -46,7 +44,9 @@ import java.util.List;
  * Whether these changes are visible or not depends on the JMS provider.
  * 
  * When someone made a QueueBroswer Subscription, we read messages for that destination and
- * send them to that subscription. 
+ * send them to that subscription. Messages are read page by page in the order of message ID. The next page is
+ * read only after the connection has sent the earlier pages down to a bound, so that the memory used does not
+ * depend on the queue depth.
  */
 
 public class QueueBrowserDeliveryWorker {
@@ -55,6 +55,21 @@ public class QueueBrowserDeliveryWorker {
     private AMQQueue queue;
     private AMQProtocolSession session;
 
+    /**
+     * Number of messages read from the message store at a time
+     */
+    private final int pageSize;
+
+    /**
+     * Bytes written to the connection which may still be waiting to be sent when the next page is read
+     */
+    private final int maxPendingWriteBytes;
+
+    /**
+     * Interval to check whether the connection has sent the written messages
+     */
+    private static final long PENDING_WRITE_CHECK_INTERVAL_MILLIS = 10;
+
     private static Log log = LogFactory.getLog(QueueBrowserDeliveryWorker.class);
 
     public QueueBrowserDeliveryWorker(Subscription subscription, AMQQueue queue,
@@ -62,14 +77,16 @@ public class QueueBrowserDeliveryWorker {
         this.subscription = subscription;
         this.queue = queue;
         this.session = session;
+        this.pageSize = AndesConfigurationManager.readValue(
+                AndesConfiguration.PERFORMANCE_TUNING_DELIVERY_QUEUE_BROWSER_PAGE_SIZE);
+        this.maxPendingWriteBytes = AndesConfigurationManager.readValue(
+                AndesConfiguration.PERFORMANCE_TUNING_DELIVERY_QUEUE_BROWSER_MAX_PENDING_WRITE_BYTES);
     }
 
 
     public void send() {
-        List<QueueEntry> messages;
         try {
-            messages = getSortedMessages();
-            sendMessagesToClient(messages);
+            sendMessagesToClient();
         } catch (AndesException e) {
             log.error("Error while sending message for Browser subscription", e);
         } finally {
@@ -79,61 +96,81 @@ public class QueueBrowserDeliveryWorker {
     }
 
     /**
-     * Sends the browser subscription's messages to client
-     * @param messages - matching messages of destination
+     * Read the messages of the destination page by page in the ascending order of message ID and send them to the
+     * browser subscription. Only the messages in the queue when browsing started are counted, so that the browse
+     * ends even if messages keep arriving.
+     *
+     * @throws AndesException if messages could not be read from the message store
      */
-    private void sendMessagesToClient(List<QueueEntry> messages){
-            if (messages.size() > 0) {
-                for (QueueEntry message : messages) {
-                    try {
-                        if (subscription instanceof SubscriptionImpl.BrowserSubscription) {
-                            subscription.send(message);
-                        }
-
-                    } catch (Exception e) {
-                        log.error("Unexpected Error in Message Flusher Task " +
-                                "while delivering the message : ", e);
-                    }
-                }
+    private void sendMessagesToClient() throws AndesException {
+
+        String queueName = queue.getResourceName();
+        long lastAssignedSlotMessageId = MessagingEngine.getInstance().getLastAssignedSlotMessageId(queueName);
+        long messageIdDifference = 1024 * 256 * 5000;
+        long nextMessageId = lastAssignedSlotMessageId - messageIdDifference;
+        long remainingMessageCount = MessagingEngine.getInstance().getMessageCountOfQueue(queueName);
+
+        while ((remainingMessageCount > 0) && waitForPendingWrites()) {
+            int messageCountToRead = (int) Math.min(pageSize, remainingMessageCount);
+            List<AndesMessageMetadata> page = MessagingEngine.getInstance()
+                    .getNextNMessageMetadataFromQueue(queueName, nextMessageId, messageCountToRead);
+
+            if (page.isEmpty()) {
+                break;
             }
+
+            //todo: hasitha - what abt setting client identifier (it is skipped)?
+            for (AndesMessageMetadata metadata : page) {
+                AMQMessage message = AMQPUtils.getAMQMessageFromAndesMetaData(metadata);
+                sendMessageToClient(message);
+            }
+
+            // Messages are returned in the ascending order of message ID
+            nextMessageId = page.get(page.size() - 1).getMessageID() + 1;
+            remainingMessageCount = remainingMessageCount - page.size();
+
+            if (page.size() < messageCountToRead) {
+                break;
+            }
+        }
     }
 
     /**
-     * Get message destination entries sorted using the message Id in the ascending order.
+     * Wait until the messages written to the connection have been sent down to the configured bound. Written
+     * messages are queued in memory until the client reads them, hence a slow browser should not be sent more.
      *
-     * @return Sorted QueueEntry List
-     * @throws AndesException
+     * @return true if browsing should continue, false if the subscription closed or the thread was interrupted
      */
-    private List<QueueEntry> getSortedMessages() throws AndesException {
-
-        String queueName = queue.getResourceName();
-        long lastAssignedSlotMessageId = MessagingEngine.getInstance().getLastAssignedSlotMessageId(queueName);
-        long messageIdDifference = 1024 * 256 * 5000;
-        long lastReadMessageId = lastAssignedSlotMessageId - messageIdDifference;
-        int countOfQueue = (int) MessagingEngine.getInstance().getMessageCountOfQueue(queueName);
-
-        List<AndesMessageMetadata> queueMessageMetaData = new ArrayList<AndesMessageMetadata>();
-        List<AndesMessageMetadata> currentlyReadMessageMetaData = MessagingEngine.getInstance()
-                .getNextNMessageMetadataFromQueue(queueName, lastReadMessageId, countOfQueue);
-
-        queueMessageMetaData.addAll(currentlyReadMessageMetaData);
-
-        CustomComparator orderComparator = new CustomComparator();
-        Collections.sort(queueMessageMetaData, orderComparator);
-        //todo: hasitha - what abt setting client identifier (it is skipped)?
-        List<AMQMessage>  AMQMessages  =  AMQPUtils.getEntryAMQMessageListFromAndesMetaDataList(queueMessageMetaData);
-        List<QueueEntry> queueEntries = new ArrayList<QueueEntry>();
-        for(AMQMessage message : AMQMessages) {
-            queueEntries.add(AMQPUtils.convertAMQMessageToQueueEntry(message, queue));
+    private boolean waitForPendingWrites() {
+        while (!subscription.isClosed()) {
+            if (session.getPendingWriteBytes() <= maxPendingWriteBytes) {
+                return true;
+            }
+            try {
+                Thread.sleep(PENDING_WRITE_CHECK_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while waiting for the queue browser of " + queue.getResourceName()
+                         + " to receive messages");
+                return false;
+            }
         }
-        return queueEntries;
+        return false;
     }
 
-    public class CustomComparator implements Comparator<AndesMessageMetadata>{
+    /**
+     * Sends a message of the destination to the browser subscription
+     * @param message - message of destination
+     */
+    private void sendMessageToClient(AMQMessage message) {
+        try {
+            if (subscription instanceof SubscriptionImpl.BrowserSubscription) {
+                subscription.send(AMQPUtils.convertAMQMessageToQueueEntry(message, queue));
+            }
 
-        public int compare(AndesMessageMetadata message1, AndesMessageMetadata message2) {
-            return (int) (message1.getMessageID()-message2.getMessageID());
+        } catch (Exception e) {
+            log.error("Unexpected Error in Message Flusher Task " +
+                    "while delivering the message : ", e);
         }
     }
-
 }
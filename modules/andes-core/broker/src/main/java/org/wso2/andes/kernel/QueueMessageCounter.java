@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.kernel;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.log4j.Logger;
+import org.wso2.andes.configuration.AndesConfigurationManager;
+import org.wso2.andes.configuration.enums.AndesConfiguration;
+import org.wso2.andes.server.cluster.ClusterAgent;
+import org.wso2.andes.server.queue.DLCQueueUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the message count of storage queues in memory so that message count queries do not have to count the
+ * metadata rows of a queue in the message store.
+ * <p/>
+ * Each node tracks the changes it does to a queue (messages written, acknowledged, purged, moved to DLC, expired)
+ * as a pending delta. Pending deltas are periodically written to the queue counter table of the
+ * {@link AndesContextStore} with atomic increments, which aggregates the changes of all nodes in the cluster. The
+ * count of a queue is the last value read from the counter table plus the pending delta of this node. Hence changes
+ * done by other nodes are visible after at most two checkpoint intervals.
+ * <p/>
+ * Counters are never initialised from the message store, since a count read from the store includes messages of
+ * other nodes whose changes are not yet written to the counter table. Instead the coordinator periodically compares
+ * the counters with the message store and corrects a counter which disagrees by the same amount in two consecutive
+ * comparisons while neither the counter nor the stored messages of the queue changed. The comparisons are further
+ * apart than the checkpoint interval, so at that point every change of the queue is written to the counter table
+ * and the difference is not caused by pending changes. This corrects counters of queues created by an older version
+ * of the broker, which did not maintain counters.
+ * <p/>
+ * Dead letter channel queues are not tracked.
+ */
+public class QueueMessageCounter {
+
+    private static final Logger log = Logger.getLogger(QueueMessageCounter.class);
+
+    private final AndesContextStore contextStore;
+
+    private final MessageStore messageStore;
+
+    /**
+     * Counters of storage queues known to this node
+     */
+    private final ConcurrentHashMap<String, Counter> counters;
+
+    /**
+     * Writes pending deltas to the context store
+     */
+    private final ScheduledExecutorService checkpointExecutor;
+
+    /**
+     * @param contextStore store holding the cluster wide queue counters
+     * @param messageStore store used to reconcile the counters with the stored messages of the queues
+     */
+    public QueueMessageCounter(AndesContextStore contextStore, MessageStore messageStore) {
+        this.contextStore = contextStore;
+        this.messageStore = messageStore;
+        this.counters = new ConcurrentHashMap<>();
+
+        ThreadFactoryBuilder threadFactoryBuilder = new ThreadFactoryBuilder()
+                .setNameFormat("QueueMessageCounterCheckpoint-%d");
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(threadFactoryBuilder.build());
+    }
+
+    /**
+     * Start writing pending message count changes to the context store periodically
+     */
+    public void start() {
+        Integer checkpointInterval = AndesConfigurationManager.readValue(
+                AndesConfiguration.PERFORMANCE_TUNING_MESSAGE_COUNTER_CHECKPOINT_INTERVAL);
+        checkpointExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                checkpoint();
+            }
+        }, checkpointInterval, checkpointInterval, TimeUnit.MILLISECONDS);
+
+        Integer configuredReconcileInterval = AndesConfigurationManager.readValue(
+                AndesConfiguration.PERFORMANCE_TUNING_MESSAGE_COUNTER_RECONCILE_INTERVAL);
+        long reconcileInterval = Math.max(configuredReconcileInterval, 3L * checkpointInterval);
+        // Scheduled in the checkpoint thread, hence a reconcile never runs in parallel with a checkpoint
+        checkpointExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                reconcile();
+            }
+        }, reconcileInterval, reconcileInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the periodic checkpoint and write the pending changes
+     */
+    public void stop() {
+        checkpointExecutor.shutdown();
+        try {
+            checkpointExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkpoint();
+    }
+
+    /**
+     * Create the counter of a queue in the context store if it does not exist and start tracking the queue.
+     *
+     * @param storageQueueName name of the storage queue
+     * @throws AndesException on an error while accessing the stores
+     */
+    public void registerQueue(String storageQueueName) throws AndesException {
+        if (!DLCQueueUtils.isDeadLetterQueue(storageQueueName)) {
+            getCounter(storageQueueName);
+        }
+    }
+
+    /**
+     * Stop tracking a deleted queue and remove its counter from the context store.
+     *
+     * @param storageQueueName name of the storage queue
+     * @throws AndesException on an error while removing the counter
+     */
+    public void removeQueue(String storageQueueName) throws AndesException {
+        removeLocalQueueData(storageQueueName);
+        contextStore.removeMessageCounterForQueue(storageQueueName);
+    }
+
+    /**
+     * Stop tracking a queue in this node without changing the counter in the context store. Pending changes of the
+     * queue are discarded.
+     *
+     * @param storageQueueName name of the storage queue
+     */
+    public void removeLocalQueueData(String storageQueueName) {
+        counters.remove(storageQueueName);
+    }
+
+    /**
+     * Record messages written to a queue.
+     *
+     * @param storageQueueName name of the storage queue
+     * @param count            number of messages written
+     */
+    public void messagesAdded(String storageQueueName, long count) {
+        updateCount(storageQueueName, count);
+    }
+
+    /**
+     * Record messages removed from a queue. i.e. acknowledged, purged, expired or moved to the dead letter channel
+     *
+     * @param storageQueueName name of the storage queue
+     * @param count            number of messages removed
+     */
+    public void messagesRemoved(String storageQueueName, long count) {
+        updateCount(storageQueueName, -count);
+    }
+
+    /**
+     * Get the message count of a queue.
+     *
+     * @param storageQueueName name of the storage queue
+     * @return number of messages in the queue
+     * @throws AndesException if the counter of the queue could not be loaded
+     */
+    public long getMessageCount(String storageQueueName) throws AndesException {
+        return getCounter(storageQueueName).getCount();
+    }
+
+    /**
+     * Write pending changes of all queues to the context store and refresh the counts with the changes done by the
+     * other nodes.
+     */
+    public void checkpoint() {
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            String storageQueueName = entry.getKey();
+            Counter counter = entry.getValue();
+            try {
+                synchronized (counter) {
+                    if (!counter.loaded) {
+                        // Make sure the counter exists in the context store before incrementing it
+                        loadCounter(storageQueueName, counter);
+                    }
+                    long delta = counter.pendingDelta.get();
+                    if (delta > 0) {
+                        contextStore.incrementMessageCountForQueue(storageQueueName, delta);
+                    } else if (delta < 0) {
+                        contextStore.decrementMessageCountForQueue(storageQueueName, -delta);
+                    }
+                    long storedCount = contextStore.getMessageCountForQueue(storageQueueName);
+                    counter.checkpointed(delta, storedCount);
+                }
+            } catch (AndesException e) {
+                // Pending delta is kept and retried in the next checkpoint
+                log.warn("Error while writing message count of queue " + storageQueueName
+                         + " to the context store", e);
+            } catch (RuntimeException e) {
+                log.error("Error while writing message count of queue " + storageQueueName
+                          + " to the context store", e);
+            }
+        }
+    }
+
+    /**
+     * Compare the counters of the queues with the messages in the message store and correct a counter which
+     * consistently disagrees with the store. Only the coordinator, or a standalone node, reconciles counters.
+     */
+    public void reconcile() {
+        boolean reconcilingNode = isCounterReconcilingNode();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            String storageQueueName = entry.getKey();
+            Counter counter = entry.getValue();
+            if (!reconcilingNode || !counter.loaded) {
+                counter.clearReconcileObservation();
+                continue;
+            }
+            try {
+                long counterValue = contextStore.getMessageCountForQueue(storageQueueName);
+                long messageCount = messageStore.getMessageCountForQueue(storageQueueName);
+
+                if ((counterValue != messageCount) && counter.isSameReconcileObservation(counterValue, messageCount)) {
+                    long correction = messageCount - counterValue;
+                    if (correction > 0) {
+                        contextStore.incrementMessageCountForQueue(storageQueueName, correction);
+                    } else {
+                        contextStore.decrementMessageCountForQueue(storageQueueName, -correction);
+                    }
+                    log.info("Message counter of queue " + storageQueueName + " corrected from " + counterValue
+                             + " to " + messageCount);
+                    // The next correction requires two new observations
+                    counter.clearReconcileObservation();
+                } else {
+                    counter.observeForReconcile(counterValue, messageCount);
+                }
+            } catch (AndesException e) {
+                counter.clearReconcileObservation();
+                log.warn("Error while reconciling message counter of queue " + storageQueueName, e);
+            } catch (RuntimeException e) {
+                counter.clearReconcileObservation();
+                log.error("Error while reconciling message counter of queue " + storageQueueName, e);
+            }
+        }
+    }
+
+    /**
+     * Add a delta to the counter of a queue. Counters not yet loaded are loaded in the next count query or
+     * checkpoint, so that message writers and acknowledgement handlers never access the stores.
+     */
+    private void updateCount(String storageQueueName, long delta) {
+        if (DLCQueueUtils.isDeadLetterQueue(storageQueueName)) {
+            return;
+        }
+        Counter counter = counters.get(storageQueueName);
+        if (null == counter) {
+            Counter newCounter = new Counter();
+            counter = counters.putIfAbsent(storageQueueName, newCounter);
+            if (null == counter) {
+                counter = newCounter;
+            }
+        }
+        counter.pendingDelta.addAndGet(delta);
+    }
+
+    /**
+     * Get the counter of a queue loading it from the context store if required
+     */
+    private Counter getCounter(String storageQueueName) throws AndesException {
+        Counter counter = counters.get(storageQueueName);
+        if (null == counter) {
+            Counter newCounter = new Counter();
+            counter = counters.putIfAbsent(storageQueueName, newCounter);
+            if (null == counter) {
+                counter = newCounter;
+            }
+        }
+        if (!counter.loaded) {
+            loadCounter(storageQueueName, counter);
+        }
+        return counter;
+    }
+
+    /**
+     * Read the stored count of a queue creating the counter in the context store if it does not exist.
+     */
+    private void loadCounter(String storageQueueName, Counter counter) throws AndesException {
+        synchronized (counter) {
+            if (counter.loaded) {
+                return;
+            }
+            contextStore.addMessageCounterForQueue(storageQueueName);
+            counter.storedCount = contextStore.getMessageCountForQueue(storageQueueName);
+            counter.loaded = true;
+        }
+    }
+
+    /**
+     * @return true if this is a standalone node or the coordinator of the cluster
+     */
+    private boolean isCounterReconcilingNode() {
+        AndesContext andesContext = AndesContext.getInstance();
+        ClusterAgent clusterAgent = andesContext.getClusterAgent();
+        return !andesContext.isClusteringEnabled() || ((null != clusterAgent) && clusterAgent.isCoordinator());
+    }
+
+    /**
+     * Message count of a single queue
+     */
+    private static final class Counter {
+
+        /**
+         * Changes done by this node which are not yet written to the context store
+         */
+        private final AtomicLong pendingDelta = new AtomicLong();
+
+        /**
+         * Count read from the context store in the last checkpoint
+         */
+        private long storedCount;
+
+        /**
+         * True once the stored count is read from the context store
+         */
+        private volatile boolean loaded;
+
+        /**
+         * Counter value and message count of the queue observed in the last reconcile. -1 if there is no
+         * observation. Only accessed by the checkpoint thread.
+         */
+        private long reconcileCounterValue = -1;
+        private long reconcileMessageCount = -1;
+
+        private synchronized long getCount() {
+            return Math.max(0, storedCount + pendingDelta.get());
+        }
+
+        /**
+         * Apply the result of a checkpoint. Called holding the lock of the counter, so that a count query never sees
+         * the written delta twice or misses it.
+         */
+        private void checkpointed(long writtenDelta, long newStoredCount) {
+            pendingDelta.addAndGet(-writtenDelta);
+            storedCount = newStoredCount;
+        }
+
+        private boolean isSameReconcileObservation(long counterValue, long messageCount) {
+            return (reconcileCounterValue == counterValue) && (reconcileMessageCount == messageCount);
+        }
+
+        private void observeForReconcile(long counterValue, long messageCount) {
+            reconcileCounterValue = counterValue;
+            reconcileMessageCount = messageCount;
+        }
+
+        private void clearReconcileObservation() {
+            reconcileCounterValue = -1;
+            reconcileMessageCount = -1;
+        }
+    }
+}
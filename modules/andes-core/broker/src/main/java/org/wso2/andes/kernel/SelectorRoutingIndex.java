@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.kernel;
+
+import org.wso2.andes.subscription.EqualitySelector;
+import org.wso2.andes.subscription.LocalSubscription;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the subscriptions of a queue having simple property equality selectors (i.e. <code>region = 'EU'</code>
+ * or <code>region IN ('EU', 'US')</code>) by the accepted property values. The subscriptions interested in a message
+ * are found by reading each indexed property once from the message, instead of evaluating the selector of every
+ * subscription. Subscriptions with other selectors are not indexed and should be evaluated as usual.
+ */
+class SelectorRoutingIndex {
+
+    /**
+     * Property name -> property value -> subscriptions accepting the value
+     */
+    private final Map<String, Map<String, Set<LocalSubscription>>> subscriptionsByProperty;
+
+    /**
+     * Selector used to read each indexed property from messages
+     */
+    private final Map<String, EqualitySelector> propertyReaders;
+
+    private final Set<LocalSubscription> indexedSubscriptions;
+
+    /**
+     * Subscriptions which are not indexed. These are candidates for every message
+     */
+    private final List<LocalSubscription> nonIndexedSubscriptions;
+
+    private SelectorRoutingIndex(List<LocalSubscription> nonIndexedSubscriptions) {
+        subscriptionsByProperty = new HashMap<>();
+        propertyReaders = new HashMap<>();
+        indexedSubscriptions = new HashSet<>();
+        this.nonIndexedSubscriptions = nonIndexedSubscriptions;
+    }
+
+    /**
+     * Build the index for a set of subscriptions
+     *
+     * @param subscriptions subscriptions of a queue
+     * @return index or null if none of the subscriptions has an equality selector
+     */
+    static SelectorRoutingIndex build(Collection<LocalSubscription> subscriptions) {
+        SelectorRoutingIndex index = null;
+        List<LocalSubscription> nonIndexedSubscriptions = new ArrayList<>();
+
+        for (LocalSubscription subscription : subscriptions) {
+            EqualitySelector selector = subscription.getEqualitySelector();
+            if (null == selector) {
+                nonIndexedSubscriptions.add(subscription);
+                continue;
+            }
+            if (null == index) {
+                index = new SelectorRoutingIndex(nonIndexedSubscriptions);
+            }
+            index.add(subscription, selector);
+        }
+
+        return index;
+    }
+
+    private void add(LocalSubscription subscription, EqualitySelector selector) {
+        String propertyName = selector.getPropertyName();
+        Map<String, Set<LocalSubscription>> subscriptionsByValue = subscriptionsByProperty.get(propertyName);
+        if (null == subscriptionsByValue) {
+            subscriptionsByValue = new HashMap<>();
+            subscriptionsByProperty.put(propertyName, subscriptionsByValue);
+            propertyReaders.put(propertyName, selector);
+        }
+
+        for (String value : selector.getAcceptedValues()) {
+            Set<LocalSubscription> valueSubscriptions = subscriptionsByValue.get(value);
+            if (null == valueSubscriptions) {
+                // Keep insertion order so that round robin over the matches is stable
+                valueSubscriptions = new LinkedHashSet<>();
+                subscriptionsByValue.put(value, valueSubscriptions);
+            }
+            valueSubscriptions.add(subscription);
+        }
+
+        indexedSubscriptions.add(subscription);
+    }
+
+    /**
+     * Check if the selector of a subscription is evaluated through the index
+     *
+     * @param subscription subscription to check
+     * @return true if the subscription is indexed
+     */
+    boolean isIndexed(LocalSubscription subscription) {
+        return indexedSubscriptions.contains(subscription);
+    }
+
+    /**
+     * Find the indexed subscriptions whose selector accepts a message
+     *
+     * @param message message to route
+     * @return indexed subscriptions accepting the message
+     * @throws AndesException on an error while reading the message properties
+     */
+    Set<LocalSubscription> getMatchingSubscriptions(AndesMessageMetadata message) throws AndesException {
+        Set<LocalSubscription> matchingSubscriptions = null;
+
+        for (Map.Entry<String, Map<String, Set<LocalSubscription>>> entry : subscriptionsByProperty.entrySet()) {
+            String value = propertyReaders.get(entry.getKey()).getPropertyValue(message);
+            if (null == value) {
+                continue;
+            }
+            Set<LocalSubscription> valueSubscriptions = entry.getValue().get(value);
+            if (null == valueSubscriptions) {
+                continue;
+            }
+            if (null == matchingSubscriptions) {
+                // Common case of a single indexed property is served without copying
+                if (subscriptionsByProperty.size() == 1) {
+                    return valueSubscriptions;
+                }
+                matchingSubscriptions = new LinkedHashSet<>();
+            }
+            matchingSubscriptions.addAll(valueSubscriptions);
+        }
+
+        if (null == matchingSubscriptions) {
+            return Collections.emptySet();
+        }
+        return matchingSubscriptions;
+    }
+
+    /**
+     * Find the subscriptions which should be tried for a message. These are the indexed subscriptions accepting the
+     * message followed by all subscriptions which are not indexed. Selectors of the subscriptions which are not
+     * indexed still need to be evaluated.
+     *
+     * @param message message to route
+     * @return candidate subscriptions for the message
+     * @throws AndesException on an error while reading the message properties
+     */
+    List<LocalSubscription> getCandidateSubscriptions(AndesMessageMetadata message) throws AndesException {
+        Set<LocalSubscription> indexedMatches = getMatchingSubscriptions(message);
+        List<LocalSubscription> candidates =
+                new ArrayList<>(indexedMatches.size() + nonIndexedSubscriptions.size());
+        candidates.addAll(indexedMatches);
+        candidates.addAll(nonIndexedSubscriptions);
+        return candidates;
+    }
+}
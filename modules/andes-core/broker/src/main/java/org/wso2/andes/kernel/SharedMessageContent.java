@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.kernel;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Reference count of the in-memory content shared by the topic clones of a message. Clones keep their own
+ * chunk objects, but those chunks refer to the same content bytes, so the bytes should be accounted only once
+ * however many clones are held in memory.
+ * <p>
+ * The content is charged to exactly one of the held clones at a time. When that clone is released the charge
+ * moves to one of the remaining clones, and the content is no longer charged once the last clone is released.
+ */
+public class SharedMessageContent {
+
+    /**
+     * Length of the shared content in bytes
+     */
+    private final int contentLength;
+
+    /**
+     * Ids of the clones currently holding a reference to the content
+     */
+    private final Set<Long> heldMessageIds = new LinkedHashSet<>();
+
+    /**
+     * Id of the clone the content is charged to. -1 when no clone is held
+     */
+    private long chargedMessageId = -1;
+
+    public SharedMessageContent(int contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * Get the length of the shared content in bytes
+     */
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Add a reference to the content from the given clone. The content is charged to the clone if no other
+     * clone holds a reference to it.
+     *
+     * @param messageId id of the clone
+     */
+    public synchronized void acquire(long messageId) {
+        heldMessageIds.add(messageId);
+        if (-1 == chargedMessageId) {
+            chargedMessageId = messageId;
+        }
+    }
+
+    /**
+     * Remove the reference of the given clone
+     *
+     * @param messageId id of the clone
+     * @return id of the clone the content charge moved to, or -1 if the charge did not move
+     */
+    public synchronized long release(long messageId) {
+        heldMessageIds.remove(messageId);
+        if (messageId != chargedMessageId) {
+            return -1;
+        }
+
+        if (heldMessageIds.isEmpty()) {
+            chargedMessageId = -1;
+        } else {
+            chargedMessageId = heldMessageIds.iterator().next();
+        }
+        return chargedMessageId;
+    }
+
+    /**
+     * Check whether the content is charged to the given clone
+     *
+     * @param messageId id of the clone
+     * @return true if the content bytes should be accounted against the clone
+     */
+    public synchronized boolean isChargedTo(long messageId) {
+        return messageId == chargedMessageId;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.kernel.disruptor;
+
+import com.lmax.disruptor.RingBuffer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides the batch size of a {@link ConcurrentBatchEventHandler} from the observed latency of handling a batch
+ * (i.e. the store commit of a message writer) and the number of events waiting in the ring.
+ * <p/>
+ * While commits finish within the target latency and events are piling up in the ring the batch size is grown, so
+ * that a single commit covers more messages. When a commit exceeds the target latency the batch size is reduced.
+ * A batch is always handled when no more events are available in the ring. With large batches and a ring busy with
+ * other event types an optional maximum linger time bounds how long a batched event waits for the batch to fill.
+ * <p/>
+ * An instance is used by a single batch event handler thread, only the batch size is read from other threads.
+ */
+public class AdaptiveBatchSizeController {
+
+    private static Log log = LogFactory.getLog(AdaptiveBatchSizeController.class);
+
+    private final int minBatchSize;
+
+    private final int maxBatchSize;
+
+    private final long targetLatencyNanos;
+
+    private final long maxLingerNanos;
+
+    /**
+     * Ring the handler consumes events from. Used to read ring occupancy
+     */
+    private final RingBuffer<?> ringBuffer;
+
+    /**
+     * Batch size currently in use
+     */
+    private volatile int batchSize;
+
+    /**
+     * @param initialBatchSize   batch size to start with
+     * @param minBatchSize       lower bound of the batch size
+     * @param maxBatchSize       upper bound of the batch size
+     * @param targetLatencyMillis batch size is reduced when handling a batch takes longer than this
+     * @param maxLingerMicros    maximum time a batched event waits for the batch to fill. Zero to disable
+     * @param ringBuffer         ring the handler consumes events from
+     */
+    public AdaptiveBatchSizeController(int initialBatchSize, int minBatchSize, int maxBatchSize,
+                                       int targetLatencyMillis, int maxLingerMicros, RingBuffer<?> ringBuffer) {
+        if (minBatchSize <= 0 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("Invalid adaptive batch size range [" + minBatchSize + ", "
+                                               + maxBatchSize + "]");
+        }
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.maxLingerNanos = TimeUnit.MICROSECONDS.toNanos(maxLingerMicros);
+        this.ringBuffer = ringBuffer;
+        this.batchSize = Math.min(maxBatchSize, Math.max(minBatchSize, initialBatchSize));
+    }
+
+    /**
+     * @return batch size currently in use
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Update the batch size after a batch is handled
+     *
+     * @param handledEventCount number of events in the handled batch
+     * @param latencyNanos      time taken to handle the batch
+     */
+    public void batchHandled(int handledEventCount, long latencyNanos) {
+        int currentBatchSize = batchSize;
+        int newBatchSize = currentBatchSize;
+        long eventsInRing = ringBuffer.getBufferSize() - ringBuffer.remainingCapacity();
+
+        if (latencyNanos > targetLatencyNanos) {
+            // Store is struggling. Back off quickly
+            newBatchSize = Math.max(minBatchSize, currentBatchSize - Math.max(1, currentBatchSize / 4));
+        } else if ((handledEventCount >= currentBatchSize) && (eventsInRing > currentBatchSize)) {
+            // Commit is fast and events are waiting. Cover more events with a single commit
+            newBatchSize = Math.min(maxBatchSize, currentBatchSize + Math.max(1, currentBatchSize / 8));
+        }
+
+        if (newBatchSize != currentBatchSize) {
+            batchSize = newBatchSize;
+            if (log.isDebugEnabled()) {
+                log.debug("Batch size changed from " + currentBatchSize + " to " + newBatchSize + ". Latency "
+                          + TimeUnit.NANOSECONDS.toMicros(latencyNanos) + "us, events in ring " + eventsInRing);
+            }
+        }
+    }
+
+    /**
+     * Check whether the oldest batched event has waited longer than the maximum linger time. Always false when
+     * the linger time is disabled
+     *
+     * @param oldestEventNanoTime {@link System#nanoTime()} at which the oldest event of the batch was seen
+     * @return true if the batch should be handled without waiting for it to fill
+     */
+    public boolean isLingerExpired(long oldestEventNanoTime) {
+        return (maxLingerNanos > 0) && (System.nanoTime() - oldestEventNanoTime >= maxLingerNanos);
+    }
+}
@@ -59,6 +59,16 @@ public class ConcurrentBatchEventHandler implements EventHandler<InboundEventCon
      */
     private int batchSize;
 
+    /**
+     * Adapts the batch size to the observed batch handling latency. Null if the batch size is fixed
+     */
+    private final AdaptiveBatchSizeController batchSizeController;
+
+    /**
+     * {@link System#nanoTime()} at which the first event of the current batch was added
+     */
+    private long firstEventNanoTime;
+
     /**
      * Type of event to do batching
      */
@@ -82,6 +92,24 @@ public class ConcurrentBatchEventHandler implements EventHandler<InboundEventCon
      */
     public ConcurrentBatchEventHandler(long turn, int groupCount, int batchSize,
                                        InboundEventContainer.Type eventType, BatchEventHandler eventHandler) {
+        this(turn, groupCount, batchSize, eventType, eventHandler, null);
+    }
+
+    /**
+     * Creates an event handler that batches inbound events of the given type with a batch size decided by
+     * the given {@link AdaptiveBatchSizeController}
+     *
+     * @param turn                is the value of, sequence % groupCount this batch processor process events. Turn
+     *                            must be less than groupCount
+     * @param groupCount          total number of concurrent batch processors for the event type
+     * @param batchSize           initial capacity of the batch
+     * @param eventType           type of event to batch
+     * @param eventHandler        event handler that does the actual per event, event handling
+     * @param batchSizeController decides the batch size. If null batchSize is used as the maximum batch size
+     */
+    public ConcurrentBatchEventHandler(long turn, int groupCount, int batchSize,
+                                       InboundEventContainer.Type eventType, BatchEventHandler eventHandler,
+                                       AdaptiveBatchSizeController batchSizeController) {
         
         if (turn >= groupCount) {
             throw new IllegalArgumentException("Turn should be less than groupCount");
@@ -92,6 +120,7 @@ public class ConcurrentBatchEventHandler implements EventHandler<InboundEventCon
         this.batchSize = batchSize;
         this.eventType = eventType;
         this.eventHandler = eventHandler;
+        this.batchSizeController = batchSizeController;
         eventList = new ArrayList<>(this.batchSize);
 
     }
@@ -111,6 +140,9 @@ public class ConcurrentBatchEventHandler implements EventHandler<InboundEventCon
 
             currentTurn = sequence % groupCount;
             if (turn == currentTurn) {
+                if (eventList.isEmpty()) {
+                    firstEventNanoTime = System.nanoTime();
+                }
                 eventList.add(event);
             }
             if (log.isDebugEnabled()) {
@@ -121,10 +153,13 @@ public class ConcurrentBatchEventHandler implements EventHandler<InboundEventCon
 
         // Batch and invoke event handler. Irrespective of event type following should execute.
         // End of batch may come in an irrelevant event type slot.
-        if (((eventList.size() >= batchSize) || endOfBatch)
-                && !eventList.isEmpty()) {
+        if (!eventList.isEmpty() && isBatchReady(endOfBatch)) {
+            long startTime = System.nanoTime();
             try {
                 eventHandler.onEvent(eventList);
+                if (null != batchSizeController) {
+                    batchSizeController.batchHandled(eventList.size(), System.nanoTime() - startTime);
+                }
                 if (log.isDebugEnabled()) {
                     log.debug("Event handler called with " + eventList.size() + " events. EventType "
                             + eventType);
@@ -139,4 +174,22 @@ public class ConcurrentBatchEventHandler implements EventHandler<InboundEventCon
             
         }
     }
+
+    /**
+     * Check whether the batched events should be handed over to the event handler.
+     *
+     * @param endOfBatch true if no more events are available at the moment
+     * @return true if the batch should be handled now
+     */
+    private boolean isBatchReady(boolean endOfBatch) {
+        if (null == batchSizeController) {
+            return (eventList.size() >= batchSize) || endOfBatch;
+        }
+
+        // Batch must be handled at the end of batch. Disruptor moves this handler's sequence past the batched
+        // events once this method returns
+        return endOfBatch
+               || (eventList.size() >= batchSizeController.getBatchSize())
+               || batchSizeController.isLingerExpired(firstEventNanoTime);
+    }
 }
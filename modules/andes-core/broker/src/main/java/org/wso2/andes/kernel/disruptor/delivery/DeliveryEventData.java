@@ -48,6 +48,11 @@ public class DeliveryEventData {
      */
     private AndesContent andesContent;
 
+    /**
+     * Time the event is submitted to the ring in nanoseconds. Used to measure the time spent in the ring
+     */
+    private long submittedTime;
+
     public DeliveryEventData() {
         this.errorOccurred = false;
     }
@@ -88,6 +93,25 @@ public class DeliveryEventData {
         this.andesContent = andesContent;
     }
 
+    /**
+     * Get the time the event was submitted to the ring
+     *
+     * @return submitted time in nanoseconds as given by {@link System#nanoTime()}
+     */
+    public long getSubmittedTime() {
+        return submittedTime;
+    }
+
+    /**
+     * Set the time the event is submitted to the ring
+     *
+     * @param submittedTime
+     *         submitted time in nanoseconds as given by {@link System#nanoTime()}
+     */
+    public void setSubmittedTime(long submittedTime) {
+        this.submittedTime = submittedTime;
+    }
+
     /**
      * Get local subscription for current event
      *
@@ -35,10 +35,13 @@ import org.wso2.andes.tools.utils.MessageTracer;
 import org.wso2.carbon.metrics.manager.Level;
 import org.wso2.carbon.metrics.manager.Meter;
 import org.wso2.carbon.metrics.manager.MetricManager;
+import org.wso2.carbon.metrics.manager.Timer;
+import org.wso2.carbon.metrics.manager.Timer.Context;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -60,9 +63,28 @@ public class DeliveryEventHandler implements EventHandler<DeliveryEventData> {
      */
     private final long numberOfConsumers;
 
+    /**
+     * Rate of messages sent to subscribers
+     */
+    private final Meter messageSentMeter;
+
+    /**
+     * Time messages spend in the outbound ring before being sent
+     */
+    private final Timer outboundRingWaitTimer;
+
+    /**
+     * Time taken to write messages to subscribers
+     */
+    private final Timer networkWriteTimer;
+
     public DeliveryEventHandler(long ordinal, long numberOfHandlers) {
         this.ordinal = ordinal;
         this.numberOfConsumers = numberOfHandlers;
+
+        messageSentMeter = MetricManager.meter(Level.INFO, MetricsConstants.MSG_SENT_RATE);
+        outboundRingWaitTimer = MetricManager.timer(Level.DEBUG, MetricsConstants.OUTBOUND_RING_WAIT);
+        networkWriteTimer = MetricManager.timer(Level.DEBUG, MetricsConstants.NETWORK_WRITE);
     }
 
     /**
@@ -97,10 +119,17 @@ public class DeliveryEventHandler implements EventHandler<DeliveryEventData> {
                         MessageTracer.trace(message, MessageTracer.DISPATCHED_TO_PROTOCOL);
 
                         //Adding metrics meter for ack rate
-                        Meter messageMeter = MetricManager.meter(Level.INFO, MetricsConstants.MSG_SENT_RATE);
-                        messageMeter.mark();
+                        messageSentMeter.mark();
+                        outboundRingWaitTimer.update(System.nanoTime() - deliveryEventData.getSubmittedTime(),
+                                TimeUnit.NANOSECONDS);
 
-                        subscription.sendMessageToSubscriber(protocolMessage, deliveryEventData.getAndesContent());
+                        Context networkWriteContext = networkWriteTimer.start();
+                        try {
+                            subscription.sendMessageToSubscriber(protocolMessage,
+                                    deliveryEventData.getAndesContent());
+                        } finally {
+                            networkWriteContext.stop();
+                        }
 
                     } else {
                         onSendError(message, subscription);
@@ -138,6 +138,7 @@ public class DisruptorBasedFlusher {
         DeliveryEventData data = ringBuffer.get(nextSequence);
         data.setLocalSubscription(subscription);
         data.setMetadata(metadata);
+        data.setSubmittedTime(System.nanoTime());
 
         ringBuffer.publish(nextSequence);
     }
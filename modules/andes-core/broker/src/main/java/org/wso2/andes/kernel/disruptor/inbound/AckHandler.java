@@ -27,6 +27,7 @@ import org.wso2.andes.kernel.AndesException;
 import org.wso2.andes.kernel.DeliverableAndesMetadata;
 import org.wso2.andes.kernel.MessagingEngine;
 import org.wso2.andes.kernel.disruptor.BatchEventHandler;
+import org.wso2.andes.kernel.slot.SlotDeliveryWorkerManager;
 import org.wso2.andes.store.AndesTransactionRollbackException;
 import org.wso2.andes.store.FailureObservingStoreManager;
 import org.wso2.andes.store.HealthAwareStore;
@@ -35,7 +36,12 @@ import org.wso2.andes.subscription.LocalSubscription;
 import org.wso2.andes.subscription.SubscriptionEngine;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -66,12 +72,25 @@ public class AckHandler implements BatchEventHandler, StoreHealthListener {
      * Keeps message meta-data that needs to be removed from the message store.
      */
     List<DeliverableAndesMetadata> messagesToRemove;
-    
+
+    /**
+     * Storage queues of the subscriptions which acknowledged messages in the current batch
+     */
+    private final Set<String> storageQueuesWithRoom;
+
+    /**
+     * Local subscriptions of the channels which acknowledged messages in the current batch. Avoids looking up
+     * the subscription for each acknowledgement
+     */
+    private final Map<UUID, LocalSubscription> subscriptionsOfBatch;
+
     AckHandler(MessagingEngine messagingEngine) {
         this.messagingEngine = messagingEngine;
         this.subscriptionEngine = AndesContext.getInstance().getSubscriptionEngine();
         this.messageStoresUnavailable = null;
         this.messagesToRemove = new ArrayList<>();
+        this.storageQueuesWithRoom = new HashSet<>();
+        this.subscriptionsOfBatch = new HashMap<>();
         FailureObservingStoreManager.registerStoreHealthListener(this);
     }
 
@@ -112,8 +131,13 @@ public class AckHandler implements BatchEventHandler, StoreHealthListener {
             // For topics message is shared. If all acknowledgements are received only we should remove message
             boolean deleteMessage = ack.getAcknowledgedMessage().markAsAcknowledgedByChannel(ack.getChannelID());
 
-            LocalSubscription subscription = subscriptionEngine.getLocalSubscriptionForChannelId(ack.getChannelID());
+            LocalSubscription subscription = subscriptionsOfBatch.get(ack.getChannelID());
+            if (null == subscription) {
+                subscription = subscriptionEngine.getLocalSubscriptionForChannelId(ack.getChannelID());
+                subscriptionsOfBatch.put(ack.getChannelID(), subscription);
+            }
             subscription.ackReceived(ack.getAcknowledgedMessage().getMessageID());
+            storageQueuesWithRoom.add(subscription.getStorageQueueName());
 
             if (deleteMessage) {
                 if (log.isDebugEnabled()) {
@@ -125,6 +149,7 @@ public class AckHandler implements BatchEventHandler, StoreHealthListener {
             }
             
         }
+        subscriptionsOfBatch.clear();
 
         /*
          * Checks for the message store availability if its not available
@@ -145,6 +170,12 @@ public class AckHandler implements BatchEventHandler, StoreHealthListener {
             }
         }
 
+        // Subscribers got room to accept messages. Wake up delivery of the relevant storage queues.
+        for (String storageQueueName : storageQueuesWithRoom) {
+            SlotDeliveryWorkerManager.getInstance().notifyStorageQueueReady(storageQueueName);
+        }
+        storageQueuesWithRoom.clear();
+
         deleteMessagesFromStore(0);
     }
 
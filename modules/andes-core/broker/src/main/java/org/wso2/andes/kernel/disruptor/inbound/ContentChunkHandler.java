@@ -30,6 +30,7 @@ import java.util.List;
 /**
  * This class will convert incoming message content chunks into content chunks
  * that can managed by Andes core. That is, this will change the chunk size.
+ * Content already assembled in chunks of the store chunk size is passed through as it is.
  */
 public class ContentChunkHandler implements EventHandler<InboundEventContainer> {
 
@@ -119,6 +120,11 @@ public class ContentChunkHandler implements EventHandler<InboundEventContainer>
      */
     List<AndesMessagePart> resizeChunks(List<AndesMessagePart> partList, int contentLength) {
 
+        // Transports assembling content in chunks of the store chunk size need no resizing
+        if (isResized(partList, contentLength)) {
+            return partList;
+        }
+
         List<AndesMessagePart> chunkList = new ArrayList<>();
         int written = 0;    // Written bytes to new content chunks
         int totalRemainingLength = contentLength;
@@ -210,4 +216,25 @@ public class ContentChunkHandler implements EventHandler<InboundEventContainer>
         }
         return chunkList;
     }
+
+    /**
+     * Check whether the content chunks are already laid out as resized chunks. That is every chunk except the last
+     * has a length of maxChunkSize and is placed at the right offset.
+     *
+     * @param partList original content chunk list
+     * @param contentLength total content length
+     * @return true if the chunks can be stored as they are
+     */
+    private boolean isResized(List<AndesMessagePart> partList, int contentLength) {
+        int written = 0;
+        for (AndesMessagePart chunk : partList) {
+            int remainingLength = contentLength - written;
+            if ((chunk.getOffset() != written) || (chunk.getDataLength() != Math.min(maxChunkSize, remainingLength))
+                    || (chunk.getDataLength() == 0)) {
+                return false;
+            }
+            written = written + chunk.getDataLength();
+        }
+        return written == contentLength;
+    }
 }
@@ -86,6 +86,11 @@ public class InboundEventContainer {
     public AndesMessage retainMessage;
     public boolean preProcessed;
 
+    /**
+     * Time a message event is published to the ring in nanoseconds. Zero for other events
+     */
+    private long publishedTime;
+
     /**
      * Inbound event type is specified by this enum
      */
@@ -180,6 +185,10 @@ public class InboundEventContainer {
         this.stateEvent = stateEvent;
     }
 
+    AndesInboundStateEvent getStateEvent() {
+        return stateEvent;
+    }
+
     /**
      * Reset internal references null and sets event type to IGNORE_EVENT
      */
@@ -194,6 +203,7 @@ public class InboundEventContainer {
         transactionEvent = null;
         freshContent.set(true);
         preProcessed = false;
+        publishedTime = 0;
     }
 
     /**
@@ -279,6 +289,17 @@ public class InboundEventContainer {
         messageList.clear();
     }
 
+    /**
+     * @return time the message event was published to the ring as given by {@link System#nanoTime()}, or zero
+     */
+    public long getPublishedTime() {
+        return publishedTime;
+    }
+
+    public void setPublishedTime(long publishedTime) {
+        this.publishedTime = publishedTime;
+    }
+
     public AndesChannel getChannel() {
         return channel;
     }
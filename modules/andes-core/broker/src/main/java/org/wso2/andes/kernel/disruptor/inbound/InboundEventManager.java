@@ -31,6 +31,7 @@ import org.wso2.andes.kernel.AndesChannel;
 import org.wso2.andes.kernel.AndesMessage;
 import org.wso2.andes.kernel.DisablePubAckImpl;
 import org.wso2.andes.kernel.MessagingEngine;
+import org.wso2.andes.kernel.disruptor.AdaptiveBatchSizeController;
 import org.wso2.andes.kernel.disruptor.ConcurrentBatchEventHandler;
 import org.wso2.andes.kernel.disruptor.LogExceptionHandler;
 import org.wso2.andes.metrics.MetricsConstants;
@@ -40,6 +41,8 @@ import org.wso2.carbon.metrics.manager.Gauge;
 import org.wso2.carbon.metrics.manager.Level;
 import org.wso2.carbon.metrics.manager.MetricManager;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -47,6 +50,11 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.wso2.andes.configuration.enums.AndesConfiguration.MAX_TRANSACTION_BATCH_SIZE;
 import static org.wso2.andes.configuration.enums.AndesConfiguration.PERFORMANCE_TUNING_ACKNOWLEDGEMENT_HANDLER_BATCH_SIZE;
+import static org.wso2.andes.configuration.enums.AndesConfiguration.PERFORMANCE_TUNING_ADAPTIVE_BATCHING_ENABLED;
+import static org.wso2.andes.configuration.enums.AndesConfiguration.PERFORMANCE_TUNING_ADAPTIVE_BATCHING_MAX_BATCH_SIZE;
+import static org.wso2.andes.configuration.enums.AndesConfiguration.PERFORMANCE_TUNING_ADAPTIVE_BATCHING_MAX_LINGER;
+import static org.wso2.andes.configuration.enums.AndesConfiguration.PERFORMANCE_TUNING_ADAPTIVE_BATCHING_MIN_BATCH_SIZE;
+import static org.wso2.andes.configuration.enums.AndesConfiguration.PERFORMANCE_TUNING_ADAPTIVE_BATCHING_TARGET_COMMIT_LATENCY;
 import static org.wso2.andes.configuration.enums.AndesConfiguration.PERFORMANCE_TUNING_ACK_HANDLER_COUNT;
 import static org.wso2.andes.configuration.enums.AndesConfiguration.PERFORMANCE_TUNING_CONTENT_CHUNK_HANDLER_COUNT;
 import static org.wso2.andes.configuration.enums.AndesConfiguration.PERFORMANCE_TUNING_MAX_CONTENT_CHUNK_SIZE;
@@ -76,6 +84,16 @@ public class InboundEventManager {
     private Disruptor<InboundEventContainer> disruptor;
     private final DisablePubAckImpl disablePubAck;
 
+    /**
+     * Batch size controllers of the message writers. Empty if adaptive batching is disabled
+     */
+    private final List<AdaptiveBatchSizeController> writerBatchSizeControllers;
+
+    /**
+     * Batch size of the message writers when adaptive batching is disabled
+     */
+    private final int writerBatchSize;
+
     public InboundEventManager(SubscriptionEngine subscriptionEngine,
                                MessagingEngine messagingEngine) {
 
@@ -85,7 +103,7 @@ public class InboundEventManager {
                 PERFORMANCE_TUNING_PARALLEL_MESSAGE_WRITERS);
         Integer ackHandlerCount = AndesConfigurationManager.readValue(
                 PERFORMANCE_TUNING_ACK_HANDLER_COUNT);
-        Integer writerBatchSize = AndesConfigurationManager.readValue(
+        writerBatchSize = AndesConfigurationManager.readValue(
                 PERFORMANCE_TUNING_MESSAGE_WRITER_BATCH_SIZE);
         Integer ackHandlerBatchSize = AndesConfigurationManager.readValue(
                 PERFORMANCE_TUNING_ACKNOWLEDGEMENT_HANDLER_BATCH_SIZE);
@@ -121,11 +139,21 @@ public class InboundEventManager {
             chunkHandlers[i] = new ContentChunkHandler(maxContentChunkSize);
         }
 
+        boolean isAdaptiveBatchingEnabled = AndesConfigurationManager.readValue(
+                PERFORMANCE_TUNING_ADAPTIVE_BATCHING_ENABLED);
+        writerBatchSizeControllers = new ArrayList<>(writeHandlerCount);
+
         for (int turn = 0; turn < writeHandlerCount; turn++) {
+            AdaptiveBatchSizeController batchSizeController = null;
+            if (isAdaptiveBatchingEnabled) {
+                batchSizeController = createBatchSizeController(writerBatchSize);
+                writerBatchSizeControllers.add(batchSizeController);
+            }
             concurrentBatchEventHandlers[turn] = new ConcurrentBatchEventHandler(turn, writeHandlerCount,
                     writerBatchSize,
                     MESSAGE_EVENT,
-                    new MessageWriter(messagingEngine, writerBatchSize));
+                    new MessageWriter(messagingEngine, writerBatchSize),
+                    batchSizeController);
         }
 
         for (int turn = 0; turn < transactionHandlerCount; turn++) {
@@ -161,9 +189,31 @@ public class InboundEventManager {
 
         //Will add the gauge to metrics manager
         MetricManager.gauge(Level.INFO, MetricsConstants.DISRUPTOR_INBOUND_RING, new InBoundRingGauge());
+        MetricManager.gauge(Level.INFO, MetricsConstants.DISRUPTOR_MESSAGE_WRITER_BATCH_SIZE,
+                new WriterBatchSizeGauge());
         MetricManager.gauge(Level.INFO, MetricsConstants.DISRUPTOR_MESSAGE_ACK, new AckedMessageCountGauge());
     }
 
+    /**
+     * Create an adaptive batch size controller for a message writer using the configured bounds
+     *
+     * @param initialBatchSize batch size to start with
+     * @return batch size controller
+     */
+    private AdaptiveBatchSizeController createBatchSizeController(int initialBatchSize) {
+        Integer minBatchSize = AndesConfigurationManager.readValue(
+                PERFORMANCE_TUNING_ADAPTIVE_BATCHING_MIN_BATCH_SIZE);
+        Integer maxBatchSize = AndesConfigurationManager.readValue(
+                PERFORMANCE_TUNING_ADAPTIVE_BATCHING_MAX_BATCH_SIZE);
+        Integer targetCommitLatency = AndesConfigurationManager.readValue(
+                PERFORMANCE_TUNING_ADAPTIVE_BATCHING_TARGET_COMMIT_LATENCY);
+        Integer maxLinger = AndesConfigurationManager.readValue(
+                PERFORMANCE_TUNING_ADAPTIVE_BATCHING_MAX_LINGER);
+
+        return new AdaptiveBatchSizeController(initialBatchSize, minBatchSize, maxBatchSize,
+                targetCommitLatency, maxLinger, disruptor.getRingBuffer());
+    }
+
     /**
      * When a message is received from a transport it is handed over to MessagingEngine through the implementation of
      * inbound event manager. (e.g: through a disruptor ring buffer) Eventually the message will be stored
@@ -180,6 +230,7 @@ public class InboundEventManager {
         event.getMessageList().add(message);
         event.pubAckHandler = pubAckHandler;
         event.setChannel(andesChannel);
+        event.setPublishedTime(System.nanoTime());
         // make the event available to EventProcessors
         ringBuffer.publish(sequence);
 
@@ -363,6 +414,24 @@ public class InboundEventManager {
         }
     }
 
+    /**
+     * Utility to get the average batch size used by the message writers
+     */
+    private class WriterBatchSizeGauge implements Gauge<Integer> {
+
+        @Override
+        public Integer getValue() {
+            if (writerBatchSizeControllers.isEmpty()) {
+                return writerBatchSize;
+            }
+            int totalBatchSize = 0;
+            for (AdaptiveBatchSizeController batchSizeController : writerBatchSizeControllers) {
+                totalBatchSize = totalBatchSize + batchSizeController.getBatchSize();
+            }
+            return totalBatchSize / writerBatchSizeControllers.size();
+        }
+    }
+
     /**
      * Utility to get the acked message count
      */
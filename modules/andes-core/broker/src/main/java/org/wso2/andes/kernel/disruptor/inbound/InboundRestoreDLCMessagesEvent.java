@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.andes.kernel.disruptor.inbound;
+
+import com.google.common.util.concurrent.SettableFuture;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.andes.kernel.AndesException;
+import org.wso2.andes.kernel.AndesMessage;
+import org.wso2.andes.kernel.AndesMessageMetadata;
+import org.wso2.andes.kernel.MessagingEngine;
+import org.wso2.andes.kernel.slot.SlotMessageCounter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Class to hold information about restoring messages from dead letter channel event. Restored messages are given
+ * new message IDs by {@link MessagePreProcessor} so that they are recorded in slots in the same order as published
+ * messages.
+ */
+public class InboundRestoreDLCMessagesEvent implements AndesInboundStateEvent {
+
+    private static Log log = LogFactory.getLog(InboundRestoreDLCMessagesEvent.class);
+
+    /**
+     * Supported state events
+     */
+    private enum EventType {
+
+        /**
+         * Restore messages from dead letter channel event type
+         */
+        RESTORE_DLC_MESSAGES_EVENT,
+    }
+
+    /**
+     * Type of this event
+     */
+    private EventType eventType;
+
+    /**
+     * Messages to restore as they are in the dead letter channel, with the destination and storage queue to restore
+     * them to
+     */
+    private List<AndesMessageMetadata> messagesToRestore;
+
+    /**
+     * Metadata of the restored messages with new message IDs against the ID in the dead letter channel
+     */
+    private Map<Long, AndesMessageMetadata> restoredMessages;
+
+    /**
+     * Reference to MessagingEngine for message restoring
+     */
+    private MessagingEngine messagingEngine;
+
+    /**
+     * Completed when the messages are restored
+     */
+    private final SettableFuture<Boolean> isEventComplete;
+
+    /**
+     * Restore messages from dead letter channel.
+     *
+     * @param messagesToRestore List<AndesMessageMetadata>
+     */
+    public InboundRestoreDLCMessagesEvent(List<AndesMessageMetadata> messagesToRestore) {
+        this.messagesToRestore = messagesToRestore;
+        isEventComplete = SettableFuture.create();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateState() throws AndesException {
+        switch (eventType) {
+            case RESTORE_DLC_MESSAGES_EVENT:
+                restoreMessages();
+                break;
+            default:
+                log.error("Event type not set properly " + eventType);
+                break;
+        }
+    }
+
+    /**
+     * Move the messages in the message store and record them in slots
+     *
+     * @throws AndesException
+     */
+    private void restoreMessages() throws AndesException {
+        try {
+            messagingEngine.restoreMessagesFromDLC(restoredMessages);
+
+            List<AndesMessage> messageList = new ArrayList<>(restoredMessages.size());
+            for (AndesMessageMetadata metadata : restoredMessages.values()) {
+                messageList.add(new AndesMessage(metadata));
+            }
+            SlotMessageCounter.getInstance().recordMetadataCountInSlot(messageList);
+
+            isEventComplete.set(true);
+        } catch (AndesException | RuntimeException e) {
+            isEventComplete.setException(e);
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String eventInfo() {
+        return eventType.toString();
+    }
+
+    /**
+     * Prepare to update Andes state with a restore messages event
+     *
+     * @param messagingEngine MessagingEngine to be used for this event
+     */
+    public void prepareForRestore(MessagingEngine messagingEngine) {
+        eventType = EventType.RESTORE_DLC_MESSAGES_EVENT;
+        this.messagingEngine = messagingEngine;
+    }
+
+    /**
+     * @return Number of messages to restore
+     */
+    int getMessageCount() {
+        return messagesToRestore.size();
+    }
+
+    /**
+     * Assign new message IDs to the messages to restore. Called by {@link MessagePreProcessor}.
+     *
+     * @param messageIds new message IDs in ascending order, one for each message
+     */
+    void assignMessageIds(long[] messageIds) {
+        restoredMessages = new LinkedHashMap<>(messagesToRestore.size());
+        for (int i = 0; i < messageIds.length; i++) {
+            AndesMessageMetadata metadata = messagesToRestore.get(i);
+            restoredMessages.put(metadata.getMessageID(), metadata.shallowCopy(messageIds[i]));
+        }
+    }
+
+    /**
+     * Wait until the messages are restored
+     *
+     * @throws AndesException if the messages could not be restored
+     */
+    public void waitForCompletion() throws AndesException {
+        try {
+            isEventComplete.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AndesException("Interrupted while restoring messages from dead letter channel", e);
+        } catch (ExecutionException e) {
+            throw new AndesException("Error occurred while restoring messages from dead letter channel",
+                    e.getCause());
+        }
+    }
+}
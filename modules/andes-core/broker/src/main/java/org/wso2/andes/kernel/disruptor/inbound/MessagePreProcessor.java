@@ -31,17 +31,21 @@ import org.wso2.andes.kernel.AndesSubscription;
 import org.wso2.andes.kernel.AndesUtils;
 import org.wso2.andes.kernel.DestinationType;
 import org.wso2.andes.kernel.ProtocolType;
+import org.wso2.andes.kernel.SharedMessageContent;
 import org.wso2.andes.metrics.MetricsConstants;
-import org.wso2.andes.server.ClusterResourceHolder;
+import org.wso2.andes.server.cluster.coordination.TimeStampBasedMessageIdGenerator;
 import org.wso2.andes.subscription.SubscriptionEngine;
 import org.wso2.andes.tools.utils.MessageTracer;
 import org.wso2.carbon.metrics.manager.Level;
 import org.wso2.carbon.metrics.manager.Meter;
 import org.wso2.carbon.metrics.manager.MetricManager;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -52,11 +56,17 @@ public class MessagePreProcessor implements EventHandler<InboundEventContainer>
 
     private static final Log log = LogFactory.getLog(MessagePreProcessor.class);
     private final SubscriptionEngine subscriptionEngine;
-    private final MessageIDGenerator idGenerator;
+    private final TimeStampBasedMessageIdGenerator idGenerator;
+
+    /**
+     * Rate of acknowledgements sent to publishers
+     */
+    private final Meter ackSentMeter;
 
     public MessagePreProcessor(SubscriptionEngine subscriptionEngine) {
         this.subscriptionEngine = subscriptionEngine;
-        idGenerator = new MessageIDGenerator();
+        idGenerator = new TimeStampBasedMessageIdGenerator();
+        ackSentMeter = MetricManager.meter(Level.INFO, MetricsConstants.ACK_SENT_RATE);
     }
 
     @Override
@@ -75,10 +85,32 @@ public class MessagePreProcessor implements EventHandler<InboundEventContainer>
             case SAFE_ZONE_DECLARE_EVENT:
                 setSafeZoneLimit(inboundEvent, sequence);
                 break;
+            case STATE_CHANGE_EVENT:
+                if (inboundEvent.getStateEvent() instanceof InboundRestoreDLCMessagesEvent) {
+                    assignIdsForRestoredMessages(
+                            (InboundRestoreDLCMessagesEvent) inboundEvent.getStateEvent(), sequence);
+                }
+                break;
         }
         inboundEvent.preProcessed = true;
     }
 
+    /**
+     * Generate new message IDs for messages restored from the dead letter channel. IDs are generated here, in the
+     * order of the ring, so that restored messages are recorded in slots in ascending order of message ID along with
+     * the published messages.
+     *
+     * @param restoreEvent event holding the messages to restore
+     * @param sequence position of the event at the event ring buffer
+     */
+    private void assignIdsForRestoredMessages(InboundRestoreDLCMessagesEvent restoreEvent, long sequence) {
+        restoreEvent.assignMessageIds(idGenerator.getNextIds(restoreEvent.getMessageCount()));
+        if (log.isDebugEnabled()) {
+            log.debug("[ Sequence " + sequence + " ] Pre processing restore event. Assigned "
+                    + restoreEvent.getMessageCount() + " message IDs");
+        }
+    }
+
     /**
      * Pre process transaction related messages. This is
      * @param eventContainer InboundEventContainer
@@ -165,56 +197,73 @@ public class MessagePreProcessor implements EventHandler<InboundEventContainer>
             ProtocolType protocolType =
                     AndesUtils.getProtocolTypeForMetaDataType(message.getMetadata().getMetaDataType());
 
-            subscriptionList = subscriptionEngine.getClusterSubscribersForDestination(messageRoutingKey,
-                    protocolType, DestinationType.TOPIC);
+            // Matching subscriptions returned by the subscription engine are shared, hence copied before adding
+            subscriptionList = new HashSet<>(subscriptionEngine.getClusterSubscribersForDestination(messageRoutingKey,
+                    protocolType, DestinationType.TOPIC));
 
             subscriptionList.addAll(subscriptionEngine.getClusterSubscribersForDestination(messageRoutingKey,
                     protocolType, DestinationType.DURABLE_TOPIC));
 
             //We do not consider message selectors here. They will be considered when being delivered
 
-            Set<String> alreadyStoredQueueNames = new HashSet<>();
+            // Only one clone is stored per storage queue, and only for subscriptions the message is deliverable to
+            Map<String, AndesSubscription> storageQueueSubscriptions = new LinkedHashMap<>();
             for (AndesSubscription subscription : subscriptionList) {
-                if (!alreadyStoredQueueNames.contains(subscription.getStorageQueueName())) {
-
-                    //Check protocol specific rules for validate delivery to given subscription.
-                    //If there are no protocol specific delivery rules implemented, message will deliver by default.
-                    if(!message.isDelivarable(subscription)){
-                        continue;
-                    }
-
-                    AndesMessage clonedMessage = cloneAndesMessageMetadataAndContent(message);
-
-                    //Message should be written to storage queue name. This is
-                    //determined by destination of the message. So should be
-                    //updated (but internal metadata will have topic name as usual)
-                    clonedMessage.getMetadata().setStorageQueueName(subscription.getStorageQueueName());
-
-                    if (MessageTracer.isEnabled()) {
-                        MessageTracer.trace(message, MessageTracer.MESSAGE_CLONED + clonedMessage.getMetadata()
-                                .getMessageID() + " for " + clonedMessage.getMetadata().getStorageQueueName());
-                    }
-
-                    if (subscription.isDurable()) {
-                        /**
-                         * For durable topic subscriptions we must update the routing key
-                         * in metadata as well so that they become independent messages
-                         * baring subscription bound queue name as the destination
-                         */
-                        clonedMessage.getMetadata().updateMetadata(subscription.getTargetQueue(),
-                                AMQPUtils.DIRECT_EXCHANGE_NAME);
-                    }
-                    if (log.isDebugEnabled()) {
-                        log.debug("Storing metadata queue " + subscription.getStorageQueueName() + " messageID "
-                                + clonedMessage.getMetadata().getMessageID() + " isTopic");
-                    }
-
-                    // add the topic wise cloned message to the events list. Message writers will pick that and
-                    // write it.
-                    event.addMessage(clonedMessage);
-                    andesChannel.recordAdditionToBuffer(clonedMessage.getContentChunkList().size());
-                    isMessageRouted = true;
-                    alreadyStoredQueueNames.add(subscription.getStorageQueueName());
+                //Check protocol specific rules for validate delivery to given subscription.
+                //If there are no protocol specific delivery rules implemented, message will deliver by default.
+                if (!storageQueueSubscriptions.containsKey(subscription.getStorageQueueName())
+                    && message.isDelivarable(subscription)) {
+                    storageQueueSubscriptions.put(subscription.getStorageQueueName(), subscription);
+                }
+            }
+
+            // Ids for all clones are reserved at once
+            long[] clonedMessageIds = idGenerator.getNextIds(storageQueueSubscriptions.size());
+            int clonedMessageCount = 0;
+
+            List<AndesMessage> clonedMessages = new ArrayList<>();
+            for (AndesSubscription subscription : storageQueueSubscriptions.values()) {
+                AndesMessage clonedMessage = cloneAndesMessageMetadataAndContent(message,
+                        clonedMessageIds[clonedMessageCount]);
+                clonedMessageCount++;
+
+                //Message should be written to storage queue name. This is
+                //determined by destination of the message. So should be
+                //updated (but internal metadata will have topic name as usual)
+                clonedMessage.getMetadata().setStorageQueueName(subscription.getStorageQueueName());
+
+                if (MessageTracer.isEnabled()) {
+                    MessageTracer.trace(message, MessageTracer.MESSAGE_CLONED + clonedMessage.getMetadata()
+                            .getMessageID() + " for " + clonedMessage.getMetadata().getStorageQueueName());
+                }
+
+                if (subscription.isDurable()) {
+                    /**
+                     * For durable topic subscriptions we must update the routing key
+                     * in metadata as well so that they become independent messages
+                     * baring subscription bound queue name as the destination
+                     */
+                    clonedMessage.getMetadata().updateMetadata(subscription.getTargetQueue(),
+                            AMQPUtils.DIRECT_EXCHANGE_NAME);
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("Storing metadata queue " + subscription.getStorageQueueName() + " messageID "
+                            + clonedMessage.getMetadata().getMessageID() + " isTopic");
+                }
+
+                // add the topic wise cloned message to the events list. Message writers will pick that and
+                // write it.
+                event.addMessage(clonedMessage);
+                clonedMessages.add(clonedMessage);
+                andesChannel.recordAdditionToBuffer(clonedMessage.getContentChunkList().size());
+                isMessageRouted = true;
+            }
+
+            if (clonedMessages.size() > 1) {
+                SharedMessageContent sharedContent =
+                        new SharedMessageContent(message.getMetadata().getMessageContentLength());
+                for (AndesMessage clonedMessage : clonedMessages) {
+                    clonedMessage.setSharedContent(sharedContent);
                 }
             }
 
@@ -231,8 +280,7 @@ public class MessagePreProcessor implements EventHandler<InboundEventContainer>
                 event.pubAckHandler.ack(message.getMetadata());
 
                 //Adding metrics meter for ack rate
-                Meter ackMeter = MetricManager.meter(Level.INFO, MetricsConstants.ACK_SENT_RATE);
-                ackMeter.mark();
+                ackSentMeter.mark();
 
 
                 if (message.getMetadata().isRetain()) {
@@ -256,13 +304,14 @@ public class MessagePreProcessor implements EventHandler<InboundEventContainer>
     }
 
     /**
-     * Create a clone of the message
+     * Create a clone of the message. Content chunks of the clone refer to the same content bytes as the original
+     * message, only the message id differs
      *
-     * @param message message to be cloned
+     * @param message      message to be cloned
+     * @param newMessageId message id of the cloned message
      * @return Cloned reference of AndesMessage
      */
-    private AndesMessage cloneAndesMessageMetadataAndContent(AndesMessage message) {
-        long newMessageId = idGenerator.getNextId();
+    private AndesMessage cloneAndesMessageMetadataAndContent(AndesMessage message, long newMessageId) {
         AndesMessageMetadata clonedMetadata = message.getMetadata().shallowCopy(newMessageId);
         AndesMessage clonedMessage = new AndesMessage(clonedMetadata);
 
@@ -294,54 +343,4 @@ public class MessagePreProcessor implements EventHandler<InboundEventContainer>
             messagePart.setMessageID(messageId);
         }
     }
-
-    /**
-     * Generates IDs. This id generator cannot be used in a multi threaded environment. Removed any locking behaviour to
-     * improve id generation in single threaded approach
-     */
-    private static class MessageIDGenerator {
-
-        /** REFERENCE_START time set to 2011 */
-        private static final long REFERENCE_START = 41L * 365L * 24L * 60L * 60L * 1000L;
-        private int uniqueIdForNode;
-        private long lastTimestamp;
-        private long lastID;
-        private int offset;
-
-        MessageIDGenerator() {
-            uniqueIdForNode = 0;
-            lastTimestamp = 0;
-            lastID = 0;
-            offset = 0;
-        }
-
-        /**
-         * Out of 64 bits for long, we will use the range as follows
-         * [1 sign bit][45bits for time spent from reference time in milliseconds][8bit node id][10 bit offset for ID
-         * falls within the same timestamp]
-         * This assumes there will not be more than 1024 hits within a given millisecond. Range is sufficient for
-         * 6029925857 years.
-         *
-         * @return Generated ID
-         */
-        public long getNextId() {
-
-            // id might change at runtime. Hence reading the value
-            uniqueIdForNode = ClusterResourceHolder.getInstance().getClusterManager().getUniqueIdForLocalNode();
-            long ts = System.currentTimeMillis();
-
-            if (ts == lastTimestamp) {
-                offset = offset + 1;
-            } else {
-                offset = 0;
-            }
-            lastTimestamp = ts;
-            long id = (ts - REFERENCE_START) * 256 * 1024 + uniqueIdForNode * 1024 + offset;
-            if (lastID == id) {
-                throw new RuntimeException("duplicate ids detected. This should never happen");
-            }
-            lastID = id;
-            return id;
-        }
-    }
 }
@@ -26,17 +26,23 @@ import org.wso2.andes.kernel.AndesException;
 import org.wso2.andes.kernel.AndesMessage;
 import org.wso2.andes.kernel.MessagingEngine;
 import org.wso2.andes.kernel.disruptor.BatchEventHandler;
+import org.wso2.andes.metrics.MetricsConstants;
 import org.wso2.andes.store.AndesBatchUpdateException;
 import org.wso2.andes.store.AndesTransactionRollbackException;
 import org.wso2.andes.store.FailureObservingStoreManager;
 import org.wso2.andes.store.HealthAwareStore;
 import org.wso2.andes.store.StoreHealthListener;
 import org.wso2.andes.tools.utils.MessageTracer;
+import org.wso2.carbon.metrics.manager.Level;
+import org.wso2.carbon.metrics.manager.MetricManager;
+import org.wso2.carbon.metrics.manager.Timer;
+import org.wso2.carbon.metrics.manager.Timer.Context;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Writes messages in Disruptor ring buffer to message store in batches.
@@ -74,8 +80,20 @@ public class MessageWriter implements BatchEventHandler, StoreHealthListener {
      */
     private final MessagingEngine messagingEngine;
 
+    /**
+     * Time taken to commit a batch of messages to the message store
+     */
+    private final Timer commitTimer;
+
+    /**
+     * Time messages spend in the inbound ring before being written
+     */
+    private final Timer inboundRingWaitTimer;
+
     public MessageWriter(MessagingEngine messagingEngine, int messageBatchSize) {
         this.messagingEngine = messagingEngine;
+        commitTimer = MetricManager.timer(Level.INFO, MetricsConstants.DISRUPTOR_MESSAGE_WRITER_COMMIT);
+        inboundRingWaitTimer = MetricManager.timer(Level.DEBUG, MetricsConstants.INBOUND_RING_WAIT);
         /*
          * For topics the size may be more than messageBatchSize since inbound
          * event might contain more than one message
@@ -91,10 +109,16 @@ public class MessageWriter implements BatchEventHandler, StoreHealthListener {
     @Override
     public void onEvent(final List<InboundEventContainer> eventList) throws Exception {
 
+        long now = System.nanoTime();
+
         // For topics there may be multiple messages in one event.
         for (InboundEventContainer event : eventList) {
             currentMessageList.addAll(event.getMessageList());
 
+            if (event.getPublishedTime() > 0) {
+                inboundRingWaitTimer.update(now - event.getPublishedTime(), TimeUnit.NANOSECONDS);
+            }
+
             if (null != event.retainMessage) {
                 retainMap.put(event.retainMessage.getMetadata().getDestination(), event.retainMessage);
             }
@@ -123,10 +147,16 @@ public class MessageWriter implements BatchEventHandler, StoreHealthListener {
         }
 
         try {
-            messagingEngine.messagesReceived(currentMessageList);
+            Context commitContext = commitTimer.start();
+            try {
+                messagingEngine.messagesReceived(currentMessageList);
 
-            if (!retainMap.isEmpty()) {
-                messagingEngine.storeRetainedMessages(retainMap);
+                if (!retainMap.isEmpty()) {
+                    messagingEngine.storeRetainedMessages(retainMap);
+                }
+            } finally {
+                // Failed commits are timed as well, otherwise slow failures would be missing from the metric
+                commitContext.stop();
             }
 
             if (log.isDebugEnabled()) {
@@ -42,6 +42,15 @@ public class StateEventHandler implements EventHandler<InboundEventContainer> {
 
     private static Log log = LogFactory.getLog(StateEventHandler.class);
 
+    /**
+     * Rate of acknowledgements sent to publishers
+     */
+    private final Meter ackSentMeter;
+
+    public StateEventHandler() {
+        ackSentMeter = MetricManager.meter(Level.INFO, MetricsConstants.ACK_SENT_RATE);
+    }
+
     @Override
     public void onEvent(InboundEventContainer event, long sequence, boolean endOfBatch) throws Exception {
 
@@ -112,8 +121,7 @@ public class StateEventHandler implements EventHandler<InboundEventContainer> {
             MessageTracer.trace(message, MessageTracer.SLOT_INFO_UPDATED);
 
             //Adding metrics meter for ack rate
-            Meter ackMeter = MetricManager.meter(Level.INFO, MetricsConstants.ACK_SENT_RATE);
-            ackMeter.mark();
+            ackSentMeter.mark();
         }
 
         //We need to ack only once since, one publisher - multiple topics
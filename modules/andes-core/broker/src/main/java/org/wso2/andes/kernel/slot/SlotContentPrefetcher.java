@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.kernel.slot;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.andes.configuration.AndesConfigurationManager;
+import org.wso2.andes.configuration.enums.AndesConfiguration;
+import org.wso2.andes.kernel.AndesException;
+import org.wso2.andes.kernel.DeliverableAndesMetadata;
+import org.wso2.andes.kernel.MessagingEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the content of the messages of a slot into the message cache when the slot is read for delivery. Content
+ * of a whole slot is read with a few bulk queries in the background, instead of many small batches by the content
+ * readers of the delivery ring. Prefetching is best effort. If the prefetch queue is full or a prefetch fails, the
+ * content is read by the delivery ring as usual.
+ */
+public class SlotContentPrefetcher {
+
+    private static Log log = LogFactory.getLog(SlotContentPrefetcher.class);
+
+    /**
+     * Maximum number of slots waiting to be prefetched
+     */
+    private static final int MAX_PENDING_SLOTS = 100;
+
+    private static SlotContentPrefetcher instance = new SlotContentPrefetcher();
+
+    /**
+     * Prefetching is disabled if content prefetch is disabled in configuration or the message cache is disabled
+     */
+    private final boolean enabled;
+
+    private final ThreadPoolExecutor prefetchExecutor;
+
+    private SlotContentPrefetcher() {
+        Boolean prefetchEnabled = AndesConfigurationManager.readValue(
+                AndesConfiguration.PERFORMANCE_TUNING_DELIVERY_CONTENT_PREFETCH_ENABLED);
+        Integer cacheSize = AndesConfigurationManager.readValue(AndesConfiguration.PERSISTENCE_CACHE_SIZE);
+        enabled = prefetchEnabled && (cacheSize > 0);
+
+        if (enabled) {
+            Integer prefetchThreads = AndesConfigurationManager.readValue(
+                    AndesConfiguration.PERFORMANCE_TUNING_DELIVERY_CONTENT_PREFETCH_THREADS);
+            prefetchExecutor = new ThreadPoolExecutor(prefetchThreads, prefetchThreads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(MAX_PENDING_SLOTS),
+                    new ThreadFactoryBuilder().setNameFormat("SlotContentPrefetcher-%d").build(),
+                    new ThreadPoolExecutor.DiscardPolicy());
+        } else {
+            prefetchExecutor = null;
+        }
+    }
+
+    /**
+     * @return SlotContentPrefetcher instance
+     */
+    public static SlotContentPrefetcher getInstance() {
+        return instance;
+    }
+
+    /**
+     * Schedule loading the content of the messages read from a slot into the message cache
+     *
+     * @param messagesRead messages read from the slot
+     */
+    public void prefetch(List<DeliverableAndesMetadata> messagesRead) {
+        if (!enabled || messagesRead.isEmpty()) {
+            return;
+        }
+
+        final List<DeliverableAndesMetadata> messages = new ArrayList<>(messagesRead);
+        // Discarded silently if the prefetch queue is full or the prefetcher is stopped
+        prefetchExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    MessagingEngine.getInstance().prefetchContent(messages);
+                } catch (AndesException e) {
+                    log.warn("Error while prefetching content of " + messages.size() + " messages. Content will "
+                             + "be read on delivery", e);
+                } catch (RuntimeException e) {
+                    log.error("Error while prefetching content of " + messages.size() + " messages", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stop prefetching. Pending prefetch tasks are discarded
+     */
+    public void stop() {
+        if (null != prefetchExecutor) {
+            prefetchExecutor.shutdownNow();
+        }
+    }
+}
@@ -18,6 +18,9 @@
 
 package org.wso2.andes.kernel.slot;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * This interface is responsible for coordinating with the SlotManagerClusterMode
  */
@@ -31,6 +34,14 @@ public interface SlotCoordinator {
      */
     public Slot getSlot(String queueName) throws ConnectionException;
 
+    /**
+     * Get slots for several queues from SlotManagerClusterMode in a single request
+     * @param queueToMaxSlots Map of queue name to the maximum number of slots required for that queue
+     * @return Map of queue name to the slots assigned. Queues without slots are not included
+     * @throws ConnectionException
+     */
+    public Map<String, List<Slot>> getSlots(Map<String, Integer> queueToMaxSlots) throws ConnectionException;
+
     /**
      * Record Slot's last message ID related to a particular queue
      * @param queueName  Name of the queue
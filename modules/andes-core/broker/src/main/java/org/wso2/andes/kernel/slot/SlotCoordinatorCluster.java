@@ -23,6 +23,9 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.andes.kernel.AndesContext;
 import org.wso2.andes.thrift.MBThriftClient;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * This class is responsible of coordinating with the cluster mode Slot Manager
  */
@@ -45,6 +48,14 @@ public class SlotCoordinatorCluster implements SlotCoordinator {
         return MBThriftClient.getSlot(queueName, nodeId);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, List<Slot>> getSlots(Map<String, Integer> queueToMaxSlots) throws ConnectionException {
+        return MBThriftClient.getSlots(queueToMaxSlots, nodeId);
+    }
+
     /**
      * {@inheritDoc}
      */
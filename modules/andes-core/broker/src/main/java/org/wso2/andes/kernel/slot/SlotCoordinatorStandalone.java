@@ -18,6 +18,11 @@
 
 package org.wso2.andes.kernel.slot;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * This class is responsible of coordinating with the Standalone Slot Manager
  */
@@ -41,6 +46,26 @@ public class SlotCoordinatorStandalone implements SlotCoordinator {
         return slot;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, List<Slot>> getSlots(Map<String, Integer> queueToMaxSlots) {
+        Map<String, List<Slot>> queueToSlots = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : queueToMaxSlots.entrySet()) {
+            String queueName = entry.getKey();
+            List<Slot> slots = new ArrayList<>();
+            Slot slot;
+            while ((slots.size() < entry.getValue()) && (null != (slot = slotManagerStandalone.getSlot(queueName)))) {
+                slots.add(slot);
+            }
+            if (!slots.isEmpty()) {
+                queueToSlots.put(queueName, slots);
+            }
+        }
+        return queueToSlots;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -106,7 +106,12 @@ public class SlotDeletionExecutor {
                         } else {
                             SlotDeliveryWorker slotWorker = SlotDeliveryWorkerManager.getInstance()
                                                                                      .getSlotWorker(deletionAttempt.getStorageQueueName());
-                            slotWorker.deleteSlot(deletionAttempt);
+                            if (null != slotWorker) {
+                                slotWorker.deleteSlot(deletionAttempt);
+                            } else {
+                                // Delivery stopped for the storage queue. Only release tracking of the messages
+                                deletionAttempt.deleteAllMessagesInSlot();
+                            }
                         }
                     }
 
@@ -21,6 +21,8 @@ package org.wso2.andes.kernel.slot;
 import com.google.common.util.concurrent.SettableFuture;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.andes.configuration.AndesConfigurationManager;
+import org.wso2.andes.configuration.enums.AndesConfiguration;
 import org.wso2.andes.kernel.AndesException;
 import org.wso2.andes.kernel.AndesMessageMetadata;
 import org.wso2.andes.kernel.DeliverableAndesMetadata;
@@ -41,10 +43,15 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * SlotDelivery worker is responsible of distributing messages to subscribers. Messages will be
@@ -85,10 +92,69 @@ public class SlotDeliveryWorker extends Thread implements StoreHealthListener{
      * queue ( in the errors occur in message stores)
      */
     private static final int MAX_META_DATA_RETRIEVAL_COUNT = 5;
-    
+
+    /**
+     * Storage queues which are ready to be served. A storage queue is added when it is signalled that slots are
+     * available for it or when the previous attempt received a slot.
+     */
+    private final BlockingQueue<StorageQueueData> readyStorageQueues;
+
+    /**
+     * Storage queues which had nothing to deliver, ordered by the time they should be checked again. A storage queue
+     * has at most one entry, which is removed when the storage queue is served. Only accessed by the worker thread.
+     */
+    private final NavigableSet<IdleStorageQueue> idleStorageQueues;
+
+    /**
+     * Entry of each parked storage queue in {@link #idleStorageQueues}. Only accessed by the worker thread.
+     */
+    private final Map<StorageQueueData, IdleStorageQueue> parkedStorageQueues;
+
+    /**
+     * Sequence number given to idle entries to order entries having the same recheck time. Only accessed by the
+     * worker thread.
+     */
+    private long idleEntrySequence;
+
+    /**
+     * Initial delay in milliseconds before an idle storage queue is checked again
+     */
+    private final long minIdleRecheckInterval;
+
+    /**
+     * Maximum delay in milliseconds before an idle storage queue is checked again
+     */
+    private final long maxIdleRecheckInterval;
+
+    /**
+     * Maximum number of slots requested for a storage queue in a single request to the coordinator
+     */
+    private final int slotPrefetchCount;
+
+    /**
+     * Maximum number of storage queues included in a single slot request to the coordinator
+     */
+    private static final int MAX_STORAGE_QUEUES_PER_SLOT_REQUEST = 100;
+
+    /**
+     * Number of messages read for a storage queue of weight 1 in one turn
+     */
+    private final int deliveryQuantum;
+
     public SlotDeliveryWorker() {
         messageFlusher = MessageFlusher.getInstance();
         this.storageQueueDataMap = new ConcurrentSkipListMap<>();
+        this.readyStorageQueues = new LinkedBlockingQueue<>();
+        this.idleStorageQueues = new TreeSet<>();
+        this.parkedStorageQueues = new HashMap<>();
+        this.minIdleRecheckInterval = AndesConfigurationManager.readValue(
+                AndesConfiguration.PERFORMANCE_TUNING_SLOTS_IDLE_QUEUE_MIN_RECHECK_INTERVAL);
+        this.maxIdleRecheckInterval = AndesConfigurationManager.readValue(
+                AndesConfiguration.PERFORMANCE_TUNING_SLOTS_IDLE_QUEUE_MAX_RECHECK_INTERVAL);
+        this.slotPrefetchCount = AndesConfigurationManager.readValue(
+                AndesConfiguration.PERFORMANCE_TUNING_SLOTS_PREFETCH_COUNT);
+        this.deliveryQuantum = AndesConfigurationManager.readValue(
+                AndesConfiguration.PERFORMANCE_TUNING_SLOTS_DELIVERY_QUANTUM);
         slotCoordinator = MessagingEngine.getInstance().getSlotCoordinator();
         messageStoresUnavailable = null;
         FailureObservingStoreManager.registerStoreHealthListener(this);
@@ -101,6 +167,7 @@ public class SlotDeliveryWorker extends Thread implements StoreHealthListener{
             String destination = storageQueueDataMap.get(storageQueueName).getDestinationName();
             MessageFlusher.getInstance().addAlreadyTrackedMessagesToBuffer(destination,
                     storageQueueData.getProtocolType(), storageQueueData.getDestinationType(), messages);
+            scheduleForDelivery(storageQueueData);
 
         }
     }
@@ -109,125 +176,259 @@ public class SlotDeliveryWorker extends Thread implements StoreHealthListener{
     public void run() {
         /**
          * This while loop is necessary since whenever there are messages this thread should
-         * deliver them
+         * deliver them. Storage queues are served when they are signalled as ready and idle storage queues
+         * are parked until they are signalled or their recheck time is reached.
          */
         running = true;
         while (running) {
+            StorageQueueData storageQueueData;
+            try {
+                storageQueueData = getNextReadyStorageQueue();
+            } catch (InterruptedException e) {
+                log.warn("Slot Delivery Worker interrupted while waiting for a ready storage queue");
+                setRunning(false);
+                Thread.currentThread().interrupt();
+                break;
+            }
 
-            //Iterate through all the queues registered in this thread
-            int idleQueueCounter = 0;
-
-            for (Map.Entry<String, StorageQueueData> storageQueueDataEntry : storageQueueDataMap.entrySet()) {
-                String storageQueueName = storageQueueDataEntry.getKey();
-                StorageQueueData storageQueueData = storageQueueDataEntry.getValue();
-                String destinationOfMessagesInQueue = storageQueueData.getDestinationName();
-                DestinationType destinationType = storageQueueData.getDestinationType();
-                try {
-                    MessageDeliveryInfo messageDeliveryInfo =
-                            messageFlusher.getMessageDeliveryInfo(destinationOfMessagesInQueue,
-                                    storageQueueData.getProtocolType(), destinationType);
-
-                    //Check in memory buffer in MessageFlusher has room
-                    if (messageDeliveryInfo.messageBufferHasRoom()) {
-
-                        //get a slot from coordinator.
-                        Slot currentSlot = requestSlot(storageQueueName);
-                        currentSlot.setDestinationOfMessagesInSlot(destinationOfMessagesInQueue);
-
-                        /**
-                         * If the slot is empty
-                         */
-                        if (0 == currentSlot.getEndMessageId()) {
-
-                                    /*
-                                    If the message buffer in MessageFlusher is not empty
-                                     send those messages
-                                     */
-                            if (log.isDebugEnabled()) {
-                                log.debug("Received an empty slot from slot manager");
-                            }
-                            boolean sentFromMessageBuffer = messageFlusher.sendMessagesInBuffer(messageDeliveryInfo);
-                            if (!sentFromMessageBuffer) {
-                                //No available free slots
-                                idleQueueCounter++;
-                                if (idleQueueCounter == storageQueueDataMap.size()) {
-                                    try {
-                                        if (log.isDebugEnabled()) {
-                                            log.debug("Sleeping Slot Delivery Worker");
-                                        }
-                                        Thread.sleep(100);
-                                    } catch (InterruptedException ignored) {
-                                        //Silently ignore
-                                    }
-                                }
-                            }
+            // Storage queue may have been removed after it was scheduled
+            if ((null != storageQueueData)
+                    && (storageQueueData == storageQueueDataMap.get(storageQueueData.getStorageQueueName()))) {
+                storageQueueData.clearReadyForDelivery();
+                // Served before its recheck time, hence the idle entry is no longer needed
+                unparkIdleStorageQueue(storageQueueData);
+                serveStorageQueue(storageQueueData);
+            }
+        }
+
+    }
+
+    /**
+     * Wait until a storage queue is ready to be served. Idle storage queues whose recheck time has passed are moved
+     * to the ready queue before waiting.
+     *
+     * @return Storage queue to be served or null if none became ready within the wait time
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    private StorageQueueData getNextReadyStorageQueue() throws InterruptedException {
+        long currentTime = System.currentTimeMillis();
+        IdleStorageQueue idleStorageQueue = idleStorageQueues.isEmpty() ? null : idleStorageQueues.first();
+
+        while ((null != idleStorageQueue) && (idleStorageQueue.recheckTime <= currentTime)) {
+            idleStorageQueues.pollFirst();
+            parkedStorageQueues.remove(idleStorageQueue.storageQueueData);
+            scheduleForDelivery(idleStorageQueue.storageQueueData);
+            idleStorageQueue = idleStorageQueues.isEmpty() ? null : idleStorageQueues.first();
+        }
+
+        long waitTime = maxIdleRecheckInterval;
+        if (null != idleStorageQueue) {
+            waitTime = idleStorageQueue.recheckTime - currentTime;
+        }
+
+        return readyStorageQueues.poll(waitTime, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Serve the given storage queue for one turn. Slots are read for the storage queue while it has share of the
+     * delivery quantum left (deficit round robin) and slots keep coming. Afterwards the storage queue is either
+     * scheduled again at the end of the ready queue (a slot was received) or parked until it is signalled or its
+     * recheck time is reached.
+     *
+     * @param storageQueueData Storage queue to serve
+     */
+    private void serveStorageQueue(StorageQueueData storageQueueData) {
+        storageQueueData.startDeliveryTurn(deliveryQuantum);
+
+        DeliveryOutcome outcome;
+        do {
+            outcome = deliverMessagesOfStorageQueue(storageQueueData);
+        } while (running && (DeliveryOutcome.SLOT_READ == outcome) && storageQueueData.hasDeliveryShare());
+
+        if (DeliveryOutcome.SLOT_READ == outcome) {
+            // There could be more slots for the storage queue. Other ready storage queues are served first.
+            storageQueueData.resetIdleRecheckInterval();
+            scheduleForDelivery(storageQueueData);
+        } else if (DeliveryOutcome.MESSAGES_BUFFERED == outcome) {
+            // Buffered messages are waiting for subscribers to have room. Acknowledgements signal the storage
+            // queue, hence only the minimum delay is used as a safety net.
+            storageQueueData.resetDeliveryDeficit();
+            storageQueueData.resetIdleRecheckInterval();
+            parkIdleStorageQueue(storageQueueData);
+        } else {
+            storageQueueData.resetDeliveryDeficit();
+            parkIdleStorageQueue(storageQueueData);
+        }
+    }
+
+    /**
+     * Get a slot for the given storage queue and buffer its messages for delivery. The messages read are charged to
+     * the share of the storage queue for the current turn.
+     *
+     * @param storageQueueData Storage queue to serve
+     * @return Whether a slot was read, only buffered messages were sent or there was nothing to deliver
+     */
+    private DeliveryOutcome deliverMessagesOfStorageQueue(StorageQueueData storageQueueData) {
+        String storageQueueName = storageQueueData.getStorageQueueName();
+        String destinationOfMessagesInQueue = storageQueueData.getDestinationName();
+        DestinationType destinationType = storageQueueData.getDestinationType();
+        boolean slotReceived = false;
+        boolean messagesBuffered = false;
+        // Reading a slot costs a store call even if it has no messages left for the storage queue
+        int messagesCharged = 1;
+        try {
+            MessageDeliveryInfo messageDeliveryInfo =
+                    messageFlusher.getMessageDeliveryInfo(destinationOfMessagesInQueue,
+                            storageQueueData.getProtocolType(), destinationType);
+
+            //Check in memory buffer in MessageFlusher has room
+            if (messageDeliveryInfo.messageBufferHasRoom()) {
+
+                //get a slot from coordinator.
+                Slot currentSlot = requestSlot(storageQueueData);
+                currentSlot.setDestinationOfMessagesInSlot(destinationOfMessagesInQueue);
+
+                /**
+                 * If the slot is empty
+                 */
+                if (0 == currentSlot.getEndMessageId()) {
+
+                    /*
+                    If the message buffer in MessageFlusher is not empty
+                     send those messages
+                     */
+                    if (log.isDebugEnabled()) {
+                        log.debug("Received an empty slot from slot manager");
+                    }
+                    messagesBuffered = messageFlusher.sendMessagesInBuffer(messageDeliveryInfo);
+                } else {
+                    slotReceived = true;
+                    if (log.isDebugEnabled()) {
+                        log.debug("Received slot for storage queue " + storageQueueName + " " +
+                                "is: " + currentSlot.getStartMessageId() +
+                                " - " + currentSlot.getEndMessageId() +
+                                "Thread Id:" + Thread.currentThread().getId());
+                    }
+                    List<DeliverableAndesMetadata> messagesRead = getMetaDataListBySlot(storageQueueName,
+                            currentSlot);
+
+                    if (messagesRead != null && !messagesRead.isEmpty()) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Number of messages read from slot " + currentSlot.getStartMessageId()
+                                    + " - " + currentSlot.getEndMessageId() + " is " + messagesRead.size()
+                                    + " storage queue= " + storageQueueName);
+                        }
+
+                        storageQueueToSlotTracker.putIfAbsent(storageQueueName, new HashMap<String, Slot>());
+
+                        Map<String, Slot> subscriptionSlots = storageQueueToSlotTracker.get(storageQueueName);
+
+                        Slot trackedSlot = subscriptionSlots.get(currentSlot.getId());
+                        if (trackedSlot == null) {
+                            subscriptionSlots.put(currentSlot.getId(), currentSlot);
+                            trackedSlot = currentSlot;
                         } else {
                             if (log.isDebugEnabled()) {
-                                log.debug("Received slot for storage queue " + storageQueueName + " " +
-                                        "is: " + currentSlot.getStartMessageId() +
-                                        " - " + currentSlot.getEndMessageId() +
-                                        "Thread Id:" + Thread.currentThread().getId());
-                            }
-                            List<DeliverableAndesMetadata> messagesRead = getMetaDataListBySlot(storageQueueName,
-                                    currentSlot);
-
-                            if (messagesRead != null && !messagesRead.isEmpty()) {
-                                if (log.isDebugEnabled()) {
-                                    log.debug("Number of messages read from slot " + currentSlot.getStartMessageId()
-                                            + " - " + currentSlot.getEndMessageId() + " is " + messagesRead.size()
-                                            + " storage queue= " + storageQueueName);
-                                }
-
-                                storageQueueToSlotTracker.putIfAbsent(storageQueueName, new HashMap<String, Slot>());
-
-                                Map<String, Slot> subscriptionSlots = storageQueueToSlotTracker.get(storageQueueName);
-
-                                Slot trackedSlot = subscriptionSlots.get(currentSlot.getId());
-                                if (trackedSlot == null) {
-                                    subscriptionSlots.put(currentSlot.getId(), currentSlot);
-                                    trackedSlot = currentSlot;
-                                } else {
-                                    if (log.isDebugEnabled()) {
-                                        log.debug("Overlapped slot received. Slot ID " + trackedSlot.getId());
-                                    }
-                                }
-
-                                filterOverlappedMessages(trackedSlot, messagesRead);
-                                MessageFlusher.getInstance().sendMessageToBuffer(messagesRead, trackedSlot,
-                                        messageDeliveryInfo);
-                                MessageFlusher.getInstance()
-                                        .sendMessagesInBuffer(messageDeliveryInfo);
-                            } else {
-                                currentSlot.setSlotInActive();
-                                SlotDeletionExecutor.getInstance().executeSlotDeletion(currentSlot);
+                                log.debug("Overlapped slot received. Slot ID " + trackedSlot.getId());
                             }
                         }
 
+                        filterOverlappedMessages(trackedSlot, messagesRead);
+                        messagesCharged = Math.max(messagesCharged, messagesRead.size());
+                        SlotContentPrefetcher.getInstance().prefetch(messagesRead);
+                        MessageFlusher.getInstance().sendMessageToBuffer(messagesRead, trackedSlot,
+                                messageDeliveryInfo);
+                        MessageFlusher.getInstance()
+                                .sendMessagesInBuffer(messageDeliveryInfo);
                     } else {
-                                /*If there are messages to be sent in the message
-                                            buffer in MessageFlusher send them */
-                        if (log.isDebugEnabled()) {
-                            log.debug(
-                                    "The queue " + storageQueueName + " has no room. Thus sending " +
-                                            "from buffer.");
-                        }
-                        messageFlusher.sendMessagesInBuffer(messageDeliveryInfo);
+                        currentSlot.setSlotInActive();
+                        SlotDeletionExecutor.getInstance().executeSlotDeletion(currentSlot);
                     }
+                }
 
-                } catch (AndesException e) {
-                    log.error("Error running Message Store Reader " + e.getMessage(), e);
-                } catch (ConnectionException e) {
-                    log.error("Error occurred while connecting to the thrift coordinator " +
-                            e.getMessage(), e);
-                    setRunning(false);
-                    //Any exception should be caught here. Otherwise SDW thread will stop
-                    //and MB node will become useless
-                } catch (Exception e) {
-                    log.error("Error while running Slot Delivery Worker. ", e);
+            } else {
+                        /*If there are messages to be sent in the message
+                                    buffer in MessageFlusher send them */
+                if (log.isDebugEnabled()) {
+                    log.debug(
+                            "The queue " + storageQueueName + " has no room. Thus sending " +
+                                    "from buffer.");
                 }
+                messagesBuffered = messageFlusher.sendMessagesInBuffer(messageDeliveryInfo);
             }
+
+        } catch (AndesException e) {
+            log.error("Error running Message Store Reader " + e.getMessage(), e);
+        } catch (ConnectionException e) {
+            log.error("Error occurred while connecting to the thrift coordinator " +
+                    e.getMessage(), e);
+            setRunning(false);
+            //Any exception should be caught here. Otherwise SDW thread will stop
+            //and MB node will become useless
+        } catch (Exception e) {
+            log.error("Error while running Slot Delivery Worker. ", e);
         }
 
+        if (slotReceived) {
+            storageQueueData.chargeDelivery(messagesCharged);
+            return DeliveryOutcome.SLOT_READ;
+        } else if (messagesBuffered) {
+            return DeliveryOutcome.MESSAGES_BUFFERED;
+        } else {
+            return DeliveryOutcome.IDLE;
+        }
+    }
+
+    /**
+     * Park an idle storage queue until it is signalled or its recheck time is reached.
+     *
+     * @param storageQueueData Idle storage queue
+     */
+    private void parkIdleStorageQueue(StorageQueueData storageQueueData) {
+        unparkIdleStorageQueue(storageQueueData);
+        long recheckInterval = storageQueueData.nextIdleRecheckInterval(minIdleRecheckInterval,
+                maxIdleRecheckInterval);
+        IdleStorageQueue idleStorageQueue = new IdleStorageQueue(storageQueueData,
+                System.currentTimeMillis() + recheckInterval, idleEntrySequence++);
+        idleStorageQueues.add(idleStorageQueue);
+        parkedStorageQueues.put(storageQueueData, idleStorageQueue);
+    }
+
+    /**
+     * Remove the idle entry of a storage queue, if it is parked.
+     *
+     * @param storageQueueData Storage queue to remove
+     */
+    private void unparkIdleStorageQueue(StorageQueueData storageQueueData) {
+        IdleStorageQueue idleStorageQueue = parkedStorageQueues.remove(storageQueueData);
+        if (null != idleStorageQueue) {
+            idleStorageQueues.remove(idleStorageQueue);
+        }
+    }
+
+    /**
+     * Add the storage queue to the ready queue if it is not already there.
+     *
+     * @param storageQueueData Storage queue to schedule
+     */
+    private void scheduleForDelivery(StorageQueueData storageQueueData) {
+        if (storageQueueData.markReadyForDelivery()) {
+            readyStorageQueues.offer(storageQueueData);
+        }
+    }
+
+    /**
+     * Signal that the given storage queue may have messages to deliver. This is called when slots are submitted
+     * for the storage queue or when subscribers of it get room to accept messages. The storage queue is
+     * served by this worker without waiting for its idle recheck time.
+     *
+     * @param storageQueueName Name of the storage queue
+     */
+    public void notifyStorageQueueReady(String storageQueueName) {
+        StorageQueueData storageQueueData = storageQueueDataMap.get(storageQueueName);
+        if (null != storageQueueData) {
+            scheduleForDelivery(storageQueueData);
+        }
     }
 
     /**
@@ -361,22 +562,56 @@ public class SlotDeliveryWorker extends Thread implements StoreHealthListener{
     }
     
     
-    /** 
-     * Get a slot from the Slot to deliver ( from the coordinator if the MB is clustered)
-     * @param storageQueueName the storage queue name for from which a slot should be returned.
-     * @return a {@link Slot}
+    /**
+     * Get a slot to deliver for the given storage queue. Slots prefetched earlier are used first. Otherwise slots are
+     * requested from the coordinator ( the slot manager if the MB is standalone) for this storage queue together with
+     * the other storage queues of the worker which are ready to be served and have no prefetched slots.
+     * @param storageQueueData the storage queue for which a slot should be returned.
+     * @return a {@link Slot}. An empty slot is returned if there are no slots for the storage queue
      * @throws ConnectionException if connectivity to coordinator is lost.
      */
-    private Slot requestSlot(String storageQueueName) throws ConnectionException {
-        long startTime = System.currentTimeMillis();
-        Slot currentSlot = slotCoordinator.getSlot(storageQueueName);
-        long endTime = System.currentTimeMillis();
+    private Slot requestSlot(StorageQueueData storageQueueData) throws ConnectionException {
+        Slot currentSlot = storageQueueData.pollPrefetchedSlot();
 
-        if (log.isDebugEnabled()) {
-            log.debug(
-                    (endTime - startTime) + " milliSec took to get a slot" +
-                            " from slot manager");
+        if (null == currentSlot) {
+            Map<String, Integer> queueToMaxSlots = new HashMap<>();
+            queueToMaxSlots.put(storageQueueData.getStorageQueueName(), slotPrefetchCount);
+
+            for (StorageQueueData readyStorageQueue : readyStorageQueues) {
+                if (queueToMaxSlots.size() >= MAX_STORAGE_QUEUES_PER_SLOT_REQUEST) {
+                    break;
+                }
+                if (!readyStorageQueue.hasPrefetchedSlots()) {
+                    queueToMaxSlots.put(readyStorageQueue.getStorageQueueName(), slotPrefetchCount);
+                }
+            }
+
+            long startTime = System.currentTimeMillis();
+            Map<String, List<Slot>> queueToSlots = slotCoordinator.getSlots(queueToMaxSlots);
+            long endTime = System.currentTimeMillis();
+
+            if (log.isDebugEnabled()) {
+                log.debug(
+                        (endTime - startTime) + " milliSec took to get slots for " + queueToMaxSlots.size()
+                                + " storage queues from slot manager");
+            }
+
+            for (Map.Entry<String, List<Slot>> queueToSlotsEntry : queueToSlots.entrySet()) {
+                StorageQueueData slotOwner = storageQueueDataMap.get(queueToSlotsEntry.getKey());
+                if (null != slotOwner) {
+                    slotOwner.addPrefetchedSlots(queueToSlotsEntry.getValue());
+                } else {
+                    // Delivery stopped for the storage queue while slots were requested. Give them back.
+                    slotCoordinator.reAssignSlotWhenNoSubscribers(queueToSlotsEntry.getKey());
+                }
+            }
+
+            currentSlot = storageQueueData.pollPrefetchedSlot();
+            if (null == currentSlot) {
+                currentSlot = new Slot();
+            }
         }
+
         return currentSlot;
     }
 
@@ -389,9 +624,23 @@ public class SlotDeliveryWorker extends Thread implements StoreHealthListener{
      */
     public void startDeliveryForQueue(String storageQueueName, String destination, ProtocolType protocolType,
                                       DestinationType destinationType) throws AndesException {
+        startDeliveryForQueue(storageQueueName, destination, protocolType, destinationType, 1);
+    }
+
+    /**
+     * Add a queue to queue list of this SlotDeliveryWorkerThread with the given delivery weight
+     *
+     * @param storageQueueName queue name of the newly added queue
+     * @param protocolType The protocol which the storage queue holds messages of
+     * @param destinationType The destination type of the messages which this storage queue holds
+     * @param weight Share of the delivery quantum given to the storage queue in each turn
+     */
+    public void startDeliveryForQueue(String storageQueueName, String destination, ProtocolType protocolType,
+                                      DestinationType destinationType, int weight) throws AndesException {
         StorageQueueData storageQueueData =
-                new StorageQueueData(storageQueueName, destination, protocolType, destinationType);
+                new StorageQueueData(storageQueueName, destination, protocolType, destinationType, weight);
         storageQueueDataMap.put(storageQueueName, storageQueueData);
+        scheduleForDelivery(storageQueueData);
     }
 
     /**
@@ -503,5 +752,63 @@ public class SlotDeliveryWorker extends Thread implements StoreHealthListener{
     public boolean isStorageQueueAdded(String storageQueueName) {
         return storageQueueDataMap.containsKey(storageQueueName);
     }
-}
 
+    /**
+     * @return Sum of the delivery weights of the storage queues served by this worker
+     */
+    public int getDeliveryLoad() {
+        int deliveryLoad = 0;
+        for (StorageQueueData storageQueueData : storageQueueDataMap.values()) {
+            deliveryLoad = deliveryLoad + storageQueueData.getWeight();
+        }
+        return deliveryLoad;
+    }
+
+    /**
+     * Result of a single attempt to deliver messages of a storage queue
+     */
+    private enum DeliveryOutcome {
+        /**
+         * A slot was received and its messages were buffered for delivery
+         */
+        SLOT_READ,
+
+        /**
+         * No slot was read but messages already buffered were sent or are waiting for room
+         */
+        MESSAGES_BUFFERED,
+
+        /**
+         * There was nothing to deliver
+         */
+        IDLE
+    }
+
+    /**
+     * An idle storage queue parked until the given recheck time. Entries with the same recheck time are ordered by
+     * the sequence number in which they were parked.
+     */
+    private static class IdleStorageQueue implements Comparable<IdleStorageQueue> {
+
+        private final StorageQueueData storageQueueData;
+
+        private final long recheckTime;
+
+        private final long sequence;
+
+        private IdleStorageQueue(StorageQueueData storageQueueData, long recheckTime, long sequence) {
+            this.storageQueueData = storageQueueData;
+            this.recheckTime = recheckTime;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(IdleStorageQueue other) {
+            int comparison = Long.compare(recheckTime, other.recheckTime);
+            if (0 == comparison) {
+                comparison = Long.compare(sequence, other.sequence);
+            }
+            return comparison;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.wso2.andes.kernel.DestinationType;
 import org.wso2.andes.kernel.ProtocolType;
 
 import java.io.File;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -59,6 +60,16 @@ public class SlotDeliveryWorkerManager {
      */
     private Integer numberOfThreads;
 
+    /**
+     * Slot delivery worker ID serving each storage queue of this node
+     */
+    private final Map<String, Integer> storageQueueToWorkerId = new ConcurrentHashMap<>();
+
+    /**
+     * Delivery weights configured against storage queue or destination names
+     */
+    private final Map<String, Integer> deliveryWeights = new HashMap<>();
+
     /**
      * SlotDeliveryWorker instance
      */
@@ -69,6 +80,16 @@ public class SlotDeliveryWorkerManager {
         numberOfThreads = AndesConfigurationManager.readValue
                 (AndesConfiguration.PERFORMANCE_TUNING_SLOTS_WORKER_THREAD_COUNT);
         this.slotDeliveryWorkerExecutor = Executors.newFixedThreadPool(numberOfThreads, namedThreadFactory);
+
+        List<String> weightedQueues = AndesConfigurationManager.readValueList
+                (AndesConfiguration.LIST_PERFORMANCE_TUNING_SLOTS_DELIVERY_WEIGHTS);
+        for (String weightedQueue : weightedQueues) {
+            Integer weight = AndesConfigurationManager.readValueOfChildByKey
+                    (AndesConfiguration.PERFORMANCE_TUNING_SLOTS_DELIVERY_WEIGHT, weightedQueue);
+            if (null != weight) {
+                deliveryWeights.put(weightedQueue, weight);
+            }
+        }
     }
 
     /**
@@ -98,12 +119,14 @@ public class SlotDeliveryWorkerManager {
      */
     public synchronized void startSlotDeliveryWorker(String storageQueueName, String destination, ProtocolType protocolType, DestinationType destinationType) throws AndesException {
         int slotDeliveryWorkerId = getIdForSlotDeliveryWorker(storageQueueName);
+        int weight = getDeliveryWeight(storageQueueName, destination);
         if (getSlotDeliveryWorkerMap().containsKey(slotDeliveryWorkerId)) {
             //if this queue is not already in the queue
             if (!getSlotDeliveryWorkerMap().get(slotDeliveryWorkerId).isStorageQueueAdded(storageQueueName)) {
                 SlotDeliveryWorker slotDeliveryWorker = getSlotDeliveryWorkerMap()
                         .get(slotDeliveryWorkerId);
-                slotDeliveryWorker.startDeliveryForQueue(storageQueueName, destination, protocolType, destinationType);
+                slotDeliveryWorker.startDeliveryForQueue(storageQueueName, destination, protocolType,
+                        destinationType, weight);
                 if(log.isDebugEnabled()) {
                     log.debug("Assigned Already Running Slot Delivery Worker. Reading messages storageQ= " + storageQueueName + " MsgDest= " + destination);
                 }
@@ -113,21 +136,74 @@ public class SlotDeliveryWorkerManager {
             if(log.isDebugEnabled()) {
                 log.debug("Slot Delivery Worker Started. Reading messages storageQ= " + storageQueueName + " MsgDest= " + destination);
             }
-            slotDeliveryWorker.startDeliveryForQueue(storageQueueName, destination, protocolType, destinationType);
+            slotDeliveryWorker.startDeliveryForQueue(storageQueueName, destination, protocolType, destinationType,
+                    weight);
             getSlotDeliveryWorkerMap().put(slotDeliveryWorkerId, slotDeliveryWorker);
             slotDeliveryWorkerExecutor.execute(slotDeliveryWorker);
         }
+        storageQueueToWorkerId.put(storageQueueName, slotDeliveryWorkerId);
     }
 
     /**
-     * This method is to decide slotDeliveryWorkerId for the queue
+     * This method is to decide slotDeliveryWorkerId for the queue. A storage queue keeps the worker it is assigned
+     * to while delivery is running for it. Otherwise the worker with the least delivery load (sum of the delivery
+     * weights of its storage queues) is selected, so that busy storage queues are spread across the workers as
+     * subscriptions come and go.
      *
      * @param queueName name of the newly created queue
      * @return slot delivery worker ID
      */
-    public int getIdForSlotDeliveryWorker(String queueName) {
+    public synchronized int getIdForSlotDeliveryWorker(String queueName) {
+        Integer assignedWorkerId = storageQueueToWorkerId.get(queueName);
+        if (null != assignedWorkerId) {
+            return assignedWorkerId;
+        }
+
+        // Start from the hash based ID so that ties are broken the same way as before
         // Get the absolute value since String.hashCode() can give both positive and negative values.
-        return Math.abs(queueName.hashCode() % numberOfThreads);
+        int preferredWorkerId = Math.abs(queueName.hashCode() % numberOfThreads);
+        int selectedWorkerId = preferredWorkerId;
+        int minimumLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < numberOfThreads; i++) {
+            int workerId = (preferredWorkerId + i) % numberOfThreads;
+            SlotDeliveryWorker slotDeliveryWorker = slotDeliveryWorkerMap.get(workerId);
+            int load = (null == slotDeliveryWorker) ? 0 : slotDeliveryWorker.getDeliveryLoad();
+            if (load < minimumLoad) {
+                minimumLoad = load;
+                selectedWorkerId = workerId;
+            }
+        }
+        return selectedWorkerId;
+    }
+
+    /**
+     * Get the configured delivery weight of a storage queue. A weight configured against the storage queue name
+     * takes precedence over one configured against the destination.
+     *
+     * @param storageQueueName Name of the storage queue
+     * @param destination Destination of the messages in the storage queue
+     * @return Delivery weight, 1 if not configured
+     */
+    private int getDeliveryWeight(String storageQueueName, String destination) {
+        Integer weight = deliveryWeights.get(storageQueueName);
+        if (null == weight) {
+            weight = deliveryWeights.get(destination);
+        }
+        return (null == weight) ? 1 : weight;
+    }
+
+    /**
+     * Signal the slot delivery worker of the given storage queue that there may be messages to deliver. If no
+     * worker is serving the storage queue in this node the signal is ignored.
+     *
+     * @param storageQueueName Name of the storage queue
+     */
+    public void notifyStorageQueueReady(String storageQueueName) {
+        SlotDeliveryWorker slotWorker = getSlotWorker(storageQueueName);
+
+        if (null != slotWorker) {
+            slotWorker.notifyStorageQueueReady(storageQueueName);
+        }
     }
 
     /**
@@ -137,13 +213,14 @@ public class SlotDeliveryWorkerManager {
      * @param storageQueueName
      *         Name of the Storage queue
      */
-    public void stopDeliveryForDestination(String storageQueueName) {
+    public synchronized void stopDeliveryForDestination(String storageQueueName) {
         SlotDeliveryWorker slotWorker = getSlotWorker(storageQueueName);
 
         // Check if there is a slot delivery worker for the storageQueueName
         if (null != slotWorker) {
             slotWorker.stopDeliveryForQueue(storageQueueName);
         }
+        storageQueueToWorkerId.remove(storageQueueName);
     }
 
 
@@ -185,10 +262,14 @@ public class SlotDeliveryWorkerManager {
      * Returns SlotDeliveryWorker mapped to a given queue
      *
      * @param queueName name of the queue
-     * @return SlotDeliveryWorker instance
+     * @return SlotDeliveryWorker instance or null if delivery is not running for the queue in this node
      */
     public SlotDeliveryWorker getSlotWorker(String queueName) {
-        return slotDeliveryWorkerMap.get(getIdForSlotDeliveryWorker(queueName));
+        Integer slotDeliveryWorkerId = storageQueueToWorkerId.get(queueName);
+        if (null == slotDeliveryWorkerId) {
+            return null;
+        }
+        return slotDeliveryWorkerMap.get(slotDeliveryWorkerId);
     }
 
     /**
@@ -28,7 +28,11 @@ import org.wso2.andes.server.cluster.coordination.SlotAgent;
 import org.wso2.andes.server.cluster.coordination.hazelcast.HazelcastAgent;
 import org.wso2.andes.server.cluster.coordination.rdbms.DatabaseSlotAgent;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
@@ -140,6 +144,34 @@ public class SlotManagerClusterMode {
 
 	}
 
+	/**
+	 * Get slots for several queues in one request. For each queue at most the given number of slots is
+	 * assigned to the node, following the same order of preference as {@link #getSlot(String, String)}.
+	 *
+	 * @param queueToMaxSlots map of queue name to the maximum number of slots required for the queue
+	 * @param nodeId          id of the requesting node
+	 * @return map of queue name to assigned slots. Queues without slots are not included
+	 */
+	public Map<String, List<Slot>> getSlots(Map<String, Integer> queueToMaxSlots, String nodeId)
+			throws AndesException {
+
+		Map<String, List<Slot>> queueToSlots = new HashMap<>();
+
+		for (Map.Entry<String, Integer> entry : queueToMaxSlots.entrySet()) {
+			String queueName = entry.getKey();
+			List<Slot> slots = new ArrayList<>();
+			Slot slot;
+			while ((slots.size() < entry.getValue()) && (null != (slot = getSlot(queueName, nodeId)))) {
+				slots.add(slot);
+			}
+			if (!slots.isEmpty()) {
+				queueToSlots.put(queueName, slots);
+			}
+		}
+
+		return queueToSlots;
+	}
+
 	/**
 	 * Create a new slot from store
 	 *
@@ -192,6 +192,8 @@ public class SlotMessageCounter {
                     queueToSlotMap.remove(storageQueueName);
                     slotCoordinator.updateMessageId(storageQueueName, slot.getStartMessageId(),
                             slot.getEndMessageId(), localSafeZone);
+                    // Wake up local delivery of the storage queue without waiting for the idle recheck
+                    SlotDeliveryWorkerManager.getInstance().notifyStorageQueueReady(storageQueueName);
                 } catch (ConnectionException e) {
                     // we only log here since this is called again from timer task if previous attempt failed
                     log.error("Error occurred while connecting to the thrift coordinator.", e);
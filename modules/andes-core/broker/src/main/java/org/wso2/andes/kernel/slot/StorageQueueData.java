@@ -21,6 +21,11 @@ package org.wso2.andes.kernel.slot;
 import org.wso2.andes.kernel.DestinationType;
 import org.wso2.andes.kernel.ProtocolType;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * Keeps track of the queue data relevant to it's storage queue.
  */
@@ -46,6 +51,35 @@ public class StorageQueueData {
      */
     private DestinationType destinationType;
 
+    /**
+     * Whether the storage queue is currently waiting in the ready queue of its {@link SlotDeliveryWorker}. Used to
+     * avoid scheduling the same storage queue more than once when several wake up signals arrive together.
+     */
+    private final AtomicBoolean readyForDelivery = new AtomicBoolean(false);
+
+    /**
+     * Current delay in milliseconds before the storage queue is checked again for slots when it was found idle.
+     * Only accessed by the owning {@link SlotDeliveryWorker} thread.
+     */
+    private long idleRecheckInterval;
+
+    /**
+     * Slots assigned to this node for the storage queue which are not yet read. Only accessed by the owning
+     * {@link SlotDeliveryWorker} thread.
+     */
+    private final Deque<Slot> prefetchedSlots = new ArrayDeque<>();
+
+    /**
+     * Share of the delivery quantum given to the storage queue in each turn.
+     */
+    private int weight = 1;
+
+    /**
+     * Number of messages the storage queue may still read in the current turn. Negative if the last slot read went
+     * over the share of the storage queue. Only accessed by the owning {@link SlotDeliveryWorker} thread.
+     */
+    private long deliveryDeficit;
+
     /**
      * Constructor initializing the fields.
      *
@@ -61,6 +95,21 @@ public class StorageQueueData {
         this.destinationType = destinationType;
     }
 
+    /**
+     * Constructor initializing the fields with a delivery weight.
+     *
+     * @param storageQueueName The storage queue name
+     * @param destinationName The destination of the messages in the storage queue
+     * @param protocolType The Protocol Type of the messages in the storage queue
+     * @param destinationType The Destination Type of the messages in the storage queue
+     * @param weight Share of the delivery quantum given to the storage queue in each turn
+     */
+    public StorageQueueData(String storageQueueName, String destinationName, ProtocolType protocolType,
+                            DestinationType destinationType, int weight) {
+        this(storageQueueName, destinationName, protocolType, destinationType);
+        this.weight = Math.max(1, weight);
+    }
+
     public String getStorageQueueName() {
         return storageQueueName;
     }
@@ -76,4 +125,108 @@ public class StorageQueueData {
     public DestinationType getDestinationType() {
         return destinationType;
     }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Start a new delivery turn by granting the storage queue its share of the quantum. Unused share of earlier
+     * turns is not carried forward while an overdraft is, so that a storage queue reading large slots does not get
+     * more than its share over time.
+     *
+     * @param quantum Number of messages granted per turn for a storage queue of weight 1
+     */
+    void startDeliveryTurn(int quantum) {
+        deliveryDeficit = Math.min(deliveryDeficit, 0) + (long) quantum * weight;
+    }
+
+    /**
+     * Deduct the messages read from the share of the current turn.
+     *
+     * @param messageCount Number of messages read
+     */
+    void chargeDelivery(int messageCount) {
+        deliveryDeficit -= messageCount;
+    }
+
+    /**
+     * @return True if the storage queue may read more messages in the current turn
+     */
+    boolean hasDeliveryShare() {
+        return deliveryDeficit > 0;
+    }
+
+    /**
+     * Forget the overdraft of the storage queue. Called when the storage queue becomes idle.
+     */
+    void resetDeliveryDeficit() {
+        deliveryDeficit = 0;
+    }
+
+    /**
+     * Mark the storage queue as scheduled for delivery.
+     *
+     * @return True if the storage queue was not already scheduled, false otherwise
+     */
+    boolean markReadyForDelivery() {
+        return readyForDelivery.compareAndSet(false, true);
+    }
+
+    /**
+     * Clear the scheduled flag so that the storage queue can be scheduled again. This is called by the worker
+     * before serving the storage queue, so that a signal received while serving is not lost.
+     */
+    void clearReadyForDelivery() {
+        readyForDelivery.set(false);
+    }
+
+    /**
+     * Calculate the delay before the storage queue is checked again after an idle attempt. The delay is doubled for
+     * each consecutive idle attempt starting from the given minimum until it reaches the given maximum.
+     *
+     * @param minimumInterval Delay in milliseconds used for the first idle attempt
+     * @param maximumInterval Upper bound of the delay in milliseconds
+     * @return Delay in milliseconds before the next check
+     */
+    long nextIdleRecheckInterval(long minimumInterval, long maximumInterval) {
+        if (idleRecheckInterval < minimumInterval) {
+            idleRecheckInterval = minimumInterval;
+        } else {
+            idleRecheckInterval = Math.min(idleRecheckInterval * 2, maximumInterval);
+        }
+        return idleRecheckInterval;
+    }
+
+    /**
+     * Reset idle back off of the storage queue. Called when the storage queue had slots to deliver.
+     */
+    void resetIdleRecheckInterval() {
+        idleRecheckInterval = 0;
+    }
+
+    /**
+     * Get the next prefetched slot of the storage queue.
+     *
+     * @return Oldest prefetched slot or null if there are no prefetched slots
+     */
+    Slot pollPrefetchedSlot() {
+        return prefetchedSlots.poll();
+    }
+
+    /**
+     * Keep slots received from the coordinator to be read later.
+     *
+     * @param slots Slots assigned to this node for the storage queue
+     */
+    void addPrefetchedSlots(List<Slot> slots) {
+        prefetchedSlots.addAll(slots);
+    }
+
+    /**
+     * @return True if there are slots received from the coordinator which are not yet read
+     */
+    boolean hasPrefetchedSlots() {
+        return !prefetchedSlots.isEmpty();
+    }
 }
@@ -133,6 +133,14 @@ public class MetricsConstants {
      * At a given time the number of messages in the inbound disruptor ring
      */
     public static final String DISRUPTOR_INBOUND_RING = PREFIX + "inbound.disruptor.message.count";
+    /**
+     * Average batch size currently used by the inbound message writers
+     */
+    public static final String DISRUPTOR_MESSAGE_WRITER_BATCH_SIZE = PREFIX + "inbound.disruptor.writer.batchSize";
+    /**
+     * Time taken by an inbound message writer to commit a batch of messages to the message store
+     */
+    public static final String DISRUPTOR_MESSAGE_WRITER_COMMIT = PREFIX + "inbound.disruptor.writer.commit";
     /**
      * At a given time the number of messages which have being acknowledged in the inbound ring
      */
@@ -172,4 +180,43 @@ public class MetricsConstants {
      */
     public static final String ACK_SENT_RATE = PREFIX + "ack.sent";
 
+    /*STAGE LATENCY*/
+    /**
+     * Time a published message waits in the inbound ring until a message writer picks it to write to the store
+     */
+    public static final String INBOUND_RING_WAIT = PREFIX + "latency.inbound.ringWait";
+    /**
+     * Time from the arrival of a message until the slot of the message is read for delivery. Arrival time is set by
+     * the node the message was published to
+     */
+    public static final String SLOT_WAIT = PREFIX + "latency.slot.wait";
+    /**
+     * Time a message waits in the outbound ring, including the content read, until a delivery handler sends it
+     */
+    public static final String OUTBOUND_RING_WAIT = PREFIX + "latency.outbound.ringWait";
+    /**
+     * Time taken by the transport to write a message to the subscriber
+     */
+    public static final String NETWORK_WRITE = PREFIX + "latency.network.write";
+
+    /*SLOT COORDINATION*/
+    /**
+     * Time a slot coordination request waits for a free thrift connection to the coordinator
+     */
+    public static final String THRIFT_CLIENT_QUEUE_WAIT = PREFIX + "coordination.thrift.queueWait";
+    /**
+     * Time taken for a slot coordination request to complete at the coordinator
+     */
+    public static final String THRIFT_CLIENT_RPC = PREFIX + "coordination.thrift.rpc";
+
+    /*MQTT*/
+    /**
+     * Number of MQTT inbound events processed per second by a processor shard. Shard index is appended
+     */
+    public static final String MQTT_INBOUND_SHARD_EVENTS = PREFIX + "mqtt.inbound.shard.events.";
+    /**
+     * Number of MQTT inbound events waiting to be processed by a processor shard. Shard index is appended
+     */
+    public static final String MQTT_INBOUND_SHARD_PENDING = PREFIX + "mqtt.inbound.shard.pending.";
+
 }
@@ -22,6 +22,7 @@ import org.apache.commons.logging.LogFactory;
 import org.dna.mqtt.wso2.QOSLevel;
 import org.wso2.andes.kernel.*;
 import org.wso2.andes.mqtt.utils.MQTTUtils;
+import org.wso2.andes.subscription.EqualitySelector;
 import org.wso2.andes.subscription.OutboundSubscription;
 import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
@@ -162,6 +163,15 @@ public class MQTTLocalSubscription implements OutboundSubscription {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EqualitySelector getEqualitySelector() {
+        //MQTT does not register message selectors
+        return null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -31,11 +31,11 @@ import org.wso2.andes.mqtt.utils.MQTTUtils;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.dna.mqtt.wso2.AndesMQTTBridge.SubscriptionEvent;
 import static org.dna.mqtt.wso2.AndesMQTTBridge.getBridgeInstance;
@@ -53,11 +53,12 @@ public class MQTTopicManager {
     private static Log log = LogFactory.getLog(MQTTopicManager.class);
     /**
      * Channel id will be defined as the key and the value will hold the topic<->subscription information
-     * We could go with the hash map since we don't need immediate reflection of values being added during the runtime
-     * i.e subscription getting bound when a message is given out for distribution, for topicSubscriptions we only need
-     * to deliver messages to subscribers who were bound before the message was published to the broker
+     * Inbound MQTT events of different clients are processed by multiple threads, hence a concurrent map is used.
+     * We don't need immediate reflection of values being added during the runtime i.e subscription getting bound when
+     * a message is given out for distribution, we only need to deliver messages to subscribers who were bound before
+     * the message was published to the broker
      */
-    private Map<String, MQTTopics> topicSubscriptions = new HashMap<>();
+    private Map<String, MQTTopics> topicSubscriptions = new ConcurrentHashMap<>();
     /**
      * The instance which will be referred
      */
@@ -19,7 +19,7 @@ package org.wso2.andes.server.cluster.coordination;
 
 import org.wso2.andes.server.ClusterResourceHolder;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
@@ -28,49 +28,109 @@ import java.util.concurrent.atomic.AtomicInteger;
  * Here to preserve the long range we use a time stamp that is created by getting difference between
  * System.currentTimeMillis() and a configured reference time. Reference time can be configured.
  * <p/>
- * Message Id will created by appending time stamp , selected unique id for the node and two digit sequence number
+ * Message Id will created by appending time stamp , selected unique id for the node and a sequence number
  * <p/>
  * <time stamp> + <selected unique id for the node> + <seq number>
  * <p/>
  * sequence number is used in a scenario when two or more messages comes with same timestamp
- * (within the same millisecond). So to allow message rages higher than 1000 msg/s we use this sequence number
- * where it will be incremented in case of message comes in same millisecond within the same node. With this approach
- * We can go up to 100,000 msg/s
+ * (within the same millisecond). When all sequence numbers of a millisecond are used, ids are borrowed from the
+ * next millisecond instead of failing. Time stamp and sequence number are kept together in a single atomic value
+ * which is advanced with compare and set, so ids can be generated concurrently without locking. That value is
+ * shared by all instances within the node so that ids generated by different instances never collide.
  */
 // TODO class name
 public class TimeStampBasedMessageIdGenerator implements MessageIdGenerator {
-    private int uniqueIdForNode = 0;
-    private long lastTimestamp = 0;
-    private long lastID = 0;
-
-    /** If two instances for the same time stamp comes add offset values to differentiate them */
-    private AtomicInteger offset = new AtomicInteger();
 
     private static final long REFERENCE_START = 41L * 365L * 24L * 60L * 60L * 1000L; //this is 2011
 
+    /**
+     * Number of bits used for the sequence number within a millisecond
+     */
+    private static final int OFFSET_BITS = 10;
+
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+
+    /**
+     * Value of the unique id for the node before it is read from the cluster manager
+     */
+    private static final int NODE_ID_NOT_READ = -1;
+
+    /**
+     * Last used [time spent from reference time in milliseconds][10 bit offset] value of this node
+     */
+    private static final AtomicLong lastTimestampAndOffset = new AtomicLong(0);
+
+    /**
+     * Unique id of the node. Assigned once when the node joins the cluster, so it is read only on first use
+     */
+    private volatile int uniqueIdForNode = NODE_ID_NOT_READ;
+
     /**
      * Out of 64 bits for long, we will use the range as follows
      * [1 sign bit][45bits for time spent from reference time in milliseconds][8bit node id][10 bit offset for ID falls within the same timestamp]
-     * This assumes there will not be more than 1024 hits within a given millisecond. Range is sufficient for 6029925857 years.
+     * If there are more than 1024 hits within a given millisecond, ids of the next millisecond are used. Range is
+     * sufficient for 6029925857 years.
      *
      * @return Generated ID
      */
-    public synchronized long getNextId() {
-        //TODO review on how we could optimize this code
-        uniqueIdForNode = ClusterResourceHolder.getInstance().getClusterManager().getUniqueIdForLocalNode();
-        long ts = System.currentTimeMillis();
-        int offset = 0;
-        if (ts == lastTimestamp) {
-            offset = this.offset.incrementAndGet();
-        } else {
-            this.offset.set(0);
+    public long getNextId() {
+        return toMessageId(reserveTimestampAndOffsets(1), getUniqueIdForNode());
+    }
+
+    /**
+     * Generate a number of ids in a single call. Returned ids are in ascending order and are unique the same way
+     * ids from {@link #getNextId()} are.
+     *
+     * @param count number of ids required
+     * @return generated ids
+     */
+    public long[] getNextIds(int count) {
+        long[] ids = new long[count];
+        if (count > 0) {
+            int nodeId = getUniqueIdForNode();
+            long timestampAndOffset = reserveTimestampAndOffsets(count);
+            for (int i = 0; i < count; i++) {
+                ids[i] = toMessageId(timestampAndOffset + i, nodeId);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Reserve a range of time stamp and offset values. The range starts at the current time or right after the last
+     * reserved value, whichever is larger.
+     *
+     * @param count number of values to reserve
+     * @return first value of the reserved range
+     */
+    private long reserveTimestampAndOffsets(int count) {
+        long current = (System.currentTimeMillis() - REFERENCE_START) << OFFSET_BITS;
+        while (true) {
+            long last = lastTimestampAndOffset.get();
+            long first = Math.max(current, last + 1);
+            if (lastTimestampAndOffset.compareAndSet(last, first + count - 1)) {
+                return first;
+            }
         }
-        lastTimestamp = ts;
-        long id = (ts - REFERENCE_START) * 256 * 1024 + uniqueIdForNode * 1024 + offset;
-        if (lastID == id) {
-            throw new RuntimeException("duplicate ids detected. This should never happen");
+    }
+
+    /**
+     * Build the message id from a time stamp and offset value and the node id
+     *
+     * @param timestampAndOffset [time spent from reference time in milliseconds][10 bit offset]
+     * @param nodeId             unique id of the node
+     * @return message id
+     */
+    private static long toMessageId(long timestampAndOffset, int nodeId) {
+        return (timestampAndOffset >>> OFFSET_BITS) * 256 * 1024 + nodeId * 1024 + (timestampAndOffset & OFFSET_MASK);
+    }
+
+    private int getUniqueIdForNode() {
+        int nodeId = uniqueIdForNode;
+        if (NODE_ID_NOT_READ == nodeId) {
+            nodeId = ClusterResourceHolder.getInstance().getClusterManager().getUniqueIdForLocalNode();
+            uniqueIdForNode = nodeId;
         }
-        lastID = id;
-        return id;
+        return nodeId;
     }
 }
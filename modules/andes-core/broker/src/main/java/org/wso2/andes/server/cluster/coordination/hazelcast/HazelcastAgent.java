@@ -43,7 +43,16 @@ import org.wso2.andes.server.cluster.coordination.SlotAgent;
 import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.HashmapStringTreeSetWrapper;
 import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.TreeSetLongWrapper;
 import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.TreeSetSlotWrapper;
-
+import org.wso2.andes.server.cluster.coordination.hazelcast.processor.AddMessageIdProcessor;
+import org.wso2.andes.server.cluster.coordination.hazelcast.processor.AddSlotProcessor;
+import org.wso2.andes.server.cluster.coordination.hazelcast.processor.AddUnassignedSlotsProcessor;
+import org.wso2.andes.server.cluster.coordination.hazelcast.processor.DeleteSlotProcessor;
+import org.wso2.andes.server.cluster.coordination.hazelcast.processor.PollMessageIdProcessor;
+import org.wso2.andes.server.cluster.coordination.hazelcast.processor.PollQueueSlotProcessor;
+import org.wso2.andes.server.cluster.coordination.hazelcast.processor.PollUnassignedSlotProcessor;
+import org.wso2.andes.server.cluster.coordination.hazelcast.processor.RemoveQueueSlotsProcessor;
+
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -443,38 +452,11 @@ public class HazelcastAgent implements SlotAgent {
     @Override
     public boolean deleteSlot(String nodeId, String queueName, long startMessageId, long endMessageId)
             throws AndesException {
-        boolean slotDeleted = false;
+        boolean slotDeleted;
         try {
-            HashMap<String, TreeSet<Slot>> queueToSlotMap = null;
-            HashmapStringTreeSetWrapper wrapper = this.slotAssignmentMap.get(nodeId);
-            if (null != wrapper) {
-                queueToSlotMap = wrapper.getStringListHashMap();
-            }
-            if (null != queueToSlotMap) {
-                TreeSet<Slot> currentSlotList = queueToSlotMap.get(queueName);
-                if (null != currentSlotList) {
-                    // com.google.gson.Gson gson = new GsonBuilder().create();
-                    //get the actual reference of the slot to be removed
-                    Slot matchingSlot = null; //currentSlotList.ceiling(emptySlot);
-                    for (Slot slot : currentSlotList) {
-                        if (slot.getStartMessageId() == startMessageId) {
-                            matchingSlot = slot;
-                        }
-                    }
-                    if (null != matchingSlot) {
-                        if (matchingSlot.addState(SlotState.DELETED)) {
-                            currentSlotList.remove(matchingSlot);
-                            queueToSlotMap.put(queueName, currentSlotList);
-                            wrapper.setStringListHashMap(queueToSlotMap);
-                            slotAssignmentMap.set(nodeId, wrapper);
-                            slotDeleted = true;
-                        }
-                    } else {
-                        // We can say slot deleted since the slot does not exist
-                        slotDeleted = true;
-                    }
-                }
-            }
+            Object result = slotAssignmentMap.executeOnKey(nodeId, new DeleteSlotProcessor(queueName,
+                                                                                            startMessageId));
+            slotDeleted = Boolean.TRUE.equals(result);
         } catch (HazelcastInstanceNotActiveException ex) {
             throw new AndesException("Failed to delete slot for queue : " +
                     queueName + " from node " + nodeId, ex);
@@ -489,61 +471,31 @@ public class HazelcastAgent implements SlotAgent {
     public void deleteSlotAssignmentByQueueName(String nodeId, String queueName) throws AndesException {
         try {
             TreeSet<Slot> slotListToReturn = new TreeSet<>();
-            //Get assigned slots from Hazelcast, delete all belonging to queue
-            //and set back
-            HashmapStringTreeSetWrapper wrapper = this.slotAssignmentMap.get(nodeId);
-            HashMap<String, TreeSet<Slot>> queueToSlotMap = null;
-            if (null != wrapper) {
-                queueToSlotMap = wrapper.getStringListHashMap();
-            }
-            if (null != queueToSlotMap) {
-                TreeSet<Slot> assignedSlotList = queueToSlotMap.remove(queueName);
-                if (null != assignedSlotList) {
-                    slotListToReturn.addAll(assignedSlotList);
-                }
-                wrapper.setStringListHashMap(queueToSlotMap);
-                this.slotAssignmentMap.set(nodeId, wrapper);
+            //Delete assigned and overlapped slots belonging to queue from Hazelcast
+            TreeSetSlotWrapper assignedSlots = (TreeSetSlotWrapper) slotAssignmentMap.executeOnKey(nodeId,
+                    new RemoveQueueSlotsProcessor(queueName));
+            if (null != assignedSlots) {
+                slotListToReturn.addAll(assignedSlots.getSlotTreeSet());
             }
-
-            //Get overlapped slots from Hazelcast, delete all belonging to queue and
-            //set back
-            HashmapStringTreeSetWrapper overlappedSlotWrapper = this.overlappedSlotMap.get(nodeId);
-            HashMap<String, TreeSet<Slot>> queueToOverlappedSlotMap = null;
-            if (null != overlappedSlotWrapper) {
-                queueToOverlappedSlotMap = overlappedSlotWrapper.getStringListHashMap();
-            }
-            if (null != queueToOverlappedSlotMap) {
-                TreeSet<Slot> assignedOverlappedSlotList = queueToOverlappedSlotMap.remove(queueName);
-                if (null != assignedOverlappedSlotList) {
-                    slotListToReturn.addAll(assignedOverlappedSlotList);
-                }
-                overlappedSlotWrapper.setStringListHashMap(queueToOverlappedSlotMap);
-                this.overlappedSlotMap.set(nodeId, overlappedSlotWrapper);
+            TreeSetSlotWrapper overlappedSlots = (TreeSetSlotWrapper) overlappedSlotMap.executeOnKey(nodeId,
+                    new RemoveQueueSlotsProcessor(queueName));
+            if (null != overlappedSlots) {
+                slotListToReturn.addAll(overlappedSlots.getSlotTreeSet());
             }
 
             //add the deleted slots to un-assigned slot map, so that they can be assigned again.
-            if (!(slotListToReturn.isEmpty())) {
-                TreeSetSlotWrapper treeSetStringWrapper = unAssignedSlotMap.get(queueName);
-                TreeSet<Slot> unAssignedSlotSet = new TreeSet<>();
-                if (null != treeSetStringWrapper) {
-                    unAssignedSlotSet = treeSetStringWrapper.getSlotTreeSet();
-                } else {
-                    treeSetStringWrapper = new TreeSetSlotWrapper();
-                }
-                if (null == unAssignedSlotSet) {
-                    unAssignedSlotSet = new TreeSet<>();
-                }
-                for (Slot returnSlot : slotListToReturn) {
-                    //Reassign only if the slot is not empty
-                    if (!(SlotUtils.checkSlotEmptyFromMessageStore(returnSlot))) {
-                        if (returnSlot.addState(SlotState.RETURNED)) {
-                            unAssignedSlotSet.add(returnSlot);
-                        }
+            TreeSet<Slot> slotsToReassign = new TreeSet<>();
+            for (Slot returnSlot : slotListToReturn) {
+                //Reassign only if the slot is not empty
+                if (!(SlotUtils.checkSlotEmptyFromMessageStore(returnSlot))) {
+                    if (returnSlot.addState(SlotState.RETURNED)) {
+                        slotsToReassign.add(returnSlot);
                     }
-                    treeSetStringWrapper.setSlotTreeSet(unAssignedSlotSet);
-                    unAssignedSlotMap.set(queueName, treeSetStringWrapper);
                 }
             }
+            if (!slotsToReassign.isEmpty()) {
+                unAssignedSlotMap.executeOnKey(queueName, new AddUnassignedSlotsProcessor(slotsToReassign));
+            }
         } catch (HazelcastInstanceNotActiveException ex) {
             throw new AndesException("Failed to delete slot assignment for queue : " +
                     queueName + " from node " + nodeId, ex);
@@ -557,15 +509,11 @@ public class HazelcastAgent implements SlotAgent {
     public Slot getUnAssignedSlot(String queueName) throws AndesException {
         Slot slotToBeAssigned = null;
         try {
-            TreeSetSlotWrapper unAssignedSlotWrapper = unAssignedSlotMap.get(queueName);
-            if (null != unAssignedSlotWrapper) {
-                TreeSet<Slot> slotsFromUnassignedSlotMap = unAssignedSlotWrapper.getSlotTreeSet();
-                if (null != slotsFromUnassignedSlotMap && !(slotsFromUnassignedSlotMap.isEmpty())) {
-                    //Get and remove slot and update hazelcast map
-                    slotToBeAssigned = slotsFromUnassignedSlotMap.pollFirst();
-                    unAssignedSlotWrapper.setSlotTreeSet(slotsFromUnassignedSlotMap);
-                    unAssignedSlotMap.set(queueName, unAssignedSlotWrapper);
-                }
+            //Get and remove slot from hazelcast map
+            TreeSetSlotWrapper polledSlot = (TreeSetSlotWrapper) unAssignedSlotMap.executeOnKey(queueName,
+                    new PollUnassignedSlotProcessor());
+            if (null != polledSlot) {
+                slotToBeAssigned = polledSlot.getSlotTreeSet().first();
             }
         } catch (HazelcastInstanceNotActiveException ex) {
             throw new AndesException("Failed to get unassigned slot for queue : " +
@@ -579,32 +527,11 @@ public class HazelcastAgent implements SlotAgent {
      */
     @Override
     public void updateSlotAssignment(String nodeId, String queueName, Slot allocatedSlot) throws AndesException {
-        TreeSet<Slot> currentSlotList;
-        HashMap<String, TreeSet<Slot>> queueToSlotMap;
-
         try {
-            HashmapStringTreeSetWrapper wrapper = this.slotAssignmentMap.get(nodeId);
-            if (null == wrapper) {
-                wrapper = new HashmapStringTreeSetWrapper();
-                queueToSlotMap = new HashMap<>();
-                wrapper.setStringListHashMap(queueToSlotMap);
-                this.slotAssignmentMap.putIfAbsent(nodeId, wrapper);
-            }
-            wrapper = this.slotAssignmentMap.get(nodeId);
-            queueToSlotMap = wrapper.getStringListHashMap();
-            currentSlotList = queueToSlotMap.get(queueName);
-            if (null == currentSlotList) {
-                currentSlotList = new TreeSet<>();
-            }
-
             //update slot state
             if (allocatedSlot.addState(SlotState.ASSIGNED)) {
                 //remove any similar slot from hazelcast and add the updated one
-                currentSlotList.remove(allocatedSlot);
-                currentSlotList.add(allocatedSlot);
-                queueToSlotMap.put(queueName, currentSlotList);
-                wrapper.setStringListHashMap(queueToSlotMap);
-                this.slotAssignmentMap.set(nodeId, wrapper);
+                slotAssignmentMap.executeOnKey(nodeId, new AddSlotProcessor(queueName, allocatedSlot));
             }
         } catch (HazelcastInstanceNotActiveException ex) {
             throw new AndesException("Failed to update slot assignment for queue : " +
@@ -679,21 +606,12 @@ public class HazelcastAgent implements SlotAgent {
     @Override
     public Slot getOverlappedSlot(String nodeId, String queueName) throws AndesException {
         Slot slotToBeAssigned = null;
-        TreeSet<Slot> currentSlotList;
-        HashMap<String, TreeSet<Slot>> queueToSlotMap;
         try {
-            HashmapStringTreeSetWrapper wrapper = this.overlappedSlotMap.get(nodeId);
-            if (null != wrapper) {
-                queueToSlotMap = wrapper.getStringListHashMap();
-                currentSlotList = queueToSlotMap.get(queueName);
-                if (null != currentSlotList && !(currentSlotList.isEmpty())) {
-                    //get and remove slot
-                    slotToBeAssigned = currentSlotList.pollFirst();
-                    queueToSlotMap.put(queueName, currentSlotList);
-                    //update hazelcast map
-                    wrapper.setStringListHashMap(queueToSlotMap);
-                    this.overlappedSlotMap.set(nodeId, wrapper);
-                }
+            //get and remove slot
+            TreeSetSlotWrapper polledSlot = (TreeSetSlotWrapper) overlappedSlotMap.executeOnKey(nodeId,
+                    new PollQueueSlotProcessor(queueName));
+            if (null != polledSlot) {
+                slotToBeAssigned = polledSlot.getSlotTreeSet().first();
             }
         } catch (HazelcastInstanceNotActiveException ex) {
             throw new AndesException("Failed to getOverlappedSlot for queue : " +
@@ -708,11 +626,7 @@ public class HazelcastAgent implements SlotAgent {
     @Override
     public void addMessageId(String queueName, long messageId) throws AndesException {
         try {
-            TreeSet<Long> messageIdSet = this.getMessageIds(queueName);
-            TreeSetLongWrapper wrapper = this.slotIdMap.get(queueName);
-            messageIdSet.add(messageId);
-            wrapper.setLongTreeSet(messageIdSet);
-            this.slotIdMap.set(queueName, wrapper);
+            this.slotIdMap.executeOnKey(queueName, new AddMessageIdProcessor(messageId));
         }  catch (HazelcastInstanceNotActiveException ex) {
             throw new AndesException("Failed to addMessageId for queue : " +
                     queueName, ex);
@@ -744,15 +658,7 @@ public class HazelcastAgent implements SlotAgent {
     @Override
     public void deleteMessageId(String queueName, long messageId) throws AndesException {
         try {
-            TreeSetLongWrapper wrapper = this.slotIdMap.get(queueName);
-            TreeSet<Long> messageIDSet;
-            messageIDSet = wrapper.getLongTreeSet();
-            if (null != messageIDSet && !(messageIDSet.isEmpty())) {
-                messageIDSet.pollFirst();
-                //set modified published ID map to hazelcast
-                wrapper.setLongTreeSet(messageIDSet);
-                this.slotIdMap.set(queueName, wrapper);
-            }
+            this.slotIdMap.executeOnKey(queueName, new PollMessageIdProcessor());
         }  catch (HazelcastInstanceNotActiveException ex) {
             throw new AndesException("Failed to deleteMessageId for queue : " +
                     queueName, ex);
@@ -773,30 +679,10 @@ public class HazelcastAgent implements SlotAgent {
             List<String> nodeIDs = AndesContext.getInstance().getClusterAgent().getAllNodeIdentifiers();
 
             for (String nodeID : nodeIDs) {
-                HashmapStringTreeSetWrapper wrapper = slotAssignmentMap.get(nodeID);
-                HashMap<String, TreeSet<Slot>> queueToSlotMap = null;
-                if (null != wrapper) {
-                    queueToSlotMap = wrapper.getStringListHashMap();
-                }
-                if (null != queueToSlotMap) {
-                    queueToSlotMap.remove(queueName);
-                    wrapper.setStringListHashMap(queueToSlotMap);
-                    slotAssignmentMap.set(nodeID, wrapper);
-                }
+                slotAssignmentMap.executeOnKey(nodeID, new RemoveQueueSlotsProcessor(queueName));
 
                 //clear overlapped slot map
-                HashmapStringTreeSetWrapper overlappedSlotsWrapper = overlappedSlotMap.get(nodeID);
-                if (null != overlappedSlotsWrapper) {
-                    HashMap<String, TreeSet<Slot>> queueToOverlappedSlotMap = null;
-                    if (null != wrapper) {
-                        queueToOverlappedSlotMap = overlappedSlotsWrapper.getStringListHashMap();
-                    }
-                    if (null != queueToSlotMap) {
-                        queueToOverlappedSlotMap.remove(queueName);
-                        overlappedSlotsWrapper.setStringListHashMap(queueToOverlappedSlotMap);
-                        overlappedSlotMap.set(nodeID, overlappedSlotsWrapper);
-                    }
-                }
+                overlappedSlotMap.executeOnKey(nodeID, new RemoveQueueSlotsProcessor(queueName));
             }
         } catch (HazelcastInstanceNotActiveException ex) {
             throw new AndesException("Failed to deleteSlotsByQueueName for queue : " +
@@ -897,20 +783,9 @@ public class HazelcastAgent implements SlotAgent {
     @Override
     public void reassignSlot(Slot slotToBeReassigned) throws AndesException {
         try {
-            TreeSet<Slot> freeSlotTreeSet = new TreeSet<>();
-            TreeSetSlotWrapper treeSetStringWrapper = new TreeSetSlotWrapper();
-
-            treeSetStringWrapper.setSlotTreeSet(freeSlotTreeSet);
-
-            this.unAssignedSlotMap.putIfAbsent(slotToBeReassigned.getStorageQueueName(),
-                    treeSetStringWrapper);
-
             if (slotToBeReassigned.addState(SlotState.RETURNED)) {
-                treeSetStringWrapper = this.unAssignedSlotMap.get(slotToBeReassigned.getStorageQueueName());
-                freeSlotTreeSet = treeSetStringWrapper.getSlotTreeSet();
-                freeSlotTreeSet.add(slotToBeReassigned);
-                treeSetStringWrapper.setSlotTreeSet(freeSlotTreeSet);
-                this.unAssignedSlotMap.set(slotToBeReassigned.getStorageQueueName(), treeSetStringWrapper);
+                this.unAssignedSlotMap.executeOnKey(slotToBeReassigned.getStorageQueueName(),
+                        new AddUnassignedSlotsProcessor(Collections.singletonList(slotToBeReassigned)));
             }
         } catch (HazelcastInstanceNotActiveException ex) {
             throw new AndesException("Failed to reassign slot", ex);
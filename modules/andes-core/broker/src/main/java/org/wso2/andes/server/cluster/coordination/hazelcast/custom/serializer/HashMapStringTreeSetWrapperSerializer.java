@@ -18,7 +18,6 @@
 
 package org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer;
 
-import com.google.gson.*;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.StreamSerializer;
@@ -27,10 +26,12 @@ import org.wso2.andes.kernel.slot.Slot;
 
 
 import java.io.IOException;
-import java.util.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
 
 /**
- * Class used to serialize/un-serialize a HashMap<String,TreeSet<Slot>> data structure.
+ * Class used to serialize/un-serialize a HashMap<String,TreeSet<Slot>> data structure in a compact binary form.
  */
 @SuppressWarnings("unused")
 public class HashMapStringTreeSetWrapperSerializer implements
@@ -40,85 +41,40 @@ public class HashMapStringTreeSetWrapperSerializer implements
     @Override
     public void write(ObjectDataOutput objectDataOutput, HashmapStringTreeSetWrapper
             hashmapStringTreeSetWrapper) throws IOException {
-        //Convert the hashmapStringListWrapper object to a json string and save it in hazelcast map
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("{");
         HashMap<String, TreeSet<Slot>> hashmap = hashmapStringTreeSetWrapper.getStringListHashMap();
-        stringBuilder.append("\"stringTreeSetHashMap\":{");
-        if (hashmap != null) {
-            Set<Map.Entry<String, TreeSet<Slot>>> entrySet = hashmap.entrySet();
-            for (Map.Entry<String, TreeSet<Slot>> entry : entrySet) {
-                stringBuilder.append("\"").append(entry.getKey()).append("\":[");
-                TreeSet<Slot> slots = entry.getValue();
-                if (slots != null) {
-                    for (Slot slot : slots) {
-                        String isActiveString;
-                        if (slot.isSlotActive()) {
-                            isActiveString = "true";
-                        } else {
-                            isActiveString = "false";
-                        }
-                        stringBuilder.append("{\"messageCount\":").append(slot.getMessageCount()).
-                                append(",").append("\"startMessageId\":").append(slot.getStartMessageId()).
-                                append(",").append("\"endMessageId\":").append(slot.getEndMessageId()).
-                                append(",\"storageQueueName\":\"").append(slot.getStorageQueueName()).
-                                append("\",\"destinationOfMessagesInSlot\":\"").append(slot.getDestinationOfMessagesInSlot()).
-                                append("\",\"states\":\"").append(slot.encodeSlotStates()).
-                                append("\",\"isAnOverlappingSlot\":").append(String.valueOf(slot.isAnOverlappingSlot())).
-                                append(",\"isSlotActive\":").append(isActiveString).append("},");
-                    }
-                    if (slots.size() != 0) {
-                        stringBuilder.deleteCharAt(stringBuilder.length() - 1);
-                    }
-                }
-                stringBuilder.append("],");
-            }
-            if (hashmap.keySet().size() != 0) {
-                stringBuilder.deleteCharAt(stringBuilder.length() - 1);
-            }
-
+        if (null == hashmap) {
+            objectDataOutput.writeInt(0);
+            return;
+        }
+        objectDataOutput.writeInt(hashmap.size());
+        for (Map.Entry<String, TreeSet<Slot>> entry : hashmap.entrySet()) {
+            objectDataOutput.writeUTF(entry.getKey());
+            SlotSerializationUtils.writeSlots(objectDataOutput, entry.getValue());
         }
-        stringBuilder.append("}");
-        stringBuilder.append("}");
-        objectDataOutput.writeUTF(stringBuilder.toString());
     }
 
     @Override
     public HashmapStringTreeSetWrapper read(ObjectDataInput objectDataInput) throws IOException {
-        //Build HashmapStringListWrapper object using json string.
-        String jsonString = objectDataInput.readUTF();
-        HashmapStringTreeSetWrapper wrapper = new HashmapStringTreeSetWrapper();
+        int size = objectDataInput.readInt();
         HashMap<String, TreeSet<Slot>> hashMap = new HashMap<>();
-        JsonObject jsonObject = new JsonParser().parse(jsonString).getAsJsonObject()
-                .getAsJsonObject("stringTreeSetHashMap");
-        Set<Map.Entry<String, JsonElement>> set = jsonObject.entrySet();
-        for (Map.Entry<String, JsonElement> entry : set) {
-            String key = entry.getKey();
-            JsonElement value = entry.getValue();
-            TreeSet<Slot> arrayList = new TreeSet<>();
-            JsonArray jsonArray = value.getAsJsonArray();
-            for (JsonElement elem : jsonArray) {
-                Slot slot = new Slot();
-                JsonObject jsonObjectForSlot = (JsonObject) elem;
-                slot.setMessageCount(jsonObjectForSlot.get("messageCount").getAsInt());
-                slot.setStartMessageId(jsonObjectForSlot.get("startMessageId").getAsLong());
-                slot.setEndMessageId(jsonObjectForSlot.get("endMessageId").getAsLong());
-                slot.setStorageQueueName(jsonObjectForSlot.get("storageQueueName").getAsString());
-                slot.decodeAndSetSlotStates(jsonObjectForSlot.get("states").getAsString());
-                if (!jsonObjectForSlot.get("isSlotActive").getAsBoolean()) {
-                    slot.setSlotInActive();
-                }
-                arrayList.add(slot);
-            }
-            hashMap.put(key, arrayList);
+        for (int i = 0; i < size; i++) {
+            String queueName = objectDataInput.readUTF();
+            hashMap.put(queueName, SlotSerializationUtils.readSlots(objectDataInput));
         }
+        HashmapStringTreeSetWrapper wrapper = new HashmapStringTreeSetWrapper();
         wrapper.setStringListHashMap(hashMap);
         return wrapper;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Changed from 19900130 when the JSON form was replaced with the binary form, so that nodes using the JSON form
+     * do not read values written in the binary form.
+     */
     @Override
     public int getTypeId() {
-        return 19900130;
+        return 19900133;
     }
 
     @Override
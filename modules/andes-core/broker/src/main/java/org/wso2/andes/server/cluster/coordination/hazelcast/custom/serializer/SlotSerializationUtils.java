@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import org.wso2.andes.kernel.slot.Slot;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * Binary serialization of slots shared by the custom serializers and the entry processors of the slot maps.
+ */
+public final class SlotSerializationUtils {
+
+    private SlotSerializationUtils() {
+    }
+
+    /**
+     * Write the coordination related fields of a slot. Messages of the slot are local to a node and not written.
+     *
+     * @param objectDataOutput output to write to
+     * @param slot             slot to write
+     * @throws IOException on an error while writing
+     */
+    public static void writeSlot(ObjectDataOutput objectDataOutput, Slot slot) throws IOException {
+        objectDataOutput.writeLong(slot.getMessageCount());
+        objectDataOutput.writeLong(slot.getStartMessageId());
+        objectDataOutput.writeLong(slot.getEndMessageId());
+        objectDataOutput.writeUTF(slot.getStorageQueueName());
+        objectDataOutput.writeUTF(slot.getDestinationOfMessagesInSlot());
+        objectDataOutput.writeUTF(slot.encodeSlotStates());
+        objectDataOutput.writeBoolean(slot.isAnOverlappingSlot());
+        objectDataOutput.writeBoolean(slot.isSlotActive());
+    }
+
+    /**
+     * Read a slot written by {@link #writeSlot(ObjectDataOutput, Slot)}
+     *
+     * @param objectDataInput input to read from
+     * @return slot read
+     * @throws IOException on an error while reading
+     */
+    public static Slot readSlot(ObjectDataInput objectDataInput) throws IOException {
+        Slot slot = new Slot();
+        slot.setMessageCount(objectDataInput.readLong());
+        slot.setStartMessageId(objectDataInput.readLong());
+        slot.setEndMessageId(objectDataInput.readLong());
+        slot.setStorageQueueName(objectDataInput.readUTF());
+        slot.setDestinationOfMessagesInSlot(objectDataInput.readUTF());
+        slot.decodeAndSetSlotStates(objectDataInput.readUTF());
+        slot.setAnOverlappingSlot(objectDataInput.readBoolean());
+        if (!objectDataInput.readBoolean()) {
+            slot.setSlotInActive();
+        }
+        return slot;
+    }
+
+    /**
+     * Write a collection of slots preceded by its size. A null collection is written as an empty one.
+     *
+     * @param objectDataOutput output to write to
+     * @param slots            slots to write
+     * @throws IOException on an error while writing
+     */
+    public static void writeSlots(ObjectDataOutput objectDataOutput, Collection<Slot> slots) throws IOException {
+        if (null == slots) {
+            objectDataOutput.writeInt(0);
+            return;
+        }
+        objectDataOutput.writeInt(slots.size());
+        for (Slot slot : slots) {
+            writeSlot(objectDataOutput, slot);
+        }
+    }
+
+    /**
+     * Read slots written by {@link #writeSlots(ObjectDataOutput, Collection)}
+     *
+     * @param objectDataInput input to read from
+     * @return slots read
+     * @throws IOException on an error while reading
+     */
+    public static TreeSet<Slot> readSlots(ObjectDataInput objectDataInput) throws IOException {
+        int size = objectDataInput.readInt();
+        TreeSet<Slot> slots = new TreeSet<>();
+        for (int i = 0; i < size; i++) {
+            slots.add(readSlot(objectDataInput));
+        }
+        return slots;
+    }
+}
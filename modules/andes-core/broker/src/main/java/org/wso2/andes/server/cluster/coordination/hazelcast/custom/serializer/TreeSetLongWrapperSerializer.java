@@ -18,7 +18,6 @@
 
 package org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer;
 
-import com.google.gson.*;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.StreamSerializer;
@@ -28,7 +27,8 @@ import java.io.IOException;
 import java.util.TreeSet;
 
 /**
- * This class implements the custom serialization methods for TreeSetLongWrapper objects.
+ * This class implements the custom serialization methods for TreeSetLongWrapper objects. Message IDs are written
+ * as a size prefixed list of longs.
  */
 @SuppressWarnings("unused")
 public class TreeSetLongWrapperSerializer implements StreamSerializer<TreeSetLongWrapper> {
@@ -37,32 +37,38 @@ public class TreeSetLongWrapperSerializer implements StreamSerializer<TreeSetLon
     @Override
     public void write(ObjectDataOutput objectDataOutput, TreeSetLongWrapper treeSetLongWrapper)
             throws IOException {
-        //Convert the TreeSetLongWrapper object to a json string and save it in hazelcast map
-        JsonArray jsonArray = new JsonArray();
-        for (long elem : treeSetLongWrapper.getLongTreeSet()) {
-            JsonPrimitive jsonPrimitive = new JsonPrimitive(elem);
-            jsonArray.add(jsonPrimitive);
+        TreeSet<Long> treeSet = treeSetLongWrapper.getLongTreeSet();
+        if (null == treeSet) {
+            objectDataOutput.writeInt(0);
+            return;
+        }
+        objectDataOutput.writeInt(treeSet.size());
+        for (long elem : treeSet) {
+            objectDataOutput.writeLong(elem);
         }
-        objectDataOutput.writeUTF(jsonArray.toString());
     }
 
     @Override
     public TreeSetLongWrapper read(ObjectDataInput objectDataInput) throws IOException {
-        //Build TreeSetLongWrapper object using json string.
-        String jsonString = objectDataInput.readUTF();
-        JsonArray jsonArray = new JsonParser().parse(jsonString).getAsJsonArray();
+        int size = objectDataInput.readInt();
         TreeSet<Long> treeSet = new TreeSet<Long>();
-        for (JsonElement jsonElement : jsonArray) {
-            treeSet.add(Long.valueOf(jsonElement.toString()));
+        for (int i = 0; i < size; i++) {
+            treeSet.add(objectDataInput.readLong());
         }
         TreeSetLongWrapper wrapper = new TreeSetLongWrapper();
         wrapper.setLongTreeSet(treeSet);
         return wrapper;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Changed from 19900128 when the JSON form was replaced with the binary form, so that nodes using the JSON form
+     * do not read values written in the binary form.
+     */
     @Override
     public int getTypeId() {
-        return 19900128;
+        return 19900131;
     }
 
     @Override
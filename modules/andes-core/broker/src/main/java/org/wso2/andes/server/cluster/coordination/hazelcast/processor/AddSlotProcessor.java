@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.server.cluster.coordination.hazelcast.processor;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import org.wso2.andes.kernel.slot.Slot;
+import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.SlotSerializationUtils;
+import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.HashmapStringTreeSetWrapper;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Add a slot to the slots of a queue assigned to a node, replacing any equal slot already in the map.
+ */
+public class AddSlotProcessor extends SlotMapEntryProcessor<HashmapStringTreeSetWrapper> {
+
+    private String queueName;
+
+    private Slot slot;
+
+    /**
+     * Used by Hazelcast when de-serializing the processor
+     */
+    public AddSlotProcessor() {
+    }
+
+    /**
+     * @param queueName storage queue of the slot
+     * @param slot      slot to add
+     */
+    public AddSlotProcessor(String queueName, Slot slot) {
+        this.queueName = queueName;
+        this.slot = slot;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object process(Map.Entry<String, HashmapStringTreeSetWrapper> entry) {
+        HashmapStringTreeSetWrapper wrapper = entry.getValue();
+        if (null == wrapper) {
+            wrapper = new HashmapStringTreeSetWrapper();
+        }
+        HashMap<String, TreeSet<Slot>> queueToSlotMap = wrapper.getStringListHashMap();
+        if (null == queueToSlotMap) {
+            queueToSlotMap = new HashMap<>();
+            wrapper.setStringListHashMap(queueToSlotMap);
+        }
+        TreeSet<Slot> currentSlotList = queueToSlotMap.get(queueName);
+        if (null == currentSlotList) {
+            currentSlotList = new TreeSet<>();
+            queueToSlotMap.put(queueName, currentSlotList);
+        }
+        currentSlotList.remove(slot);
+        currentSlotList.add(slot);
+        entry.setValue(wrapper);
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void writeFields(ObjectDataOutput objectDataOutput) throws IOException {
+        objectDataOutput.writeUTF(queueName);
+        SlotSerializationUtils.writeSlot(objectDataOutput, slot);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void readFields(ObjectDataInput objectDataInput) throws IOException {
+        queueName = objectDataInput.readUTF();
+        slot = SlotSerializationUtils.readSlot(objectDataInput);
+    }
+}
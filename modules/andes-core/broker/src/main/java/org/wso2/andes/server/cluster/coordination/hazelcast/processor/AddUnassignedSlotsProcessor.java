@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.server.cluster.coordination.hazelcast.processor;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import org.wso2.andes.kernel.slot.Slot;
+import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.SlotSerializationUtils;
+import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.TreeSetSlotWrapper;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Add slots to the unassigned slots of a queue.
+ */
+public class AddUnassignedSlotsProcessor extends SlotMapEntryProcessor<TreeSetSlotWrapper> {
+
+    private Collection<Slot> slots;
+
+    /**
+     * Used by Hazelcast when de-serializing the processor
+     */
+    public AddUnassignedSlotsProcessor() {
+    }
+
+    /**
+     * @param slots slots to add
+     */
+    public AddUnassignedSlotsProcessor(Collection<Slot> slots) {
+        this.slots = slots;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object process(Map.Entry<String, TreeSetSlotWrapper> entry) {
+        TreeSetSlotWrapper wrapper = entry.getValue();
+        if (null == wrapper) {
+            wrapper = new TreeSetSlotWrapper();
+        }
+        TreeSet<Slot> unAssignedSlotSet = wrapper.getSlotTreeSet();
+        if (null == unAssignedSlotSet) {
+            unAssignedSlotSet = new TreeSet<>();
+            wrapper.setSlotTreeSet(unAssignedSlotSet);
+        }
+        unAssignedSlotSet.addAll(slots);
+        entry.setValue(wrapper);
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void writeFields(ObjectDataOutput objectDataOutput) throws IOException {
+        SlotSerializationUtils.writeSlots(objectDataOutput, slots);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void readFields(ObjectDataInput objectDataInput) throws IOException {
+        slots = SlotSerializationUtils.readSlots(objectDataInput);
+    }
+}
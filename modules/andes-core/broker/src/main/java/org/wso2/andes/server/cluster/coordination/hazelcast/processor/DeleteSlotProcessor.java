@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.server.cluster.coordination.hazelcast.processor;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import org.wso2.andes.kernel.slot.Slot;
+import org.wso2.andes.kernel.slot.SlotState;
+import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.HashmapStringTreeSetWrapper;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Mark a slot assigned to a node as deleted and remove it. Returns true if the slot is removed or does not exist
+ * in the slots of the queue, false if the slot could not be moved to the deleted state or the node has no slots for
+ * the queue.
+ */
+public class DeleteSlotProcessor extends SlotMapEntryProcessor<HashmapStringTreeSetWrapper> {
+
+    private String queueName;
+
+    private long startMessageId;
+
+    /**
+     * Used by Hazelcast when de-serializing the processor
+     */
+    public DeleteSlotProcessor() {
+    }
+
+    /**
+     * @param queueName      storage queue of the slot
+     * @param startMessageId start message ID of the slot
+     */
+    public DeleteSlotProcessor(String queueName, long startMessageId) {
+        this.queueName = queueName;
+        this.startMessageId = startMessageId;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object process(Map.Entry<String, HashmapStringTreeSetWrapper> entry) {
+        HashmapStringTreeSetWrapper wrapper = entry.getValue();
+        if (null == wrapper || null == wrapper.getStringListHashMap()) {
+            return false;
+        }
+        HashMap<String, TreeSet<Slot>> queueToSlotMap = wrapper.getStringListHashMap();
+        TreeSet<Slot> currentSlotList = queueToSlotMap.get(queueName);
+        if (null == currentSlotList) {
+            return false;
+        }
+
+        Slot matchingSlot = null;
+        for (Slot slot : currentSlotList) {
+            if (slot.getStartMessageId() == startMessageId) {
+                matchingSlot = slot;
+            }
+        }
+
+        if (null == matchingSlot) {
+            // We can say slot deleted since the slot does not exist
+            return true;
+        }
+
+        boolean slotDeleted = false;
+        if (matchingSlot.addState(SlotState.DELETED)) {
+            currentSlotList.remove(matchingSlot);
+            entry.setValue(wrapper);
+            slotDeleted = true;
+        }
+        return slotDeleted;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void writeFields(ObjectDataOutput objectDataOutput) throws IOException {
+        objectDataOutput.writeUTF(queueName);
+        objectDataOutput.writeLong(startMessageId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void readFields(ObjectDataInput objectDataInput) throws IOException {
+        queueName = objectDataInput.readUTF();
+        startMessageId = objectDataInput.readLong();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.server.cluster.coordination.hazelcast.processor;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.TreeSetLongWrapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Remove the smallest message ID of a queue. Returns the removed message ID, or null if the queue has no message
+ * IDs.
+ */
+public class PollMessageIdProcessor extends SlotMapEntryProcessor<TreeSetLongWrapper> {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object process(Map.Entry<String, TreeSetLongWrapper> entry) {
+        TreeSetLongWrapper wrapper = entry.getValue();
+        if (null == wrapper) {
+            return null;
+        }
+        TreeSet<Long> messageIdSet = wrapper.getLongTreeSet();
+        if (null == messageIdSet || messageIdSet.isEmpty()) {
+            return null;
+        }
+        Long messageId = messageIdSet.pollFirst();
+        entry.setValue(wrapper);
+        return messageId;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void writeFields(ObjectDataOutput objectDataOutput) throws IOException {
+        // No state to write
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void readFields(ObjectDataInput objectDataInput) throws IOException {
+        // No state to read
+    }
+}
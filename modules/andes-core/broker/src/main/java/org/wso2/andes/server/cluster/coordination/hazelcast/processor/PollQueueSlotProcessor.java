@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.server.cluster.coordination.hazelcast.processor;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import org.wso2.andes.kernel.slot.Slot;
+import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.HashmapStringTreeSetWrapper;
+import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.TreeSetSlotWrapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Get and remove the first slot of a queue from the slots of a node. Returns the slot wrapped in a
+ * {@link TreeSetSlotWrapper}, or null if the node has no slots for the queue.
+ */
+public class PollQueueSlotProcessor extends SlotMapEntryProcessor<HashmapStringTreeSetWrapper> {
+
+    private String queueName;
+
+    /**
+     * Used by Hazelcast when de-serializing the processor
+     */
+    public PollQueueSlotProcessor() {
+    }
+
+    /**
+     * @param queueName storage queue to get the slot of
+     */
+    public PollQueueSlotProcessor(String queueName) {
+        this.queueName = queueName;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object process(Map.Entry<String, HashmapStringTreeSetWrapper> entry) {
+        HashmapStringTreeSetWrapper wrapper = entry.getValue();
+        if (null == wrapper || null == wrapper.getStringListHashMap()) {
+            return null;
+        }
+        TreeSet<Slot> currentSlotList = wrapper.getStringListHashMap().get(queueName);
+        if (null == currentSlotList || currentSlotList.isEmpty()) {
+            return null;
+        }
+        Slot slot = currentSlotList.pollFirst();
+        entry.setValue(wrapper);
+
+        TreeSetSlotWrapper slotWrapper = new TreeSetSlotWrapper();
+        slotWrapper.getSlotTreeSet().add(slot);
+        return slotWrapper;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void writeFields(ObjectDataOutput objectDataOutput) throws IOException {
+        objectDataOutput.writeUTF(queueName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void readFields(ObjectDataInput objectDataInput) throws IOException {
+        queueName = objectDataInput.readUTF();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.server.cluster.coordination.hazelcast.processor;
+
+import com.hazelcast.map.EntryBackupProcessor;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Base class of the entry processors used to update the slot maps. Slot maps hold the slots of all queues of a node
+ * or all slots of a queue in a single value. Updating the value with an entry processor on the partition owner
+ * avoids transferring the whole value to the coordinator and back for every change. Only the change itself is
+ * transferred, serialized with {@link DataSerializable}.
+ * <p/>
+ * The same processor is applied on the backup entries. Hence {@link #process(Map.Entry)} of subclasses should
+ * depend only on the entry and the processor fields.
+ * <p/>
+ * The serialized form starts with {@link #SERIALIZATION_VERSION}. A processor written by a node using a different
+ * format is rejected instead of being read into wrong fields.
+ *
+ * @param <V> type of the map value
+ */
+public abstract class SlotMapEntryProcessor<V> implements EntryProcessor<String, V>, EntryBackupProcessor<String, V>,
+        DataSerializable {
+
+    /**
+     * Version of the serialized form of the processors. Increment when the fields written by any processor change.
+     */
+    static final byte SERIALIZATION_VERSION = 1;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EntryBackupProcessor<String, V> getBackupProcessor() {
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void processBackup(Map.Entry<String, V> entry) {
+        process(entry);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void writeData(ObjectDataOutput objectDataOutput) throws IOException {
+        objectDataOutput.writeByte(SERIALIZATION_VERSION);
+        writeFields(objectDataOutput);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void readData(ObjectDataInput objectDataInput) throws IOException {
+        byte version = objectDataInput.readByte();
+        if (SERIALIZATION_VERSION != version) {
+            throw new IOException("Unsupported serialization version " + version + " for "
+                    + getClass().getSimpleName() + ". Expected version " + SERIALIZATION_VERSION);
+        }
+        readFields(objectDataInput);
+    }
+
+    /**
+     * Write the fields of the processor
+     *
+     * @param objectDataOutput output to write to
+     * @throws IOException on an error while writing
+     */
+    protected abstract void writeFields(ObjectDataOutput objectDataOutput) throws IOException;
+
+    /**
+     * Read the fields written by {@link #writeFields(ObjectDataOutput)}
+     *
+     * @param objectDataInput input to read from
+     * @throws IOException on an error while reading
+     */
+    protected abstract void readFields(ObjectDataInput objectDataInput) throws IOException;
+}
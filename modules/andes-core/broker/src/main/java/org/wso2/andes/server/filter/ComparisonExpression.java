@@ -552,7 +552,7 @@ public abstract class ComparisonExpression extends BinaryExpression implements B
         return (object != null) && (object == Boolean.TRUE);
     }
 
-    private static class EqualExpression extends ComparisonExpression
+    static class EqualExpression extends ComparisonExpression
     {
         public EqualExpression(final Expression left, final Expression right)
         {
@@ -31,4 +31,10 @@ public interface FilterManager
     boolean allAllow(Filterable  msg);
 
     boolean hasFilters();
+
+    /**
+     * @return property equality equivalent to all the filters or null if the filters cannot be expressed as a
+     * single property equality
+     */
+    PropertyEqualityPredicate getEqualityPredicate();
 }
@@ -30,11 +30,13 @@ public class JMSSelectorFilter implements MessageFilter
 
     private String _selector;
     private BooleanExpression _matcher;
+    private PropertyEqualityPredicate _equalityPredicate;
 
     public JMSSelectorFilter(String selector) throws AMQInvalidArgumentException
     {
         _selector = selector;
         _matcher = new SelectorParser().parse(selector);
+        _equalityPredicate = PropertyEqualityPredicate.fromExpression(_matcher);
     }
 
     public boolean matches(Filterable message)
@@ -52,6 +54,14 @@ public class JMSSelectorFilter implements MessageFilter
         return _selector;
     }
 
+    /**
+     * @return property equality equivalent to the selector or null if the selector is not a simple property equality
+     */
+    public PropertyEqualityPredicate getEqualityPredicate()
+    {
+        return _equalityPredicate;
+    }
+
     @Override
     public String toString()
     {
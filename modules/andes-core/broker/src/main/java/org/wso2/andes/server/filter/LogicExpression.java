@@ -56,7 +56,7 @@ public abstract class LogicExpression extends BinaryExpression implements Boolea
         return (object != null) && (object == Boolean.TRUE);
     }
 
-    private static class OrExpression extends LogicExpression
+    static class OrExpression extends LogicExpression
     {
         public OrExpression(final BooleanExpression lvalue, final BooleanExpression rvalue)
         {
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.andes.server.filter;
+
+import org.wso2.andes.server.queue.Filterable;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A selector which only accepts messages having a string property equal to one of a set of values. i.e.
+ * <code>region = 'EU'</code>, <code>region IN ('EU', 'US')</code> or an OR of such expressions on the same property.
+ * Such selectors can be indexed by the property values instead of being evaluated for each message.
+ */
+public class PropertyEqualityPredicate
+{
+    private final PropertyExpression _property;
+
+    private final Set<String> _values;
+
+    private PropertyEqualityPredicate(PropertyExpression property, Set<String> values)
+    {
+        _property = property;
+        _values = Collections.unmodifiableSet(values);
+    }
+
+    /**
+     * Create the predicate equivalent to a selector expression
+     *
+     * @param expression parsed selector
+     * @return equivalent predicate or null if the expression is not a property equality
+     */
+    static PropertyEqualityPredicate fromExpression(BooleanExpression expression)
+    {
+        if (expression instanceof ComparisonExpression.EqualExpression)
+        {
+            ComparisonExpression.EqualExpression equalExpression = (ComparisonExpression.EqualExpression) expression;
+            PropertyEqualityPredicate predicate = fromOperands(equalExpression.getLeft(), equalExpression.getRight());
+            if (predicate == null)
+            {
+                predicate = fromOperands(equalExpression.getRight(), equalExpression.getLeft());
+            }
+            return predicate;
+        }
+        else if (expression instanceof UnaryExpression.InExpression)
+        {
+            UnaryExpression.InExpression inExpression = (UnaryExpression.InExpression) expression;
+            if (inExpression.isNot() || inExpression.getInList() == null
+                || !(inExpression.getRight() instanceof PropertyExpression))
+            {
+                return null;
+            }
+            Set<String> values = new HashSet<String>();
+            for (Object element : inExpression.getInList())
+            {
+                if (!(element instanceof String))
+                {
+                    return null;
+                }
+                values.add((String) element);
+            }
+            return new PropertyEqualityPredicate((PropertyExpression) inExpression.getRight(), values);
+        }
+        else if (expression instanceof LogicExpression.OrExpression)
+        {
+            LogicExpression.OrExpression orExpression = (LogicExpression.OrExpression) expression;
+            if (!(orExpression.getLeft() instanceof BooleanExpression)
+                || !(orExpression.getRight() instanceof BooleanExpression))
+            {
+                return null;
+            }
+            PropertyEqualityPredicate left = fromExpression((BooleanExpression) orExpression.getLeft());
+            PropertyEqualityPredicate right = fromExpression((BooleanExpression) orExpression.getRight());
+            if (left == null || right == null || !left._property.equals(right._property))
+            {
+                return null;
+            }
+            Set<String> values = new HashSet<String>(left._values);
+            values.addAll(right._values);
+            return new PropertyEqualityPredicate(left._property, values);
+        }
+        return null;
+    }
+
+    /**
+     * Equality of a property with a string constant. Only string constants are indexed since an equality with a
+     * numeric constant also matches numeric properties of other types.
+     */
+    private static PropertyEqualityPredicate fromOperands(Expression property, Expression constant)
+    {
+        if ((property instanceof PropertyExpression) && (constant instanceof ConstantExpression)
+            && (((ConstantExpression) constant).getValue() instanceof String))
+        {
+            Set<String> values = new HashSet<String>();
+            values.add((String) ((ConstantExpression) constant).getValue());
+            return new PropertyEqualityPredicate((PropertyExpression) property, values);
+        }
+        return null;
+    }
+
+    /**
+     * @return name of the property compared by the selector
+     */
+    public String getPropertyName()
+    {
+        return _property.getName();
+    }
+
+    /**
+     * @return property values accepted by the selector
+     */
+    public Set<String> getValues()
+    {
+        return _values;
+    }
+
+    /**
+     * Read the property compared by the selector from a message
+     *
+     * @param message message to read
+     * @return string value of the property or null if the message does not have a string value for the property
+     */
+    public String getPropertyValue(Filterable message)
+    {
+        Object value = _property.evaluate(message);
+        return (value instanceof String) ? (String) value : null;
+    }
+}
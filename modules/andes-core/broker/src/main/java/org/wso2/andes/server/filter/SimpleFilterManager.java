@@ -64,6 +64,20 @@ public class SimpleFilterManager implements FilterManager
         return !_filters.isEmpty();
     }
 
+    public PropertyEqualityPredicate getEqualityPredicate()
+    {
+        PropertyEqualityPredicate predicate = null;
+        for (MessageFilter filter : _filters)
+        {
+            if (predicate != null || !(filter instanceof JMSSelectorFilter))
+            {
+                return null;
+            }
+            predicate = ((JMSSelectorFilter) filter).getEqualityPredicate();
+        }
+        return predicate;
+    }
+
 
     @Override
     public String toString()
@@ -222,7 +222,7 @@ public abstract class UnaryExpression implements Expression
         }
     }
 
-    private static class InExpression extends BooleanUnaryExpression
+    static class InExpression extends BooleanUnaryExpression
     {
         private final Collection _inList;
         private final boolean _not;
@@ -234,6 +234,16 @@ public abstract class UnaryExpression implements Expression
             _not = not;
         }
 
+        Collection getInList()
+        {
+            return _inList;
+        }
+
+        boolean isNot()
+        {
+            return _not;
+        }
+
         public Object evaluate(Filterable message)
         {
 
@@ -34,12 +34,9 @@ import org.wso2.andes.kernel.Andes;
 import org.wso2.andes.kernel.AndesChannel;
 import org.wso2.andes.kernel.AndesContext;
 import org.wso2.andes.kernel.AndesException;
-import org.wso2.andes.kernel.AndesMessage;
 import org.wso2.andes.kernel.AndesMessageMetadata;
-import org.wso2.andes.kernel.AndesMessagePart;
 import org.wso2.andes.kernel.AndesUtils;
 import org.wso2.andes.kernel.DestinationType;
-import org.wso2.andes.kernel.DisablePubAckImpl;
 import org.wso2.andes.kernel.FlowControlListener;
 import org.wso2.andes.kernel.ProtocolType;
 import org.wso2.andes.kernel.disruptor.inbound.InboundQueueEvent;
@@ -72,7 +69,7 @@ import javax.management.openmbean.SimpleType;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -102,10 +99,9 @@ public class QueueManagementInformationMBean extends AMQManagedObject implements
     private static OpenType[] _msgContentAttributeTypes = new OpenType[8];
 
     /**
-     * Publisher Acknowledgements are disabled for this MBean
-     * hence using DisablePubAckImpl to drop any pub ack request by Andes
+     * Number of messages moved from the Dead Letter Queue in a single store operation
      */
-    private final DisablePubAckImpl disablePubAck;
+    private final int dlcRestoreBatchSize;
 
     /**
      * The message restore flowcontrol blocking state.
@@ -187,7 +183,8 @@ public class QueueManagementInformationMBean extends AMQManagedObject implements
         VirtualHost virtualHost = vHostMBean.getVirtualHost();
 
         queueRegistry = virtualHost.getQueueRegistry();
-        disablePubAck = new DisablePubAckImpl();
+        dlcRestoreBatchSize = AndesConfigurationManager.readValue(
+                AndesConfiguration.MANAGEMENT_CONSOLE_DLC_RESTORE_BATCH_SIZE);
 
         _msgContentAttributeTypes[0] = SimpleType.STRING; // For message properties
         _msgContentAttributeTypes[1] = SimpleType.STRING; // For content type
@@ -335,54 +332,7 @@ public class QueueManagementInformationMBean extends AMQManagedObject implements
             description = "The Dead Letter Queue Name for the selected tenant") String destinationQueueName) {
 
         if (null != andesMetadataIDs) {
-            List<Long> andesMessageIdList = new ArrayList<>(andesMetadataIDs.length);
-            Collections.addAll(andesMessageIdList, ArrayUtils.toObject(andesMetadataIDs));
-            List<AndesMessageMetadata> messagesToRemove = new ArrayList<>(andesMessageIdList.size());
-
-            try {
-                Map<Long, List<AndesMessagePart>> messageContent = Andes.getInstance().getContent(andesMessageIdList);
-
-                boolean interruptedByFlowControl = false;
-
-                for (Long messageId : andesMessageIdList) {
-                    if (restoreBlockedByFlowControl) {
-                        interruptedByFlowControl = true;
-                        break;
-                    }
-                    AndesMessageMetadata metadata = Andes.getInstance().getMessageMetaData(messageId);
-                    String destination = metadata.getDestination();
-
-                    metadata.setStorageQueueName(AndesUtils.getStorageQueueForDestination(destination,
-                            ClusterResourceHolder.getInstance().getClusterManager().getMyNodeID(),
-                            DestinationType.QUEUE));
-
-                    messagesToRemove.add(metadata);
-
-                    AndesMessageMetadata clonedMetadata = metadata.shallowCopy(metadata.getMessageID());
-                    AndesMessage andesMessage = new AndesMessage(clonedMetadata);
-
-                    // Update Andes message with all the chunk details
-                    List<AndesMessagePart> messageParts = messageContent.get(messageId);
-                    for (AndesMessagePart messagePart : messageParts) {
-                        andesMessage.addMessagePart(messagePart);
-                    }
-
-                    // Handover message to Andes. This will generate a new message ID and store it
-                    Andes.getInstance().messageReceived(andesMessage, andesChannel, disablePubAck);
-                }
-
-                // Delete old messages
-                Andes.getInstance().deleteMessagesFromDLC(messagesToRemove);
-
-                if (interruptedByFlowControl) {
-                    // Throw this out so UI will show this to the user as an error message.
-                    throw new RuntimeException("Message restore from dead letter queue has been interrupted by flow "
-                            + "control. Please try again later.");
-                }
-
-            } catch (AndesException e) {
-                throw new RuntimeException("Error restoring messages from " + destinationQueueName, e);
-            }
+            restoreMessagesFromDLC(andesMetadataIDs, null, destinationQueueName);
         }
 
     }
@@ -403,58 +353,64 @@ public class QueueManagementInformationMBean extends AMQManagedObject implements
                                                    @MBeanOperationParameter(name = "destinationQueueName",
             description = "The Dead Letter Queue Name for the selected tenant") String destinationQueueName) {
         if (null != andesMetadataIDs) {
+            restoreMessagesFromDLC(andesMetadataIDs, newDestinationQueueName, destinationQueueName);
+        }
+    }
 
-            List<Long> andesMessageIdList = new ArrayList<>(andesMetadataIDs.length);
-            Collections.addAll(andesMessageIdList, ArrayUtils.toObject(andesMetadataIDs));
-            List<AndesMessageMetadata> messagesToRemove = new ArrayList<>(andesMessageIdList.size());
-
-            try {
-                Map<Long, List<AndesMessagePart>> messageContent = Andes.getInstance().getContent(andesMessageIdList);
-
-                boolean interruptedByFlowControl = false;
-
-                for (Long messageId : andesMessageIdList) {
-                    if (restoreBlockedByFlowControl) {
-                        interruptedByFlowControl = true;
-                        break;
-                    }
-
-                    AndesMessageMetadata metadata = Andes.getInstance().getMessageMetaData(messageId);
+    /**
+     * Restore the given messages from the Dead Letter Queue in batches. Metadata of each batch of the given message
+     * Ids is read by Id and moved within the message store, hence neither the other messages in the Dead Letter Queue
+     * nor the message content is read. Message Ids which are not in the Dead Letter Queue are ignored.
+     *
+     * @param andesMetadataIDs        The browser message Ids
+     * @param newDestinationQueueName The new destination or null to restore the messages to their own destination
+     * @param deadLetterQueueName     The Dead Letter Queue Name for the tenant
+     */
+    private void restoreMessagesFromDLC(long[] andesMetadataIDs, String newDestinationQueueName,
+                                        String deadLetterQueueName) {
 
-                    // Set the new destination queue
-                    metadata.setDestination(newDestinationQueueName);
-                    metadata.setStorageQueueName(AndesUtils.getStorageQueueForDestination(newDestinationQueueName,
-                            ClusterResourceHolder.getInstance().getClusterManager().getMyNodeID(),
-                            DestinationType.QUEUE));
+        long[] sortedMessageIds = andesMetadataIDs.clone();
+        Arrays.sort(sortedMessageIds);
+        String nodeId = ClusterResourceHolder.getInstance().getClusterManager().getMyNodeID();
 
-                    metadata.updateMetadata(newDestinationQueueName, AMQPUtils.DIRECT_EXCHANGE_NAME);
-                    AndesMessageMetadata clonedMetadata = metadata.shallowCopy(metadata.getMessageID());
-                    AndesMessage andesMessage = new AndesMessage(clonedMetadata);
+        int index = 0;
 
-                    messagesToRemove.add(metadata);
+        try {
+            while (index < sortedMessageIds.length) {
+                if (restoreBlockedByFlowControl) {
+                    // Throw this out so UI will show this to the user as an error message.
+                    throw new RuntimeException("Message restore from dead letter queue has been interrupted by flow "
+                                               + "control. Please try again later.");
+                }
 
-                    // Update Andes message with all the chunk details
-                    List<AndesMessagePart> messageParts = messageContent.get(messageId);
-                    for (AndesMessagePart messagePart : messageParts) {
-                        andesMessage.addMessagePart(messagePart);
+                List<Long> batch = new ArrayList<>(dlcRestoreBatchSize);
+                while ((index < sortedMessageIds.length) && (batch.size() < dlcRestoreBatchSize)) {
+                    // Skip an Id selected more than once
+                    if (batch.isEmpty() || (batch.get(batch.size() - 1) != sortedMessageIds[index])) {
+                        batch.add(sortedMessageIds[index]);
                     }
-
-                    // Handover message to Andes. This will generate a new message ID and store it
-                    Andes.getInstance().messageReceived(andesMessage, andesChannel, disablePubAck);
+                    index++;
                 }
 
-                // Delete old messages
-                Andes.getInstance().deleteMessagesFromDLC(messagesToRemove);
+                List<AndesMessageMetadata> messagesToRestore = Andes.getInstance()
+                        .getMessageMetadataFromDLC(deadLetterQueueName, batch);
 
-                if (interruptedByFlowControl) {
-                    // Throw this out so UI will show this to the user as an error message.
-                    throw new RuntimeException("Message restore from dead letter queue has been interrupted by flow " +
-                                               "control. Please try again later.");
+                for (AndesMessageMetadata metadata : messagesToRestore) {
+                    if (null != newDestinationQueueName) {
+                        // Set the new destination queue
+                        metadata.setDestination(newDestinationQueueName);
+                        metadata.updateMetadata(newDestinationQueueName, AMQPUtils.DIRECT_EXCHANGE_NAME);
+                    }
+                    metadata.setStorageQueueName(AndesUtils.getStorageQueueForDestination(
+                            metadata.getDestination(), nodeId, DestinationType.QUEUE));
                 }
 
-            } catch (AndesException e) {
-                throw new RuntimeException("Error restoring messages from " + destinationQueueName, e);
+                if (!messagesToRestore.isEmpty()) {
+                    Andes.getInstance().restoreMessagesFromDLC(messagesToRestore);
+                }
             }
+        } catch (AndesException e) {
+            throw new RuntimeException("Error restoring messages from " + deadLetterQueueName, e);
         }
     }
 
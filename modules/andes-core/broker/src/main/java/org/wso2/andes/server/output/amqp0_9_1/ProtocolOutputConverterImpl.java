@@ -23,7 +23,6 @@ import org.apache.mina.common.ByteBuffer;
 import org.wso2.andes.AMQException;
 import org.wso2.andes.framing.*;
 import org.wso2.andes.framing.abstraction.MessagePublishInfo;
-import org.wso2.andes.framing.abstraction.ProtocolVersionMethodConverter;
 import org.wso2.andes.framing.amqp_0_91.BasicGetBodyImpl;
 import org.wso2.andes.protocol.AMQConstant;
 import org.wso2.andes.protocol.AMQVersionAwareProtocolSession;
@@ -39,8 +38,11 @@ import org.wso2.andes.transport.DeliveryProperties;
 public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
 {
     private static final MethodRegistry METHOD_REGISTRY = MethodRegistry.getMethodRegistry(ProtocolVersion.v0_91);
-    private static final ProtocolVersionMethodConverter
-            PROTOCOL_CONVERTER = METHOD_REGISTRY.getProtocolVersionMethodConverter();
+    /**
+     * Upper bound in bytes of the content frames gathered into a single block written to the session. A block
+     * holds at least one content frame.
+     */
+    private static final int MAX_GATHERED_BLOCK_SIZE = 1024 * 1024;
 
 
     public static Factory getInstanceFactory()
@@ -115,43 +117,48 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
         }
         else
         {
-             /**
-             * We used to synchronize the following block, but it is not needed. Skipping that.
-             * Leaving the comment so that we know it is removed. 
+            /**
+             * Content frames are encoded straight from the message content into the outbound buffer of the
+             * session. Consecutive frames are gathered into a single block, so that a delivery needs one buffer
+             * and one write for up to MAX_GATHERED_BLOCK_SIZE bytes instead of a content buffer and a frame
+             * buffer per content frame.
              */
-                int maxBodySize = (int) getProtocolSession().getMaxFrameSize() - AMQFrame.getFrameOverhead();
-
-
-                final int capacity = bodySize > maxBodySize ? maxBodySize : bodySize;
-                java.nio.ByteBuffer buf = java.nio.ByteBuffer.allocate(capacity);
+            int maxBodySize = (int) getProtocolSession().getMaxFrameSize() - AMQFrame.getFrameOverhead();
+            int framesPerBlock = Math.max(1, MAX_GATHERED_BLOCK_SIZE / (maxBodySize + AMQFrame.getFrameOverhead()));
+            int frameCount = (bodySize + maxBodySize - 1) / maxBodySize;
 
+            try
+            {
                 int writtenSize = 0;
+                int writtenFrames = 0;
 
-
-                writtenSize += message.getContent(buf, writtenSize);
-                buf.flip();
-                AMQBody firstContentBody = PROTOCOL_CONVERTER.convertToBody(buf);
-
-                CompositeAMQBodyBlock
-                        compositeBlock = new CompositeAMQBodyBlock(channelId, deliverBody, contentHeaderBody, firstContentBody);
-                writeFrame(compositeBlock);
-                while(writtenSize < bodySize)
+                while(writtenFrames < frameCount)
                 {
-
-                    buf = java.nio.ByteBuffer.allocate(capacity);
-                    int oldWrittenSize = writtenSize;
-                    writtenSize += message.getContent(buf, writtenSize);
-
-                    if( writtenSize <= oldWrittenSize && writtenSize < bodySize) {
-                        throw new AMQException(AMQConstant.MESSAGE_CONTENT_OBSOLETE, "Unexpected Error while getting message content : " +
-                                "This might leads to an infinite loop so exiting the loop forcefully. " +
-                                "writtenSize= " + writtenSize + " oldWrittenSize= " + oldWrittenSize + " bodySize= " + bodySize +
-                        " Thus writtenSize <= oldWrittenSize && writtenSize < bodySize evaluates to TRUE");
+                    int blockFrames = Math.min(framesPerBlock, frameCount - writtenFrames);
+                    boolean firstBlock = (writtenFrames == 0);
+                    AMQBody[] bodies = new AMQBody[firstBlock ? blockFrames + 2 : blockFrames];
+
+                    int index = 0;
+                    if(firstBlock)
+                    {
+                        bodies[index++] = deliverBody;
+                        bodies[index++] = contentHeaderBody;
+                    }
+                    for(int i = 0; i < blockFrames; i++)
+                    {
+                        int length = Math.min(maxBodySize, bodySize - writtenSize);
+                        bodies[index++] = new MessageContentBody(message, writtenSize, length);
+                        writtenSize += length;
                     }
-                    buf.flip();
-                    writeFrame(new AMQFrame(channelId, PROTOCOL_CONVERTER.convertToBody(buf)));
 
-                
+                    writeFrame(new GatheredAMQBodyBlock(channelId, bodies));
+                    writtenFrames += blockFrames;
+                }
+            }
+            catch(ContentNotAvailableException e)
+            {
+                throw new AMQException(AMQConstant.MESSAGE_CONTENT_OBSOLETE,
+                                       "Unexpected Error while getting message content : " + e.getMessage(), e);
             }
         }
     }
@@ -362,6 +369,102 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
         }
     }
 
+    /**
+     * Block of consecutive frames of a channel encoded into a single buffer.
+     */
+    public static final class GatheredAMQBodyBlock extends AMQDataBlock
+    {
+        private final AMQBody[] _bodies;
+        private final int _channel;
+
+        public GatheredAMQBodyBlock(int channel, AMQBody[] bodies)
+        {
+            _channel = channel;
+            _bodies = bodies;
+        }
+
+        public long getSize()
+        {
+            long size = (long) _bodies.length * AMQFrame.getFrameOverhead();
+            for(AMQBody body : _bodies)
+            {
+                size += body.getSize();
+            }
+            return size;
+        }
+
+        public void writePayload(ByteBuffer buffer)
+        {
+            for(AMQBody body : _bodies)
+            {
+                buffer.put(body.getFrameType());
+                EncodingUtils.writeUnsignedShort(buffer, _channel);
+                EncodingUtils.writeUnsignedInteger(buffer, body.getSize());
+                body.writePayload(buffer);
+                buffer.put(AMQFrame.FRAME_END_BYTE);
+            }
+        }
+    }
+
+    /**
+     * Content body which reads its part of the message content directly into the buffer the frame is encoded to.
+     */
+    private static final class MessageContentBody implements AMQBody
+    {
+        private final MessageContentSource _message;
+        private final int _offset;
+        private final int _length;
+
+        private MessageContentBody(MessageContentSource message, int offset, int length)
+        {
+            _message = message;
+            _offset = offset;
+            _length = length;
+        }
+
+        public byte getFrameType()
+        {
+            return ContentBody.TYPE;
+        }
+
+        public int getSize()
+        {
+            return _length;
+        }
+
+        public void writePayload(ByteBuffer buffer)
+        {
+            java.nio.ByteBuffer frameContent = buffer.buf().duplicate();
+            frameContent.limit(frameContent.position() + _length);
+
+            int written = _message.getContent(frameContent, _offset);
+            if(written != _length)
+            {
+                throw new ContentNotAvailableException("offset= " + _offset + " expected= " + _length
+                                                       + " written= " + written);
+            }
+            buffer.position(buffer.position() + written);
+        }
+
+        public void handle(final int channelId, final AMQVersionAwareProtocolSession amqMinaProtocolSession)
+            throws AMQException
+        {
+            throw new AMQException("This block should never be dispatched!");
+        }
+    }
+
+    /**
+     * Thrown while encoding a content frame if the message content can not be read completely. The frame size is
+     * already written at that point, hence the block must not be sent.
+     */
+    private static final class ContentNotAvailableException extends RuntimeException
+    {
+        private ContentNotAvailableException(String message)
+        {
+            super(message);
+        }
+    }
+
     public static final class SmallCompositeAMQBodyBlock extends AMQDataBlock
     {
         public static final int OVERHEAD = 2 * AMQFrame.getFrameOverhead();
@@ -157,6 +157,7 @@ public class AMQProtocolEngine implements ProtocolEngine, Managable, AMQProtocol
     private long _lastIoTime;
 
     private long _writtenBytes;
+    private final AtomicLong _pendingWriteBytes = new AtomicLong();
     private long _readBytes;
 
     private Job _readJob;
@@ -495,13 +496,22 @@ public class AMQProtocolEngine implements ProtocolEngine, Managable, AMQProtocol
     {
         _lastSent = frame;
         final ByteBuffer buf = frame.toNioByteBuffer();
+        final int size = buf.remaining();
         _lastIoTime = System.currentTimeMillis();
-        _writtenBytes += buf.remaining();
+        _writtenBytes += size;
+        _pendingWriteBytes.addAndGet(size);
         Job.fireAsynchEvent(_poolReference.getPool(), _writeJob, new Runnable()
         {
             public void run()
             {
-                _sender.send(buf);
+                try
+                {
+                    _sender.send(buf);
+                }
+                finally
+                {
+                    _pendingWriteBytes.addAndGet(-size);
+                }
             }
         });
     }
@@ -1083,6 +1093,11 @@ public class AMQProtocolEngine implements ProtocolEngine, Managable, AMQProtocol
         return _writtenBytes;
     }
 
+    public long getPendingWriteBytes()
+    {
+        return _pendingWriteBytes.get();
+    }
+
     public long getLastIoTime()
     {
         return _lastIoTime;
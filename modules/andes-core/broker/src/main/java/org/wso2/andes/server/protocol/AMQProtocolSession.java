@@ -217,6 +217,13 @@ public interface AMQProtocolSession extends AMQVersionAwareProtocolSession, Auth
 
     long getWrittenBytes();
 
+    /**
+     * Get the number of bytes of the frames written to the session which are still waiting to be sent to the network
+     *
+     * @return number of bytes waiting to be sent
+     */
+    long getPendingWriteBytes();
+
     Long getMaximumNumberOfChannels();
 
     void setMaximumNumberOfChannels(Long value);
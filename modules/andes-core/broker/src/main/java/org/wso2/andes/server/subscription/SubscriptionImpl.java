@@ -37,6 +37,7 @@ import org.wso2.andes.protocol.AMQConstant;
 import org.wso2.andes.server.AMQChannel;
 import org.wso2.andes.server.filter.FilterManager;
 import org.wso2.andes.server.filter.FilterManagerFactory;
+import org.wso2.andes.server.filter.PropertyEqualityPredicate;
 import org.wso2.andes.server.flow.FlowCreditManager;
 import org.wso2.andes.server.logging.LogActor;
 import org.wso2.andes.server.logging.LogSubject;
@@ -48,6 +49,7 @@ import org.wso2.andes.server.message.AMQMessage;
 import org.wso2.andes.server.output.ProtocolOutputConverter;
 import org.wso2.andes.server.protocol.AMQProtocolSession;
 import org.wso2.andes.server.queue.AMQQueue;
+import org.wso2.andes.server.queue.Filterable;
 import org.wso2.andes.server.queue.QueueEntry;
 
 import java.util.Map;
@@ -545,11 +547,44 @@ public abstract class SubscriptionImpl implements Subscription, FlowCreditManage
         return id;
     }
 
-    private boolean checkFilters(QueueEntry msg)
+    private boolean checkFilters(Filterable msg)
     {
         return (_filters == null) || _filters.allAllow(msg);
     }
 
+    /**
+     * Check if this subscription has filters (i.e. a selector) which should be evaluated for each message
+     *
+     * @return true if messages should be evaluated against the filters
+     */
+    public boolean hasFilters()
+    {
+        return (_filters != null) && _filters.hasFilters();
+    }
+
+    /**
+     * Evaluate the filters of this subscription against a message without creating a queue entry
+     *
+     * @param msg message properties
+     * @return true if the message is accepted by all the filters
+     */
+    public boolean isAcceptedByFilters(Filterable msg)
+    {
+        return checkFilters(msg);
+    }
+
+    /**
+     * Get the property equality equivalent to the filters of this subscription. Such subscriptions can be looked up
+     * by the property value of a message instead of evaluating the filters.
+     *
+     * @return property equality or null if the subscription has no filters or the filters are not a simple
+     * property equality
+     */
+    public PropertyEqualityPredicate getEqualityPredicate()
+    {
+        return hasFilters() ? _filters.getEqualityPredicate() : null;
+    }
+
     public boolean isAutoClose()
     {
         return _autoClose;
@@ -116,6 +116,19 @@ public class FailureObservingMessageStore implements MessageStore {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prefetchContent(List<? extends AndesMessageMetadata> metadataList) throws AndesException {
+        try {
+            wrappedInstance.prefetchContent(metadataList);
+        } catch (AndesStoreUnavailableException exception) {
+            notifyFailures(exception);
+            throw exception;
+        }
+    }
+
     @Override
     public void storeMessages(List<AndesMessage> messageList) throws AndesException {
         try {
@@ -167,6 +180,19 @@ public class FailureObservingMessageStore implements MessageStore {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreMessagesFromDLC(Map<Long, AndesMessageMetadata> restoredMessages) throws AndesException {
+        try {
+            wrappedInstance.restoreMessagesFromDLC(restoredMessages);
+        } catch (AndesStoreUnavailableException exception) {
+            notifyFailures(exception);
+            throw exception;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -268,6 +294,20 @@ public class FailureObservingMessageStore implements MessageStore {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AndesMessageMetadata> getMessageMetadataFromDLC(String dlcQueueName, List<Long> messageIdList)
+            throws AndesException {
+        try {
+            return wrappedInstance.getMessageMetadataFromDLC(dlcQueueName, messageIdList);
+        } catch (AndesStoreUnavailableException exception) {
+            notifyFailures(exception);
+            throw exception;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -29,9 +29,13 @@ import org.wso2.andes.configuration.AndesConfigurationManager;
 import org.wso2.andes.configuration.enums.AndesConfiguration;
 import org.wso2.andes.kernel.AndesMessage;
 import org.wso2.andes.kernel.AndesMessagePart;
+import org.wso2.andes.kernel.SharedMessageContent;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.cache.Weigher;
 
 /**
@@ -81,21 +85,31 @@ public class GuavaBasedMessageCacheImpl implements AndesMessageCache {
     
     public GuavaBasedMessageCacheImpl(){
 
-        DEFAULT_CONTENT_CHUNK_SIZE = AndesConfigurationManager.readValue(AndesConfiguration
-                                                                         .PERFORMANCE_TUNING_MAX_CONTENT_CHUNK_SIZE);
-
-        long cacheSizeInBytes = 1024L * 1024L * ( (int) AndesConfigurationManager.readValue(AndesConfiguration
-                                                                                            .PERSISTENCE_CACHE_SIZE));
-
-        int cacheConcurrency =
-                AndesConfigurationManager.readValue(AndesConfiguration.PERSISTENCE_CACHE_CONCURRENCY_LEVEL);
+        this(1024L * 1024L * ((int) AndesConfigurationManager.readValue(AndesConfiguration.PERSISTENCE_CACHE_SIZE)),
+             (Integer) AndesConfigurationManager.readValue(AndesConfiguration
+                                                                 .PERFORMANCE_TUNING_MAX_CONTENT_CHUNK_SIZE),
+             (Integer) AndesConfigurationManager.readValue(AndesConfiguration.PERSISTENCE_CACHE_CONCURRENCY_LEVEL),
+             (Integer) AndesConfigurationManager.readValue(AndesConfiguration.PERSISTENCE_CACHE_EXPIRY_SECONDS),
+             (String) AndesConfigurationManager.readValue(AndesConfiguration
+                                                                 .PERSISTENCE_CACHE_VALUE_REFERENCE_TYPE),
+             (Boolean) AndesConfigurationManager.readValue(AndesConfiguration.PERSISTENCE_CACHE_PRINT_STATS));
+    }
 
-        int cacheExpirySeconds =
-                AndesConfigurationManager.readValue(AndesConfiguration.PERSISTENCE_CACHE_EXPIRY_SECONDS);
+    /**
+     * Create a message cache with the given settings. Used by the default constructor and by tests
+     *
+     * @param cacheSizeInBytes   maximum content bytes kept in the cache
+     * @param contentChunkSize   max chunk size of the stored content
+     * @param cacheConcurrency   concurrency level of the cache
+     * @param cacheExpirySeconds seconds a message is kept in the cache after it was last accessed
+     * @param valueRefType       reference type used to keep the cached messages
+     * @param printStats         whether cache statistics should be printed on logs
+     */
+    GuavaBasedMessageCacheImpl(long cacheSizeInBytes, int contentChunkSize, int cacheConcurrency,
+                               int cacheExpirySeconds, String valueRefType, boolean printStats) {
 
-        String valueRefType = AndesConfigurationManager.readValue(AndesConfiguration
-                                                                  .PERSISTENCE_CACHE_VALUE_REFERENCE_TYPE);
-        printStats = AndesConfigurationManager.readValue(AndesConfiguration.PERSISTENCE_CACHE_PRINT_STATS);
+        DEFAULT_CONTENT_CHUNK_SIZE = contentChunkSize;
+        this.printStats = printStats;
 
         CacheBuilder<Long, AndesMessage> builder = CacheBuilder.newBuilder().concurrencyLevel(cacheConcurrency)
                                                                .expireAfterAccess(cacheExpirySeconds, TimeUnit.SECONDS)
@@ -103,7 +117,15 @@ public class GuavaBasedMessageCacheImpl implements AndesMessageCache {
                                                                .weigher(new Weigher<Long, AndesMessage>() {
                                                                    @Override
                                                                    public int weigh(Long l, AndesMessage m) {
-                                                                       return m.getMetadata().getMessageContentLength();
+                                                                       return getContentWeight(m);
+                                                                   }
+                                                               })
+                                                               .removalListener(
+                                                                       new RemovalListener<Long, AndesMessage>() {
+                                                                   @Override
+                                                                   public void onRemoval(RemovalNotification<Long,
+                                                                           AndesMessage> notification) {
+                                                                       releaseSharedContent(notification);
                                                                    }
                                                                });
 
@@ -142,7 +164,12 @@ public class GuavaBasedMessageCacheImpl implements AndesMessageCache {
     @Override
     public void addToCache(AndesMessage message) {
 
-        cache.put(message.getMetadata().getMessageID(), message);
+        long messageId = message.getMetadata().getMessageID();
+        SharedMessageContent sharedContent = message.getSharedContent();
+        if (null != sharedContent) {
+            sharedContent.acquire(messageId);
+        }
+        cache.put(messageId, message);
 
     }
 
@@ -210,4 +237,48 @@ public class GuavaBasedMessageCacheImpl implements AndesMessageCache {
         return part;
     }
 
+    /**
+     * Weight of a message in the cache. Content shared by several topic clones is weighed in full only for
+     * the clone it is currently charged to, so that the content is counted once against the cache size.
+     *
+     * @param message message to weigh
+     * @return weight of the message in bytes
+     */
+    private int getContentWeight(AndesMessage message) {
+        SharedMessageContent sharedContent = message.getSharedContent();
+        if ((null != sharedContent) && !sharedContent.isChargedTo(message.getMetadata().getMessageID())) {
+            return 0;
+        }
+        return message.getMetadata().getMessageContentLength();
+    }
+
+    /**
+     * Release the reference an evicted or removed clone holds on its shared content. If the content was charged
+     * to that clone, the charge moves to another cached clone, which is put again so that Guava weighs it with
+     * the full content length. The content stops being counted when the last clone leaves the cache.
+     *
+     * @param notification removal notification from the cache
+     */
+    private void releaseSharedContent(RemovalNotification<Long, AndesMessage> notification) {
+        AndesMessage message = notification.getValue();
+
+        // A replaced message is still cached under the same id. Values collected with weak references are no
+        // longer reachable, hence cannot be released, but the cache is then bounded by the garbage collector
+        if ((RemovalCause.REPLACED == notification.getCause()) || (null == message)
+            || (null == message.getSharedContent())) {
+            return;
+        }
+
+        long chargedMessageId = message.getSharedContent().release(message.getMetadata().getMessageID());
+        if (-1 != chargedMessageId) {
+            AndesMessage chargedMessage = cache.getIfPresent(chargedMessageId);
+
+            // If the clone is not in the cache yet it is weighed in full when it is put. If it has just been
+            // removed the charge moves again when its own removal is notified
+            if (null != chargedMessage) {
+                cache.asMap().replace(chargedMessageId, chargedMessage, chargedMessage);
+            }
+        }
+    }
+
 }
@@ -27,10 +27,15 @@ import org.wso2.andes.configuration.enums.AndesConfiguration;
  */
 public class MessageCacheFactory {
 
+    /**
+     * Cache type which keeps message content outside of the heap
+     */
+    private static final String CACHE_TYPE_OFF_HEAP = "offHeap";
     
     /***
      * Create a {@link AndesMessageCache} with the configurations passed.
-     * currently it will either returns a {@link GuavaBasedMessageCacheImpl} or
+     * currently it will either returns a {@link GuavaBasedMessageCacheImpl},
+     * a {@link OffHeapMessageCacheImpl} if cache type is configured as 'offHeap' or
      * {@link DisabledMessageCacheImpl} if cacheSize is configured as '0' in
      * broker.xml
      * 
@@ -44,8 +49,12 @@ public class MessageCacheFactory {
                                     
         AndesMessageCache cache = null;
         
+        String cacheType = AndesConfigurationManager.readValue(AndesConfiguration.PERSISTENCE_CACHE_TYPE);
+
         if ( cacheSizeInMegaBytes <= 0){
             cache = new DisabledMessageCacheImpl();
+        } else if (CACHE_TYPE_OFF_HEAP.equalsIgnoreCase(cacheType)) {
+            cache = new OffHeapMessageCacheImpl();
         } else {
             cache = new GuavaBasedMessageCacheImpl();
         }
@@ -0,0 +1,570 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.store.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+import org.wso2.andes.configuration.AndesConfigurationManager;
+import org.wso2.andes.configuration.enums.AndesConfiguration;
+import org.wso2.andes.kernel.AndesMessage;
+import org.wso2.andes.kernel.AndesMessagePart;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Message cache implementation which keeps message content outside of the java heap.
+ * <p/>
+ * Content is copied to fixed size pages carved out of direct memory slabs. Only an index entry per message (metadata
+ * and the pages holding its content) is kept on the heap, so the size of the cache does not add to garbage
+ * collection work. Messages are evicted using the CLOCK algorithm when pages run out, and after they are not
+ * accessed for the configured expiry time.
+ * <p/>
+ * Content is copied back to heap byte arrays when a message is read from the cache.
+ */
+public class OffHeapMessageCacheImpl implements AndesMessageCache {
+
+    private static final Logger log = Logger.getLogger(OffHeapMessageCacheImpl.class);
+
+    /**
+     * Cached messages by message id
+     */
+    private final ConcurrentHashMap<Long, CacheEntry> index;
+
+    /**
+     * Direct memory slabs. Allocated on demand
+     */
+    private final ByteBuffer[] slabs;
+
+    private final int pageSize;
+
+    private final int pagesPerSlab;
+
+    private final int totalPages;
+
+    /**
+     * Guards page allocation, freeing and the clock queue
+     */
+    private final ReentrantLock allocationLock = new ReentrantLock();
+
+    /**
+     * Pages which were released and can be reused
+     */
+    private final int[] freePages;
+
+    private int freePageCount;
+
+    /**
+     * Pages with an index below this have been handed out at least once
+     */
+    private int nextNeverUsedPage;
+
+    /**
+     * Cached entries in insertion order. The head is the clock hand: a referenced entry gets a second chance
+     * by being moved to the tail, otherwise it is evicted.
+     */
+    private final ArrayDeque<CacheEntry> clockQueue;
+
+    /**
+     * Messages not accessed within this time are evicted
+     */
+    private final long expiryMillis;
+
+    /**
+     * Used to evict expired messages and print cache statistics
+     */
+    private final ScheduledExecutorService maintenanceExecutor;
+
+    private final boolean printStats;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public OffHeapMessageCacheImpl() {
+        this(1024L * 1024L * ((int) AndesConfigurationManager.readValue(AndesConfiguration.PERSISTENCE_CACHE_SIZE)),
+             1024 * (int) AndesConfigurationManager.readValue(AndesConfiguration.PERSISTENCE_CACHE_OFF_HEAP_PAGE_SIZE),
+             1024L * 1024L * ((int) AndesConfigurationManager.readValue(
+                     AndesConfiguration.PERSISTENCE_CACHE_OFF_HEAP_SLAB_SIZE)),
+             (int) AndesConfigurationManager.readValue(AndesConfiguration.PERSISTENCE_CACHE_EXPIRY_SECONDS),
+             (Boolean) AndesConfigurationManager.readValue(AndesConfiguration.PERSISTENCE_CACHE_PRINT_STATS));
+    }
+
+    /**
+     * Create a cache with the given sizes
+     *
+     * @param cacheSizeInBytes   maximum size of the cached content
+     * @param pageSize           size of a page in bytes
+     * @param slabSizeInBytes    size of a direct memory slab in bytes
+     * @param cacheExpirySeconds messages not accessed within this time are evicted
+     * @param printStats         whether cache statistics are logged
+     */
+    OffHeapMessageCacheImpl(long cacheSizeInBytes, int pageSize, long slabSizeInBytes, int cacheExpirySeconds,
+                            boolean printStats) {
+        this.pageSize = pageSize;
+        this.printStats = printStats;
+
+        if (pageSize <= 0 || slabSizeInBytes < pageSize || slabSizeInBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid off heap cache page size " + pageSize + " bytes or slab size "
+                                               + slabSizeInBytes + " bytes");
+        }
+
+        pagesPerSlab = (int) (slabSizeInBytes / pageSize);
+        totalPages = (int) Math.min(Integer.MAX_VALUE, cacheSizeInBytes / pageSize);
+        slabs = new ByteBuffer[(totalPages + pagesPerSlab - 1) / pagesPerSlab];
+        freePages = new int[totalPages];
+        clockQueue = new ArrayDeque<>();
+        index = new ConcurrentHashMap<>();
+        expiryMillis = TimeUnit.SECONDS.toMillis(cacheExpirySeconds);
+
+        maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("OffHeapMessageCacheMaintenance-%d").build());
+        long maintenanceInterval = Math.max(1, cacheExpirySeconds);
+        maintenanceExecutor.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    evictExpiredEntries();
+
+                    if (printStats) {
+                        log.info("cache stats: hits=" + hitCount.get() + ", misses=" + missCount.get()
+                                 + ", evictions=" + evictionCount.get() + ", messages=" + index.size());
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Error occurred while evicting expired messages from off heap cache", e);
+                }
+            }
+        }, maintenanceInterval, maintenanceInterval, TimeUnit.SECONDS);
+
+        log.info("Off heap message cache created with " + totalPages + " pages of " + pageSize + " bytes");
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Content of the message is copied outside of the heap. The message is not cached if there is not enough
+     * space even after evicting other messages.
+     */
+    @Override
+    public void addToCache(AndesMessage message) {
+        List<AndesMessagePart> parts = message.getContentChunkList();
+        int partCount = parts.size();
+        int[] partOffsets = new int[partCount];
+        int[] partLengths = new int[partCount];
+        long contentLength = 0;
+        for (int i = 0; i < partCount; i++) {
+            AndesMessagePart part = parts.get(i);
+            partOffsets[i] = part.getOffset();
+            partLengths[i] = part.getDataLength();
+            contentLength = contentLength + part.getDataLength();
+        }
+
+        int pageCount = (int) ((contentLength + pageSize - 1) / pageSize);
+        int[] pages = allocatePages(pageCount);
+        if (null == pages) {
+            return;
+        }
+
+        // Pages are not visible to readers yet. Copy without holding any lock
+        long position = 0;
+        for (AndesMessagePart part : parts) {
+            copyToPages(pages, position, part.getData(), part.getDataLength());
+            position = position + part.getDataLength();
+        }
+
+        CacheEntry entry = new CacheEntry(message, pages, partOffsets, partLengths);
+        CacheEntry previous;
+        allocationLock.lock();
+        try {
+            // The clock hand evicts entries under this lock. Publishing to the index under it as well ensures an
+            // entry is never evicted before it is in the index, which would leave an evicted entry in the index.
+            previous = index.put(message.getMetadata().getMessageID(), entry);
+            clockQueue.add(entry);
+        } finally {
+            allocationLock.unlock();
+        }
+
+        if (null != previous) {
+            previous.evict();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeFromCache(List<Long> messagesToRemove) {
+        for (Long messageId : messagesToRemove) {
+            removeFromCache(messageId);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeFromCache(long messageToRemove) {
+        CacheEntry entry = index.remove(messageToRemove);
+        if (null != entry) {
+            entry.evict();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AndesMessage getMessageFromCache(long messageId) {
+        CacheEntry entry = index.get(messageId);
+        AndesMessage message = null;
+        if ((null != entry) && entry.pin()) {
+            try {
+                message = new AndesMessage(entry.message.getMetadata());
+                for (int i = 0; i < entry.partOffsets.length; i++) {
+                    message.addMessagePart(readPart(entry, i));
+                }
+                entry.markAccessed();
+            } finally {
+                entry.unpin();
+            }
+        }
+        recordAccess(null != message);
+        return message;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void fillContentFromCache(List<Long> messageIDList, Map<Long, List<AndesMessagePart>> contentList) {
+        List<Long> foundMessageIds = new ArrayList<>();
+        for (Long messageId : messageIDList) {
+            AndesMessage message = getMessageFromCache(messageId);
+            if (null != message) {
+                contentList.put(messageId, message.getContentChunkList());
+                foundMessageIds.add(messageId);
+            }
+        }
+        messageIDList.removeAll(foundMessageIds);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AndesMessagePart getContentFromCache(long messageId, int offsetValue) {
+        CacheEntry entry = index.get(messageId);
+        AndesMessagePart part = null;
+        if ((null != entry) && entry.pin()) {
+            try {
+                for (int i = 0; i < entry.partOffsets.length; i++) {
+                    if (entry.partOffsets[i] == offsetValue) {
+                        part = readPart(entry, i);
+                        entry.markAccessed();
+                        break;
+                    }
+                }
+            } finally {
+                entry.unpin();
+            }
+        }
+        recordAccess(null != part);
+        return part;
+    }
+
+    /**
+     * Copy a content chunk of a pinned entry to the heap
+     *
+     * @param entry     cache entry
+     * @param partIndex index of the chunk
+     * @return the content chunk
+     */
+    private AndesMessagePart readPart(CacheEntry entry, int partIndex) {
+        long position = 0;
+        for (int i = 0; i < partIndex; i++) {
+            position = position + entry.partLengths[i];
+        }
+        byte[] data = new byte[entry.partLengths[partIndex]];
+        copyFromPages(entry.pages, position, data);
+
+        AndesMessagePart part = new AndesMessagePart();
+        part.setMessageID(entry.message.getMetadata().getMessageID());
+        part.setOffSet(entry.partOffsets[partIndex]);
+        part.setData(data);
+        part.setDataLength(data.length);
+        return part;
+    }
+
+    private void recordAccess(boolean isHit) {
+        if (printStats) {
+            if (isHit) {
+                hitCount.incrementAndGet();
+            } else {
+                missCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Allocate pages for a message evicting other messages if required
+     *
+     * @param pageCount number of pages required
+     * @return allocated pages or null if enough pages could not be freed
+     */
+    private int[] allocatePages(int pageCount) {
+        if (pageCount > totalPages) {
+            return null;
+        }
+        int[] pages = new int[pageCount];
+        allocationLock.lock();
+        try {
+            // Each entry gets at most one second chance before it is evicted
+            int evictionAttempts = 2 * clockQueue.size();
+            while ((freePageCount + (totalPages - nextNeverUsedPage) < pageCount) && (evictionAttempts > 0)) {
+                CacheEntry candidate = clockQueue.poll();
+                if (null == candidate) {
+                    break;
+                }
+                evictionAttempts--;
+                if (candidate.isEvicted()) {
+                    continue;
+                }
+                if (candidate.referenced) {
+                    candidate.referenced = false;
+                    clockQueue.add(candidate);
+                } else {
+                    index.remove(candidate.message.getMetadata().getMessageID(), candidate);
+                    candidate.evict();
+                    evictionCount.incrementAndGet();
+                }
+            }
+
+            if (freePageCount + (totalPages - nextNeverUsedPage) < pageCount) {
+                // Remaining pages are still in use by readers or the cache is too small
+                return null;
+            }
+
+            for (int i = 0; i < pageCount; i++) {
+                if (freePageCount > 0) {
+                    freePageCount--;
+                    pages[i] = freePages[freePageCount];
+                } else {
+                    pages[i] = nextNeverUsedPage;
+                    nextNeverUsedPage++;
+                }
+            }
+            return pages;
+        } finally {
+            allocationLock.unlock();
+        }
+    }
+
+    /**
+     * Return pages of an entry which is no longer readable
+     *
+     * @param pages pages to release
+     */
+    private void releasePages(int[] pages) {
+        allocationLock.lock();
+        try {
+            for (int page : pages) {
+                freePages[freePageCount] = page;
+                freePageCount++;
+            }
+        } finally {
+            allocationLock.unlock();
+        }
+    }
+
+    /**
+     * Evict messages which are not accessed within the expiry time
+     */
+    private void evictExpiredEntries() {
+        long expiredBefore = System.currentTimeMillis() - expiryMillis;
+        for (Map.Entry<Long, CacheEntry> cachedMessage : index.entrySet()) {
+            CacheEntry entry = cachedMessage.getValue();
+            if (entry.lastAccessTime < expiredBefore && index.remove(cachedMessage.getKey(), entry)) {
+                entry.evict();
+                evictionCount.incrementAndGet();
+            }
+        }
+
+        // Drop evicted entries from the clock queue
+        allocationLock.lock();
+        try {
+            int queueSize = clockQueue.size();
+            for (int i = 0; i < queueSize; i++) {
+                CacheEntry entry = clockQueue.poll();
+                if (!entry.isEvicted()) {
+                    clockQueue.add(entry);
+                }
+            }
+        } finally {
+            allocationLock.unlock();
+        }
+    }
+
+    /**
+     * Get a view of the slab holding the given page positioned at the start of the page
+     */
+    private ByteBuffer getPageBuffer(int page) {
+        int slabIndex = page / pagesPerSlab;
+        ByteBuffer slab = slabs[slabIndex];
+        if (null == slab) {
+            allocationLock.lock();
+            try {
+                slab = slabs[slabIndex];
+                if (null == slab) {
+                    slab = ByteBuffer.allocateDirect(pagesPerSlab * pageSize);
+                    slabs[slabIndex] = slab;
+                }
+            } finally {
+                allocationLock.unlock();
+            }
+        }
+        ByteBuffer view = slab.duplicate();
+        view.position((page % pagesPerSlab) * pageSize);
+        return view;
+    }
+
+    private void copyToPages(int[] pages, long position, byte[] data, int length) {
+        int copied = 0;
+        while (copied < length) {
+            int pageIndex = (int) (position / pageSize);
+            int offsetInPage = (int) (position % pageSize);
+            int bytesToCopy = Math.min(length - copied, pageSize - offsetInPage);
+            ByteBuffer view = getPageBuffer(pages[pageIndex]);
+            view.position(view.position() + offsetInPage);
+            view.put(data, copied, bytesToCopy);
+            copied = copied + bytesToCopy;
+            position = position + bytesToCopy;
+        }
+    }
+
+    private void copyFromPages(int[] pages, long position, byte[] data) {
+        int copied = 0;
+        while (copied < data.length) {
+            int pageIndex = (int) (position / pageSize);
+            int offsetInPage = (int) (position % pageSize);
+            int bytesToCopy = Math.min(data.length - copied, pageSize - offsetInPage);
+            ByteBuffer view = getPageBuffer(pages[pageIndex]);
+            view.position(view.position() + offsetInPage);
+            view.get(data, copied, bytesToCopy);
+            copied = copied + bytesToCopy;
+            position = position + bytesToCopy;
+        }
+    }
+
+    /**
+     * On heap index entry of a cached message. Pages of the entry are released once it is evicted and no reader
+     * has it pinned.
+     */
+    private final class CacheEntry {
+
+        /**
+         * Message holding the metadata. Content of this message is not used after it is copied to the pages
+         */
+        private final AndesMessage message;
+
+        private final int[] pages;
+
+        private final int[] partOffsets;
+
+        private final int[] partLengths;
+
+        /**
+         * Reference bit of the CLOCK algorithm
+         */
+        private volatile boolean referenced;
+
+        private volatile long lastAccessTime;
+
+        /**
+         * Number of readers using the pages plus one for the cache itself until the entry is evicted
+         */
+        private final AtomicInteger pinCount = new AtomicInteger(1);
+
+        private final AtomicBoolean evicted = new AtomicBoolean(false);
+
+        private CacheEntry(AndesMessage message, int[] pages, int[] partOffsets, int[] partLengths) {
+            // Keep only the metadata on heap
+            this.message = new AndesMessage(message.getMetadata());
+            this.pages = pages;
+            this.partOffsets = partOffsets;
+            this.partLengths = partLengths;
+            this.lastAccessTime = System.currentTimeMillis();
+        }
+
+        /**
+         * Prevent the pages from being released while reading
+         *
+         * @return false if the entry is already released
+         */
+        private boolean pin() {
+            while (true) {
+                int count = pinCount.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (pinCount.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void unpin() {
+            if (pinCount.decrementAndGet() == 0) {
+                releasePages(pages);
+            }
+        }
+
+        private void markAccessed() {
+            referenced = true;
+            lastAccessTime = System.currentTimeMillis();
+        }
+
+        /**
+         * Drop the reference of the cache. Pages are released when the last reader is done
+         */
+        private void evict() {
+            if (evicted.compareAndSet(false, true)) {
+                unpin();
+            }
+        }
+
+        private boolean isEvicted() {
+            return evicted.get();
+        }
+    }
+}
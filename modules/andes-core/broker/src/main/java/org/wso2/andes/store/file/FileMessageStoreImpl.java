@@ -0,0 +1,1716 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.store.file;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.log4j.Logger;
+import org.wso2.andes.configuration.util.ConfigurationProperties;
+import org.wso2.andes.kernel.AndesContextStore;
+import org.wso2.andes.kernel.AndesException;
+import org.wso2.andes.kernel.AndesMessage;
+import org.wso2.andes.kernel.AndesMessageMetadata;
+import org.wso2.andes.kernel.AndesMessagePart;
+import org.wso2.andes.kernel.DeliverableAndesMetadata;
+import org.wso2.andes.kernel.DurableStoreConnection;
+import org.wso2.andes.kernel.MessageStore;
+import org.wso2.andes.kernel.slot.Slot;
+import org.wso2.andes.metrics.MetricsConstants;
+import org.wso2.andes.server.queue.DLCQueueUtils;
+import org.wso2.andes.store.AndesStoreUnavailableException;
+import org.wso2.andes.store.cache.AndesMessageCache;
+import org.wso2.andes.store.cache.MessageCacheFactory;
+import org.wso2.andes.tools.utils.MessageTracer;
+import org.wso2.carbon.metrics.manager.Level;
+import org.wso2.carbon.metrics.manager.MetricManager;
+import org.wso2.carbon.metrics.manager.Timer;
+import org.wso2.carbon.metrics.manager.Timer.Context;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Message store implementation which keeps messages in an append only log of memory mapped segment
+ * files on the local disk. Intended for standalone nodes where a database is not required.
+ * <p/>
+ * Every change is appended to the {@link SegmentLog} as a record. Indexes of the live records are
+ * kept in memory (messages by id, per queue and per dead letter channel offset indexes, content
+ * chunk locations) and are rebuilt by replaying the log when the store is initialised.
+ * Metadata and content bytes are read from the mapped segments when needed.
+ * <p/>
+ * Writes are made durable before the calling method returns. Concurrent writers share a single
+ * disk force (group commit). Old segments are compacted periodically by moving their remaining
+ * live records to the end of the log and deleting the segment file.
+ */
+public class FileMessageStoreImpl implements MessageStore {
+
+    private static final Logger log = Logger.getLogger(FileMessageStoreImpl.class);
+
+    private FileStoreConnection fileStoreConnection;
+
+    private SegmentLog segmentLog;
+
+    /**
+     * the message cache in use ( intension is to optimize reads)
+     */
+    private AndesMessageCache messageCache;
+
+    /**
+     * Serializes appending records to the log with updating the indexes
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * Latest metadata of each stored message
+     */
+    private final ConcurrentHashMap<Long, StoredMetadata> metadataIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Messages of each storage queue which are not in a dead letter channel, ordered by message id
+     */
+    private final ConcurrentHashMap<String, QueueIndex> queueIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * Messages of each dead letter channel, ordered by message id
+     */
+    private final ConcurrentHashMap<String, QueueIndex> dlcIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * Content chunk locations of each message by chunk offset
+     */
+    private final ConcurrentHashMap<Long, ConcurrentSkipListMap<Integer, RecordLocation>> contentIndex =
+            new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, StoredExpiry> expiryIndex = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, RecordLocation> queues = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, StoredRetained> retainedIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Delete records which still hide records of older segments, by the key of the deleted record. Such a delete
+     * record is kept by the compaction until every segment holding a record it deletes is compacted.
+     */
+    private final ConcurrentHashMap<String, Tombstone> tombstones = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService compactionExecutor;
+
+    private int compactionLiveDataPercentage;
+
+    /**
+     * Timers of the store operations. Resolved once when the store is initialised since the store operations are
+     * in the message publish and delivery paths
+     */
+    private Timer addMessagePartTimer;
+    private Timer getContentTimer;
+    private Timer getContentBatchTimer;
+    private Timer moveMetadataToDlcTimer;
+    private Timer updateMetaDataInformationTimer;
+    private Timer getMetaDataTimer;
+    private Timer getMetaDataListTimer;
+    private Timer getNextMessageMetadataFromQueueTimer;
+    private Timer getNextMessageMetadataInDlcForQueueTimer;
+    private Timer getNextMessageMetadataInDlcTimer;
+    private Timer deleteMessageMetaDataFromQueueTimer;
+    private Timer deleteMessageMetaDataAndContentTimer;
+
+    public FileMessageStoreImpl() {
+    }
+
+    /**
+     * Create a store which uses the given message cache instead of the configured one
+     *
+     * @param messageCache message cache to use
+     */
+    FileMessageStoreImpl(AndesMessageCache messageCache) {
+        this.messageCache = messageCache;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DurableStoreConnection initializeMessageStore(AndesContextStore contextStore,
+                                                         ConfigurationProperties connectionProperties)
+            throws AndesException {
+
+        fileStoreConnection = new FileStoreConnection();
+        fileStoreConnection.initialize(connectionProperties);
+        segmentLog = (SegmentLog) fileStoreConnection.getConnection();
+
+        try {
+            segmentLog.open(new SegmentLog.RecordVisitor() {
+                @Override
+                public void visit(byte type, byte[] payload, RecordLocation location) throws IOException {
+                    applyRecord(type, payload, location);
+                }
+            });
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("Error occurred while opening message store at "
+                                                     + segmentLog.getDirectory().getAbsolutePath(), e);
+        }
+
+        if (null == messageCache) {
+            messageCache = (new MessageCacheFactory()).create();
+        }
+        initializeTimers();
+
+        compactionLiveDataPercentage = connectionProperties.getProperty(
+                FileStoreConstants.PROP_COMPACTION_LIVE_DATA_PERCENTAGE,
+                FileStoreConstants.DEFAULT_COMPACTION_LIVE_DATA_PERCENTAGE);
+        int compactionInterval = connectionProperties.getProperty(FileStoreConstants.PROP_COMPACTION_INTERVAL,
+                                                                  FileStoreConstants.DEFAULT_COMPACTION_INTERVAL);
+        compactionExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("FileMessageStoreCompaction-%d").build());
+        compactionExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                compact();
+            }
+        }, compactionInterval, compactionInterval, TimeUnit.SECONDS);
+
+        log.info("File message store initialised with " + metadataIndex.size() + " message(s)");
+        return fileStoreConnection;
+    }
+
+    /**
+     * Resolve the metric timers of the store operations
+     */
+    private void initializeTimers() {
+        addMessagePartTimer = MetricManager.timer(Level.INFO, MetricsConstants.ADD_MESSAGE_PART);
+        getContentTimer = MetricManager.timer(Level.INFO, MetricsConstants.GET_CONTENT);
+        getContentBatchTimer = MetricManager.timer(Level.INFO, MetricsConstants.GET_CONTENT_BATCH);
+        moveMetadataToDlcTimer = MetricManager.timer(Level.INFO, MetricsConstants.MOVE_METADATA_TO_DLC);
+        updateMetaDataInformationTimer = MetricManager.timer(Level.INFO, MetricsConstants.UPDATE_META_DATA_INFORMATION);
+        getMetaDataTimer = MetricManager.timer(Level.INFO, MetricsConstants.GET_META_DATA);
+        getMetaDataListTimer = MetricManager.timer(Level.INFO, MetricsConstants.GET_META_DATA_LIST);
+        getNextMessageMetadataFromQueueTimer = MetricManager.timer(Level.INFO,
+                MetricsConstants.GET_NEXT_MESSAGE_METADATA_FROM_QUEUE);
+        getNextMessageMetadataInDlcForQueueTimer = MetricManager.timer(Level.INFO,
+                MetricsConstants.GET_NEXT_MESSAGE_METADATA_IN_DLC_FOR_QUEUE);
+        getNextMessageMetadataInDlcTimer = MetricManager.timer(Level.INFO,
+                MetricsConstants.GET_NEXT_MESSAGE_METADATA_IN_DLC);
+        deleteMessageMetaDataFromQueueTimer = MetricManager.timer(Level.INFO,
+                MetricsConstants.DELETE_MESSAGE_META_DATA_FROM_QUEUE);
+        deleteMessageMetaDataAndContentTimer = MetricManager.timer(Level.INFO,
+                MetricsConstants.DELETE_MESSAGE_META_DATA_AND_CONTENT);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeMessagePart(List<AndesMessagePart> partList) throws AndesException {
+        Context messageContentAdditionContext = addMessagePartTimer.start();
+        long position;
+        writeLock.lock();
+        try {
+            for (AndesMessagePart messagePart : partList) {
+                appendContent(messagePart);
+            }
+            position = segmentLog.getWritePosition();
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("Error occurred while adding message content", e);
+        } finally {
+            writeLock.unlock();
+            messageContentAdditionContext.stop();
+        }
+        segmentLog.sync(position);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AndesMessagePart getContent(long messageId, int offsetValue) throws AndesException {
+        Context messageContentRetrievalContext = getContentTimer.start();
+        try {
+            AndesMessagePart messagePart = messageCache.getContentFromCache(messageId, offsetValue);
+            if (null == messagePart) {
+                ConcurrentSkipListMap<Integer, RecordLocation> chunks = contentIndex.get(messageId);
+                if (null != chunks) {
+                    RecordLocation location = chunks.get(offsetValue);
+                    if (null != location) {
+                        messagePart = readMessagePart(location);
+                    }
+                }
+            }
+            return messagePart;
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("Error occurred while retrieving message content "
+                                                     + "[msg_id= " + messageId + " ]", e);
+        } finally {
+            messageContentRetrievalContext.stop();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Long, List<AndesMessagePart>> getContent(List<Long> messageIDList) throws AndesException {
+        Map<Long, List<AndesMessagePart>> contentList = new HashMap<>(messageIDList.size());
+        Context messageContentRetrievalContext = getContentBatchTimer.start();
+        try {
+            if (messageIDList.isEmpty()) {
+                return contentList;
+            }
+
+            messageCache.fillContentFromCache(messageIDList, contentList);
+
+            for (Long messageId : messageIDList) {
+                if (contentList.containsKey(messageId)) {
+                    // Already served from the cache
+                    continue;
+                }
+                ConcurrentSkipListMap<Integer, RecordLocation> chunks = contentIndex.get(messageId);
+                if (null != chunks) {
+                    List<AndesMessagePart> partList = new ArrayList<>(chunks.size());
+                    for (RecordLocation location : chunks.values()) {
+                        partList.add(readMessagePart(location));
+                    }
+                    contentList.put(messageId, partList);
+                }
+            }
+            return contentList;
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("Error occurred while retrieving message content for "
+                                                     + messageIDList.size() + " messages", e);
+        } finally {
+            messageContentRetrievalContext.stop();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Content is read from local files on demand, hence it is not prefetched.
+     */
+    @Override
+    public void prefetchContent(List<? extends AndesMessageMetadata> metadataList) throws AndesException {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeMessages(List<AndesMessage> messageList) throws AndesException {
+        long position;
+        writeLock.lock();
+        try {
+            for (AndesMessage message : messageList) {
+                for (AndesMessagePart messagePart : message.getContentChunkList()) {
+                    appendContent(messagePart);
+                }
+                AndesMessageMetadata metadata = message.getMetadata();
+                appendMetadata(metadata.getMessageID(), metadata.getStorageQueueName(), null,
+                               metadata.getMetadata());
+            }
+            position = segmentLog.getWritePosition();
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("Error occurred while " + FileStoreConstants.TASK_STORING_MESSAGES,
+                                                     e);
+        } finally {
+            writeLock.unlock();
+        }
+        segmentLog.sync(position);
+
+        // Add messages to cache after adding them to the store
+        for (AndesMessage message : messageList) {
+            messageCache.addToCache(message);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void moveMetadataToQueue(long messageId, String currentQueueName, String targetQueueName)
+            throws AndesException {
+        long position;
+        writeLock.lock();
+        try {
+            StoredMetadata storedMetadata = metadataIndex.get(messageId);
+            if ((null == storedMetadata) || !storedMetadata.queueName.equals(currentQueueName)) {
+                return;
+            }
+            appendMetadata(messageId, targetQueueName, storedMetadata.dlcQueueName,
+                           readMetadataBytes(storedMetadata));
+            position = segmentLog.getWritePosition();
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("Error occurred while updating message metadata to destination "
+                                                     + "queue " + targetQueueName, e);
+        } finally {
+            writeLock.unlock();
+        }
+        segmentLog.sync(position);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void moveMetadataToDLC(long messageId, String dlcQueueName) throws AndesException {
+        List<Long> messageIds = new ArrayList<>(1);
+        messageIds.add(messageId);
+        moveToDLC(messageIds, dlcQueueName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void moveMetadataToDLC(List<AndesMessageMetadata> messages, String dlcQueueName) throws AndesException {
+        List<Long> messageIds = new ArrayList<>(messages.size());
+        for (AndesMessageMetadata message : messages) {
+            messageIds.add(message.getMessageID());
+        }
+        moveToDLC(messageIds, dlcQueueName);
+    }
+
+    /**
+     * Move the given messages to a dead letter channel, keeping the storage queue they belong to
+     *
+     * @param messageIds   ids of the messages
+     * @param dlcQueueName name of the dead letter channel
+     * @throws AndesException
+     */
+    private void moveToDLC(List<Long> messageIds, String dlcQueueName) throws AndesException {
+        Context moveMetadataToDLCContext = moveMetadataToDlcTimer.start();
+        messageCache.removeFromCache(messageIds);
+        long position;
+        writeLock.lock();
+        try {
+            for (Long messageId : messageIds) {
+                StoredMetadata storedMetadata = metadataIndex.get(messageId);
+                if (null != storedMetadata) {
+                    appendMetadata(messageId, storedMetadata.queueName, dlcQueueName,
+                                   readMetadataBytes(storedMetadata));
+                }
+            }
+            position = segmentLog.getWritePosition();
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("Error occurred while moving message metadata to dead letter "
+                                                     + "channel.", e);
+        } finally {
+            writeLock.unlock();
+            moveMetadataToDLCContext.stop();
+        }
+        segmentLog.sync(position);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreMessagesFromDLC(Map<Long, AndesMessageMetadata> restoredMessages) throws AndesException {
+        List<Long> messageIds = new ArrayList<>(restoredMessages.keySet());
+        Map<Long, List<AndesMessagePart>> contentOfMessages = getContent(messageIds);
+
+        List<AndesMessage> messagesToStore = new ArrayList<>(restoredMessages.size());
+        List<AndesMessageMetadata> messagesToRemove = new ArrayList<>(restoredMessages.size());
+        for (Map.Entry<Long, AndesMessageMetadata> entry : restoredMessages.entrySet()) {
+            AndesMessageMetadata metadata = entry.getValue();
+            AndesMessage message = new AndesMessage(metadata);
+            List<AndesMessagePart> messageParts = contentOfMessages.get(entry.getKey());
+            if (null != messageParts) {
+                for (AndesMessagePart messagePart : messageParts) {
+                    message.addMessagePart(messagePart.shallowCopy(metadata.getMessageID()));
+                }
+            }
+            messagesToStore.add(message);
+            messagesToRemove.add(metadata.shallowCopy(entry.getKey()));
+        }
+
+        // Content is read and written again since the segment log has no in place copy
+        storeMessages(messagesToStore);
+        deleteDLCMessages(messagesToRemove);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateMetadataInformation(String currentQueueName, List<AndesMessageMetadata> metadataList)
+            throws AndesException {
+        Context metaUpdateContext = updateMetaDataInformationTimer.start();
+        long position;
+        writeLock.lock();
+        try {
+            for (AndesMessageMetadata metadata : metadataList) {
+                StoredMetadata storedMetadata = metadataIndex.get(metadata.getMessageID());
+                if ((null != storedMetadata) && storedMetadata.queueName.equals(currentQueueName)) {
+                    appendMetadata(metadata.getMessageID(), metadata.getStorageQueueName(),
+                                   storedMetadata.dlcQueueName, metadata.getMetadata());
+                }
+                if (metadata.getExpirationTime() > 0) {
+                    appendExpiry(metadata.getMessageID(), metadata.getExpirationTime(), metadata.isTopic(),
+                                 metadata.getStorageQueueName());
+                }
+            }
+            position = segmentLog.getWritePosition();
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("Error occurred while updating message metadata list.", e);
+        } finally {
+            writeLock.unlock();
+            metaUpdateContext.stop();
+        }
+        segmentLog.sync(position);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AndesMessageMetadata getMetadata(long messageId) throws AndesException {
+
+        //Check if cache contains this message.
+        AndesMessage cached = messageCache.getMessageFromCache(messageId);
+        if (null != cached) {
+            return cached.getMetadata();
+        }
+
+        Context metaRetrievalContext = getMetaDataTimer.start();
+        try {
+            StoredMetadata storedMetadata = metadataIndex.get(messageId);
+            if (null == storedMetadata) {
+                return null;
+            }
+            return new AndesMessageMetadata(messageId, readMetadataBytes(storedMetadata), true);
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("error occurred while retrieving message metadata for msg id:"
+                                                     + messageId, e);
+        } finally {
+            metaRetrievalContext.stop();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<DeliverableAndesMetadata> getMetadataList(Slot slot, String storageQueueName, long firstMsgId,
+                                                          long lastMsgID) throws AndesException {
+        List<DeliverableAndesMetadata> metadataList = new ArrayList<>();
+        Context metaListRetrievalContext = getMetaDataListTimer.start();
+        try {
+            QueueIndex queueIndex = queueIndexes.get(storageQueueName);
+            if (null != queueIndex) {
+                for (StoredMetadata storedMetadata : queueIndex.messages.subMap(firstMsgId, true, lastMsgID, true)
+                                                                         .values()) {
+                    DeliverableAndesMetadata md = new DeliverableAndesMetadata(slot, storedMetadata.messageId,
+                                                                               readMetadataBytes(storedMetadata),
+                                                                               true);
+                    md.setStorageQueueName(storageQueueName);
+                    metadataList.add(md);
+                    //Tracing message
+                    MessageTracer.trace(md, MessageTracer.METADATA_READ_FROM_DB + " slot = " + slot.getId());
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("request: metadata range (" + firstMsgId + " , " + lastMsgID + ") in destination queue "
+                          + storageQueueName + ", response: metadata count " + metadataList.size());
+            }
+            return metadataList;
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("Error occurred while retrieving messages between msg id "
+                                                     + firstMsgId + " and " + lastMsgID + " from queue "
+                                                     + storageQueueName, e);
+        } finally {
+            metaListRetrievalContext.stop();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AndesMessageMetadata> getNextNMessageMetadataFromQueue(String storageQueueName, long firstMsgId,
+                                                                       int count) throws AndesException {
+        Context nextMetaRetrievalContext = getNextMessageMetadataFromQueueTimer.start();
+        try {
+            return readMetadata(queueIndexes.get(storageQueueName), null, storageQueueName, firstMsgId, count);
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("error occurred while retrieving message metadata from queue ",
+                                                     e);
+        } finally {
+            nextMetaRetrievalContext.stop();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Long> getNextNMessageIdsFromQueue(String storageQueueName, long firstMsgId, int count)
+            throws AndesException {
+        List<Long> mdList = new ArrayList<>(count);
+        QueueIndex queueIndex = queueIndexes.get(storageQueueName);
+        if (null != queueIndex) {
+            for (Long messageId : queueIndex.messages.tailMap(firstMsgId, true).keySet()) {
+                if (mdList.size() == count) {
+                    break;
+                }
+                mdList.add(messageId);
+            }
+        }
+        return mdList;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AndesMessageMetadata> getNextNMessageMetadataForQueueFromDLC(String storageQueueName,
+                                                                             String dlcQueueName, long firstMsgId,
+                                                                             int count) throws AndesException {
+        Context nextMetaRetrievalContext = getNextMessageMetadataInDlcForQueueTimer.start();
+        try {
+            return readMetadata(dlcIndexes.get(dlcQueueName), storageQueueName, storageQueueName, firstMsgId,
+                                count);
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("error occurred while retrieving message metadata from queue ",
+                                                     e);
+        } finally {
+            nextMetaRetrievalContext.stop();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AndesMessageMetadata> getNextNMessageMetadataFromDLC(String dlcQueueName, long firstMsgId, int count)
+            throws AndesException {
+        Context nextMetaRetrievalContext = getNextMessageMetadataInDlcTimer.start();
+        try {
+            return readMetadata(dlcIndexes.get(dlcQueueName), null, null, firstMsgId, count);
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("error occurred while retrieving message metadata from queue ",
+                                                     e);
+        } finally {
+            nextMetaRetrievalContext.stop();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AndesMessageMetadata> getMessageMetadataFromDLC(String dlcQueueName, List<Long> messageIdList)
+            throws AndesException {
+        Context metaListRetrievalContext = getMetaDataListTimer.start();
+        List<AndesMessageMetadata> mdList = new ArrayList<>(messageIdList.size());
+        try {
+            QueueIndex dlcIndex = dlcIndexes.get(dlcQueueName);
+            if (null == dlcIndex) {
+                return mdList;
+            }
+            for (Long messageId : messageIdList) {
+                StoredMetadata storedMetadata = dlcIndex.messages.get(messageId);
+                if (null != storedMetadata) {
+                    mdList.add(new AndesMessageMetadata(storedMetadata.messageId, readMetadataBytes(storedMetadata),
+                                                        true));
+                }
+            }
+            return mdList;
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("error occurred while retrieving message metadata from dead "
+                                                     + "letter channel " + dlcQueueName, e);
+        } finally {
+            metaListRetrievalContext.stop();
+        }
+    }
+
+    /**
+     * Read metadata of messages in an index starting from a message id
+     *
+     * @param queueIndex            index to read from. Nothing is read if null
+     * @param storageQueueFilter    if not null only messages of this storage queue are read
+     * @param storageQueueNameToSet storage queue name set on the read metadata. Not set if null
+     * @param firstMsgId            first message id
+     * @param count                 maximum number of messages to read
+     * @return list of metadata
+     * @throws IOException if metadata cannot be read from the log
+     */
+    private List<AndesMessageMetadata> readMetadata(QueueIndex queueIndex, String storageQueueFilter,
+                                                    String storageQueueNameToSet, long firstMsgId, int count)
+            throws IOException {
+        List<AndesMessageMetadata> mdList = new ArrayList<>(count);
+        if (null == queueIndex) {
+            return mdList;
+        }
+        for (StoredMetadata storedMetadata : queueIndex.messages.tailMap(firstMsgId, true).values()) {
+            if (mdList.size() == count) {
+                break;
+            }
+            if ((null != storageQueueFilter) && !storageQueueFilter.equals(storedMetadata.queueName)) {
+                continue;
+            }
+            AndesMessageMetadata md = new AndesMessageMetadata(storedMetadata.messageId,
+                                                               readMetadataBytes(storedMetadata), true);
+            if (null != storageQueueNameToSet) {
+                md.setStorageQueueName(storageQueueNameToSet);
+            }
+            mdList.add(md);
+        }
+        return mdList;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteMessageMetadataFromQueue(String storageQueueName, List<AndesMessageMetadata> messagesToRemove)
+            throws AndesException {
+        Context metaDeletionContext = deleteMessageMetaDataFromQueueTimer.start();
+        List<Long> messageIds = new ArrayList<>(messagesToRemove.size());
+        for (AndesMessageMetadata message : messagesToRemove) {
+            StoredMetadata storedMetadata = metadataIndex.get(message.getMessageID());
+            if ((null != storedMetadata) && storedMetadata.queueName.equals(storageQueueName)) {
+                messageIds.add(message.getMessageID());
+            }
+        }
+        try {
+            deleteMessagesById(messageIds);
+        } finally {
+            metaDeletionContext.stop();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Metadata removed. " + messageIds.size() + " metadata from destination " + storageQueueName);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteMessages(String storageQueueName, List<AndesMessageMetadata> messagesToRemove)
+            throws AndesException {
+        Context messageDeletionContext = deleteMessageMetaDataAndContentTimer.start();
+        List<Long> messageIds = new ArrayList<>(messagesToRemove.size());
+        for (AndesMessageMetadata message : messagesToRemove) {
+            StoredMetadata storedMetadata = metadataIndex.get(message.getMessageID());
+            if ((null != storedMetadata) && (null == storedMetadata.dlcQueueName)) {
+                messageIds.add(message.getMessageID());
+            }
+        }
+        try {
+            messageCache.removeFromCache(messageIds);
+            deleteMessagesById(messageIds);
+        } finally {
+            messageDeletionContext.stop();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Metadata and content removed: " + messageIds.size() + " for destination queue:"
+                      + storageQueueName);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteDLCMessages(List<AndesMessageMetadata> messagesToRemove) throws AndesException {
+        Context messageDeletionContext = deleteMessageMetaDataAndContentTimer.start();
+        List<Long> messageIds = new ArrayList<>(messagesToRemove.size());
+        for (AndesMessageMetadata message : messagesToRemove) {
+            StoredMetadata storedMetadata = metadataIndex.get(message.getMessageID());
+            if ((null != storedMetadata) && (null != storedMetadata.dlcQueueName)) {
+                messageIds.add(message.getMessageID());
+            }
+        }
+        try {
+            deleteMessagesById(messageIds);
+        } finally {
+            messageDeletionContext.stop();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Messages removed: " + messageIds.size() + " from DLC");
+        }
+    }
+
+    /**
+     * Delete metadata, content and expiry data of the given messages
+     *
+     * @param messageIds ids of the messages to delete
+     * @throws AndesException
+     */
+    private void deleteMessagesById(List<Long> messageIds) throws AndesException {
+        if (messageIds.isEmpty()) {
+            return;
+        }
+        long position;
+        writeLock.lock();
+        try {
+            for (Long messageId : messageIds) {
+                RecordLocation location = segmentLog.append(FileStoreConstants.RECORD_METADATA_DELETE,
+                                                            encodeMessageId(messageId));
+                applyRecord(FileStoreConstants.RECORD_METADATA_DELETE, null, messageId, location);
+            }
+            position = segmentLog.getWritePosition();
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("Error occurred while "
+                                                     + FileStoreConstants.TASK_DELETING_MESSAGES, e);
+        } finally {
+            writeLock.unlock();
+        }
+        segmentLog.sync(position);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AndesMessageMetadata> getExpiredMessages(int limit) throws AndesException {
+        List<AndesMessageMetadata> list = new ArrayList<>(limit);
+        long currentTime = System.currentTimeMillis();
+        try {
+            for (StoredExpiry storedExpiry : expiryIndex.values()) {
+                if (list.size() == limit) {
+                    break;
+                }
+                StoredMetadata storedMetadata = metadataIndex.get(storedExpiry.messageId);
+                if ((storedExpiry.expirationTime < currentTime) && (null != storedMetadata)) {
+                    AndesMessageMetadata metadata = new AndesMessageMetadata(storedExpiry.messageId,
+                                                                             readMetadataBytes(storedMetadata),
+                                                                             true);
+                    metadata.setStorageQueueName(null);
+                    list.add(metadata);
+                }
+            }
+            return list;
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("error occurred while retrieving expired messages.", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteMessagesFromExpiryQueue(List<Long> messagesToRemove) throws AndesException {
+        long position;
+        writeLock.lock();
+        try {
+            for (Long messageId : messagesToRemove) {
+                if (expiryIndex.containsKey(messageId)) {
+                    RecordLocation location = segmentLog.append(FileStoreConstants.RECORD_EXPIRY_DELETE,
+                                                                encodeMessageId(messageId));
+                    applyRecord(FileStoreConstants.RECORD_EXPIRY_DELETE, null, messageId, location);
+                }
+            }
+            position = segmentLog.getWritePosition();
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("error occurred while deleting message metadata from expiry "
+                                                     + "queue", e);
+        } finally {
+            writeLock.unlock();
+        }
+        segmentLog.sync(position);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addMessageToExpiryQueue(Long messageId, Long expirationTime, boolean isMessageForTopic,
+                                        String destination) throws AndesException {
+        long position;
+        writeLock.lock();
+        try {
+            appendExpiry(messageId, expirationTime, isMessageForTopic, destination);
+            position = segmentLog.getWritePosition();
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("error occurred while adding message to expiry queue", e);
+        } finally {
+            writeLock.unlock();
+        }
+        segmentLog.sync(position);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int deleteAllMessageMetadata(String storageQueueName) throws AndesException {
+        List<Long> messageIds = new ArrayList<>();
+        QueueIndex queueIndex = queueIndexes.get(storageQueueName);
+        if (null != queueIndex) {
+            messageIds.addAll(queueIndex.messages.keySet());
+        }
+        // Messages of the queue which are in a dead letter channel are removed as well
+        for (QueueIndex dlcIndex : dlcIndexes.values()) {
+            for (StoredMetadata storedMetadata : dlcIndex.messages.values()) {
+                if (storedMetadata.queueName.equals(storageQueueName)) {
+                    messageIds.add(storedMetadata.messageId);
+                }
+            }
+        }
+        messageCache.removeFromCache(messageIds);
+        deleteMessagesById(messageIds);
+        if (log.isDebugEnabled()) {
+            log.debug("DELETED all message metadata from " + storageQueueName);
+        }
+        return messageIds.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int clearDLCQueue(String dlcQueueName) throws AndesException {
+        List<Long> messageIds = new ArrayList<>();
+        QueueIndex dlcIndex = dlcIndexes.get(dlcQueueName);
+        if (null != dlcIndex) {
+            messageIds.addAll(dlcIndex.messages.keySet());
+        }
+        deleteMessagesById(messageIds);
+        if (log.isDebugEnabled()) {
+            log.debug("DELETED all message metadata for dlc queue " + dlcQueueName);
+        }
+        return messageIds.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Long> getMessageIDsAddressedToQueue(String storageQueueName, Long startMessageID)
+            throws AndesException {
+        List<Long> messageIDs = new ArrayList<>();
+        QueueIndex queueIndex = queueIndexes.get(storageQueueName);
+        if (null != queueIndex) {
+            messageIDs.addAll(queueIndex.messages.tailMap(startMessageID, true).keySet());
+        }
+        return messageIDs;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addQueue(String storageQueueName) throws AndesException {
+        if (queues.containsKey(storageQueueName)) {
+            return;
+        }
+        long position;
+        writeLock.lock();
+        try {
+            if (queues.containsKey(storageQueueName)) {
+                return;
+            }
+            RecordLocation location = segmentLog.append(FileStoreConstants.RECORD_QUEUE,
+                                                        encodeString(storageQueueName));
+            applyRecord(FileStoreConstants.RECORD_QUEUE, storageQueueName, 0, location);
+            position = segmentLog.getWritePosition();
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("Error while creating queue: " + storageQueueName, e);
+        } finally {
+            writeLock.unlock();
+        }
+        segmentLog.sync(position);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Integer> getMessageCountForAllQueues(List<String> queueNames) throws AndesException {
+        Map<String, Integer> queueMessageCountForName = new HashMap<>();
+        for (String queueName : queues.keySet()) {
+            if (!(DLCQueueUtils.isDeadLetterQueue(queueName)) && queueNames.contains(queueName)) {
+                queueMessageCountForName.put(queueName, (int) getMessageCountForQueue(queueName));
+            }
+        }
+        return queueMessageCountForName;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMessageCountForQueue(String storageQueueName) throws AndesException {
+        QueueIndex queueIndex = queueIndexes.get(storageQueueName);
+        return (null == queueIndex) ? 0 : queueIndex.size.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMessageCountForQueueInDLC(String storageQueueName, String dlcQueueName) throws AndesException {
+        long messageCount = 0;
+        QueueIndex dlcIndex = dlcIndexes.get(dlcQueueName);
+        if (null != dlcIndex) {
+            for (StoredMetadata storedMetadata : dlcIndex.messages.values()) {
+                if (storedMetadata.queueName.equals(storageQueueName)) {
+                    messageCount++;
+                }
+            }
+        }
+        return messageCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMessageCountForDLCQueue(String dlcQueueName) throws AndesException {
+        QueueIndex dlcIndex = dlcIndexes.get(dlcQueueName);
+        return (null == dlcIndex) ? 0 : dlcIndex.size.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void resetMessageCounterForQueue(String storageQueueName) throws AndesException {
+        // Message count is taken from the queue index itself. No need to implement this
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeQueue(String storageQueueName) throws AndesException {
+        long position;
+        writeLock.lock();
+        try {
+            if (!queues.containsKey(storageQueueName)) {
+                return;
+            }
+            RecordLocation location = segmentLog.append(FileStoreConstants.RECORD_QUEUE_DELETE,
+                                                        encodeString(storageQueueName));
+            applyRecord(FileStoreConstants.RECORD_QUEUE_DELETE, storageQueueName, 0, location);
+            position = segmentLog.getWritePosition();
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("error occurred while deleting queue: " + storageQueueName,
+                                                     e);
+        } finally {
+            writeLock.unlock();
+        }
+        segmentLog.sync(position);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeLocalQueueData(String storageQueueName) {
+        // No queue data is cached apart from the indexes, which are kept in sync with the log
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrementMessageCountForQueue(String storageQueueName, long incrementBy) throws AndesException {
+        // Message count is taken from the queue index itself. No need to implement this
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void decrementMessageCountForQueue(String storageQueueName, long decrementBy) throws AndesException {
+        // Message count is taken from the queue index itself. No need to implement this
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeRetainedMessages(Map<String, AndesMessage> retainMap) throws AndesException {
+        long position;
+        writeLock.lock();
+        try {
+            for (AndesMessage message : retainMap.values()) {
+                String destination = message.getMetadata().getDestination();
+
+                // A retained message with an empty payload removes the retained message of the topic
+                boolean isPayloadEmpty = message.getContentChunkList().isEmpty()
+                                         || (message.getContentChunkList().get(0).getDataLength() == 0);
+                if (!isPayloadEmpty) {
+                    RecordLocation location = segmentLog.append(FileStoreConstants.RECORD_RETAINED,
+                                                                encodeRetained(message));
+                    applyRecord(FileStoreConstants.RECORD_RETAINED, destination,
+                                message.getMetadata().getMessageID(), location);
+                } else if (retainedIndex.containsKey(destination)) {
+                    RecordLocation location = segmentLog.append(FileStoreConstants.RECORD_RETAINED_DELETE,
+                                                                encodeString(destination));
+                    applyRecord(FileStoreConstants.RECORD_RETAINED_DELETE, destination, 0, location);
+                }
+            }
+            position = segmentLog.getWritePosition();
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("Error occurred while adding retained message content", e);
+        } finally {
+            writeLock.unlock();
+        }
+        segmentLog.sync(position);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getAllRetainedTopics() throws AndesException {
+        return new ArrayList<>(retainedIndex.keySet());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, AndesMessagePart> getRetainedContentParts(long messageID) throws AndesException {
+        Map<Integer, AndesMessagePart> contentParts = new HashMap<>();
+        try {
+            for (StoredRetained storedRetained : retainedIndex.values()) {
+                if (storedRetained.messageId == messageID) {
+                    DataInputStream input = toInput(segmentLog.read(storedRetained.location));
+                    input.readUTF();
+                    input.readLong();
+                    readBytes(input);
+                    int partCount = input.readInt();
+                    for (int i = 0; i < partCount; i++) {
+                        AndesMessagePart messagePart = new AndesMessagePart();
+                        int offset = input.readInt();
+                        byte[] data = readBytes(input);
+                        messagePart.setMessageID(messageID);
+                        messagePart.setData(data);
+                        messagePart.setDataLength(data.length);
+                        messagePart.setOffSet(offset);
+                        contentParts.put(offset, messagePart);
+                    }
+                    break;
+                }
+            }
+            return contentParts;
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("Error occurred while retrieving retained message content "
+                                                     + "[msg_id=" + messageID + "]", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DeliverableAndesMetadata getRetainedMetadata(String destination) throws AndesException {
+        StoredRetained storedRetained = retainedIndex.get(destination);
+        if (null == storedRetained) {
+            return null;
+        }
+        try {
+            DataInputStream input = toInput(segmentLog.read(storedRetained.location));
+            input.readUTF();
+            long messageId = input.readLong();
+            return new DeliverableAndesMetadata(null, messageId, readBytes(input), true);
+        } catch (IOException e) {
+            throw new AndesStoreUnavailableException("error occurred while retrieving retained message for "
+                                                     + "destination:" + destination, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        if (null != compactionExecutor) {
+            compactionExecutor.shutdownNow();
+        }
+        if (null != fileStoreConnection) {
+            fileStoreConnection.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc} Check if data can be written, read and finally deleted in the store directory.
+     */
+    @Override
+    public boolean isOperational(String testString, long testTime) {
+        File healthCheckFile = new File(segmentLog.getDirectory(), FileStoreConstants.HEALTH_CHECK_FILE);
+        byte[] testData = (testString + testTime).getBytes(StandardCharsets.UTF_8);
+        try {
+            try (FileOutputStream outputStream = new FileOutputStream(healthCheckFile)) {
+                outputStream.write(testData);
+                outputStream.getFD().sync();
+            }
+            byte[] readData = new byte[testData.length];
+            try (RandomAccessFile inputFile = new RandomAccessFile(healthCheckFile, "r")) {
+                inputFile.readFully(readData);
+            }
+            return Arrays.equals(testData, readData) && healthCheckFile.delete();
+        } catch (IOException e) {
+            log.warn("File message store at " + segmentLog.getDirectory().getAbsolutePath()
+                     + " is not operational", e);
+            return false;
+        }
+    }
+
+    /**
+     * Move live records of old segments to the end of the log and delete the old segment files
+     */
+    void compact() {
+        try {
+            segmentLog.releaseRetiredSegments();
+            Long segmentId = segmentLog.getCompactionCandidate(compactionLiveDataPercentage);
+            while (null != segmentId) {
+                segmentLog.iterate(segmentId, new SegmentLog.RecordVisitor() {
+                    @Override
+                    public void visit(byte type, byte[] payload, RecordLocation location) throws IOException {
+                        writeLock.lock();
+                        try {
+                            if (isLive(type, payload, location)) {
+                                applyRecord(type, payload, segmentLog.append(type, payload));
+                            }
+                        } finally {
+                            writeLock.unlock();
+                        }
+                    }
+                });
+                // Moved records should be on the disk before the old segment is deleted
+                segmentLog.sync(segmentLog.getWritePosition());
+                segmentLog.retireSegment(segmentId);
+                releaseTombstones(segmentId);
+                segmentId = segmentLog.getCompactionCandidate(compactionLiveDataPercentage);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Error occurred while " + FileStoreConstants.TASK_COMPACTING, e);
+        }
+    }
+
+    /**
+     * Check whether a record is still the latest record of its kind for its key
+     */
+    private boolean isLive(byte type, byte[] payload, RecordLocation location) throws IOException {
+        DataInputStream input = toInput(payload);
+        switch (type) {
+            case FileStoreConstants.RECORD_METADATA:
+                StoredMetadata storedMetadata = metadataIndex.get(input.readLong());
+                return (null != storedMetadata) && storedMetadata.location.equals(location);
+            case FileStoreConstants.RECORD_CONTENT:
+                ConcurrentSkipListMap<Integer, RecordLocation> chunks = contentIndex.get(input.readLong());
+                return (null != chunks) && location.equals(chunks.get(input.readInt()));
+            case FileStoreConstants.RECORD_EXPIRY:
+                StoredExpiry storedExpiry = expiryIndex.get(input.readLong());
+                return (null != storedExpiry) && storedExpiry.location.equals(location);
+            case FileStoreConstants.RECORD_QUEUE:
+                return location.equals(queues.get(input.readUTF()));
+            case FileStoreConstants.RECORD_RETAINED:
+                StoredRetained storedRetained = retainedIndex.get(input.readUTF());
+                return (null != storedRetained) && storedRetained.location.equals(location);
+            case FileStoreConstants.RECORD_METADATA_DELETE:
+            case FileStoreConstants.RECORD_EXPIRY_DELETE:
+                return isLiveTombstone(getTombstoneKey(type, null, input.readLong()), location);
+            case FileStoreConstants.RECORD_QUEUE_DELETE:
+            case FileStoreConstants.RECORD_RETAINED_DELETE:
+                return isLiveTombstone(getTombstoneKey(type, input.readUTF(), 0), location);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Decode a record and apply it to the indexes
+     */
+    private void applyRecord(byte type, byte[] payload, RecordLocation location) throws IOException {
+        DataInputStream input = toInput(payload);
+        switch (type) {
+            case FileStoreConstants.RECORD_METADATA:
+                long messageId = input.readLong();
+                String queueName = input.readUTF();
+                String dlcQueueName = input.readUTF();
+                applyMetadata(new StoredMetadata(messageId, queueName,
+                                                 dlcQueueName.isEmpty() ? null : dlcQueueName, location));
+                break;
+            case FileStoreConstants.RECORD_CONTENT:
+                applyContent(input.readLong(), input.readInt(), location);
+                break;
+            case FileStoreConstants.RECORD_EXPIRY:
+                applyExpiry(new StoredExpiry(input.readLong(), input.readLong(), location));
+                break;
+            case FileStoreConstants.RECORD_RETAINED:
+                String destination = input.readUTF();
+                applyRecord(type, destination, input.readLong(), location);
+                break;
+            case FileStoreConstants.RECORD_QUEUE:
+            case FileStoreConstants.RECORD_QUEUE_DELETE:
+            case FileStoreConstants.RECORD_RETAINED_DELETE:
+                applyRecord(type, input.readUTF(), 0, location);
+                break;
+            case FileStoreConstants.RECORD_METADATA_DELETE:
+            case FileStoreConstants.RECORD_EXPIRY_DELETE:
+                applyRecord(type, null, input.readLong(), location);
+                break;
+            default:
+                throw new IOException("Unknown record type " + type + " at " + location);
+        }
+    }
+
+    /**
+     * Apply a record which is identified by a name or a message id to the indexes
+     */
+    private void applyRecord(byte type, String name, long messageId, RecordLocation location) {
+        switch (type) {
+            case FileStoreConstants.RECORD_METADATA_DELETE:
+                Set<Long> deletedSegmentIds = new HashSet<>();
+                StoredMetadata storedMetadata = metadataIndex.remove(messageId);
+                if (null != storedMetadata) {
+                    removeFromQueueIndex(storedMetadata);
+                    segmentLog.recordDead(storedMetadata.location);
+                    deletedSegmentIds.add(storedMetadata.location.getSegmentId());
+                }
+                // Content and expiry data go with the metadata
+                ConcurrentSkipListMap<Integer, RecordLocation> chunks = contentIndex.remove(messageId);
+                if (null != chunks) {
+                    for (RecordLocation chunkLocation : chunks.values()) {
+                        segmentLog.recordDead(chunkLocation);
+                        deletedSegmentIds.add(chunkLocation.getSegmentId());
+                    }
+                }
+                addDeletedSegmentId(deletedSegmentIds, removeExpiry(messageId));
+                applyTombstone(getTombstoneKey(type, null, messageId), location, deletedSegmentIds);
+                break;
+            case FileStoreConstants.RECORD_EXPIRY_DELETE:
+                Set<Long> expirySegmentIds = new HashSet<>();
+                addDeletedSegmentId(expirySegmentIds, removeExpiry(messageId));
+                applyTombstone(getTombstoneKey(type, null, messageId), location, expirySegmentIds);
+                break;
+            case FileStoreConstants.RECORD_QUEUE:
+                removeTombstone(getTombstoneKey(FileStoreConstants.RECORD_QUEUE_DELETE, name, 0));
+                replaceLocation(queues.put(name, location), location);
+                break;
+            case FileStoreConstants.RECORD_QUEUE_DELETE:
+                RecordLocation removedQueue = queues.remove(name);
+                replaceLocation(removedQueue, null);
+                Set<Long> queueSegmentIds = new HashSet<>();
+                addDeletedSegmentId(queueSegmentIds, removedQueue);
+                applyTombstone(getTombstoneKey(type, name, 0), location, queueSegmentIds);
+                break;
+            case FileStoreConstants.RECORD_RETAINED:
+                removeTombstone(getTombstoneKey(FileStoreConstants.RECORD_RETAINED_DELETE, name, 0));
+                StoredRetained previous = retainedIndex.put(name, new StoredRetained(messageId, location));
+                replaceLocation((null == previous) ? null : previous.location, location);
+                break;
+            case FileStoreConstants.RECORD_RETAINED_DELETE:
+                StoredRetained removed = retainedIndex.remove(name);
+                replaceLocation((null == removed) ? null : removed.location, null);
+                Set<Long> retainedSegmentIds = new HashSet<>();
+                addDeletedSegmentId(retainedSegmentIds, (null == removed) ? null : removed.location);
+                applyTombstone(getTombstoneKey(type, name, 0), location, retainedSegmentIds);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void applyMetadata(StoredMetadata storedMetadata) {
+        removeTombstone(getTombstoneKey(FileStoreConstants.RECORD_METADATA_DELETE, null, storedMetadata.messageId));
+        StoredMetadata previous = metadataIndex.put(storedMetadata.messageId, storedMetadata);
+        if (null != previous) {
+            removeFromQueueIndex(previous);
+            segmentLog.recordDead(previous.location);
+        }
+        getQueueIndex(storedMetadata).add(storedMetadata);
+        segmentLog.recordLive(storedMetadata.location);
+    }
+
+    private void applyContent(long messageId, int offset, RecordLocation location) {
+        ConcurrentSkipListMap<Integer, RecordLocation> chunks = contentIndex.get(messageId);
+        if (null == chunks) {
+            chunks = new ConcurrentSkipListMap<>();
+            contentIndex.put(messageId, chunks);
+        }
+        replaceLocation(chunks.put(offset, location), location);
+    }
+
+    private void applyExpiry(StoredExpiry storedExpiry) {
+        removeTombstone(getTombstoneKey(FileStoreConstants.RECORD_EXPIRY_DELETE, null, storedExpiry.messageId));
+        StoredExpiry previous = expiryIndex.put(storedExpiry.messageId, storedExpiry);
+        replaceLocation((null == previous) ? null : previous.location, storedExpiry.location);
+    }
+
+    /**
+     * Remove the expiry data of a message
+     *
+     * @param messageId id of the message
+     * @return location of the removed expiry record or null if the message had no expiry data
+     */
+    private RecordLocation removeExpiry(long messageId) {
+        StoredExpiry storedExpiry = expiryIndex.remove(messageId);
+        if (null != storedExpiry) {
+            segmentLog.recordDead(storedExpiry.location);
+            return storedExpiry.location;
+        }
+        return null;
+    }
+
+    private static void addDeletedSegmentId(Set<Long> deletedSegmentIds, RecordLocation deletedLocation) {
+        if (null != deletedLocation) {
+            deletedSegmentIds.add(deletedLocation.getSegmentId());
+        }
+    }
+
+    /**
+     * Key of the tombstone of a delete record
+     *
+     * @param type      type of the delete record
+     * @param name      name the record deletes. Null if the record deletes by message id
+     * @param messageId message id the record deletes
+     * @return tombstone key
+     */
+    private static String getTombstoneKey(byte type, String name, long messageId) {
+        return type + ":" + ((null == name) ? Long.toString(messageId) : name);
+    }
+
+    /**
+     * Track a delete record as a tombstone while records it deleted remain in older segments. Without the delete
+     * record those records would be restored when the log is replayed. Tombstone bytes are counted as live data so
+     * that a segment holding them is not compacted over and over again.
+     *
+     * @param key               tombstone key
+     * @param location          location of the delete record
+     * @param deletedSegmentIds segments of the records the delete record removed
+     */
+    private void applyTombstone(String key, RecordLocation location, Set<Long> deletedSegmentIds) {
+        // Records of the same segment go away together with the delete record
+        deletedSegmentIds.remove(location.getSegmentId());
+        Tombstone tombstone = tombstones.get(key);
+        if (null == tombstone) {
+            if (deletedSegmentIds.isEmpty()) {
+                return;
+            }
+            tombstone = new Tombstone();
+            tombstones.put(key, tombstone);
+        }
+        tombstone.segmentIds.addAll(deletedSegmentIds);
+        replaceLocation(tombstone.location, location);
+        tombstone.location = location;
+    }
+
+    /**
+     * Forget the tombstone of a key when a newer record is written for it. The newer record hides the older
+     * records on replay, and a delete record moved after it would remove it.
+     *
+     * @param key tombstone key
+     */
+    private void removeTombstone(String key) {
+        Tombstone tombstone = tombstones.remove(key);
+        if (null != tombstone) {
+            segmentLog.recordDead(tombstone.location);
+        }
+    }
+
+    private boolean isLiveTombstone(String key, RecordLocation location) {
+        Tombstone tombstone = tombstones.get(key);
+        return (null != tombstone) && location.equals(tombstone.location);
+    }
+
+    /**
+     * Drop tombstones which no longer hide records once a segment is compacted
+     *
+     * @param segmentId id of the compacted segment
+     */
+    private void releaseTombstones(long segmentId) {
+        writeLock.lock();
+        try {
+            Iterator<Tombstone> iterator = tombstones.values().iterator();
+            while (iterator.hasNext()) {
+                Tombstone tombstone = iterator.next();
+                tombstone.segmentIds.remove(segmentId);
+                if (tombstone.segmentIds.isEmpty()) {
+                    iterator.remove();
+                    segmentLog.recordDead(tombstone.location);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Update live data accounting when a record replaces another
+     *
+     * @param previous location of the replaced record. Ignored if null
+     * @param current  location of the new record. Ignored if null
+     */
+    private void replaceLocation(RecordLocation previous, RecordLocation current) {
+        if (null != previous) {
+            segmentLog.recordDead(previous);
+        }
+        if (null != current) {
+            segmentLog.recordLive(current);
+        }
+    }
+
+    private QueueIndex getQueueIndex(StoredMetadata storedMetadata) {
+        ConcurrentHashMap<String, QueueIndex> indexes;
+        String indexName;
+        if (null == storedMetadata.dlcQueueName) {
+            indexes = queueIndexes;
+            indexName = storedMetadata.queueName;
+        } else {
+            indexes = dlcIndexes;
+            indexName = storedMetadata.dlcQueueName;
+        }
+        QueueIndex queueIndex = indexes.get(indexName);
+        if (null == queueIndex) {
+            queueIndex = new QueueIndex();
+            indexes.put(indexName, queueIndex);
+        }
+        return queueIndex;
+    }
+
+    private void removeFromQueueIndex(StoredMetadata storedMetadata) {
+        getQueueIndex(storedMetadata).remove(storedMetadata.messageId);
+    }
+
+    /**
+     * Append a metadata record holding the full state of a message. Must be called holding the write lock
+     */
+    private void appendMetadata(long messageId, String queueName, String dlcQueueName, byte[] metadata)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(metadata.length + 64);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeLong(messageId);
+        output.writeUTF(queueName);
+        output.writeUTF((null == dlcQueueName) ? "" : dlcQueueName);
+        writeBytes(output, metadata);
+        output.flush();
+        RecordLocation location = segmentLog.append(FileStoreConstants.RECORD_METADATA, bytes.toByteArray());
+        applyMetadata(new StoredMetadata(messageId, queueName, dlcQueueName, location));
+    }
+
+    /**
+     * Append a content chunk record. Must be called holding the write lock
+     */
+    private void appendContent(AndesMessagePart messagePart) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(messagePart.getDataLength() + 16);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeLong(messagePart.getMessageID());
+        output.writeInt(messagePart.getOffset());
+        writeBytes(output, messagePart.getData());
+        output.flush();
+        RecordLocation location = segmentLog.append(FileStoreConstants.RECORD_CONTENT, bytes.toByteArray());
+        applyContent(messagePart.getMessageID(), messagePart.getOffset(), location);
+    }
+
+    /**
+     * Append an expiry record. Must be called holding the write lock
+     */
+    private void appendExpiry(long messageId, long expirationTime, boolean isMessageForTopic, String destination)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeLong(messageId);
+        output.writeLong(expirationTime);
+        output.writeBoolean(isMessageForTopic);
+        output.writeUTF(destination);
+        output.flush();
+        RecordLocation location = segmentLog.append(FileStoreConstants.RECORD_EXPIRY, bytes.toByteArray());
+        applyExpiry(new StoredExpiry(messageId, expirationTime, location));
+    }
+
+    private byte[] encodeRetained(AndesMessage message) throws IOException {
+        AndesMessageMetadata metadata = message.getMetadata();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeUTF(metadata.getDestination());
+        output.writeLong(metadata.getMessageID());
+        writeBytes(output, metadata.getMetadata());
+        output.writeInt(message.getContentChunkList().size());
+        for (AndesMessagePart messagePart : message.getContentChunkList()) {
+            output.writeInt(messagePart.getOffset());
+            writeBytes(output, messagePart.getData());
+        }
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeMessageId(long messageId) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeLong(messageId);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeString(String value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeUTF(value);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private byte[] readMetadataBytes(StoredMetadata storedMetadata) throws IOException {
+        DataInputStream input = toInput(segmentLog.read(storedMetadata.location));
+        input.readLong();
+        input.readUTF();
+        input.readUTF();
+        return readBytes(input);
+    }
+
+    private AndesMessagePart readMessagePart(RecordLocation location) throws IOException {
+        DataInputStream input = toInput(segmentLog.read(location));
+        AndesMessagePart messagePart = new AndesMessagePart();
+        messagePart.setMessageID(input.readLong());
+        messagePart.setOffSet(input.readInt());
+        byte[] data = readBytes(input);
+        messagePart.setData(data);
+        messagePart.setDataLength(data.length);
+        return messagePart;
+    }
+
+    private static void writeBytes(DataOutputStream output, byte[] data) throws IOException {
+        output.writeInt(data.length);
+        output.write(data);
+    }
+
+    private static byte[] readBytes(DataInputStream input) throws IOException {
+        byte[] data = new byte[input.readInt()];
+        input.readFully(data);
+        return data;
+    }
+
+    private static DataInputStream toInput(byte[] payload) {
+        return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+
+    /**
+     * Location and queue of the latest metadata record of a message
+     */
+    private static final class StoredMetadata {
+
+        private final long messageId;
+
+        /**
+         * Storage queue of the message
+         */
+        private final String queueName;
+
+        /**
+         * Dead letter channel the message is in. Null if the message is not in a dead letter channel
+         */
+        private final String dlcQueueName;
+
+        private final RecordLocation location;
+
+        private StoredMetadata(long messageId, String queueName, String dlcQueueName, RecordLocation location) {
+            this.messageId = messageId;
+            this.queueName = queueName;
+            this.dlcQueueName = dlcQueueName;
+            this.location = location;
+        }
+    }
+
+    /**
+     * Location of the expiry record of a message
+     */
+    private static final class StoredExpiry {
+
+        private final long messageId;
+
+        private final long expirationTime;
+
+        private final RecordLocation location;
+
+        private StoredExpiry(long messageId, long expirationTime, RecordLocation location) {
+            this.messageId = messageId;
+            this.expirationTime = expirationTime;
+            this.location = location;
+        }
+    }
+
+    /**
+     * Location of the retained message record of a topic
+     */
+    private static final class StoredRetained {
+
+        private final long messageId;
+
+        private final RecordLocation location;
+
+        private StoredRetained(long messageId, RecordLocation location) {
+            this.messageId = messageId;
+            this.location = location;
+        }
+    }
+
+    /**
+     * Delete record kept while the records it deleted remain in older segments. Modified only while holding the
+     * write lock
+     */
+    private static final class Tombstone {
+
+        private RecordLocation location;
+
+        /**
+         * Segments holding records removed by the delete record
+         */
+        private final Set<Long> segmentIds = new HashSet<>();
+    }
+
+    /**
+     * Messages of a queue ordered by message id. Modified only while holding the write lock
+     */
+    private static final class QueueIndex {
+
+        private final ConcurrentNavigableMap<Long, StoredMetadata> messages = new ConcurrentSkipListMap<>();
+
+        private final AtomicInteger size = new AtomicInteger(0);
+
+        private void add(StoredMetadata storedMetadata) {
+            if (null == messages.put(storedMetadata.messageId, storedMetadata)) {
+                size.incrementAndGet();
+            }
+        }
+
+        private void remove(long messageId) {
+            if (null != messages.remove(messageId)) {
+                size.decrementAndGet();
+            }
+        }
+    }
+}
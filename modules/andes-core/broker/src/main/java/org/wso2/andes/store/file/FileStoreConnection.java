@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.store.file;
+
+import org.wso2.andes.configuration.util.ConfigurationProperties;
+import org.wso2.andes.kernel.AndesException;
+import org.wso2.andes.kernel.DurableStoreConnection;
+
+import java.io.File;
+
+/**
+ * Connection to the segment log of the file based message store. The log is created using the
+ * store directory and segment size given in the message store properties
+ */
+public class FileStoreConnection extends DurableStoreConnection {
+
+    private SegmentLog segmentLog;
+
+    @Override
+    public void initialize(ConfigurationProperties connectionProperties) throws AndesException {
+        super.initialize(connectionProperties);
+
+        String storeDirectory = connectionProperties.getProperty(FileStoreConstants.PROP_STORE_DIRECTORY,
+                                                                 FileStoreConstants.DEFAULT_STORE_DIRECTORY);
+        int segmentSizeInMB = connectionProperties.getProperty(FileStoreConstants.PROP_SEGMENT_SIZE,
+                                                               FileStoreConstants.DEFAULT_SEGMENT_SIZE);
+        if (segmentSizeInMB <= 0 || segmentSizeInMB > 1024) {
+            throw new AndesException("Invalid segment size " + segmentSizeInMB + "MB for the file message store. "
+                                     + "Segment size should be between 1MB and 1024MB");
+        }
+        segmentLog = new SegmentLog(new File(storeDirectory), segmentSizeInMB * 1024 * 1024);
+    }
+
+    @Override
+    public void close() {
+        if (null != segmentLog) {
+            segmentLog.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the {@link SegmentLog} of the store
+     */
+    @Override
+    public Object getConnection() {
+        return segmentLog;
+    }
+}
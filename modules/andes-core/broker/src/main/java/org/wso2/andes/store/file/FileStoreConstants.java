@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.store.file;
+
+/**
+ * Constants used by the file based message store
+ */
+public class FileStoreConstants {
+
+    /**
+     * Message store property giving the directory the segment files are written to
+     */
+    protected static final String PROP_STORE_DIRECTORY = "storeDirectory";
+
+    /**
+     * Message store property giving the size of a single segment file in mega bytes
+     */
+    protected static final String PROP_SEGMENT_SIZE = "segmentSizeInMB";
+
+    /**
+     * Message store property giving the interval between two compaction runs in seconds
+     */
+    protected static final String PROP_COMPACTION_INTERVAL = "compactionIntervalInSeconds";
+
+    /**
+     * Message store property giving the maximum percentage of live data an old segment can have to be compacted
+     */
+    protected static final String PROP_COMPACTION_LIVE_DATA_PERCENTAGE = "compactionLiveDataPercentage";
+
+    protected static final String DEFAULT_STORE_DIRECTORY = "andes-message-store";
+
+    protected static final int DEFAULT_SEGMENT_SIZE = 64;
+
+    protected static final int DEFAULT_COMPACTION_INTERVAL = 30;
+
+    protected static final int DEFAULT_COMPACTION_LIVE_DATA_PERCENTAGE = 50;
+
+    /**
+     * Prefix and suffix of the segment file names. The segment id is written in between
+     */
+    protected static final String SEGMENT_FILE_PREFIX = "segment-";
+    protected static final String SEGMENT_FILE_SUFFIX = ".log";
+
+    /**
+     * File used to check whether the store directory is readable and writable
+     */
+    protected static final String HEALTH_CHECK_FILE = "health-check";
+
+    /**
+     * Record types written to the log. A metadata record holds the latest state of a message and
+     * replaces any earlier metadata record of the same message.
+     */
+    protected static final byte RECORD_METADATA = 1;
+    protected static final byte RECORD_CONTENT = 2;
+    protected static final byte RECORD_METADATA_DELETE = 3;
+    protected static final byte RECORD_EXPIRY = 4;
+    protected static final byte RECORD_EXPIRY_DELETE = 5;
+    protected static final byte RECORD_QUEUE = 6;
+    protected static final byte RECORD_QUEUE_DELETE = 7;
+    protected static final byte RECORD_RETAINED = 8;
+    protected static final byte RECORD_RETAINED_DELETE = 9;
+
+    protected static final String TASK_STORING_MESSAGES = "storing messages";
+    protected static final String TASK_DELETING_MESSAGES = "deleting messages";
+    protected static final String TASK_COMPACTING = "compacting segments";
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.store.file;
+
+/**
+ * Position of a record written to the {@link SegmentLog}
+ */
+final class RecordLocation {
+
+    /**
+     * Id of the segment the record is written to
+     */
+    private final long segmentId;
+
+    /**
+     * Position of the record header within the segment
+     */
+    private final int position;
+
+    /**
+     * Length of the record including the header
+     */
+    private final int length;
+
+    RecordLocation(long segmentId, int position, int length) {
+        this.segmentId = segmentId;
+        this.position = position;
+        this.length = length;
+    }
+
+    long getSegmentId() {
+        return segmentId;
+    }
+
+    int getPosition() {
+        return position;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof RecordLocation)) {
+            return false;
+        }
+        RecordLocation location = (RecordLocation) other;
+        return (segmentId == location.segmentId) && (position == location.position);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (int) (segmentId ^ (segmentId >>> 32)) + position;
+    }
+
+    @Override
+    public String toString() {
+        return "segment " + segmentId + " position " + position;
+    }
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.store.file;
+
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log made of memory mapped segment files. Records are only appended to the last
+ * (active) segment. When the active segment is full a new segment is created.
+ * <p/>
+ * Each record is written as [int payload length][int CRC32 of payload][byte record type][payload].
+ * A record with a zero length or a CRC mismatch marks the end of the written data of a segment, so
+ * a record torn by a crash is ignored when the log is replayed.
+ * <p/>
+ * Appended records are made durable with {@link #sync(long)}. Concurrent callers waiting on a sync
+ * are served by a single force of the segment (group commit).
+ */
+class SegmentLog {
+
+    private static final Logger log = Logger.getLogger(SegmentLog.class);
+
+    /**
+     * Size of the header written in front of each record
+     */
+    static final int RECORD_HEADER_SIZE = 9;
+
+    /**
+     * Visitor used to go through the records of the log
+     */
+    interface RecordVisitor {
+
+        /**
+         * Called for each record in the order the records are written
+         *
+         * @param type     type of the record
+         * @param payload  payload of the record
+         * @param location location of the record
+         * @throws IOException if the record cannot be processed
+         */
+        void visit(byte type, byte[] payload, RecordLocation location) throws IOException;
+    }
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    /**
+     * All segments including segments which are retired but may still be read
+     */
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private Segment activeSegment;
+
+    /**
+     * Log position up to which the written records are forced to the disk
+     */
+    private volatile long flushedPosition;
+
+    private final Object flushLock = new Object();
+
+    SegmentLog(File directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Open the segments in the log directory and replay all records written to them
+     *
+     * @param visitor visitor called for each record in the log
+     * @throws IOException if the segments cannot be read
+     */
+    synchronized void open(RecordVisitor visitor) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create message store directory " + directory.getAbsolutePath());
+        }
+
+        File[] segmentFiles = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(FileStoreConstants.SEGMENT_FILE_PREFIX)
+                       && name.endsWith(FileStoreConstants.SEGMENT_FILE_SUFFIX);
+            }
+        });
+
+        List<Long> segmentIds = new ArrayList<>();
+        if (null != segmentFiles) {
+            for (File segmentFile : segmentFiles) {
+                segmentIds.add(getSegmentId(segmentFile.getName()));
+            }
+        }
+        Collections.sort(segmentIds);
+
+        for (Long segmentId : segmentIds) {
+            Segment segment = mapSegment(segmentId, false);
+            segments.put(segmentId, segment);
+            segment.writePosition = readRecords(segment, segment.buffer.capacity(), visitor);
+        }
+
+        if (segments.isEmpty()) {
+            activeSegment = mapSegment(0, true);
+            segments.put(activeSegment.id, activeSegment);
+        } else {
+            activeSegment = segments.lastEntry().getValue();
+        }
+        flushedPosition = toLogPosition(activeSegment.id, activeSegment.writePosition);
+
+        log.info("Opened " + segments.size() + " segment(s) in " + directory.getAbsolutePath());
+    }
+
+    /**
+     * Append a record to the active segment
+     *
+     * @param type    type of the record
+     * @param payload payload of the record
+     * @return location of the written record
+     * @throws IOException if the record cannot be written
+     */
+    synchronized RecordLocation append(byte type, byte[] payload) throws IOException {
+        int recordSize = RECORD_HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize) {
+            throw new IOException("Record of " + recordSize + " bytes does not fit in a segment of "
+                                  + segmentSize + " bytes");
+        }
+        if (activeSegment.writePosition + recordSize > activeSegment.buffer.capacity()) {
+            rollSegment();
+        }
+
+        int position = activeSegment.writePosition;
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer buffer = activeSegment.buffer.duplicate();
+        buffer.position(position + RECORD_HEADER_SIZE);
+        buffer.put(payload);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.put(position + 8, type);
+        buffer.putInt(position, payload.length);
+
+        activeSegment.writePosition = position + recordSize;
+        return new RecordLocation(activeSegment.id, position, recordSize);
+    }
+
+    /**
+     * Read the payload of a record
+     *
+     * @param location location of the record
+     * @return payload of the record
+     * @throws IOException if the segment of the record is no longer available
+     */
+    byte[] read(RecordLocation location) throws IOException {
+        Segment segment = segments.get(location.getSegmentId());
+        if (null == segment) {
+            throw new IOException("Segment of record at " + location + " is no longer available");
+        }
+        byte[] payload = new byte[location.getLength() - RECORD_HEADER_SIZE];
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(location.getPosition() + RECORD_HEADER_SIZE);
+        buffer.get(payload);
+        return payload;
+    }
+
+    /**
+     * Go through the records written to a segment
+     *
+     * @param segmentId id of the segment
+     * @param visitor   visitor called for each record of the segment
+     * @throws IOException if the segment cannot be read
+     */
+    void iterate(long segmentId, RecordVisitor visitor) throws IOException {
+        Segment segment = segments.get(segmentId);
+        if (null != segment) {
+            readRecords(segment, segment.writePosition, visitor);
+        }
+    }
+
+    /**
+     * @return position of the end of the log. Records written up to this position can be made
+     * durable with {@link #sync(long)}
+     */
+    synchronized long getWritePosition() {
+        return toLogPosition(activeSegment.id, activeSegment.writePosition);
+    }
+
+    /**
+     * Force the records written up to the given log position to the disk. If another thread has
+     * already forced the log past the position, this returns without forcing again.
+     *
+     * @param position log position returned by {@link #getWritePosition()}
+     */
+    void sync(long position) {
+        if (position <= flushedPosition) {
+            return;
+        }
+        synchronized (flushLock) {
+            if (position <= flushedPosition) {
+                return;
+            }
+            Segment segment;
+            long targetPosition;
+            synchronized (this) {
+                segment = activeSegment;
+                targetPosition = toLogPosition(segment.id, segment.writePosition);
+            }
+            segment.buffer.force();
+            flushedPosition = targetPosition;
+        }
+    }
+
+    /**
+     * Count a record as live. Used to decide which segments are worth compacting
+     *
+     * @param location location of the record
+     */
+    void recordLive(RecordLocation location) {
+        Segment segment = segments.get(location.getSegmentId());
+        if (null != segment) {
+            segment.liveBytes.addAndGet(location.getLength());
+        }
+    }
+
+    /**
+     * Count a record as no longer live
+     *
+     * @param location location of the record
+     */
+    void recordDead(RecordLocation location) {
+        Segment segment = segments.get(location.getSegmentId());
+        if (null != segment) {
+            segment.liveBytes.addAndGet(-location.getLength());
+        }
+    }
+
+    /**
+     * Find the segment to compact next. Every sealed segment is considered and the one with the lowest
+     * percentage of live data is chosen. Delete records which still hide records of older segments
+     * are counted as live data by the store, so they are moved instead of being dropped.
+     *
+     * @param liveDataPercentage maximum percentage of live data the segment can have
+     * @return id of the segment or null if no segment should be compacted
+     */
+    Long getCompactionCandidate(int liveDataPercentage) {
+        Segment active;
+        synchronized (this) {
+            active = activeSegment;
+        }
+        Segment candidate = null;
+        for (Segment segment : segments.values()) {
+            if (segment.retired || segment == active) {
+                continue;
+            }
+            long liveBytes = segment.liveBytes.get();
+            if (liveBytes * 100 <= (long) liveDataPercentage * segment.writePosition
+                && (null == candidate
+                    || liveBytes * candidate.writePosition < candidate.liveBytes.get() * segment.writePosition)) {
+                candidate = segment;
+            }
+        }
+        return (null == candidate) ? null : candidate.id;
+    }
+
+    /**
+     * Delete the file of a segment. Records of the segment stay readable until
+     * {@link #releaseRetiredSegments()} is called, since readers may still hold their locations.
+     *
+     * @param segmentId id of the segment
+     */
+    void retireSegment(long segmentId) {
+        Segment segment = segments.get(segmentId);
+        if (null != segment) {
+            segment.retired = true;
+            if (!segment.file.delete()) {
+                log.warn("Could not delete segment file " + segment.file.getAbsolutePath());
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Segment " + segmentId + " compacted");
+            }
+        }
+    }
+
+    /**
+     * Forget segments retired earlier
+     */
+    void releaseRetiredSegments() {
+        for (Segment segment : segments.values()) {
+            if (segment.retired) {
+                segments.remove(segment.id);
+            }
+        }
+    }
+
+    /**
+     * Force the active segment to the disk
+     */
+    void close() {
+        synchronized (flushLock) {
+            synchronized (this) {
+                if (null != activeSegment) {
+                    activeSegment.buffer.force();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return directory of the segment files
+     */
+    File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Force the active segment and continue with a new segment
+     *
+     * @throws IOException if the new segment cannot be created
+     */
+    private void rollSegment() throws IOException {
+        activeSegment.buffer.force();
+        Segment segment = mapSegment(activeSegment.id + 1, true);
+        segments.put(segment.id, segment);
+        activeSegment = segment;
+    }
+
+    /**
+     * Read records of a segment until the given limit or the first invalid record
+     *
+     * @return position after the last valid record
+     */
+    private int readRecords(Segment segment, int limit, RecordVisitor visitor) throws IOException {
+        ByteBuffer buffer = segment.buffer.duplicate();
+        int position = 0;
+        while (position + RECORD_HEADER_SIZE <= limit) {
+            int length = buffer.getInt(position);
+            if ((length <= 0) || (position + RECORD_HEADER_SIZE + length > limit)) {
+                break;
+            }
+            int checksum = buffer.getInt(position + 4);
+            byte type = buffer.get(position + 8);
+            byte[] payload = new byte[length];
+            buffer.position(position + RECORD_HEADER_SIZE);
+            buffer.get(payload);
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                log.warn("Ignoring corrupted record at position " + position + " of segment "
+                         + segment.file.getName());
+                break;
+            }
+            visitor.visit(type, payload, new RecordLocation(segment.id, position,
+                                                            RECORD_HEADER_SIZE + length));
+            position = position + RECORD_HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private Segment mapSegment(long segmentId, boolean create) throws IOException {
+        File file = new File(directory, FileStoreConstants.SEGMENT_FILE_PREFIX + String.format("%020d", segmentId)
+                                        + FileStoreConstants.SEGMENT_FILE_SUFFIX);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            if (create) {
+                randomAccessFile.setLength(segmentSize);
+            }
+            // The mapping stays valid after the file is closed
+            MappedByteBuffer buffer = randomAccessFile.getChannel()
+                                                      .map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length());
+            return new Segment(segmentId, file, buffer);
+        }
+    }
+
+    private static long getSegmentId(String fileName) {
+        return Long.parseLong(fileName.substring(FileStoreConstants.SEGMENT_FILE_PREFIX.length(),
+                                                 fileName.length() - FileStoreConstants.SEGMENT_FILE_SUFFIX.length()));
+    }
+
+    /**
+     * Log positions grow with the segment id and the position within the segment
+     */
+    private static long toLogPosition(long segmentId, int position) {
+        return (segmentId << 32) | position;
+    }
+
+    /**
+     * A single memory mapped segment file
+     */
+    private static final class Segment {
+
+        private final long id;
+
+        private final File file;
+
+        private final MappedByteBuffer buffer;
+
+        /**
+         * Position after the last record written to the segment
+         */
+        private volatile int writePosition;
+
+        /**
+         * Number of bytes of the segment which belong to live records
+         */
+        private final AtomicLong liveBytes = new AtomicLong(0);
+
+        private volatile boolean retired;
+
+        private Segment(long id, File file, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -812,6 +812,18 @@ public class RDBMSConstants {
             + " SET " + DLC_QUEUE_ID + "=?"
             + " WHERE " + MESSAGE_ID + "=?";
 
+    /**
+     * Prepared statement to copy the content of a message to a new message ID within the store
+     */
+    protected static final String PS_COPY_MESSAGE_CONTENT =
+            "INSERT INTO " + CONTENT_TABLE + " ("
+            + MESSAGE_ID + ","
+            + MSG_OFFSET + ","
+            + MESSAGE_CONTENT + ")"
+            + " SELECT ?," + MSG_OFFSET + "," + MESSAGE_CONTENT
+            + " FROM " + CONTENT_TABLE
+            + " WHERE " + MESSAGE_ID + "=?";
+
 
     
     
@@ -828,6 +840,7 @@ public class RDBMSConstants {
     protected static final String TASK_ADDING_MESSAGES = "adding messages";
     protected static final String TASK_DELETING_MESSAGES = "deleting messages";
     protected static final String TASK_MOVING_METADATA_TO_DLC = "moving message metadata to dlc.";
+    protected static final String TASK_RESTORING_MESSAGES_FROM_DLC = "restoring messages from dlc.";
 
     protected static final String TASK_ADDING_METADATA_TO_QUEUE = "adding metadata to destination. ";
     protected static final String TASK_ADDING_METADATA_LIST_TO_QUEUE = "adding metadata list to destination. ";
@@ -846,6 +859,8 @@ public class RDBMSConstants {
     protected static final String TASK_RETRIEVING_NEXT_N_METADATA_IN_DLC_FOR_QUEUE = "retrieving metadata list in DLC "
                                                                                      + "for queue. ";
     protected static final String TASK_RETRIEVING_NEXT_N_METADATA_FROM_DLC = "retrieving metadata list from DLC ";
+    protected static final String TASK_RETRIEVING_METADATA_OF_MESSAGES_FROM_DLC = "retrieving metadata of messages "
+                                                                                  + "from DLC ";
     protected static final String TASK_RETRIEVING_NEXT_N_MESSAGE_IDS_OF_QUEUE = "retrieving message ID list from "
                                                                                 + "queue. ";
     protected static final String TASK_DELETING_FROM_EXPIRY_TABLE = "deleting from expiry table.";
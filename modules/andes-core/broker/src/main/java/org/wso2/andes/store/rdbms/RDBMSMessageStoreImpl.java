@@ -41,6 +41,7 @@ import org.wso2.andes.store.cache.MessageCacheFactory;
 import org.wso2.andes.tools.utils.MessageTracer;
 import org.wso2.carbon.metrics.manager.Level;
 import org.wso2.carbon.metrics.manager.MetricManager;
+import org.wso2.carbon.metrics.manager.Timer;
 import org.wso2.carbon.metrics.manager.Timer.Context;
 
 import java.sql.BatchUpdateException;
@@ -49,14 +50,20 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import static org.wso2.andes.store.rdbms.RDBMSConstants.CONTENT_TABLE;
+import static org.wso2.andes.store.rdbms.RDBMSConstants.DLC_QUEUE_ID;
 import static org.wso2.andes.store.rdbms.RDBMSConstants.MESSAGE_CONTENT;
 import static org.wso2.andes.store.rdbms.RDBMSConstants.MESSAGE_ID;
+import static org.wso2.andes.store.rdbms.RDBMSConstants.METADATA;
+import static org.wso2.andes.store.rdbms.RDBMSConstants.METADATA_TABLE;
 import static org.wso2.andes.store.rdbms.RDBMSConstants.MSG_OFFSET;
 import static org.wso2.andes.store.rdbms.RDBMSConstants.PS_INSERT_MESSAGE_PART;
 import static org.wso2.andes.store.rdbms.RDBMSConstants.PS_INSERT_METADATA;
@@ -71,6 +78,14 @@ public class RDBMSMessageStoreImpl implements MessageStore {
    
     private static final Logger log = Logger.getLogger(RDBMSMessageStoreImpl.class);
 
+    /**
+     * Number of message ids bound to a single content read or message delete statement. Statements taking a list
+     * of messages are built with one of these fixed numbers of parameters, so that the database and the driver see
+     * only a few distinct statements and can reuse their plans. Unused parameters of a statement are filled with a
+     * repeated id.
+     */
+    private static final int[] PARAMETER_BUCKET_SIZES = {1, 4, 16, 64, 256};
+
     /**
      * Cache queue name to queue_id mapping to avoid extra sql queries
      */
@@ -89,19 +104,84 @@ public class RDBMSMessageStoreImpl implements MessageStore {
     
     /**
      * Partially created prepared statement to retrieve content of multiple messages using IN operator
-     * this will be completed on the fly when the request comes
+     * this will be completed with the parameters of a content read bucket
      */
     private static final String PS_SELECT_CONTENT_PART =
             "SELECT " + MESSAGE_CONTENT + ", " + MESSAGE_ID + ", " + MSG_OFFSET +
                     " FROM " + CONTENT_TABLE +
                     " WHERE " + MESSAGE_ID + " IN (";
 
+    /**
+     * Partially created prepared statement to delete non DLC messages using IN operator
+     * this will be completed with the parameters of a delete bucket
+     */
+    private static final String PS_DELETE_METADATA_PART =
+            "DELETE FROM " + METADATA_TABLE +
+                    " WHERE " + DLC_QUEUE_ID + "=-1" +
+                    " AND " + MESSAGE_ID + " IN (";
+
+    /**
+     * Partially created prepared statement to retrieve metadata of multiple messages in a DLC using IN operator
+     * this will be completed with the parameters of a metadata read bucket
+     */
+    private static final String PS_SELECT_METADATA_IN_DLC_PART =
+            "SELECT " + MESSAGE_ID + ", " + METADATA +
+                    " FROM " + METADATA_TABLE +
+                    " WHERE " + DLC_QUEUE_ID + "=?" +
+                    " AND " + MESSAGE_ID + " IN (";
+
+    /**
+     * Content read statements for each of the {@link #PARAMETER_BUCKET_SIZES}
+     */
+    private static final String[] PS_SELECT_CONTENT_BUCKETS = new String[PARAMETER_BUCKET_SIZES.length];
+
+    /**
+     * Message delete statements for each of the {@link #PARAMETER_BUCKET_SIZES}
+     */
+    private static final String[] PS_DELETE_METADATA_BUCKETS = new String[PARAMETER_BUCKET_SIZES.length];
+
+    /**
+     * DLC metadata read statements for each of the {@link #PARAMETER_BUCKET_SIZES}
+     */
+    private static final String[] PS_SELECT_METADATA_IN_DLC_BUCKETS = new String[PARAMETER_BUCKET_SIZES.length];
+
+    static {
+        for (int i = 0; i < PARAMETER_BUCKET_SIZES.length; i++) {
+            PS_SELECT_CONTENT_BUCKETS[i] = getSelectContentPreparedStmt(PARAMETER_BUCKET_SIZES[i]);
+            PS_DELETE_METADATA_BUCKETS[i] = getInClausePreparedStmt(PS_DELETE_METADATA_PART,
+                                                                    PARAMETER_BUCKET_SIZES[i]);
+            PS_SELECT_METADATA_IN_DLC_BUCKETS[i] = getInClausePreparedStmt(PS_SELECT_METADATA_IN_DLC_PART,
+                                                                           PARAMETER_BUCKET_SIZES[i]);
+        }
+    }
+
     /**
      * The cache which holds the queue mappings(queue name to queue id) in memory
      * In the absence of a queried queue name in the cache, the queue id is loaded from the database
      */
     private LoadingCache<String, Integer> queueMappings;
 
+    /**
+     * Timers of the store operations. Resolved once when the store is initialised since the store operations are
+     * in the message publish and delivery paths
+     */
+    private Timer dbReadTimer;
+    private Timer dbWriteTimer;
+    private Timer addMessagePartTimer;
+    private Timer getContentTimer;
+    private Timer getContentBatchTimer;
+    private Timer moveMetadataToDlcTimer;
+    private Timer updateMetaDataInformationTimer;
+    private Timer addMetaDataToBatchTimer;
+    private Timer getMetaDataTimer;
+    private Timer getMetaDataListTimer;
+    private Timer getNextMessageIdsFromQueueTimer;
+    private Timer getNextMessageMetadataFromQueueTimer;
+    private Timer getNextMessageMetadataInDlcForQueueTimer;
+    private Timer getNextMessageMetadataInDlcTimer;
+    private Timer deleteMessageMetaDataFromQueueTimer;
+    private Timer deleteMessageMetaDataAndContentTimer;
+
     /**
      * {@inheritDoc}
      */
@@ -117,11 +197,40 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         
         this.messageCache = (new MessageCacheFactory()).create();
         initializeQueueMappingCache();
+        initializeTimers();
 
         log.info("Message Store initialised");
         return rdbmsConnection;
     }
 
+    /**
+     * Resolve the metric timers of the store operations
+     */
+    private void initializeTimers() {
+        dbReadTimer = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ);
+        dbWriteTimer = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE);
+        addMessagePartTimer = MetricManager.timer(Level.INFO, MetricsConstants.ADD_MESSAGE_PART);
+        getContentTimer = MetricManager.timer(Level.INFO, MetricsConstants.GET_CONTENT);
+        getContentBatchTimer = MetricManager.timer(Level.INFO, MetricsConstants.GET_CONTENT_BATCH);
+        moveMetadataToDlcTimer = MetricManager.timer(Level.INFO, MetricsConstants.MOVE_METADATA_TO_DLC);
+        updateMetaDataInformationTimer = MetricManager.timer(Level.INFO, MetricsConstants.UPDATE_META_DATA_INFORMATION);
+        addMetaDataToBatchTimer = MetricManager.timer(Level.INFO, MetricsConstants.ADD_META_DATA_TO_BATCH);
+        getMetaDataTimer = MetricManager.timer(Level.INFO, MetricsConstants.GET_META_DATA);
+        getMetaDataListTimer = MetricManager.timer(Level.INFO, MetricsConstants.GET_META_DATA_LIST);
+        getNextMessageIdsFromQueueTimer = MetricManager.timer(Level.INFO,
+                MetricsConstants.GET_NEXT_MESSAGE_IDS_FROM_QUEUE);
+        getNextMessageMetadataFromQueueTimer = MetricManager.timer(Level.INFO,
+                MetricsConstants.GET_NEXT_MESSAGE_METADATA_FROM_QUEUE);
+        getNextMessageMetadataInDlcForQueueTimer = MetricManager.timer(Level.INFO,
+                MetricsConstants.GET_NEXT_MESSAGE_METADATA_IN_DLC_FOR_QUEUE);
+        getNextMessageMetadataInDlcTimer = MetricManager.timer(Level.INFO,
+                MetricsConstants.GET_NEXT_MESSAGE_METADATA_IN_DLC);
+        deleteMessageMetaDataFromQueueTimer = MetricManager.timer(Level.INFO,
+                MetricsConstants.DELETE_MESSAGE_META_DATA_FROM_QUEUE);
+        deleteMessageMetaDataAndContentTimer = MetricManager.timer(Level.INFO,
+                MetricsConstants.DELETE_MESSAGE_META_DATA_AND_CONTENT);
+    }
+
     /**
      * Method to initialize the queue mapping cache.
      *
@@ -169,8 +278,8 @@ public class RDBMSMessageStoreImpl implements MessageStore {
     public void storeMessagePart(List<AndesMessagePart> partList) throws AndesException {
         Connection connection = null;
         PreparedStatement preparedStatement = null;
-        Context messageContentAdditionContext = MetricManager.timer(Level.INFO, MetricsConstants.ADD_MESSAGE_PART).start();
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context messageContentAdditionContext = addMessagePartTimer.start();
+        Context contextWrite = dbWriteTimer.start();
         
         try {
             connection = getConnection();
@@ -217,7 +326,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
     public AndesMessagePart getContent(long messageId, int offsetValue) throws AndesException {
 
         AndesMessagePart messagePart = null;
-        Context messageContentRetrievalContext = MetricManager.timer(Level.INFO, MetricsConstants.GET_CONTENT).start();
+        Context messageContentRetrievalContext = getContentTimer.start();
         try {
             messagePart = getContentFromCache(messageId, offsetValue);
             if (null == messagePart) {
@@ -246,7 +355,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         PreparedStatement preparedStatement = null;
         ResultSet results = null;
         
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context contextRead = dbReadTimer.start();
         try {
             connection = getConnection();
             preparedStatement = connection.prepareStatement(RDBMSConstants.PS_RETRIEVE_MESSAGE_PART);
@@ -275,7 +384,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
     public Map<Long, List<AndesMessagePart>> getContent(List<Long> messageIDList) throws AndesException {
 
         Map<Long, List<AndesMessagePart>> contentList = new HashMap<>(messageIDList.size());
-        Context messageContentRetrievalContext = MetricManager.timer(Level.INFO, MetricsConstants.GET_CONTENT_BATCH).start();
+        Context messageContentRetrievalContext = getContentBatchTimer.start();
         try {
             if (messageIDList.isEmpty()) {
                 return contentList;
@@ -296,7 +405,46 @@ public class RDBMSMessageStoreImpl implements MessageStore {
     }
     
     /**
-     * Utility method to retrieve content given the list of messages Ids.
+     * {@inheritDoc}
+     */
+    @Override
+    public void prefetchContent(List<? extends AndesMessageMetadata> metadataList) throws AndesException {
+
+        Map<Long, AndesMessageMetadata> metadataToFetch = new HashMap<>(metadataList.size());
+        for (AndesMessageMetadata metadata : metadataList) {
+            if (null == getMessageFromCache(metadata.getMessageID())) {
+                metadataToFetch.put(metadata.getMessageID(), metadata);
+            }
+        }
+
+        if (metadataToFetch.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<AndesMessagePart>> contentList = new HashMap<>(metadataToFetch.size());
+        fillContentFromStorage(new ArrayList<>(metadataToFetch.keySet()), contentList);
+
+        for (Map.Entry<Long, List<AndesMessagePart>> entry : contentList.entrySet()) {
+            List<AndesMessagePart> partList = entry.getValue();
+            // Cache looks up chunks by index, hence chunks should be in offset order
+            Collections.sort(partList, new Comparator<AndesMessagePart>() {
+                @Override
+                public int compare(AndesMessagePart part1, AndesMessagePart part2) {
+                    return Integer.compare(part1.getOffset(), part2.getOffset());
+                }
+            });
+
+            AndesMessageMetadata metadata = metadataToFetch.get(entry.getKey());
+            AndesMessage message = new AndesMessage(metadata.shallowCopy(metadata.getMessageID()));
+            message.setChunkList(partList);
+            addToCache(message);
+        }
+    }
+
+    /**
+     * Utility method to retrieve content given the list of messages Ids. Ids are read in buckets of the
+     * {@link #PARAMETER_BUCKET_SIZES} using a single connection. Statement of each bucket size is prepared at most
+     * once per call.
      * @param messageIDList message ids 
      * @param contentList this list will be filled with content retrieved from database
      * @throws AndesException an error
@@ -305,28 +453,46 @@ public class RDBMSMessageStoreImpl implements MessageStore {
                                         Map<Long, List<AndesMessagePart>> contentList)
                                                                                       throws AndesException {
         Connection connection = null;
-        PreparedStatement preparedStatement = null;
+        PreparedStatement[] bucketStatements = new PreparedStatement[PARAMETER_BUCKET_SIZES.length];
         ResultSet resultSet = null;
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context contextRead = dbReadTimer.start();
         
          try {
             connection = getConnection();
-            preparedStatement = connection.prepareStatement(getSelectContentPreparedStmt(messageIDList.size()));
-            for (int mesageIDCounter = 0; mesageIDCounter < messageIDList.size(); mesageIDCounter++) {
-                preparedStatement.setLong(mesageIDCounter + 1, messageIDList.get(mesageIDCounter));
-            }
 
-            resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                long messageID = resultSet.getLong(MESSAGE_ID);
-                int offset = resultSet.getInt(MSG_OFFSET);
-                List<AndesMessagePart> partList = contentList.get(messageID);
-                if (null == partList) {
-                    partList = new ArrayList<>();
-                    contentList.put(messageID, partList);
+            int readCount = 0;
+            while (readCount < messageIDList.size()) {
+                int bucketIndex = getParameterBucketIndex(messageIDList.size() - readCount);
+                int bucketSize = PARAMETER_BUCKET_SIZES[bucketIndex];
+                int idCount = Math.min(bucketSize, messageIDList.size() - readCount);
+
+                PreparedStatement preparedStatement = bucketStatements[bucketIndex];
+                if (null == preparedStatement) {
+                    preparedStatement = connection.prepareStatement(PS_SELECT_CONTENT_BUCKETS[bucketIndex]);
+                    bucketStatements[bucketIndex] = preparedStatement;
                 }
-                AndesMessagePart msgPart = createMessagePart(resultSet, messageID, offset);
-                partList.add(msgPart);
+
+                for (int parameterIndex = 0; parameterIndex < bucketSize; parameterIndex++) {
+                    // Parameters exceeding the ids to read repeat the last id
+                    long messageID = messageIDList.get(readCount + Math.min(parameterIndex, idCount - 1));
+                    preparedStatement.setLong(parameterIndex + 1, messageID);
+                }
+                readCount = readCount + idCount;
+
+                resultSet = preparedStatement.executeQuery();
+                while (resultSet.next()) {
+                    long messageID = resultSet.getLong(MESSAGE_ID);
+                    int offset = resultSet.getInt(MSG_OFFSET);
+                    List<AndesMessagePart> partList = contentList.get(messageID);
+                    if (null == partList) {
+                        partList = new ArrayList<>();
+                        contentList.put(messageID, partList);
+                    }
+                    AndesMessagePart msgPart = createMessagePart(resultSet, messageID, offset);
+                    partList.add(msgPart);
+                }
+                close(resultSet, TASK_RETRIEVING_CONTENT_FOR_MESSAGES);
+                resultSet = null;
             }
             
         } catch (SQLException e) {
@@ -334,10 +500,30 @@ public class RDBMSMessageStoreImpl implements MessageStore {
                     messageIDList.size() + " messages ", e);
         } finally {
             contextRead.stop();
-            close(connection, preparedStatement, resultSet, TASK_RETRIEVING_CONTENT_FOR_MESSAGES);
+            close(resultSet, TASK_RETRIEVING_CONTENT_FOR_MESSAGES);
+            for (PreparedStatement bucketStatement : bucketStatements) {
+                close(bucketStatement, TASK_RETRIEVING_CONTENT_FOR_MESSAGES);
+            }
+            close(connection, TASK_RETRIEVING_CONTENT_FOR_MESSAGES);
         }
     }
 
+    /**
+     * Find the parameter bucket to bind a number of message ids. The smallest bucket which can hold all the ids is
+     * selected, or the largest bucket if there are more ids than it can hold.
+     *
+     * @param messageCount number of message ids to bind
+     * @return index of the bucket in {@link #PARAMETER_BUCKET_SIZES}
+     */
+    private static int getParameterBucketIndex(int messageCount) {
+        for (int i = 0; i < PARAMETER_BUCKET_SIZES.length; i++) {
+            if (PARAMETER_BUCKET_SIZES[i] >= messageCount) {
+                return i;
+            }
+        }
+        return PARAMETER_BUCKET_SIZES.length - 1;
+    }
+
    
 
 
@@ -359,10 +545,21 @@ public class RDBMSMessageStoreImpl implements MessageStore {
      *                     CONDITION: messageCount > 0
      * @return Prepared Statement
      */
-    private String getSelectContentPreparedStmt(int messageCount) {
+    private static String getSelectContentPreparedStmt(int messageCount) {
+        return getInClausePreparedStmt(PS_SELECT_CONTENT_PART, messageCount);
+    }
+
+    /**
+     * Complete a partially created statement ending with an IN operator with the given number of parameters
+     *
+     * @param statementPart statement up to the opening parenthesis of the IN operator
+     * @param parameterCount number of parameters of the IN operator
+     * @return prepared statement string
+     */
+    private static String getInClausePreparedStmt(String statementPart, int parameterCount) {
 
-        StringBuilder stmtBuilder = new StringBuilder(PS_SELECT_CONTENT_PART);
-        for (int i = 0; i < messageCount - 1; i++) {
+        StringBuilder stmtBuilder = new StringBuilder(statementPart);
+        for (int i = 0; i < parameterCount - 1; i++) {
             stmtBuilder.append("?,");
         }
 
@@ -478,7 +675,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
 
         Connection connection = null;
         PreparedStatement preparedStatement = null;
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context contextWrite = dbWriteTimer.start();
         try {
             connection = getConnection();
             preparedStatement = connection.prepareStatement(RDBMSConstants.PS_UPDATE_METADATA_QUEUE);
@@ -508,13 +705,12 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         Connection connection = null;
         PreparedStatement preparedStatement = null;
 
-        Context moveMetadataToDLCContext = MetricManager.timer(Level.INFO, MetricsConstants.MOVE_METADATA_TO_DLC)
-                .start();
+        Context moveMetadataToDLCContext = moveMetadataToDlcTimer.start();
 
         //Remove the message from cache
         removeFromCache(messageId);
 
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context contextWrite = dbWriteTimer.start();
         try {
             connection = getConnection();
             preparedStatement = connection.prepareStatement(RDBMSConstants.PS_MOVE_METADATA_TO_DLC);
@@ -541,9 +737,8 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         Connection connection = null;
         PreparedStatement preparedStatement = null;
 
-        Context moveMetadataToDLCContext = MetricManager.timer(Level.INFO, MetricsConstants.MOVE_METADATA_TO_DLC)
-                .start();
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context moveMetadataToDLCContext = moveMetadataToDlcTimer.start();
+        Context contextWrite = dbWriteTimer.start();
         List<Long> messageIDsToRemoveFromCache = new ArrayList<>(messages.size());
 
         try {
@@ -573,6 +768,66 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreMessagesFromDLC(Map<Long, AndesMessageMetadata> restoredMessages) throws AndesException {
+        Connection connection = null;
+        PreparedStatement insertMetadataPS = null;
+        PreparedStatement copyContentPS = null;
+        PreparedStatement deleteMetadataPS = null;
+
+        Context contextWrite = dbWriteTimer.start();
+        List<AndesMessageMetadata> metadataList = new ArrayList<>(restoredMessages.values());
+
+        try {
+            connection = getConnection();
+            insertMetadataPS = connection.prepareStatement(RDBMSConstants.PS_INSERT_METADATA);
+            copyContentPS = connection.prepareStatement(RDBMSConstants.PS_COPY_MESSAGE_CONTENT);
+            deleteMetadataPS = connection.prepareStatement(RDBMSConstants.PS_DELETE_METADATA_IN_DLC);
+
+            for (Map.Entry<Long, AndesMessageMetadata> entry : restoredMessages.entrySet()) {
+                AndesMessageMetadata metadata = entry.getValue();
+
+                insertMetadataPS.setLong(1, metadata.getMessageID());
+                insertMetadataPS.setInt(2, getCachedQueueID(metadata.getStorageQueueName()));
+                insertMetadataPS.setBytes(3, metadata.getMetadata());
+                insertMetadataPS.addBatch();
+
+                copyContentPS.setLong(1, metadata.getMessageID());
+                copyContentPS.setLong(2, entry.getKey());
+                copyContentPS.addBatch();
+
+                deleteMetadataPS.setLong(1, entry.getKey());
+                deleteMetadataPS.addBatch();
+            }
+
+            // Content rows refer to the metadata rows. Hence the order of the batches matters. Content of the
+            // messages in the dead letter channel is deleted together with their metadata
+            insertMetadataPS.executeBatch();
+            copyContentPS.executeBatch();
+            deleteMetadataPS.executeBatch();
+            addListToExpiryTable(connection, metadataList);
+
+            connection.commit();
+
+            removeFromCache(new ArrayList<>(restoredMessages.keySet()));
+        } catch (BatchUpdateException bue) {
+            rdbmsStoreUtils.raiseBatchUpdateException(metadataList, connection, bue,
+                    RDBMSConstants.TASK_RESTORING_MESSAGES_FROM_DLC);
+        } catch (SQLException e) {
+            rollback(connection, RDBMSConstants.TASK_RESTORING_MESSAGES_FROM_DLC);
+            throw rdbmsStoreUtils.convertSQLException("Error occurred while restoring messages from dead letter "
+                    + "channel.", e);
+        } finally {
+            contextWrite.stop();
+            close(insertMetadataPS, RDBMSConstants.TASK_RESTORING_MESSAGES_FROM_DLC);
+            close(copyContentPS, RDBMSConstants.TASK_RESTORING_MESSAGES_FROM_DLC);
+            close(connection, deleteMetadataPS, RDBMSConstants.TASK_RESTORING_MESSAGES_FROM_DLC);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -582,8 +837,8 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         Connection connection = null;
         PreparedStatement preparedStatement = null;
 
-        Context metaUpdateContext = MetricManager.timer(Level.INFO, MetricsConstants.UPDATE_META_DATA_INFORMATION).start();
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context metaUpdateContext = updateMetaDataInformationTimer.start();
+        Context contextWrite = dbWriteTimer.start();
 
         try {
             connection = getConnection();
@@ -627,9 +882,8 @@ public class RDBMSMessageStoreImpl implements MessageStore {
     private void addMetadataToBatch(PreparedStatement preparedStatement, AndesMessageMetadata metadata,
                                     final String queueName) throws AndesException {
 
-        Context metaAdditionToBatchContext = MetricManager.timer(Level.INFO, MetricsConstants.ADD_META_DATA_TO_BATCH)
-                .start();
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context metaAdditionToBatchContext = addMetaDataToBatchTimer.start();
+        Context contextWrite = dbWriteTimer.start();
         try {
             preparedStatement.setLong(1, metadata.getMessageID());
             preparedStatement.setInt(2, getCachedQueueID(queueName));
@@ -654,7 +908,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
     private void addToExpiryTable(Connection connection, AndesMessageMetadata metadata)
             throws SQLException {
         PreparedStatement preparedStatement = null;
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context contextWrite = dbWriteTimer.start();
         try {
             if (metadata.getExpirationTime() > 0) {
                 preparedStatement = connection.prepareStatement(RDBMSConstants.PS_INSERT_EXPIRY_DATA);
@@ -679,7 +933,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
             throws SQLException {
 
         PreparedStatement preparedStatement = null;
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context contextWrite = dbWriteTimer.start();
         try {
             preparedStatement = connection
                     .prepareStatement(RDBMSConstants.PS_INSERT_EXPIRY_DATA);
@@ -729,8 +983,8 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         PreparedStatement preparedStatement = null;
         ResultSet results = null;
         
-        Context metaRetrievalContext = MetricManager.timer(Level.INFO, MetricsConstants.GET_META_DATA).start();
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context metaRetrievalContext = getMetaDataTimer.start();
+        Context contextRead = dbReadTimer.start();
 
         try {
             connection = getConnection();
@@ -764,8 +1018,8 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
 
-        Context metaListRetrievalContext = MetricManager.timer(Level.INFO, MetricsConstants.GET_META_DATA_LIST).start();
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context metaListRetrievalContext = getMetaDataListTimer.start();
+        Context contextRead = dbReadTimer.start();
 
         try {
             connection = getConnection();
@@ -815,10 +1069,8 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         PreparedStatement preparedStatement = null;
         ResultSet results = null;
 
-        Context nextMessageIdsRetrievalContext = MetricManager.timer(Level.INFO,
-                                                                     MetricsConstants.GET_NEXT_MESSAGE_IDS_FROM_QUEUE)
-                                                                                                               .start();
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context nextMessageIdsRetrievalContext = getNextMessageIdsFromQueueTimer.start();
+        Context contextRead = dbReadTimer.start();
 
         try {
             connection = getConnection();
@@ -864,13 +1116,15 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         ResultSet results = null;
 
 
-        Context nextMetaRetrievalContext = MetricManager.timer(Level.INFO, MetricsConstants.GET_NEXT_MESSAGE_METADATA_FROM_QUEUE).start();
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context nextMetaRetrievalContext = getNextMessageMetadataFromQueueTimer.start();
+        Context contextRead = dbReadTimer.start();
 
         try {
             connection = getConnection();
             preparedStatement = connection
                     .prepareStatement(RDBMSConstants.PS_SELECT_METADATA_FROM_QUEUE);
+            // Let the database stop after the requested number of rows instead of producing the whole queue
+            preparedStatement.setMaxRows(count);
             preparedStatement.setLong(1, firstMsgId - 1);
             preparedStatement.setInt(2, getCachedQueueID(storageQueueName));
 
@@ -914,9 +1168,8 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         PreparedStatement preparedStatement = null;
         ResultSet results = null;
 
-        Context nextMetaRetrievalContext = MetricManager.timer(Level.INFO, MetricsConstants
-                .GET_NEXT_MESSAGE_METADATA_IN_DLC_FOR_QUEUE).start();
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context nextMetaRetrievalContext = getNextMessageMetadataInDlcForQueueTimer.start();
+        Context contextRead = dbReadTimer.start();
 
         try {
             connection = getConnection();
@@ -965,14 +1218,14 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         PreparedStatement preparedStatement = null;
         ResultSet results = null;
 
-        Context nextMetaRetrievalContext = MetricManager.timer(Level.INFO, MetricsConstants
-                .GET_NEXT_MESSAGE_METADATA_IN_DLC).start();
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context nextMetaRetrievalContext = getNextMessageMetadataInDlcTimer.start();
+        Context contextRead = dbReadTimer.start();
 
         try {
             connection = getConnection();
             preparedStatement = connection
                     .prepareStatement(RDBMSConstants.PS_SELECT_METADATA_IN_DLC);
+            preparedStatement.setMaxRows(count);
             preparedStatement.setLong(1, firstMsgId - 1);
             preparedStatement.setInt(2, getCachedQueueID(dlcQueueName));
             results = preparedStatement.executeQuery();
@@ -1002,6 +1255,76 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         return mdList;
     }
 
+    /**
+     * {@inheritDoc}
+     * Ids are read in buckets of the {@link #PARAMETER_BUCKET_SIZES} using a single connection.
+     */
+    @Override
+    public List<AndesMessageMetadata> getMessageMetadataFromDLC(String dlcQueueName, List<Long> messageIdList)
+            throws AndesException {
+        List<AndesMessageMetadata> mdList = new ArrayList<>(messageIdList.size());
+        if (messageIdList.isEmpty()) {
+            return mdList;
+        }
+
+        Connection connection = null;
+        PreparedStatement[] bucketStatements = new PreparedStatement[PARAMETER_BUCKET_SIZES.length];
+        ResultSet results = null;
+
+        Context metaListRetrievalContext = getMetaDataListTimer.start();
+        Context contextRead = dbReadTimer.start();
+
+        try {
+            connection = getConnection();
+            int dlcQueueId = getCachedQueueID(dlcQueueName);
+
+            int readCount = 0;
+            while (readCount < messageIdList.size()) {
+                int bucketIndex = getParameterBucketIndex(messageIdList.size() - readCount);
+                int bucketSize = PARAMETER_BUCKET_SIZES[bucketIndex];
+                int idCount = Math.min(bucketSize, messageIdList.size() - readCount);
+
+                PreparedStatement preparedStatement = bucketStatements[bucketIndex];
+                if (null == preparedStatement) {
+                    preparedStatement = connection.prepareStatement(PS_SELECT_METADATA_IN_DLC_BUCKETS[bucketIndex]);
+                    bucketStatements[bucketIndex] = preparedStatement;
+                }
+
+                preparedStatement.setInt(1, dlcQueueId);
+                for (int parameterIndex = 0; parameterIndex < bucketSize; parameterIndex++) {
+                    // Parameters exceeding the ids to read repeat the last id
+                    long messageID = messageIdList.get(readCount + Math.min(parameterIndex, idCount - 1));
+                    preparedStatement.setLong(parameterIndex + 2, messageID);
+                }
+                readCount = readCount + idCount;
+
+                results = preparedStatement.executeQuery();
+                while (results.next()) {
+                    AndesMessageMetadata md = new AndesMessageMetadata(
+                            results.getLong(RDBMSConstants.MESSAGE_ID),
+                            results.getBytes(RDBMSConstants.METADATA),
+                            true
+                    );
+                    mdList.add(md);
+                }
+                close(results, RDBMSConstants.TASK_RETRIEVING_METADATA_OF_MESSAGES_FROM_DLC);
+                results = null;
+            }
+        } catch (SQLException e) {
+            throw rdbmsStoreUtils.convertSQLException("error occurred while retrieving message metadata from DLC "
+                                                      + dlcQueueName, e);
+        } finally {
+            metaListRetrievalContext.stop();
+            contextRead.stop();
+            close(results, RDBMSConstants.TASK_RETRIEVING_METADATA_OF_MESSAGES_FROM_DLC);
+            for (PreparedStatement bucketStatement : bucketStatements) {
+                close(bucketStatement, RDBMSConstants.TASK_RETRIEVING_METADATA_OF_MESSAGES_FROM_DLC);
+            }
+            close(connection, RDBMSConstants.TASK_RETRIEVING_METADATA_OF_MESSAGES_FROM_DLC);
+        }
+        return mdList;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1013,8 +1336,8 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         Connection connection = null;
         PreparedStatement preparedStatement = null;
 
-        Context metaDeletionContext = MetricManager.timer(Level.INFO, MetricsConstants.DELETE_MESSAGE_META_DATA_FROM_QUEUE).start();
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context metaDeletionContext = deleteMessageMetaDataFromQueueTimer.start();
+        Context contextWrite = dbWriteTimer.start();
 
         try {
             int queueID = getCachedQueueID(storageQueueName);
@@ -1053,30 +1376,25 @@ public class RDBMSMessageStoreImpl implements MessageStore {
                                List<AndesMessageMetadata> messagesToRemove)
             throws AndesException {
         Connection connection = null;
-        PreparedStatement metadataRemovalPreparedStatement = null;
 
-        Context messageDeletionContext = MetricManager.timer(Level.INFO, MetricsConstants
-                .DELETE_MESSAGE_META_DATA_AND_CONTENT).start();
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context messageDeletionContext = deleteMessageMetaDataAndContentTimer.start();
+        Context contextWrite = dbWriteTimer.start();
 
         try {
-
+            long[] messageIDs = new long[messagesToRemove.size()];
             List<Long> messageIDsToRemoveFromCache = new ArrayList<>(messagesToRemove.size());
+            for (int i = 0; i < messageIDs.length; i++) {
+                messageIDs[i] = messagesToRemove.get(i).getMessageID();
+                messageIDsToRemoveFromCache.add(messageIDs[i]);
+            }
+            Arrays.sort(messageIDs);
+
             connection = getConnection();
+            removeFromCache(messageIDsToRemoveFromCache);
 
             //Since referential integrity is imposed on the two tables: message content and metadata,
             //deleting message metadata will cause message content to be automatically deleted
-            metadataRemovalPreparedStatement = connection.prepareStatement(RDBMSConstants.PS_DELETE_METADATA);
-
-                for (AndesMessageMetadata message : messagesToRemove) {
-                    //add parameters to delete metadata
-                    messageIDsToRemoveFromCache.add(message.getMessageID());
-                    metadataRemovalPreparedStatement.setLong(1, message.getMessageID());
-                    metadataRemovalPreparedStatement.addBatch();
-            }
-
-            removeFromCache(messageIDsToRemoveFromCache);
-            metadataRemovalPreparedStatement.executeBatch();
+            deleteMessagesInBuckets(connection, messageIDs);
             connection.commit();
 
             if (log.isDebugEnabled()) {
@@ -1091,11 +1409,56 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         } finally {
             messageDeletionContext.stop();
             contextWrite.stop();
-            close(connection, metadataRemovalPreparedStatement, RDBMSConstants.TASK_DELETING_METADATA_FROM_QUEUE
+            close(connection, RDBMSConstants.TASK_DELETING_METADATA_FROM_QUEUE
                   + storageQueueName + " and " + RDBMSConstants.TASK_DELETING_MESSAGE_PARTS);
         }
     }
 
+    /**
+     * Delete non DLC messages by message id. Ids are bound to delete statements of the {@link #PARAMETER_BUCKET_SIZES}
+     * and the statements of each bucket size are executed as a single batch. Only the given messages are deleted
+     * irrespective of messages added concurrently to the same queue. Deletion is not committed.
+     *
+     * @param connection connection to use
+     * @param messageIDs sorted message ids to delete
+     * @throws SQLException
+     */
+    private void deleteMessagesInBuckets(Connection connection, long[] messageIDs) throws SQLException {
+        PreparedStatement[] bucketStatements = new PreparedStatement[PARAMETER_BUCKET_SIZES.length];
+        try {
+            int deleteCount = 0;
+            while (deleteCount < messageIDs.length) {
+                int bucketIndex = getParameterBucketIndex(messageIDs.length - deleteCount);
+                int bucketSize = PARAMETER_BUCKET_SIZES[bucketIndex];
+                int idCount = Math.min(bucketSize, messageIDs.length - deleteCount);
+
+                PreparedStatement preparedStatement = bucketStatements[bucketIndex];
+                if (null == preparedStatement) {
+                    preparedStatement = connection.prepareStatement(PS_DELETE_METADATA_BUCKETS[bucketIndex]);
+                    bucketStatements[bucketIndex] = preparedStatement;
+                }
+
+                for (int parameterIndex = 0; parameterIndex < bucketSize; parameterIndex++) {
+                    // Parameters exceeding the ids to delete repeat the last id
+                    preparedStatement.setLong(parameterIndex + 1,
+                                              messageIDs[deleteCount + Math.min(parameterIndex, idCount - 1)]);
+                }
+                preparedStatement.addBatch();
+                deleteCount = deleteCount + idCount;
+            }
+
+            for (PreparedStatement bucketStatement : bucketStatements) {
+                if (null != bucketStatement) {
+                    bucketStatement.executeBatch();
+                }
+            }
+        } finally {
+            for (PreparedStatement bucketStatement : bucketStatements) {
+                close(bucketStatement, RDBMSConstants.TASK_DELETING_MESSAGE_PARTS);
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1104,9 +1467,8 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         Connection connection = null;
         PreparedStatement metadataRemovalPreparedStatement = null;
 
-        Context messageDeletionContext = MetricManager.timer(Level.INFO, MetricsConstants
-                .DELETE_MESSAGE_META_DATA_AND_CONTENT).start();
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context messageDeletionContext = deleteMessageMetaDataAndContentTimer.start();
+        Context contextWrite = dbWriteTimer.start();
 
         try {
             connection = getConnection();
@@ -1149,7 +1511,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
 
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context contextRead = dbReadTimer.start();
 
         try {
             connection = getConnection();
@@ -1222,7 +1584,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
     public void deleteMessagesFromExpiryQueue(List<Long> messagesToRemove) throws AndesException {
         Connection connection = null;
         PreparedStatement preparedStatement = null;
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context contextWrite = dbWriteTimer.start();
 
         try {
             connection = getConnection();
@@ -1272,7 +1634,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         Connection connection = null;
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context contextRead = dbReadTimer.start();
         try {
             connection = getConnection();
             preparedStatement = connection.prepareStatement(RDBMSConstants.PS_SELECT_QUEUE_ID);
@@ -1320,7 +1682,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
     private void createNewQueue(final Connection connection, final String destinationQueueName) throws SQLException {
 
         PreparedStatement preparedStatement = null;
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context contextWrite = dbWriteTimer.start();
 
         try {
 
@@ -1477,7 +1839,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
     public int deleteAllMessageMetadata(String storageQueueName) throws AndesException {
         Connection connection = null;
         PreparedStatement preparedStatement = null;
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context contextWrite = dbWriteTimer.start();
         int deletedMessagecount = 0;
         try {
             int queueID = getCachedQueueID(storageQueueName);
@@ -1510,7 +1872,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
     public int clearDLCQueue(String dlcQueueName) throws AndesException {
         Connection connection = null;
         PreparedStatement preparedStatement = null;
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context contextWrite = dbWriteTimer.start();
         int deletedMessagecount = 0;
         try {
             int queueID = getCachedQueueID(dlcQueueName);
@@ -1551,7 +1913,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         PreparedStatement preparedStatement = null;
         ResultSet results = null;
 
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context contextRead = dbReadTimer.start();
 
         try {
             connection = getConnection();
@@ -1604,7 +1966,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         PreparedStatement preparedStatement = null;
         ResultSet results = null;
         Map<String, Integer> queueMessageCountForName = new HashMap<>();
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context contextRead = dbReadTimer.start();
         try {
             connection = getConnection();
             preparedStatement = connection.prepareStatement(RDBMSConstants.PS_SELECT_ALL_QUEUE_MESSAGE_COUNT);
@@ -1640,7 +2002,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         PreparedStatement preparedStatement = null;
         ResultSet results = null;
         long messageCount = 0;
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context contextRead = dbReadTimer.start();
         try {
             connection = getConnection();
             preparedStatement = connection.prepareStatement(RDBMSConstants.PS_SELECT_QUEUE_MESSAGE_COUNT);
@@ -1673,7 +2035,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         PreparedStatement preparedStatement = null;
         ResultSet results = null;
         long messageCount = 0;
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context contextRead = dbReadTimer.start();
         try {
             connection = getConnection();
             preparedStatement = connection.prepareStatement(RDBMSConstants.PS_SELECT_QUEUE_MESSAGE_COUNT_FROM_DLC);
@@ -1705,7 +2067,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         PreparedStatement preparedStatement = null;
         ResultSet results = null;
         long messageCount = 0;
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context contextRead = dbReadTimer.start();
         try {
             connection = getConnection();
             preparedStatement = connection.prepareStatement(RDBMSConstants.PS_SELECT_MESSAGE_COUNT_IN_DLC);
@@ -1742,7 +2104,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         // Remove the queue from the database
         Connection connection = null;
         PreparedStatement preparedStatement = null;
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context contextWrite = dbWriteTimer.start();
 
         try {
             connection = getConnection();
@@ -1802,7 +2164,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         PreparedStatement deleteContentPreparedStatement = null;
         PreparedStatement deleteMetadataPreparedStatement = null;
         PreparedStatement insertContentPreparedStatement = null;
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context contextWrite = dbWriteTimer.start();
 
         boolean batchEmpty = true;
 
@@ -1972,7 +2334,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
             throws SQLException {
         PreparedStatement preparedStatementForMetadataSelect = null;
         RetainedItemData itemData = null;
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context contextRead = dbReadTimer.start();
         try {
             preparedStatementForMetadataSelect = connection
                     .prepareStatement(RDBMSConstants.PS_SELECT_RETAINED_MESSAGE_ID);
@@ -2008,7 +2370,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         String destination = metadata.getDestination();
         Integer topicID = destination.hashCode();
         long messageID = metadata.getMessageID();
-        Context contextWrite = MetricManager.timer(Level.INFO, MetricsConstants.DB_WRITE).start();
+        Context contextWrite = dbWriteTimer.start();
         try {
             // create metadata entry
             preparedStatementForMetadata = connection.prepareStatement(
@@ -2050,7 +2412,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         PreparedStatement preparedStatementForTopicSelect = null;
         List<String> topicList = new ArrayList<>();
         ResultSet results = null;
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context contextRead = dbReadTimer.start();
         try {
             connection = getConnection();
 
@@ -2081,7 +2443,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         Connection connection = null;
         PreparedStatement preparedStatement = null;
         ResultSet results = null;
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context contextRead = dbReadTimer.start();
 
         try {
 
@@ -2122,7 +2484,7 @@ public class RDBMSMessageStoreImpl implements MessageStore {
         ResultSet results = null;
         Map<Integer, AndesMessagePart> contentParts = new HashMap<>();
 
-        Context contextRead = MetricManager.timer(Level.INFO, MetricsConstants.DB_READ).start();
+        Context contextRead = dbReadTimer.start();
 
         try {
             connection = getConnection();
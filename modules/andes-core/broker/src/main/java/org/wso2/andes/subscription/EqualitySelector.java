@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.subscription;
+
+import org.wso2.andes.kernel.AndesException;
+import org.wso2.andes.kernel.AndesMessageMetadata;
+
+import java.util.Set;
+
+/**
+ * Selector of a subscription which only accepts messages having a property equal to one of a set of values. Message
+ * dispatchers can look up the subscriptions interested in a message by the property value instead of evaluating the
+ * selector of each subscription.
+ */
+public interface EqualitySelector {
+
+    /**
+     * @return name of the message property compared by the selector
+     */
+    String getPropertyName();
+
+    /**
+     * @return property values accepted by the selector
+     */
+    Set<String> getAcceptedValues();
+
+    /**
+     * Read the property compared by the selector from a message
+     *
+     * @param messageMetadata message to read
+     * @return value of the property or null if the message does not have a string value for the property
+     * @throws AndesException on an error while decoding the message properties
+     */
+    String getPropertyValue(AndesMessageMetadata messageMetadata) throws AndesException;
+}
@@ -89,6 +89,29 @@ public class LocalSubscription  extends BasicSubscription implements InboundSubs
                              String targetQueueBoundExchangeType, Short isTargetQueueBoundExchangeAutoDeletable,
                              boolean hasExternalSubscriptions, DestinationType destinationType) {
 
+        this(subscription, subscriptionID, destination, isExclusive, isDurable, subscribedNode, subscribeTime,
+             targetQueue, targetQueueOwner, targetQueueBoundExchange, targetQueueBoundExchangeType,
+             isTargetQueueBoundExchangeAutoDeletable, hasExternalSubscriptions, destinationType,
+             (Integer) AndesConfigurationManager.readValue(
+                     AndesConfiguration.PERFORMANCE_TUNING_ACK_HANDLING_MAX_UNACKED_MESSAGES));
+    }
+
+    /**
+     * Create a new local subscription object in andes kernel with the given limit of unacknowledged messages,
+     * instead of the limit in the configuration
+     * @param maxNumberOfUnAcknowledgedMessages number of unacknowledged messages after which the subscription has
+     *                                          no room to accept messages
+     * @see #LocalSubscription(OutboundSubscription, String, String, boolean, boolean, String, long, String, String,
+     * String, String, Short, boolean, DestinationType)
+     */
+    protected LocalSubscription(OutboundSubscription subscription, String subscriptionID, String destination,
+                                boolean isExclusive, boolean isDurable,
+                                String subscribedNode, long subscribeTime, String targetQueue,
+                                String targetQueueOwner, String targetQueueBoundExchange,
+                                String targetQueueBoundExchangeType, Short isTargetQueueBoundExchangeAutoDeletable,
+                                boolean hasExternalSubscriptions, DestinationType destinationType,
+                                int maxNumberOfUnAcknowledgedMessages) {
+
         super(subscriptionID, destination, isExclusive, isDurable, subscribedNode, subscribeTime,
                 targetQueue, targetQueueOwner, targetQueueBoundExchange, targetQueueBoundExchangeType,
                 isTargetQueueBoundExchangeAutoDeletable, hasExternalSubscriptions, destinationType);
@@ -107,8 +130,7 @@ public class LocalSubscription  extends BasicSubscription implements InboundSubs
             setStorageQueueName(subscription.getStorageQueueName(destination, subscribedNode));
         }
 
-        this.maxNumberOfUnAcknowledgedMessages = AndesConfigurationManager.readValue
-                (AndesConfiguration.PERFORMANCE_TUNING_ACK_HANDLING_MAX_UNACKED_MESSAGES);
+        this.maxNumberOfUnAcknowledgedMessages = maxNumberOfUnAcknowledgedMessages;
 
     }
 
@@ -149,6 +171,15 @@ public class LocalSubscription  extends BasicSubscription implements InboundSubs
         return subscription.isMessageAcceptedBySelector(messageMetadata);
     }
 
+    /**
+     * Get the selector of the subscription if it is a simple property equality.
+     *
+     * @return equality selector or null if the selector is not a property equality
+     */
+    public EqualitySelector getEqualitySelector() {
+        return subscription.getEqualitySelector();
+    }
+
 
     /**
      * Get all sent but not acknowledged messages for the subscriber
@@ -49,6 +49,15 @@ public interface OutboundSubscription {
     boolean isMessageAcceptedBySelector(AndesMessageMetadata messageMetadata)
             throws AndesException ;
 
+    /**
+     * Get the selector of the subscription if it is a simple property equality. Messages matching such a selector
+     * can be found without calling {@link #isMessageAcceptedBySelector(AndesMessageMetadata)}.
+     *
+     * @return equality selector or null if the subscription has no selector or the selector is not a property
+     * equality
+     */
+    EqualitySelector getEqualitySelector();
+
     /**
      * Deliver the message and content to the subscriber
      * @param messageMetadata metadata of the message
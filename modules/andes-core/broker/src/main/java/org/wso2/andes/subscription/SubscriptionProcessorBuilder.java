@@ -39,15 +39,15 @@ public class SubscriptionProcessorBuilder {
         // Add handles for AMQP
         subscriptionProcessor.addHandler(ProtocolType.AMQP, DestinationType.QUEUE, new QueueSubscriptionStore());
         subscriptionProcessor.addHandler(ProtocolType.AMQP, DestinationType.TOPIC,
-                new TopicSubscriptionBitMapStore(ProtocolType.AMQP));
+                new TopicSubscriptionTrieStore(ProtocolType.AMQP));
         subscriptionProcessor.addHandler(ProtocolType.AMQP, DestinationType.DURABLE_TOPIC,
-                new TopicSubscriptionBitMapStore(ProtocolType.AMQP));
+                new TopicSubscriptionTrieStore(ProtocolType.AMQP));
 
         // Add handles for MQTT
         subscriptionProcessor.addHandler(ProtocolType.MQTT, DestinationType.TOPIC,
-                new TopicSubscriptionBitMapStore(ProtocolType.MQTT));
+                new TopicSubscriptionTrieStore(ProtocolType.MQTT));
         subscriptionProcessor.addHandler(ProtocolType.MQTT, DestinationType.DURABLE_TOPIC,
-                new TopicSubscriptionBitMapStore(ProtocolType.MQTT));
+                new TopicSubscriptionTrieStore(ProtocolType.MQTT));
 
         return subscriptionProcessor;
     }
@@ -65,7 +65,7 @@ public class SubscriptionProcessorBuilder {
         subscriptionProcessor.addHandler(ProtocolType.AMQP, DestinationType.QUEUE,
                 new QueueSubscriptionStore());
         subscriptionProcessor.addHandler(ProtocolType.AMQP, DestinationType.TOPIC,
-                new TopicSubscriptionBitMapStore(ProtocolType.AMQP));
+                new TopicSubscriptionTrieStore(ProtocolType.AMQP));
 
         // Local durable topic subscription store is specific to local mode since subscriptions are stored
         // against their targetQueue in this store
@@ -74,7 +74,7 @@ public class SubscriptionProcessorBuilder {
 
         // Add handles for MQTT
         subscriptionProcessor.addHandler(ProtocolType.MQTT, DestinationType.TOPIC,
-                new TopicSubscriptionBitMapStore(ProtocolType.MQTT));
+                new TopicSubscriptionTrieStore(ProtocolType.MQTT));
         subscriptionProcessor.addHandler(ProtocolType.MQTT, DestinationType.DURABLE_TOPIC,
                 new LocalDurableTopicSubscriptionStore());
 
@@ -0,0 +1,440 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ */
+
+package org.wso2.andes.subscription;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.andes.amqp.AMQPUtils;
+import org.wso2.andes.kernel.AndesException;
+import org.wso2.andes.kernel.AndesSubscription;
+import org.wso2.andes.kernel.DestinationType;
+import org.wso2.andes.kernel.ProtocolType;
+import org.wso2.andes.mqtt.utils.MQTTUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Store topic subscriptions of a protocol in a trie of destination constituents for wildcard matching.
+ * <p/>
+ * Each level of the trie holds a constituent of the subscribed destinations. Single level and multi level wildcards
+ * are kept as separate children of a node so that matching a routing key only walks the branches that can match,
+ * independent of the total number of subscriptions. Subscription changes are serialized while matching is lock free,
+ * hence message pre processing never blocks on subscription changes.
+ * <p/>
+ * Matching results are cached per routing key, evicting the least recently used keys once the cache is full. The
+ * cache is replaced whenever subscriptions change.
+ */
+public class TopicSubscriptionTrieStore implements AndesSubscriptionStore {
+
+    private static Log log = LogFactory.getLog(TopicSubscriptionTrieStore.class);
+
+    /**
+     * Maximum number of routing keys with cached matching subscriptions
+     */
+    private static final int MAX_CACHED_ROUTING_KEYS = 10000;
+
+    private static final AndesSubscription[] NO_SUBSCRIPTIONS = new AndesSubscription[0];
+
+    /**
+     * The topic delimiter to differentiate each constituent according to the current subscription type.
+     */
+    private final char constituentsDelimiter;
+
+    /**
+     * The multi level matching wildcard according to the current subscription type.
+     */
+    private final String multiLevelWildCard;
+
+    /**
+     * The single level matching wildcard according to the current subscription type.
+     */
+    private final String singleLevelWildCard;
+
+    /**
+     * Root of the subscription trie. Represents the level before the first constituent
+     */
+    private final TrieNode root = new TrieNode();
+
+    /**
+     * Keeps all the subscriptions. Value is the latest instance of the subscription
+     */
+    private final Map<AndesSubscription, AndesSubscription> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Matching subscriptions by routing key. Replaced, not cleared, on a subscription change so that a match
+     * computed before the change is never added to the new cache
+     */
+    private volatile Cache<String, Set<AndesSubscription>> matchCache = createMatchCache();
+
+    /**
+     * Initialize the store with the subscription type.
+     *
+     * @param protocolType The protocol type to handle
+     * @throws AndesException
+     */
+    public TopicSubscriptionTrieStore(ProtocolType protocolType) throws AndesException {
+        if (ProtocolType.AMQP == protocolType) {
+            constituentsDelimiter = '.';
+            // AMQPUtils keep wildcard concatenated with constituent delimiter, hence removing them get wildcard only
+            multiLevelWildCard = AMQPUtils.TOPIC_AND_CHILDREN_WILDCARD.replace(".", "");
+            singleLevelWildCard = AMQPUtils.IMMEDIATE_CHILDREN_WILDCARD.replace(".", "");
+        } else if (ProtocolType.MQTT == protocolType) {
+            constituentsDelimiter = '/';
+            multiLevelWildCard = MQTTUtils.MULTI_LEVEL_WILDCARD;
+            singleLevelWildCard = MQTTUtils.SINGLE_LEVEL_WILDCARD;
+        } else {
+            throw new AndesException("Subscription type " + protocolType + " is not recognized.");
+        }
+    }
+
+    /**
+     * Add a new subscription to the structure.
+     *
+     * @param subscription The subscription to be added.
+     * @throws AndesException
+     */
+    @Override
+    public synchronized void addSubscription(AndesSubscription subscription) throws AndesException {
+        String destination = subscription.getSubscribedDestination();
+
+        if (StringUtils.isNotEmpty(destination)) {
+            if (!isSubscriptionAvailable(subscription)) {
+                TrieNode node = root;
+                for (String constituent : tokenize(destination)) {
+                    node = node.getOrCreateChild(constituent);
+                }
+                node.addSubscription(subscription);
+                subscriptions.put(subscription, subscription);
+                invalidateMatchCache();
+            } else {
+                updateSubscription(subscription);
+            }
+        } else {
+            throw new AndesException("Error adding a new subscription. Subscribed destination is empty.");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void updateSubscription(AndesSubscription subscription) {
+        if (isSubscriptionAvailable(subscription)) {
+            TrieNode node = findNode(subscription.getSubscribedDestination());
+            if (null != node) {
+                node.replaceSubscription(subscription);
+            }
+            subscriptions.put(subscription, subscription);
+            invalidateMatchCache();
+        }
+    }
+
+    /**
+     * Removing a subscription from the structure.
+     *
+     * @param subscription The subscription to remove
+     */
+    @Override
+    public synchronized void removeSubscription(AndesSubscription subscription) {
+        if (null != subscriptions.remove(subscription)) {
+            String[] constituents = tokenize(subscription.getSubscribedDestination());
+
+            // Keep the path to prune nodes left without subscriptions
+            TrieNode[] path = new TrieNode[constituents.length + 1];
+            path[0] = root;
+            for (int i = 0; i < constituents.length && null != path[i]; i++) {
+                path[i + 1] = path[i].getChild(constituents[i]);
+            }
+
+            TrieNode node = path[constituents.length];
+            if (null != node) {
+                node.removeSubscription(subscription);
+                for (int i = constituents.length; i > 0 && path[i].isEmpty(); i--) {
+                    path[i - 1].removeChild(constituents[i - 1]);
+                }
+            }
+            invalidateMatchCache();
+        } else {
+            log.warn("Subscription for destination : " + subscription.getSubscribedDestination() + " is not found to " +
+                    "remove");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSubscriptionAvailable(AndesSubscription subscription) {
+        return subscriptions.containsKey(subscription);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The returned set is shared between callers and must not be modified.
+     */
+    @Override
+    public Set<AndesSubscription> getMatchingSubscriptions(String destination, DestinationType destinationType) {
+        if (StringUtils.isEmpty(destination)) {
+            log.warn("Cannot retrieve subscriptions via trie store since destination to match is empty");
+            return Collections.emptySet();
+        }
+
+        Cache<String, Set<AndesSubscription>> cache = matchCache;
+        Set<AndesSubscription> matchingSubscriptions = cache.getIfPresent(destination);
+
+        if (null == matchingSubscriptions) {
+            Set<AndesSubscription> matches = new HashSet<>();
+            collectMatches(root, tokenize(destination), 0, matches);
+            matchingSubscriptions = Collections.unmodifiableSet(matches);
+            cache.put(destination, matchingSubscriptions);
+        }
+
+        return matchingSubscriptions;
+    }
+
+    /**
+     * Get all the subscriptions currently saved.
+     *
+     * @return List of all subscriptions
+     */
+    @Override
+    public List<AndesSubscription> getAllSubscriptions() {
+        return new ArrayList<>(subscriptions.values());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> getAllDestinations(DestinationType destinationType) {
+        Set<String> topics = new HashSet<>();
+
+        for (AndesSubscription subscription : subscriptions.values()) {
+            StringBuilder topic = new StringBuilder();
+            String[] constituents = tokenize(subscription.getSubscribedDestination());
+
+            for (int i = 0; i < constituents.length; i++) {
+                String constituent = constituents[i];
+                // if this is a wildcard constituent, we provide it as 'ANY' in it's place for readability
+                if (multiLevelWildCard.equals(constituent) || singleLevelWildCard.equals(constituent)) {
+                    topic.append("ANY");
+                } else {
+                    topic.append(constituent);
+                }
+
+                // append the delimiter if there are more constituents to come
+                if ((constituents.length - 1) > i) {
+                    topic.append(constituentsDelimiter);
+                }
+            }
+
+            topics.add(topic.toString());
+        }
+
+        return topics;
+    }
+
+    /**
+     * Collect subscriptions of the sub trie of the given node that match the constituents of a routing key starting
+     * from the given index.
+     *
+     * @param node         current node of the trie
+     * @param constituents constituents of the routing key
+     * @param index        index of the constituent to match with the children of the node
+     * @param matches      set to add matching subscriptions to
+     */
+    private void collectMatches(TrieNode node, String[] constituents, int index, Set<AndesSubscription> matches) {
+        // Multi level wildcard matches zero or more constituents
+        TrieNode multiLevelChild = node.multiLevelWildCardChild;
+        if (null != multiLevelChild) {
+            for (int nextIndex = index; nextIndex <= constituents.length; nextIndex++) {
+                collectMatches(multiLevelChild, constituents, nextIndex, matches);
+            }
+        }
+
+        if (index == constituents.length) {
+            Collections.addAll(matches, node.subscriptions);
+        } else {
+            TrieNode child = node.children.get(constituents[index]);
+            if (null != child) {
+                collectMatches(child, constituents, index + 1, matches);
+            }
+
+            TrieNode singleLevelChild = node.singleLevelWildCardChild;
+            if (null != singleLevelChild) {
+                collectMatches(singleLevelChild, constituents, index + 1, matches);
+            }
+        }
+    }
+
+    /**
+     * Find the node of a subscribed destination
+     *
+     * @return the node or null if not found
+     */
+    private TrieNode findNode(String destination) {
+        TrieNode node = root;
+        for (String constituent : tokenize(destination)) {
+            node = node.getChild(constituent);
+            if (null == node) {
+                break;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Replace the match cache. Called after the trie is modified
+     */
+    private void invalidateMatchCache() {
+        matchCache = createMatchCache();
+    }
+
+    /**
+     * Create an empty match cache bounded to {@link #MAX_CACHED_ROUTING_KEYS} routing keys
+     *
+     * @return The match cache
+     */
+    private static Cache<String, Set<AndesSubscription>> createMatchCache() {
+        return CacheBuilder.newBuilder().maximumSize(MAX_CACHED_ROUTING_KEYS).build();
+    }
+
+    /**
+     * Split a destination into constituents by the delimiter of the protocol. Unlike {@link String#split(String)}
+     * no regular expression is involved and empty constituents are kept.
+     *
+     * @param destination destination to split
+     * @return constituents of the destination
+     */
+    private String[] tokenize(String destination) {
+        int constituentCount = 1;
+        for (int i = 0; i < destination.length(); i++) {
+            if (destination.charAt(i) == constituentsDelimiter) {
+                constituentCount++;
+            }
+        }
+
+        String[] constituents = new String[constituentCount];
+        int start = 0;
+        for (int i = 0; i < constituentCount - 1; i++) {
+            int end = destination.indexOf(constituentsDelimiter, start);
+            constituents[i] = destination.substring(start, end);
+            start = end + 1;
+        }
+        constituents[constituentCount - 1] = destination.substring(start);
+
+        return constituents;
+    }
+
+    /**
+     * A level of the subscription trie. Modified only while holding the lock of the store, read without locking.
+     */
+    private final class TrieNode {
+
+        /**
+         * Children for non wildcard constituents
+         */
+        private final ConcurrentHashMap<String, TrieNode> children = new ConcurrentHashMap<>();
+
+        private volatile TrieNode singleLevelWildCardChild;
+
+        private volatile TrieNode multiLevelWildCardChild;
+
+        /**
+         * Subscriptions whose destination ends at this node. Replaced on modification
+         */
+        private volatile AndesSubscription[] subscriptions = NO_SUBSCRIPTIONS;
+
+        private TrieNode getChild(String constituent) {
+            TrieNode child;
+            if (singleLevelWildCard.equals(constituent)) {
+                child = singleLevelWildCardChild;
+            } else if (multiLevelWildCard.equals(constituent)) {
+                child = multiLevelWildCardChild;
+            } else {
+                child = children.get(constituent);
+            }
+            return child;
+        }
+
+        private TrieNode getOrCreateChild(String constituent) {
+            TrieNode child = getChild(constituent);
+            if (null == child) {
+                child = new TrieNode();
+                if (singleLevelWildCard.equals(constituent)) {
+                    singleLevelWildCardChild = child;
+                } else if (multiLevelWildCard.equals(constituent)) {
+                    multiLevelWildCardChild = child;
+                } else {
+                    children.put(constituent, child);
+                }
+            }
+            return child;
+        }
+
+        private void removeChild(String constituent) {
+            if (singleLevelWildCard.equals(constituent)) {
+                singleLevelWildCardChild = null;
+            } else if (multiLevelWildCard.equals(constituent)) {
+                multiLevelWildCardChild = null;
+            } else {
+                children.remove(constituent);
+            }
+        }
+
+        private void addSubscription(AndesSubscription subscription) {
+            AndesSubscription[] current = subscriptions;
+            AndesSubscription[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = subscription;
+            subscriptions = updated;
+        }
+
+        private void replaceSubscription(AndesSubscription subscription) {
+            AndesSubscription[] updated = subscriptions.clone();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i].equals(subscription)) {
+                    updated[i] = subscription;
+                }
+            }
+            subscriptions = updated;
+        }
+
+        private void removeSubscription(AndesSubscription subscription) {
+            List<AndesSubscription> remaining = new ArrayList<>(Arrays.asList(subscriptions));
+            remaining.remove(subscription);
+            subscriptions = remaining.toArray(new AndesSubscription[remaining.size()]);
+        }
+
+        private boolean isEmpty() {
+            return subscriptions.length == 0 && children.isEmpty() && null == singleLevelWildCardChild
+                   && null == multiLevelWildCardChild;
+        }
+    }
+}
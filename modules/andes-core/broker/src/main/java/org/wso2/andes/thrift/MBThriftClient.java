@@ -32,15 +32,31 @@ import org.wso2.andes.kernel.slot.ConnectionException;
 import org.wso2.andes.kernel.slot.Slot;
 import org.wso2.andes.kernel.slot.SlotCoordinationConstants;
 import org.wso2.andes.kernel.slot.SlotDeliveryWorkerManager;
+import org.wso2.andes.metrics.MetricsConstants;
 import org.wso2.andes.server.cluster.coordination.hazelcast.HazelcastAgent;
 import org.wso2.andes.thrift.exception.ThriftClientException;
 import org.wso2.andes.thrift.slot.gen.SlotInfo;
 import org.wso2.andes.thrift.slot.gen.SlotManagementService;
+import org.wso2.carbon.metrics.manager.Level;
+import org.wso2.carbon.metrics.manager.MetricManager;
+import org.wso2.carbon.metrics.manager.Timer;
+import org.wso2.carbon.metrics.manager.Timer.Context;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * A wrapper client for the native thrift client. All the public methods in this class are
- * synchronized in order to avoid out of sequence response exception from thrift server. Only one
- * method should be triggered at a time in order to get the responses from the server in order.
+ * A wrapper client for the native thrift client. A native thrift client must not be used by more
+ * than one thread at a time since the responses from the server are read in the order the requests
+ * are written. Therefore this class keeps a bounded pool of native clients, each with its own
+ * connection to the coordinator, and lends a client to one request at a time. The pool size bounds
+ * the number of in-flight requests sent from this node to the coordinator.
  */
 
 public class MBThriftClient {
@@ -49,11 +65,41 @@ public class MBThriftClient {
      * A state variable to indicate whether the reconnecting  to the thrift server is started or
      * not
      */
-    private static boolean reconnectingStarted = false;
+    private static volatile boolean reconnectingStarted = false;
+
+    /**
+     * Maximum number of connections kept to the coordinator
+     */
+    private static final int CLIENT_POOL_SIZE = (Integer) AndesConfigurationManager.readValue(
+            AndesConfiguration.COORDINATION_THRIFT_CLIENT_POOL_SIZE);
+
+    /**
+     * Permits for requests to be in-flight at a given time
+     */
+    private static final Semaphore inFlightRequestPermits = new Semaphore(CLIENT_POOL_SIZE, true);
+
+    /**
+     * Connected clients which are not used by any request at the moment
+     */
+    private static final BlockingQueue<PooledClient> idleClients =
+            new LinkedBlockingQueue<>(CLIENT_POOL_SIZE);
 
-    private static TTransport transport;
+    /**
+     * Incremented whenever the pool is reset, so that clients connected to a previous coordinator
+     * are closed instead of being returned to the pool
+     */
+    private static final AtomicInteger poolGeneration = new AtomicInteger(0);
 
-    private static SlotManagementService.Client client = null;
+    /**
+     * Time spent waiting for a permit to send a request to the coordinator
+     */
+    private static final Timer queueWaitTimer = MetricManager.timer(Level.INFO,
+            MetricsConstants.THRIFT_CLIENT_QUEUE_WAIT);
+
+    /**
+     * Time spent on remote calls to the coordinator
+     */
+    private static final Timer rpcTimer = MetricManager.timer(Level.INFO, MetricsConstants.THRIFT_CLIENT_RPC);
 
     private static final Log log = LogFactory.getLog(MBThriftClient.class);
 
@@ -66,30 +112,71 @@ public class MBThriftClient {
      * @return slot object
      * @throws ConnectionException
      */
-    public static synchronized Slot getSlot(String queueName,
-                                            String nodeId) throws ConnectionException {
-        SlotInfo slotInfo;
+    public static Slot getSlot(final String queueName,
+                               final String nodeId) throws ConnectionException {
         try {
-            client = getServiceClient();
-            slotInfo = client.getSlotInfo(queueName, nodeId);
+            SlotInfo slotInfo = invoke(new ThriftOperation<SlotInfo>() {
+                @Override
+                public SlotInfo execute(SlotManagementService.Client client) throws TException {
+                    return client.getSlotInfo(queueName, nodeId);
+                }
+            });
             return convertSlotInforToSlot(slotInfo);
         } catch (TException e) {
-            try {
-                //retry once
-                reConnectToServer();
-                slotInfo = client.getSlotInfo(queueName, nodeId);
-                return convertSlotInforToSlot(slotInfo);
-            } catch (TException e1) {
-                handleCoordinatorChanges();
-                throw new ConnectionException("Coordinator has changed", e);
-            }
+            handleCoordinatorChanges();
+            throw new ConnectionException("Coordinator has changed", e);
+        } catch (ThriftClientException e) {
+            handleCoordinatorChanges();
+            throw new ConnectionException("Error occurred in thrift client " + e.getMessage(), e);
+        }
+    }
 
+    /**
+     * getSlots method. Returns slots for several queues in a single request to the coordinator.
+     *
+     * @param queueToMaxSlots map of queue name to the maximum number of slots required for the queue
+     * @param nodeId          of this node
+     * @return map of queue name to slots. Queues without slots are not included
+     * @throws ConnectionException
+     */
+    public static Map<String, List<Slot>> getSlots(final Map<String, Integer> queueToMaxSlots,
+                                                   final String nodeId) throws ConnectionException {
+        try {
+            List<SlotInfo> slotInfoList = invoke(new ThriftOperation<List<SlotInfo>>() {
+                @Override
+                public List<SlotInfo> execute(SlotManagementService.Client client) throws TException {
+                    return client.getSlotInfos(queueToMaxSlots, nodeId);
+                }
+            });
+            return convertSlotInfoListToSlotMap(slotInfoList);
+        } catch (TException e) {
+            handleCoordinatorChanges();
+            throw new ConnectionException("Coordinator has changed", e);
         } catch (ThriftClientException e) {
             handleCoordinatorChanges();
             throw new ConnectionException("Error occurred in thrift client " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Convert a list of SlotInfo objects to a map of queue name to slots
+     *
+     * @param slotInfoList list of objects generated by thrift
+     * @return map of queue name to slots
+     */
+    private static Map<String, List<Slot>> convertSlotInfoListToSlotMap(List<SlotInfo> slotInfoList) {
+        Map<String, List<Slot>> queueToSlots = new HashMap<>();
+        for (SlotInfo slotInfo : slotInfoList) {
+            List<Slot> slots = queueToSlots.get(slotInfo.getQueueName());
+            if (null == slots) {
+                slots = new ArrayList<>();
+                queueToSlots.put(slotInfo.getQueueName(), slots);
+            }
+            slots.add(convertSlotInforToSlot(slotInfo));
+        }
+        return queueToSlots;
+    }
+
     /**
      * Convert SlotInfo object to Slot object
      *
@@ -116,21 +203,20 @@ public class MBThriftClient {
      * @param localSafeZone Minimum message ID of the node that is deemed safe.
      * @throws TException in case of an connection error
      */
-    public static synchronized void updateMessageId(String queueName, String nodeId,
-                                                    long startMessageId, long endMessageId, long localSafeZone) throws ConnectionException {
+    public static void updateMessageId(final String queueName, final String nodeId, final long startMessageId,
+                                       final long endMessageId, final long localSafeZone)
+            throws ConnectionException {
         try {
-            client = getServiceClient();
-            client.updateMessageId(queueName, nodeId, startMessageId, endMessageId, localSafeZone);
+            invoke(new ThriftOperation<Void>() {
+                @Override
+                public Void execute(SlotManagementService.Client client) throws TException {
+                    client.updateMessageId(queueName, nodeId, startMessageId, endMessageId, localSafeZone);
+                    return null;
+                }
+            });
         } catch (TException e) {
-            try {
-                //retry once
-                reConnectToServer();
-                client.updateMessageId(queueName, nodeId, startMessageId, endMessageId, localSafeZone);
-            } catch (TException e1) {
-                handleCoordinatorChanges();
-                throw new ConnectionException("Coordinator has changed", e);
-            }
-
+            handleCoordinatorChanges();
+            throw new ConnectionException("Coordinator has changed", e);
         } catch (ThriftClientException e) {
             log.error("Error occurred while receiving coordinator details from map", e);
             handleCoordinatorChanges();
@@ -145,23 +231,21 @@ public class MBThriftClient {
      * @param slot      to be deleted
      * @throws TException
      */
-    public static synchronized boolean deleteSlot(String queueName, Slot slot,
-                                               String nodeId) throws ConnectionException {
-        SlotInfo slotInfo = new SlotInfo(slot.getStartMessageId(), slot.getEndMessageId(),
+    public static boolean deleteSlot(final String queueName, Slot slot,
+                                     final String nodeId) throws ConnectionException {
+        final SlotInfo slotInfo = new SlotInfo(slot.getStartMessageId(), slot.getEndMessageId(),
                 slot.getStorageQueueName(),nodeId,slot.isAnOverlappingSlot());
         boolean deleteSuccess = false;
         try {
-            client = getServiceClient();
-            deleteSuccess = client.deleteSlot(queueName, slotInfo, nodeId);
+            deleteSuccess = invoke(new ThriftOperation<Boolean>() {
+                @Override
+                public Boolean execute(SlotManagementService.Client client) throws TException {
+                    return client.deleteSlot(queueName, slotInfo, nodeId);
+                }
+            });
         } catch (TException e) {
-            try {
-                //retry to connect once
-                reConnectToServer();
-                deleteSuccess = client.deleteSlot(queueName, slotInfo, nodeId);
-            } catch (TException e1) {
-                handleCoordinatorChanges();
-                throw new ConnectionException("Coordinator has changed", e);
-            }
+            handleCoordinatorChanges();
+            throw new ConnectionException("Coordinator has changed", e);
         } catch (ThriftClientException e) {
             log.error("Error occurred while receiving coordinator details from map", e);
             handleCoordinatorChanges();
@@ -176,20 +260,19 @@ public class MBThriftClient {
      * @param queueName name of the queue
      * @throws TException
      */
-    public static synchronized void reAssignSlotWhenNoSubscribers(String nodeId,
-                                                                  String queueName) throws ConnectionException {
+    public static void reAssignSlotWhenNoSubscribers(final String nodeId,
+                                                     final String queueName) throws ConnectionException {
         try {
-            client = getServiceClient();
-            client.reAssignSlotWhenNoSubscribers(nodeId, queueName);
+            invoke(new ThriftOperation<Void>() {
+                @Override
+                public Void execute(SlotManagementService.Client client) throws TException {
+                    client.reAssignSlotWhenNoSubscribers(nodeId, queueName);
+                    return null;
+                }
+            });
         } catch (TException e) {
-            try {
-                //retry to do the operation once
-                reConnectToServer();
-                client.reAssignSlotWhenNoSubscribers(nodeId, queueName);
-            } catch (TException e1) {
-                handleCoordinatorChanges();
-                throw new ConnectionException("Coordinator has changed", e);
-            }
+            handleCoordinatorChanges();
+            throw new ConnectionException("Coordinator has changed", e);
         } catch (ThriftClientException e) {
             log.error("Error occurred while receiving coordinator details from map", e);
             handleCoordinatorChanges();
@@ -202,88 +285,206 @@ public class MBThriftClient {
      * @param queueName name of destination queue
      * @throws ConnectionException
      */
-    public static synchronized void clearAllActiveSlotRelationsToQueue(String queueName) throws ConnectionException {
+    public static void clearAllActiveSlotRelationsToQueue(final String queueName) throws ConnectionException {
 
         try {
-            client = getServiceClient();
-            client.clearAllActiveSlotRelationsToQueue(queueName);
+            invoke(new ThriftOperation<Void>() {
+                @Override
+                public Void execute(SlotManagementService.Client client) throws TException {
+                    client.clearAllActiveSlotRelationsToQueue(queueName);
+                    return null;
+                }
+            });
         } catch (TException e) {
-            try {
-                //retry to do the operation once
-                reConnectToServer();
-                client.clearAllActiveSlotRelationsToQueue(queueName);
-            } catch (TException e1) {
-                handleCoordinatorChanges();
-                throw new ConnectionException("Coordinator has changed", e);
-            }
+            handleCoordinatorChanges();
+            throw new ConnectionException("Coordinator has changed", e);
         } catch (ThriftClientException e) {
             log.error("Could not initialize the Thrift client." + e.getMessage(), e);
             handleCoordinatorChanges();
         }
     }
 
+    /**
+     * Run the given operation with a client borrowed from the pool. The time spent waiting for a
+     * client and the time spent on the remote call are recorded separately. If the operation fails,
+     * the borrowed client is discarded and the operation is retried once on a new connection.
+     *
+     * @param operation operation to run against the coordinator
+     * @param <T>       type of the result
+     * @return result of the operation
+     * @throws TException            if the operation fails after retrying
+     * @throws ThriftClientException if coordinator details are not available
+     */
+    private static <T> T invoke(ThriftOperation<T> operation) throws TException, ThriftClientException {
+        Context queueWaitContext = queueWaitTimer.start();
+        try {
+            inFlightRequestPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ThriftClientException("Interrupted while waiting for a connection to the coordinator", e);
+        } finally {
+            queueWaitContext.stop();
+        }
+
+        try {
+            try {
+                return callAndReturnClient(borrowClient(), operation);
+            } catch (TException e) {
+                //retry once
+                return callAndReturnClient(reConnectToServer(), operation);
+            }
+        } finally {
+            inFlightRequestPermits.release();
+        }
+    }
+
+    /**
+     * Call the coordinator through the given client and hand the client back. The client is returned to the pool
+     * only if the call succeeded. On any failure, including runtime exceptions, it is discarded since the state of
+     * its connection is not known.
+     *
+     * @param pooledClient client to use
+     * @param operation    operation to run against the coordinator
+     * @param <T>          type of the result
+     * @return result of the operation
+     * @throws TException in case of an connection error
+     */
+    private static <T> T callAndReturnClient(PooledClient pooledClient, ThriftOperation<T> operation)
+            throws TException {
+        boolean succeeded = false;
+        try {
+            T result = callCoordinator(pooledClient, operation);
+            succeeded = true;
+            return result;
+        } finally {
+            if (succeeded) {
+                releaseClient(pooledClient);
+            } else {
+                discardClient(pooledClient);
+            }
+        }
+    }
+
+    /**
+     * Call the coordinator through the given client while recording the time taken
+     *
+     * @param pooledClient client to use
+     * @param operation    operation to run against the coordinator
+     * @param <T>          type of the result
+     * @return result of the operation
+     * @throws TException in case of an connection error
+     */
+    private static <T> T callCoordinator(PooledClient pooledClient, ThriftOperation<T> operation)
+            throws TException {
+        Context rpcContext = rpcTimer.start();
+        try {
+            return operation.execute(pooledClient.client);
+        } finally {
+            rpcContext.stop();
+        }
+    }
+
+    /**
+     * Take an idle client from the pool, or connect a new one if there is none. Clients left over
+     * from a previous coordinator are closed on the way.
+     *
+     * @return a SlotManagementService client which is not used by any other request
+     */
+    private static PooledClient borrowClient() throws TTransportException, ThriftClientException {
+        PooledClient pooledClient = idleClients.poll();
+        while (null != pooledClient) {
+            if (pooledClient.generation == poolGeneration.get()) {
+                return pooledClient;
+            }
+            pooledClient.close();
+            pooledClient = idleClients.poll();
+        }
+        return getServiceClient();
+    }
+
+    /**
+     * Return a client to the pool after a successful request
+     *
+     * @param pooledClient client to return
+     */
+    private static void releaseClient(PooledClient pooledClient) {
+        if ((pooledClient.generation != poolGeneration.get()) || !idleClients.offer(pooledClient)) {
+            pooledClient.close();
+        }
+    }
+
+    /**
+     * Close a client whose connection can no longer be trusted
+     *
+     * @param pooledClient client to close. Ignored if null
+     */
+    private static void discardClient(PooledClient pooledClient) {
+        if (null != pooledClient) {
+            pooledClient.close();
+        }
+    }
+
     /**
      * Returns an instance of Slot Management service client which is used to communicate to the
      * thrift server. If it does not succeed in connecting to the server, it throws a  TTransportException
      *
      * @return a SlotManagementService client
      */
-    private static SlotManagementService.Client getServiceClient() throws TTransportException, ThriftClientException {
-        if (client == null) {
-            HazelcastAgent hazelcastAgent = HazelcastAgent.getInstance();
-            String thriftCoordinatorServerIP = hazelcastAgent.getThriftServerDetailsMap().get(
-                    SlotCoordinationConstants.THRIFT_COORDINATOR_SERVER_IP);
-            String thriftCoordinatorServerPortString = hazelcastAgent.getThriftServerDetailsMap().
-                    get(SlotCoordinationConstants.THRIFT_COORDINATOR_SERVER_PORT);
-            if((null == thriftCoordinatorServerIP) || (null == thriftCoordinatorServerPortString)){
-                throw new ThriftClientException(
-                        "Thrift coordinator details are not updated in the map yet");
-            }else{
-
-                int thriftCoordinatorServerPort = Integer.parseInt(thriftCoordinatorServerPortString);
-                transport = new TSocket(thriftCoordinatorServerIP,
-                        thriftCoordinatorServerPort);
-                try {
-                    transport.open();
-                    TProtocol protocol = new TBinaryProtocol(transport);
-                    return new SlotManagementService.Client(protocol);
-                } catch (TTransportException e) {
-                    log.error("Could not initialize the Thrift client. " + e.getMessage(), e);
-                    throw new TTransportException(
-                            "Could not initialize the Thrift client. " + e.getMessage(), e);
-                }
-            }
+    private static PooledClient getServiceClient() throws TTransportException, ThriftClientException {
+        HazelcastAgent hazelcastAgent = HazelcastAgent.getInstance();
+        String thriftCoordinatorServerIP = hazelcastAgent.getThriftServerDetailsMap().get(
+                SlotCoordinationConstants.THRIFT_COORDINATOR_SERVER_IP);
+        String thriftCoordinatorServerPortString = hazelcastAgent.getThriftServerDetailsMap().
+                get(SlotCoordinationConstants.THRIFT_COORDINATOR_SERVER_PORT);
+        if((null == thriftCoordinatorServerIP) || (null == thriftCoordinatorServerPortString)){
+            throw new ThriftClientException(
+                    "Thrift coordinator details are not updated in the map yet");
+        }
 
+        int thriftCoordinatorServerPort = Integer.parseInt(thriftCoordinatorServerPortString);
+        try {
+            return new PooledClient(thriftCoordinatorServerIP, thriftCoordinatorServerPort,
+                    poolGeneration.get());
+        } catch (TTransportException e) {
+            log.error("Could not initialize the Thrift client. " + e.getMessage(), e);
+            throw new TTransportException(
+                    "Could not initialize the Thrift client. " + e.getMessage(), e);
         }
-        return client;
     }
 
     /**
      * Start the thrift server reconnecting thread when the coordinator of the cluster is changed.
+     * Only one reconnecting thread is started even if several requests fail at once.
      */
-    private static void handleCoordinatorChanges() {
+    private static synchronized void handleCoordinatorChanges() {
         resetServiceClient();
         if (!isReconnectingStarted()) {
             setReconnectingFlag(true);
+            startServerReconnectingThread();
         }
-        startServerReconnectingThread();
     }
 
     /**
-     * Set mbThriftClient to null
+     * Close all idle clients and make sure clients currently in use are closed when they are
+     * returned
      */
     private static void resetServiceClient() {
-        client = null;
-        transport.close();
+        poolGeneration.incrementAndGet();
+        PooledClient pooledClient = idleClients.poll();
+        while (null != pooledClient) {
+            pooledClient.close();
+            pooledClient = idleClients.poll();
+        }
     }
 
     /**
      * Try to reconnect to server by taking latest values in the hazelcalst thrift server details
      * map
      *
+     * @return a client connected to the current coordinator
      * @throws TTransportException when connecting to thrift server is unsuccessful
      */
-    private static void reConnectToServer() throws TTransportException {
+    private static PooledClient reConnectToServer() throws TTransportException {
         int thriftCoordinatorServerPort = 0;
         String thriftCoordinatorServerIP = null;
         Long reconnectTimeout = (Long) AndesConfigurationManager.readValue
@@ -297,20 +498,20 @@ public class MBThriftClient {
             thriftCoordinatorServerPort = Integer.parseInt(
                     hazelcastAgent.getThriftServerDetailsMap().
                             get(SlotCoordinationConstants.THRIFT_COORDINATOR_SERVER_PORT));
-            transport = new TSocket(thriftCoordinatorServerIP, thriftCoordinatorServerPort);
             log.info("Reconnecting to Slot Coordinator " + thriftCoordinatorServerIP + ":"
                     + thriftCoordinatorServerPort);
 
-            transport.open();
-            TProtocol protocol = new TBinaryProtocol(transport);
-            client = new SlotManagementService.Client(protocol);
+            return new PooledClient(thriftCoordinatorServerIP, thriftCoordinatorServerPort,
+                    poolGeneration.get());
         } catch (TTransportException e) {
             log.error("Could not connect to the Thrift Server " + thriftCoordinatorServerIP + ":" +
                     thriftCoordinatorServerPort + e.getMessage(), e);
             throw new TTransportException(
                     "Could not connect to the Thrift Server " + thriftCoordinatorServerIP + ":" +
                             thriftCoordinatorServerPort, e);
-        } catch (InterruptedException ignore) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TTransportException("Interrupted while reconnecting to the Thrift Server", e);
         }
     }
 
@@ -332,7 +533,7 @@ public class MBThriftClient {
                 while (reconnectingStarted) {
 
                     try {
-                        reConnectToServer();
+                        releaseClient(reConnectToServer());
                         /**
                          * If re connect to server is successful, following code segment will be
                          * executed
@@ -379,25 +580,67 @@ public class MBThriftClient {
      * @return global safeZone
      * @throws ConnectionException when MB thrift server is down
      */
-    public static synchronized long updateSlotDeletionSafeZone(long safeZoneMessageID, String nodeID) throws ConnectionException {
+    public static long updateSlotDeletionSafeZone(final long safeZoneMessageID, final String nodeID)
+            throws ConnectionException {
         long globalSafeZone = 0;
         try {
-            client = getServiceClient();
-            globalSafeZone = client.updateCurrentMessageIdForSafeZone(safeZoneMessageID, nodeID);
+            globalSafeZone = invoke(new ThriftOperation<Long>() {
+                @Override
+                public Long execute(SlotManagementService.Client client) throws TException {
+                    return client.updateCurrentMessageIdForSafeZone(safeZoneMessageID, nodeID);
+                }
+            });
         } catch (TException e) {
-            try {
-                //retry once
-                reConnectToServer();
-                globalSafeZone = client.updateCurrentMessageIdForSafeZone(safeZoneMessageID, nodeID);
-                return globalSafeZone;
-            } catch (TException e1) {
-                handleCoordinatorChanges();
-                throw new ConnectionException("Coordinator has changed", e);
-            }
+            handleCoordinatorChanges();
+            throw new ConnectionException("Coordinator has changed", e);
         } catch (ThriftClientException e) {
             log.error("Error occurred while receiving coordinator details from map", e);
             handleCoordinatorChanges();
         }
         return globalSafeZone;
     }
+
+    /**
+     * A single request to the coordinator, run with a client borrowed from the pool
+     *
+     * @param <T> type of the result
+     */
+    private interface ThriftOperation<T> {
+
+        /**
+         * Run the request
+         *
+         * @param client client which is used only by this request until it returns
+         * @return result of the request
+         * @throws TException in case of an connection error
+         */
+        T execute(SlotManagementService.Client client) throws TException;
+    }
+
+    /**
+     * A native thrift client together with its own connection to the coordinator
+     */
+    private static final class PooledClient {
+
+        private final TTransport transport;
+
+        private final SlotManagementService.Client client;
+
+        /**
+         * Pool generation at the time the client was connected
+         */
+        private final int generation;
+
+        private PooledClient(String host, int port, int generation) throws TTransportException {
+            this.transport = new TSocket(host, port);
+            this.transport.open();
+            TProtocol protocol = new TBinaryProtocol(transport);
+            this.client = new SlotManagementService.Client(protocol);
+            this.generation = generation;
+        }
+
+        private void close() {
+            transport.close();
+        }
+    }
 }
@@ -26,6 +26,10 @@ import org.wso2.andes.kernel.slot.SlotManagerClusterMode;
 import org.wso2.andes.thrift.slot.gen.SlotInfo;
 import org.wso2.andes.thrift.slot.gen.SlotManagementService;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 /**
  * This is the implementation of SlotManagementService interface. This class contains operations
  * does on slots through slot manager.When thrift client calls the services on
@@ -55,6 +59,28 @@ public class SlotManagementServiceImpl implements SlotManagementService.Iface {
         }
     }
 
+    @Override
+    public List<SlotInfo> getSlotInfos(Map<String, Integer> queueToMaxSlots, String nodeId) throws TException {
+        if (AndesContext.getInstance().getClusterAgent().isCoordinator()) {
+            List<SlotInfo> slotInfoList = new ArrayList<>();
+            try {
+                Map<String, List<Slot>> queueToSlots = slotManager.getSlots(queueToMaxSlots, nodeId);
+                for (List<Slot> slots : queueToSlots.values()) {
+                    for (Slot slot : slots) {
+                        slotInfoList.add(new SlotInfo(slot.getStartMessageId(), slot.getEndMessageId(),
+                                slot.getStorageQueueName(), nodeId, slot.isAnOverlappingSlot()));
+                    }
+                }
+            } catch (AndesException e) {
+                throw new TException("Failed to get slot info for queues: " + queueToMaxSlots.keySet()
+                                     + " nodeId: " + nodeId, e);
+            }
+            return slotInfoList;
+        } else {
+            throw new TException("This node is not the slot coordinator right now");
+        }
+    }
+
     @Override
     public void updateMessageId(String queueName, String nodeId, long startMessageId, long endMessageId, long localSafeZone) throws TException {
         if (AndesContext.getInstance().getClusterAgent().isCoordinator()) {
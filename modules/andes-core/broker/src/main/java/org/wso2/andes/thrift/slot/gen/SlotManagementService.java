@@ -26,6 +26,8 @@ public class SlotManagementService {
 
     public SlotInfo getSlotInfo(String queueName, String nodeId) throws org.apache.thrift.TException;
 
+    public List<SlotInfo> getSlotInfos(Map<String,Integer> queueToMaxSlots, String nodeId) throws org.apache.thrift.TException;
+
     public void updateMessageId(String queueName, String nodeId, long startMessageId, long endMessageId, long localSafeZone) throws org.apache.thrift.TException;
 
     public boolean deleteSlot(String queueName, SlotInfo slotInfo, String nodeId) throws org.apache.thrift.TException;
@@ -49,6 +51,8 @@ public class SlotManagementService {
 
     public void getSlotInfo(String queueName, String nodeId, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.getSlotInfo_call> resultHandler) throws org.apache.thrift.TException;
 
+    public void getSlotInfos(Map<String,Integer> queueToMaxSlots, String nodeId, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.getSlotInfos_call> resultHandler) throws org.apache.thrift.TException;
+
     public void updateMessageId(String queueName, String nodeId, long startMessageId, long endMessageId, long localSafeZone, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.updateMessageId_call> resultHandler) throws org.apache.thrift.TException;
 
     public void deleteSlot(String queueName, SlotInfo slotInfo, String nodeId, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.deleteSlot_call> resultHandler) throws org.apache.thrift.TException;
@@ -105,6 +109,30 @@ public class SlotManagementService {
       throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, "getSlotInfo failed: unknown result");
     }
 
+    public List<SlotInfo> getSlotInfos(Map<String,Integer> queueToMaxSlots, String nodeId) throws org.apache.thrift.TException
+    {
+      send_getSlotInfos(queueToMaxSlots, nodeId);
+      return recv_getSlotInfos();
+    }
+
+    public void send_getSlotInfos(Map<String,Integer> queueToMaxSlots, String nodeId) throws org.apache.thrift.TException
+    {
+      getSlotInfos_args args = new getSlotInfos_args();
+      args.setQueueToMaxSlots(queueToMaxSlots);
+      args.setNodeId(nodeId);
+      sendBase("getSlotInfos", args);
+    }
+
+    public List<SlotInfo> recv_getSlotInfos() throws org.apache.thrift.TException
+    {
+      getSlotInfos_result result = new getSlotInfos_result();
+      receiveBase(result, "getSlotInfos");
+      if (result.isSetSuccess()) {
+        return result.success;
+      }
+      throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, "getSlotInfos failed: unknown result");
+    }
+
     public void updateMessageId(String queueName, String nodeId, long startMessageId, long endMessageId, long localSafeZone) throws org.apache.thrift.TException
     {
       send_updateMessageId(queueName, nodeId, startMessageId, endMessageId, localSafeZone);
@@ -272,6 +300,41 @@ public class SlotManagementService {
       }
     }
 
+    public void getSlotInfos(Map<String,Integer> queueToMaxSlots, String nodeId, org.apache.thrift.async.AsyncMethodCallback<getSlotInfos_call> resultHandler) throws org.apache.thrift.TException {
+      checkReady();
+      getSlotInfos_call method_call = new getSlotInfos_call(queueToMaxSlots, nodeId, resultHandler, this, ___protocolFactory, ___transport);
+      this.___currentMethod = method_call;
+      ___manager.call(method_call);
+    }
+
+    public static class getSlotInfos_call extends org.apache.thrift.async.TAsyncMethodCall {
+      private Map<String,Integer> queueToMaxSlots;
+      private String nodeId;
+      public getSlotInfos_call(Map<String,Integer> queueToMaxSlots, String nodeId, org.apache.thrift.async.AsyncMethodCallback<getSlotInfos_call> resultHandler, org.apache.thrift.async.TAsyncClient client, org.apache.thrift.protocol.TProtocolFactory protocolFactory, org.apache.thrift.transport.TNonblockingTransport transport) throws org.apache.thrift.TException {
+        super(client, protocolFactory, transport, resultHandler, false);
+        this.queueToMaxSlots = queueToMaxSlots;
+        this.nodeId = nodeId;
+      }
+
+      public void write_args(org.apache.thrift.protocol.TProtocol prot) throws org.apache.thrift.TException {
+        prot.writeMessageBegin(new org.apache.thrift.protocol.TMessage("getSlotInfos", org.apache.thrift.protocol.TMessageType.CALL, 0));
+        getSlotInfos_args args = new getSlotInfos_args();
+        args.setQueueToMaxSlots(queueToMaxSlots);
+        args.setNodeId(nodeId);
+        args.write(prot);
+        prot.writeMessageEnd();
+      }
+
+      public List<SlotInfo> getResult() throws org.apache.thrift.TException {
+        if (getState() != org.apache.thrift.async.TAsyncMethodCall.State.RESPONSE_READ) {
+          throw new IllegalStateException("Method call not finished!");
+        }
+        org.apache.thrift.transport.TMemoryInputTransport memoryTransport = new org.apache.thrift.transport.TMemoryInputTransport(getFrameBuffer().array());
+        org.apache.thrift.protocol.TProtocol prot = client.getProtocolFactory().getProtocol(memoryTransport);
+        return (new Client(prot)).recv_getSlotInfos();
+      }
+    }
+
     public void updateMessageId(String queueName, String nodeId, long startMessageId, long endMessageId, long localSafeZone, org.apache.thrift.async.AsyncMethodCallback<updateMessageId_call> resultHandler) throws org.apache.thrift.TException {
       checkReady();
       updateMessageId_call method_call = new updateMessageId_call(queueName, nodeId, startMessageId, endMessageId, localSafeZone, resultHandler, this, ___protocolFactory, ___transport);
@@ -470,6 +533,7 @@ public class SlotManagementService {
 
     private static <I extends Iface> Map<String,  org.apache.thrift.ProcessFunction<I, ? extends  org.apache.thrift.TBase>> getProcessMap(Map<String,  org.apache.thrift.ProcessFunction<I, ? extends  org.apache.thrift.TBase>> processMap) {
       processMap.put("getSlotInfo", new getSlotInfo());
+      processMap.put("getSlotInfos", new getSlotInfos());
       processMap.put("updateMessageId", new updateMessageId());
       processMap.put("deleteSlot", new deleteSlot());
       processMap.put("reAssignSlotWhenNoSubscribers", new reAssignSlotWhenNoSubscribers());
@@ -500,6 +564,28 @@ public class SlotManagementService {
       }
     }
 
+    private static class getSlotInfos<I extends Iface> extends org.apache.thrift.ProcessFunction<I, getSlotInfos_args> {
+      public getSlotInfos() {
+        super("getSlotInfos");
+      }
+
+      public getSlotInfos_args getEmptyArgsInstance() {
+        return new getSlotInfos_args();
+      }
+
+        @Override
+        protected boolean isOneway() {
+            return false;
+        }
+
+
+        public getSlotInfos_result getResult(I iface, getSlotInfos_args args) throws org.apache.thrift.TException {
+        getSlotInfos_result result = new getSlotInfos_result();
+        result.success = iface.getSlotInfos(args.queueToMaxSlots, args.nodeId);
+        return result;
+      }
+    }
+
     private static class updateMessageId<I extends Iface> extends org.apache.thrift.ProcessFunction<I, updateMessageId_args> {
       public updateMessageId() {
         super("updateMessageId");
@@ -1292,6 +1378,771 @@ public class SlotManagementService {
 
   }
 
+  public static class getSlotInfos_args implements org.apache.thrift.TBase<getSlotInfos_args, getSlotInfos_args._Fields>, java.io.Serializable, Cloneable   {
+    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("getSlotInfos_args");
+
+    private static final org.apache.thrift.protocol.TField QUEUE_TO_MAX_SLOTS_FIELD_DESC = new org.apache.thrift.protocol.TField("queueToMaxSlots", org.apache.thrift.protocol.TType.MAP, (short)1);
+    private static final org.apache.thrift.protocol.TField NODE_ID_FIELD_DESC = new org.apache.thrift.protocol.TField("nodeId", org.apache.thrift.protocol.TType.STRING, (short)2);
+
+    public Map<String,Integer> queueToMaxSlots; // required
+    public String nodeId; // required
+
+    /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
+    public enum _Fields implements org.apache.thrift.TFieldIdEnum {
+      QUEUE_TO_MAX_SLOTS((short)1, "queueToMaxSlots"),
+      NODE_ID((short)2, "nodeId");
+
+      private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
+
+      static {
+        for (_Fields field : EnumSet.allOf(_Fields.class)) {
+          byName.put(field.getFieldName(), field);
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, or null if its not found.
+       */
+      public static _Fields findByThriftId(int fieldId) {
+        switch(fieldId) {
+          case 1: // QUEUE_TO_MAX_SLOTS
+            return QUEUE_TO_MAX_SLOTS;
+          case 2: // NODE_ID
+            return NODE_ID;
+          default:
+            return null;
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, throwing an exception
+       * if it is not found.
+       */
+      public static _Fields findByThriftIdOrThrow(int fieldId) {
+        _Fields fields = findByThriftId(fieldId);
+        if (fields == null) throw new IllegalArgumentException("Field " + fieldId + " doesn't exist!");
+        return fields;
+      }
+
+      /**
+       * Find the _Fields constant that matches name, or null if its not found.
+       */
+      public static _Fields findByName(String name) {
+        return byName.get(name);
+      }
+
+      private final short _thriftId;
+      private final String _fieldName;
+
+      _Fields(short thriftId, String fieldName) {
+        _thriftId = thriftId;
+        _fieldName = fieldName;
+      }
+
+      public short getThriftFieldId() {
+        return _thriftId;
+      }
+
+      public String getFieldName() {
+        return _fieldName;
+      }
+    }
+
+    // isset id assignments
+
+    public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
+    static {
+      Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
+      tmpMap.put(_Fields.QUEUE_TO_MAX_SLOTS, new org.apache.thrift.meta_data.FieldMetaData("queueToMaxSlots", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.MapMetaData(org.apache.thrift.protocol.TType.MAP, 
+              new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING), 
+              new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I32))));
+      tmpMap.put(_Fields.NODE_ID, new org.apache.thrift.meta_data.FieldMetaData("nodeId", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING)));
+      metaDataMap = Collections.unmodifiableMap(tmpMap);
+      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(getSlotInfos_args.class, metaDataMap);
+    }
+
+    public getSlotInfos_args() {
+    }
+
+    public getSlotInfos_args(
+      Map<String,Integer> queueToMaxSlots,
+      String nodeId)
+    {
+      this();
+      this.queueToMaxSlots = queueToMaxSlots;
+      this.nodeId = nodeId;
+    }
+
+    /**
+     * Performs a deep copy on <i>other</i>.
+     */
+    public getSlotInfos_args(getSlotInfos_args other) {
+      if (other.isSetQueueToMaxSlots()) {
+        Map<String,Integer> __this__queueToMaxSlots = new HashMap<String,Integer>();
+        for (Map.Entry<String, Integer> other_element : other.queueToMaxSlots.entrySet()) {
+
+          String other_element_key = other_element.getKey();
+          Integer other_element_value = other_element.getValue();
+
+          String __this__queueToMaxSlots_copy_key = other_element_key;
+
+          Integer __this__queueToMaxSlots_copy_value = other_element_value;
+
+          __this__queueToMaxSlots.put(__this__queueToMaxSlots_copy_key, __this__queueToMaxSlots_copy_value);
+        }
+        this.queueToMaxSlots = __this__queueToMaxSlots;
+      }
+      if (other.isSetNodeId()) {
+        this.nodeId = other.nodeId;
+      }
+    }
+
+    public getSlotInfos_args deepCopy() {
+      return new getSlotInfos_args(this);
+    }
+
+    @Override
+    public void clear() {
+      this.queueToMaxSlots = null;
+      this.nodeId = null;
+    }
+
+    public int getQueueToMaxSlotsSize() {
+      return (this.queueToMaxSlots == null) ? 0 : this.queueToMaxSlots.size();
+    }
+
+    public void putToQueueToMaxSlots(String key, int val) {
+      if (this.queueToMaxSlots == null) {
+        this.queueToMaxSlots = new HashMap<String,Integer>();
+      }
+      this.queueToMaxSlots.put(key, val);
+    }
+
+    public Map<String,Integer> getQueueToMaxSlots() {
+      return this.queueToMaxSlots;
+    }
+
+    public getSlotInfos_args setQueueToMaxSlots(Map<String,Integer> queueToMaxSlots) {
+      this.queueToMaxSlots = queueToMaxSlots;
+      return this;
+    }
+
+    public void unsetQueueToMaxSlots() {
+      this.queueToMaxSlots = null;
+    }
+
+    /** Returns true if field queueToMaxSlots is set (has been assigned a value) and false otherwise */
+    public boolean isSetQueueToMaxSlots() {
+      return this.queueToMaxSlots != null;
+    }
+
+    public void setQueueToMaxSlotsIsSet(boolean value) {
+      if (!value) {
+        this.queueToMaxSlots = null;
+      }
+    }
+
+    public String getNodeId() {
+      return this.nodeId;
+    }
+
+    public getSlotInfos_args setNodeId(String nodeId) {
+      this.nodeId = nodeId;
+      return this;
+    }
+
+    public void unsetNodeId() {
+      this.nodeId = null;
+    }
+
+    /** Returns true if field nodeId is set (has been assigned a value) and false otherwise */
+    public boolean isSetNodeId() {
+      return this.nodeId != null;
+    }
+
+    public void setNodeIdIsSet(boolean value) {
+      if (!value) {
+        this.nodeId = null;
+      }
+    }
+
+    public void setFieldValue(_Fields field, Object value) {
+      switch (field) {
+      case QUEUE_TO_MAX_SLOTS:
+        if (value == null) {
+          unsetQueueToMaxSlots();
+        } else {
+          setQueueToMaxSlots((Map<String,Integer>)value);
+        }
+        break;
+
+      case NODE_ID:
+        if (value == null) {
+          unsetNodeId();
+        } else {
+          setNodeId((String)value);
+        }
+        break;
+
+      }
+    }
+
+    public Object getFieldValue(_Fields field) {
+      switch (field) {
+      case QUEUE_TO_MAX_SLOTS:
+        return getQueueToMaxSlots();
+
+      case NODE_ID:
+        return getNodeId();
+
+      }
+      throw new IllegalStateException();
+    }
+
+    /** Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise */
+    public boolean isSet(_Fields field) {
+      if (field == null) {
+        throw new IllegalArgumentException();
+      }
+
+      switch (field) {
+      case QUEUE_TO_MAX_SLOTS:
+        return isSetQueueToMaxSlots();
+      case NODE_ID:
+        return isSetNodeId();
+      }
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      if (that == null)
+        return false;
+      if (that instanceof getSlotInfos_args)
+        return this.equals((getSlotInfos_args)that);
+      return false;
+    }
+
+    public boolean equals(getSlotInfos_args that) {
+      if (that == null)
+        return false;
+
+      boolean this_present_queueToMaxSlots = true && this.isSetQueueToMaxSlots();
+      boolean that_present_queueToMaxSlots = true && that.isSetQueueToMaxSlots();
+      if (this_present_queueToMaxSlots || that_present_queueToMaxSlots) {
+        if (!(this_present_queueToMaxSlots && that_present_queueToMaxSlots))
+          return false;
+        if (!this.queueToMaxSlots.equals(that.queueToMaxSlots))
+          return false;
+      }
+
+      boolean this_present_nodeId = true && this.isSetNodeId();
+      boolean that_present_nodeId = true && that.isSetNodeId();
+      if (this_present_nodeId || that_present_nodeId) {
+        if (!(this_present_nodeId && that_present_nodeId))
+          return false;
+        if (!this.nodeId.equals(that.nodeId))
+          return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return 0;
+    }
+
+    public int compareTo(getSlotInfos_args other) {
+      if (!getClass().equals(other.getClass())) {
+        return getClass().getName().compareTo(other.getClass().getName());
+      }
+
+      int lastComparison = 0;
+      getSlotInfos_args typedOther = (getSlotInfos_args)other;
+
+      lastComparison = Boolean.valueOf(isSetQueueToMaxSlots()).compareTo(typedOther.isSetQueueToMaxSlots());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (isSetQueueToMaxSlots()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.queueToMaxSlots, typedOther.queueToMaxSlots);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      lastComparison = Boolean.valueOf(isSetNodeId()).compareTo(typedOther.isSetNodeId());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (isSetNodeId()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.nodeId, typedOther.nodeId);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      return 0;
+    }
+
+    public _Fields fieldForId(int fieldId) {
+      return _Fields.findByThriftId(fieldId);
+    }
+
+    public void read(org.apache.thrift.protocol.TProtocol iprot) throws org.apache.thrift.TException {
+      org.apache.thrift.protocol.TField field;
+      iprot.readStructBegin();
+      while (true)
+      {
+        field = iprot.readFieldBegin();
+        if (field.type == org.apache.thrift.protocol.TType.STOP) { 
+          break;
+        }
+        switch (field.id) {
+          case 1: // QUEUE_TO_MAX_SLOTS
+            if (field.type == org.apache.thrift.protocol.TType.MAP) {
+              {
+                org.apache.thrift.protocol.TMap _map0 = iprot.readMapBegin();
+                this.queueToMaxSlots = new HashMap<String,Integer>(2*_map0.size);
+                for (int _i1 = 0; _i1 < _map0.size; ++_i1)
+                {
+                  String _key2; // required
+                  int _val3; // required
+                  _key2 = iprot.readString();
+                  _val3 = iprot.readI32();
+                  this.queueToMaxSlots.put(_key2, _val3);
+                }
+                iprot.readMapEnd();
+              }
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+            }
+            break;
+          case 2: // NODE_ID
+            if (field.type == org.apache.thrift.protocol.TType.STRING) {
+              this.nodeId = iprot.readString();
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+            }
+            break;
+          default:
+            org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+        }
+        iprot.readFieldEnd();
+      }
+      iprot.readStructEnd();
+
+      // check for required fields of primitive type, which can't be checked in the validate method
+      validate();
+    }
+
+    public void write(org.apache.thrift.protocol.TProtocol oprot) throws org.apache.thrift.TException {
+      validate();
+
+      oprot.writeStructBegin(STRUCT_DESC);
+      if (this.queueToMaxSlots != null) {
+        oprot.writeFieldBegin(QUEUE_TO_MAX_SLOTS_FIELD_DESC);
+        {
+          oprot.writeMapBegin(new org.apache.thrift.protocol.TMap(org.apache.thrift.protocol.TType.STRING, org.apache.thrift.protocol.TType.I32, this.queueToMaxSlots.size()));
+          for (Map.Entry<String, Integer> _iter4 : this.queueToMaxSlots.entrySet())
+          {
+            oprot.writeString(_iter4.getKey());
+            oprot.writeI32(_iter4.getValue());
+          }
+          oprot.writeMapEnd();
+        }
+        oprot.writeFieldEnd();
+      }
+      if (this.nodeId != null) {
+        oprot.writeFieldBegin(NODE_ID_FIELD_DESC);
+        oprot.writeString(this.nodeId);
+        oprot.writeFieldEnd();
+      }
+      oprot.writeFieldStop();
+      oprot.writeStructEnd();
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder("getSlotInfos_args(");
+      boolean first = true;
+
+      sb.append("queueToMaxSlots:");
+      if (this.queueToMaxSlots == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.queueToMaxSlots);
+      }
+      first = false;
+      if (!first) sb.append(", ");
+      sb.append("nodeId:");
+      if (this.nodeId == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.nodeId);
+      }
+      first = false;
+      sb.append(")");
+      return sb.toString();
+    }
+
+    public void validate() throws org.apache.thrift.TException {
+      // check for required fields
+    }
+
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+      try {
+        write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+      try {
+        read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+  }
+
+  public static class getSlotInfos_result implements org.apache.thrift.TBase<getSlotInfos_result, getSlotInfos_result._Fields>, java.io.Serializable, Cloneable   {
+    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("getSlotInfos_result");
+
+    private static final org.apache.thrift.protocol.TField SUCCESS_FIELD_DESC = new org.apache.thrift.protocol.TField("success", org.apache.thrift.protocol.TType.LIST, (short)0);
+
+    public List<SlotInfo> success; // required
+
+    /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
+    public enum _Fields implements org.apache.thrift.TFieldIdEnum {
+      SUCCESS((short)0, "success");
+
+      private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
+
+      static {
+        for (_Fields field : EnumSet.allOf(_Fields.class)) {
+          byName.put(field.getFieldName(), field);
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, or null if its not found.
+       */
+      public static _Fields findByThriftId(int fieldId) {
+        switch(fieldId) {
+          case 0: // SUCCESS
+            return SUCCESS;
+          default:
+            return null;
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, throwing an exception
+       * if it is not found.
+       */
+      public static _Fields findByThriftIdOrThrow(int fieldId) {
+        _Fields fields = findByThriftId(fieldId);
+        if (fields == null) throw new IllegalArgumentException("Field " + fieldId + " doesn't exist!");
+        return fields;
+      }
+
+      /**
+       * Find the _Fields constant that matches name, or null if its not found.
+       */
+      public static _Fields findByName(String name) {
+        return byName.get(name);
+      }
+
+      private final short _thriftId;
+      private final String _fieldName;
+
+      _Fields(short thriftId, String fieldName) {
+        _thriftId = thriftId;
+        _fieldName = fieldName;
+      }
+
+      public short getThriftFieldId() {
+        return _thriftId;
+      }
+
+      public String getFieldName() {
+        return _fieldName;
+      }
+    }
+
+    // isset id assignments
+
+    public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
+    static {
+      Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
+      tmpMap.put(_Fields.SUCCESS, new org.apache.thrift.meta_data.FieldMetaData("success", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.ListMetaData(org.apache.thrift.protocol.TType.LIST, 
+              new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, SlotInfo.class))));
+      metaDataMap = Collections.unmodifiableMap(tmpMap);
+      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(getSlotInfos_result.class, metaDataMap);
+    }
+
+    public getSlotInfos_result() {
+    }
+
+    public getSlotInfos_result(
+      List<SlotInfo> success)
+    {
+      this();
+      this.success = success;
+    }
+
+    /**
+     * Performs a deep copy on <i>other</i>.
+     */
+    public getSlotInfos_result(getSlotInfos_result other) {
+      if (other.isSetSuccess()) {
+        List<SlotInfo> __this__success = new ArrayList<SlotInfo>();
+        for (SlotInfo other_element : other.success) {
+          __this__success.add(new SlotInfo(other_element));
+        }
+        this.success = __this__success;
+      }
+    }
+
+    public getSlotInfos_result deepCopy() {
+      return new getSlotInfos_result(this);
+    }
+
+    @Override
+    public void clear() {
+      this.success = null;
+    }
+
+    public int getSuccessSize() {
+      return (this.success == null) ? 0 : this.success.size();
+    }
+
+    public java.util.Iterator<SlotInfo> getSuccessIterator() {
+      return (this.success == null) ? null : this.success.iterator();
+    }
+
+    public void addToSuccess(SlotInfo elem) {
+      if (this.success == null) {
+        this.success = new ArrayList<SlotInfo>();
+      }
+      this.success.add(elem);
+    }
+
+    public List<SlotInfo> getSuccess() {
+      return this.success;
+    }
+
+    public getSlotInfos_result setSuccess(List<SlotInfo> success) {
+      this.success = success;
+      return this;
+    }
+
+    public void unsetSuccess() {
+      this.success = null;
+    }
+
+    /** Returns true if field success is set (has been assigned a value) and false otherwise */
+    public boolean isSetSuccess() {
+      return this.success != null;
+    }
+
+    public void setSuccessIsSet(boolean value) {
+      if (!value) {
+        this.success = null;
+      }
+    }
+
+    public void setFieldValue(_Fields field, Object value) {
+      switch (field) {
+      case SUCCESS:
+        if (value == null) {
+          unsetSuccess();
+        } else {
+          setSuccess((List<SlotInfo>)value);
+        }
+        break;
+
+      }
+    }
+
+    public Object getFieldValue(_Fields field) {
+      switch (field) {
+      case SUCCESS:
+        return getSuccess();
+
+      }
+      throw new IllegalStateException();
+    }
+
+    /** Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise */
+    public boolean isSet(_Fields field) {
+      if (field == null) {
+        throw new IllegalArgumentException();
+      }
+
+      switch (field) {
+      case SUCCESS:
+        return isSetSuccess();
+      }
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      if (that == null)
+        return false;
+      if (that instanceof getSlotInfos_result)
+        return this.equals((getSlotInfos_result)that);
+      return false;
+    }
+
+    public boolean equals(getSlotInfos_result that) {
+      if (that == null)
+        return false;
+
+      boolean this_present_success = true && this.isSetSuccess();
+      boolean that_present_success = true && that.isSetSuccess();
+      if (this_present_success || that_present_success) {
+        if (!(this_present_success && that_present_success))
+          return false;
+        if (!this.success.equals(that.success))
+          return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return 0;
+    }
+
+    public int compareTo(getSlotInfos_result other) {
+      if (!getClass().equals(other.getClass())) {
+        return getClass().getName().compareTo(other.getClass().getName());
+      }
+
+      int lastComparison = 0;
+      getSlotInfos_result typedOther = (getSlotInfos_result)other;
+
+      lastComparison = Boolean.valueOf(isSetSuccess()).compareTo(typedOther.isSetSuccess());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (isSetSuccess()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.success, typedOther.success);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      return 0;
+    }
+
+    public _Fields fieldForId(int fieldId) {
+      return _Fields.findByThriftId(fieldId);
+    }
+
+    public void read(org.apache.thrift.protocol.TProtocol iprot) throws org.apache.thrift.TException {
+      org.apache.thrift.protocol.TField field;
+      iprot.readStructBegin();
+      while (true)
+      {
+        field = iprot.readFieldBegin();
+        if (field.type == org.apache.thrift.protocol.TType.STOP) { 
+          break;
+        }
+        switch (field.id) {
+          case 0: // SUCCESS
+            if (field.type == org.apache.thrift.protocol.TType.LIST) {
+              {
+                org.apache.thrift.protocol.TList _list5 = iprot.readListBegin();
+                this.success = new ArrayList<SlotInfo>(_list5.size);
+                for (int _i6 = 0; _i6 < _list5.size; ++_i6)
+                {
+                  SlotInfo _elem7; // required
+                  _elem7 = new SlotInfo();
+                  _elem7.read(iprot);
+                  this.success.add(_elem7);
+                }
+                iprot.readListEnd();
+              }
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+            }
+            break;
+          default:
+            org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+        }
+        iprot.readFieldEnd();
+      }
+      iprot.readStructEnd();
+
+      // check for required fields of primitive type, which can't be checked in the validate method
+      validate();
+    }
+
+    public void write(org.apache.thrift.protocol.TProtocol oprot) throws org.apache.thrift.TException {
+      oprot.writeStructBegin(STRUCT_DESC);
+
+      if (this.isSetSuccess()) {
+        oprot.writeFieldBegin(SUCCESS_FIELD_DESC);
+        {
+          oprot.writeListBegin(new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRUCT, this.success.size()));
+          for (SlotInfo _iter8 : this.success)
+          {
+            _iter8.write(oprot);
+          }
+          oprot.writeListEnd();
+        }
+        oprot.writeFieldEnd();
+      }
+      oprot.writeFieldStop();
+      oprot.writeStructEnd();
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder("getSlotInfos_result(");
+      boolean first = true;
+
+      sb.append("success:");
+      if (this.success == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.success);
+      }
+      first = false;
+      sb.append(")");
+      return sb.toString();
+    }
+
+    public void validate() throws org.apache.thrift.TException {
+      // check for required fields
+    }
+
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+      try {
+        write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+      try {
+        read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+  }
+
   public static class updateMessageId_args implements org.apache.thrift.TBase<updateMessageId_args, updateMessageId_args._Fields>, java.io.Serializable, Cloneable   {
     private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("updateMessageId_args");
 
@@ -26,6 +26,11 @@ service SlotManagementService {
     */
     SlotInfo getSlotInfo(1: string queueName, 2: string nodeId),
 
+    /* The getSlotInfos operation. This method is used to get slots of several queues from SlotManager in one call.
+    *  Map key is the queue name and value is the maximum number of slots to be returned for that queue.
+    */
+    list<SlotInfo> getSlotInfos(1: map<string, i32> queueToMaxSlots, 2: string nodeId),
+
     /* The updateMessageId operation is to update the message ID in the coordinator after chunk of messages are published.
     *  In addition, the coordinator will check if the received slot overlaps with any existing,assigned slots, 
     *  and memorize such ranges to be given back to the same node.
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.kernel;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.andes.subscription.EqualitySelector;
+import org.wso2.andes.subscription.LocalSubscription;
+import org.wso2.andes.subscription.OutboundSubscription;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link SelectorRoutingIndex}
+ * Subscriptions are matched by the value of a message property read through their equality selectors.
+ */
+public class SelectorRoutingIndexTest {
+
+    private static final String REGION = "region";
+
+    private static final String COUNTRY = "country";
+
+    /**
+     * Message id -> message properties read by the selectors
+     */
+    private Map<Long, Map<String, String>> messageProperties;
+
+    @Before
+    public void setUp() {
+        messageProperties = new HashMap<>();
+    }
+
+    /**
+     * No index is built when none of the subscriptions has an equality selector
+     */
+    @Test
+    public void testNoIndexWithoutEqualitySelectors() {
+        assertNull("Index built without equality selectors",
+                   SelectorRoutingIndex.build(Arrays.asList(createSubscription("sub1", null),
+                                                            createSubscription("sub2", null))));
+    }
+
+    /**
+     * Only subscriptions accepting the property value of the message match
+     */
+    @Test
+    public void testMatch() throws AndesException {
+        LocalSubscription europe = createSubscription("europe", REGION, "EU");
+        LocalSubscription europeOrUs = createSubscription("europeOrUs", REGION, "EU", "US");
+        LocalSubscription us = createSubscription("us", REGION, "US");
+        SelectorRoutingIndex index = SelectorRoutingIndex.build(Arrays.asList(europe, europeOrUs, us));
+
+        assertEquals("Incorrect matches", toSet(europe, europeOrUs),
+                     index.getMatchingSubscriptions(createMessage(1, REGION, "EU")));
+        assertEquals("Incorrect matches", toSet(europeOrUs, us),
+                     index.getMatchingSubscriptions(createMessage(2, REGION, "US")));
+    }
+
+    /**
+     * A property value which no subscription accepts matches nothing
+     */
+    @Test
+    public void testNonMatch() throws AndesException {
+        LocalSubscription europe = createSubscription("europe", REGION, "EU");
+        SelectorRoutingIndex index = SelectorRoutingIndex.build(Collections.singletonList(europe));
+
+        assertTrue("Subscription matched a different value",
+                   index.getMatchingSubscriptions(createMessage(1, REGION, "ASIA")).isEmpty());
+        // Values are compared as is
+        assertTrue("Subscription matched a different case",
+                   index.getMatchingSubscriptions(createMessage(2, REGION, "eu")).isEmpty());
+    }
+
+    /**
+     * A message without the indexed property matches nothing
+     */
+    @Test
+    public void testMissingProperty() throws AndesException {
+        LocalSubscription europe = createSubscription("europe", REGION, "EU");
+        SelectorRoutingIndex index = SelectorRoutingIndex.build(Collections.singletonList(europe));
+
+        assertTrue("Subscription matched a message without the property",
+                   index.getMatchingSubscriptions(createMessage(1, COUNTRY, "EU")).isEmpty());
+    }
+
+    /**
+     * Matches of subscriptions on different properties are combined
+     */
+    @Test
+    public void testMatchOnSeveralProperties() throws AndesException {
+        LocalSubscription europe = createSubscription("europe", REGION, "EU");
+        LocalSubscription sriLanka = createSubscription("sriLanka", COUNTRY, "LK");
+        LocalSubscription france = createSubscription("france", COUNTRY, "FR");
+        SelectorRoutingIndex index = SelectorRoutingIndex.build(Arrays.asList(europe, sriLanka, france));
+
+        AndesMessageMetadata message = createMessage(1, REGION, "EU");
+        messageProperties.get(1L).put(COUNTRY, "FR");
+
+        assertEquals("Incorrect matches", toSet(europe, france), index.getMatchingSubscriptions(message));
+    }
+
+    /**
+     * Subscriptions which are not indexed are candidates for every message, after the indexed matches
+     */
+    @Test
+    public void testCandidatesIncludeNonIndexedSubscriptions() throws AndesException {
+        LocalSubscription europe = createSubscription("europe", REGION, "EU");
+        LocalSubscription us = createSubscription("us", REGION, "US");
+        LocalSubscription other = createSubscription("other", null);
+        SelectorRoutingIndex index = SelectorRoutingIndex.build(Arrays.asList(other, europe, us));
+
+        assertTrue("Subscription not indexed", index.isIndexed(europe));
+        assertFalse("Subscription without equality selector indexed", index.isIndexed(other));
+
+        assertEquals("Incorrect candidates", Arrays.asList(europe, other),
+                     index.getCandidateSubscriptions(createMessage(1, REGION, "EU")));
+        assertEquals("Incorrect candidates", Collections.singletonList(other),
+                     index.getCandidateSubscriptions(createMessage(2, REGION, "ASIA")));
+        assertEquals("Incorrect candidates", Collections.singletonList(other),
+                     index.getCandidateSubscriptions(createMessage(3, COUNTRY, "LK")));
+    }
+
+    private AndesMessageMetadata createMessage(long messageId, String propertyName, String propertyValue) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(propertyName, propertyValue);
+        messageProperties.put(messageId, properties);
+        return new AndesMessageMetadata(messageId, null, false);
+    }
+
+    private LocalSubscription createSubscription(String subscriptionId, String propertyName,
+                                                 String... acceptedValues) {
+        EqualitySelector selector = null;
+        if (null != propertyName) {
+            selector = new TestEqualitySelector(propertyName, toSet(acceptedValues));
+        }
+        return new TestLocalSubscription(new TestOutboundSubscription(selector), subscriptionId);
+    }
+
+    @SafeVarargs
+    private static <T> Set<T> toSet(T... elements) {
+        return new HashSet<>(Arrays.asList(elements));
+    }
+
+    /**
+     * Local subscription created without reading the broker configuration
+     */
+    private static class TestLocalSubscription extends LocalSubscription {
+
+        TestLocalSubscription(OutboundSubscription subscription, String subscriptionId) {
+            super(subscription, subscriptionId, "testQueue", false, true, "node1", 0, "testQueue", "owner",
+                  "amq.direct", "DIRECT", (short) 0, true, DestinationType.QUEUE, 100);
+        }
+    }
+
+    /**
+     * Equality selector reading message properties from the test message property map
+     */
+    private class TestEqualitySelector implements EqualitySelector {
+
+        private final String propertyName;
+
+        private final Set<String> acceptedValues;
+
+        TestEqualitySelector(String propertyName, Set<String> acceptedValues) {
+            this.propertyName = propertyName;
+            this.acceptedValues = acceptedValues;
+        }
+
+        @Override
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        @Override
+        public Set<String> getAcceptedValues() {
+            return acceptedValues;
+        }
+
+        @Override
+        public String getPropertyValue(AndesMessageMetadata messageMetadata) {
+            Map<String, String> properties = messageProperties.get(messageMetadata.getMessageID());
+            return (null == properties) ? null : properties.get(propertyName);
+        }
+    }
+
+    /**
+     * Outbound subscription which only provides a selector
+     */
+    private static class TestOutboundSubscription implements OutboundSubscription {
+
+        private final EqualitySelector selector;
+
+        TestOutboundSubscription(EqualitySelector selector) {
+            this.selector = selector;
+        }
+
+        @Override
+        public void forcefullyDisconnect() {
+        }
+
+        @Override
+        public boolean isMessageAcceptedBySelector(AndesMessageMetadata messageMetadata) {
+            return true;
+        }
+
+        @Override
+        public EqualitySelector getEqualitySelector() {
+            return selector;
+        }
+
+        @Override
+        public boolean sendMessageToSubscriber(ProtocolMessage messageMetadata, AndesContent content) {
+            return true;
+        }
+
+        @Override
+        public boolean isActive() {
+            return true;
+        }
+
+        @Override
+        public UUID getChannelID() {
+            return null;
+        }
+
+        @Override
+        public String getStorageQueueName(String destination, String subscribedNode) {
+            return destination;
+        }
+    }
+}
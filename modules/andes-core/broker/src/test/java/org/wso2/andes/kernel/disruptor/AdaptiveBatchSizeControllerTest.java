@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.kernel.disruptor;
+
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link AdaptiveBatchSizeController}
+ * Batch size changes are checked against a ring whose consumer does not move, so that published events stay in
+ * the ring.
+ */
+public class AdaptiveBatchSizeControllerTest {
+
+    private static final int RING_SIZE = 2048;
+
+    private static final int TARGET_LATENCY_MILLIS = 10;
+
+    private static final long FAST_COMMIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long SLOW_COMMIT_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private RingBuffer<Object> ringBuffer;
+
+    @Before
+    public void setUp() {
+        ringBuffer = RingBuffer.createSingleProducer(new EventFactory<Object>() {
+            @Override
+            public Object newInstance() {
+                return new Object();
+            }
+        }, RING_SIZE);
+        // Consumer which never moves, hence every published event is counted as waiting in the ring
+        ringBuffer.addGatingSequences(new Sequence(-1));
+    }
+
+    /**
+     * Batch size grows when a full batch is committed fast and more events are waiting
+     */
+    @Test
+    public void testGrow() {
+        AdaptiveBatchSizeController controller = createController(100, 10, 1000);
+        publishEvents(500);
+
+        controller.batchHandled(100, FAST_COMMIT_NANOS);
+
+        assertEquals("Batch size did not grow", 112, controller.getBatchSize());
+    }
+
+    /**
+     * Batch size is kept when the batch was not full or few events are waiting
+     */
+    @Test
+    public void testNoGrowth() {
+        AdaptiveBatchSizeController controller = createController(100, 10, 1000);
+        publishEvents(500);
+        controller.batchHandled(50, FAST_COMMIT_NANOS);
+        assertEquals("Batch size changed for a partial batch", 100, controller.getBatchSize());
+
+        setUp();
+        controller = createController(100, 10, 1000);
+        publishEvents(100);
+        controller.batchHandled(100, FAST_COMMIT_NANOS);
+        assertEquals("Batch size changed without waiting events", 100, controller.getBatchSize());
+    }
+
+    /**
+     * Batch size shrinks when a commit takes longer than the target latency
+     */
+    @Test
+    public void testShrink() {
+        AdaptiveBatchSizeController controller = createController(100, 10, 1000);
+        publishEvents(500);
+
+        controller.batchHandled(100, SLOW_COMMIT_NANOS);
+        assertEquals("Batch size did not shrink", 75, controller.getBatchSize());
+
+        // Small batch sizes shrink by at least one
+        controller = createController(3, 1, 1000);
+        controller.batchHandled(1, SLOW_COMMIT_NANOS);
+        assertEquals("Batch size did not shrink by at least one", 2, controller.getBatchSize());
+    }
+
+    /**
+     * Batch size stays within the configured range
+     */
+    @Test
+    public void testClamping() {
+        assertEquals("Initial batch size not clamped to the minimum", 10,
+                     createController(5, 10, 1000).getBatchSize());
+        assertEquals("Initial batch size not clamped to the maximum", 1000,
+                     createController(5000, 10, 1000).getBatchSize());
+
+        AdaptiveBatchSizeController controller = createController(12, 10, 1000);
+        controller.batchHandled(12, SLOW_COMMIT_NANOS);
+        assertEquals("Batch size shrunk below the minimum", 10, controller.getBatchSize());
+        controller.batchHandled(10, SLOW_COMMIT_NANOS);
+        assertEquals("Batch size shrunk below the minimum", 10, controller.getBatchSize());
+
+        controller = createController(990, 10, 1000);
+        publishEvents(1500);
+        controller.batchHandled(990, FAST_COMMIT_NANOS);
+        assertEquals("Batch size grew above the maximum", 1000, controller.getBatchSize());
+        controller.batchHandled(1000, FAST_COMMIT_NANOS);
+        assertEquals("Batch size grew above the maximum", 1000, controller.getBatchSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRange() {
+        createController(10, 100, 50);
+    }
+
+    /**
+     * Linger time expires only when enabled and exceeded
+     */
+    @Test
+    public void testLingerExpiry() {
+        long millisecondAgo = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(1);
+
+        AdaptiveBatchSizeController controller = new AdaptiveBatchSizeController(10, 1, 100, TARGET_LATENCY_MILLIS,
+                                                                                 0, ringBuffer);
+        assertFalse("Linger expired while disabled", controller.isLingerExpired(millisecondAgo));
+
+        controller = new AdaptiveBatchSizeController(10, 1, 100, TARGET_LATENCY_MILLIS, 100, ringBuffer);
+        assertTrue("Linger did not expire", controller.isLingerExpired(millisecondAgo));
+
+        controller = new AdaptiveBatchSizeController(10, 1, 100, TARGET_LATENCY_MILLIS, 1000000, ringBuffer);
+        assertFalse("Linger expired too early", controller.isLingerExpired(millisecondAgo));
+    }
+
+    private AdaptiveBatchSizeController createController(int initialBatchSize, int minBatchSize, int maxBatchSize) {
+        return new AdaptiveBatchSizeController(initialBatchSize, minBatchSize, maxBatchSize, TARGET_LATENCY_MILLIS, 0,
+                                               ringBuffer);
+    }
+
+    private void publishEvents(int count) {
+        for (int i = 0; i < count; i++) {
+            ringBuffer.publish(ringBuffer.next());
+        }
+    }
+}
@@ -23,12 +23,18 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.wso2.andes.kernel.AndesMessagePart;
 
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test class for {@link ContentChunkHandlerTest}
@@ -121,4 +127,133 @@ public class ContentChunkHandlerTest {
 
         assertEquals("Content mismatch", content, contentBuilder.toString());
     }
+
+    /**
+     * Chunks of the max chunk size at the right offsets are returned as they are
+     */
+    @Test
+    public void testResizedChunksArePassedThrough() {
+        byte[] content = createContent(3 * maxChunkSize);
+        List<AndesMessagePart> chunks = Arrays.asList(createPart(content, 0, maxChunkSize, 0),
+                createPart(content, maxChunkSize, maxChunkSize, maxChunkSize),
+                createPart(content, 2 * maxChunkSize, maxChunkSize, 2 * maxChunkSize));
+
+        List<AndesMessagePart> resultList = contentChunkHandler.resizeChunks(chunks, content.length);
+
+        assertSame("Resized chunks should not be copied", chunks, resultList);
+        assertChunks(content, resultList);
+    }
+
+    /**
+     * A last chunk shorter than the max chunk size does not need resizing
+     */
+    @Test
+    public void testShortLastChunkIsPassedThrough() {
+        int lastChunkSize = Math.max(1, maxChunkSize / 2);
+        byte[] content = createContent(2 * maxChunkSize + lastChunkSize);
+        List<AndesMessagePart> chunks = Arrays.asList(createPart(content, 0, maxChunkSize, 0),
+                createPart(content, maxChunkSize, maxChunkSize, maxChunkSize),
+                createPart(content, 2 * maxChunkSize, lastChunkSize, 2 * maxChunkSize));
+
+        List<AndesMessagePart> resultList = contentChunkHandler.resizeChunks(chunks, content.length);
+
+        assertSame("Resized chunks should not be copied", chunks, resultList);
+        assertChunks(content, resultList);
+    }
+
+    /**
+     * Chunks of the max chunk size at wrong offsets are placed at the right offsets
+     */
+    @Test
+    public void testChunksAtWrongOffsetsAreResized() {
+        byte[] content = createContent(2 * maxChunkSize);
+        List<AndesMessagePart> chunks = new ArrayList<>(Arrays.asList(createPart(content, 0, maxChunkSize, 0),
+                createPart(content, maxChunkSize, maxChunkSize, 0)));
+
+        List<AndesMessagePart> resultList = contentChunkHandler.resizeChunks(chunks, content.length);
+
+        assertNotSame("Chunks at wrong offsets should be resized", chunks, resultList);
+        assertChunks(content, resultList);
+    }
+
+    /**
+     * A chunk shorter than the max chunk size which is not the last chunk is merged with the following chunks
+     */
+    @Test
+    public void testShortChunkBeforeLastIsResized() {
+        int firstChunkSize = Math.max(1, maxChunkSize / 2);
+        byte[] content = createContent(2 * maxChunkSize);
+        List<AndesMessagePart> chunks = new ArrayList<>(Arrays.asList(createPart(content, 0, firstChunkSize, 0),
+                createPart(content, firstChunkSize, maxChunkSize, firstChunkSize),
+                createPart(content, firstChunkSize + maxChunkSize, maxChunkSize - firstChunkSize,
+                        firstChunkSize + maxChunkSize)));
+
+        List<AndesMessagePart> resultList = contentChunkHandler.resizeChunks(chunks, content.length);
+
+        assertNotSame("Chunks of wrong sizes should be resized", chunks, resultList);
+        assertChunks(content, resultList);
+    }
+
+    /**
+     * Message without content has no chunks after resizing
+     */
+    @Test
+    public void testEmptyContent() {
+        List<AndesMessagePart> resultList =
+                contentChunkHandler.resizeChunks(Collections.<AndesMessagePart>emptyList(), 0);
+
+        assertTrue("Empty content should have no chunks", resultList.isEmpty());
+    }
+
+    /**
+     * Create content of the given length with a single digit character per byte
+     *
+     * @param length content length
+     * @return content
+     */
+    private byte[] createContent(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) ('0' + (int) (Math.random() * 10));
+        }
+        return content;
+    }
+
+    /**
+     * Create a content chunk holding a copy of a range of the content
+     *
+     * @param content     message content
+     * @param start       start of the range in the content
+     * @param length      length of the range
+     * @param chunkOffset offset set to the chunk
+     * @return content chunk
+     */
+    private AndesMessagePart createPart(byte[] content, int start, int length, int chunkOffset) {
+        AndesMessagePart part = new AndesMessagePart();
+        part.setMessageID(messageId);
+        part.setData(Arrays.copyOfRange(content, start, start + length));
+        part.setOffSet(chunkOffset);
+        part.setDataLength(length);
+        return part;
+    }
+
+    /**
+     * Check that the chunks are of max chunk size except the last, placed at the right offsets and hold the content
+     *
+     * @param content    expected content
+     * @param resultList resized chunks
+     */
+    private void assertChunks(byte[] content, List<AndesMessagePart> resultList) {
+        ByteArrayOutputStream resultContent = new ByteArrayOutputStream(content.length);
+        int offset = 0;
+        for (AndesMessagePart messagePart : resultList) {
+            assertEquals("Chunk size mismatch", Math.min(maxChunkSize, content.length - offset),
+                    messagePart.getDataLength());
+            assertEquals("Incorrect message id", messageId, messagePart.getMessageID());
+            assertEquals("Incorrect offset", offset, messagePart.getOffset());
+            resultContent.write(messagePart.getData(), 0, messagePart.getDataLength());
+            offset = offset + messagePart.getDataLength();
+        }
+        assertArrayEquals("Content mismatch", content, resultContent.toByteArray());
+    }
 }
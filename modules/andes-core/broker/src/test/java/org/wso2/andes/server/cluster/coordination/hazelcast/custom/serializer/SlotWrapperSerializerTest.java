@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer;
+
+import com.hazelcast.nio.BufferObjectDataOutput;
+import com.hazelcast.nio.serialization.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.SerializationService;
+import com.hazelcast.nio.serialization.StreamSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.andes.kernel.slot.Slot;
+import org.wso2.andes.kernel.slot.SlotState;
+import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.HashmapStringTreeSetWrapper;
+import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.TreeSetLongWrapper;
+import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.TreeSetSlotWrapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the binary form written by the slot map wrapper serializers
+ */
+public class SlotWrapperSerializerTest {
+
+    private static final String QUEUE_NAME = "carbon:queue1";
+
+    private SerializationService serializationService;
+
+    @Before
+    public void setUp() {
+        serializationService = new DefaultSerializationServiceBuilder().build();
+    }
+
+    @After
+    public void tearDown() {
+        serializationService.destroy();
+    }
+
+    @Test
+    public void testTreeSetLongWrapperRoundTrip() throws IOException {
+        TreeSetLongWrapper wrapper = new TreeSetLongWrapper();
+        wrapper.setLongTreeSet(new TreeSet<>(Arrays.asList(3L, 1L, 2L)));
+
+        TreeSetLongWrapper copy = roundTrip(new TreeSetLongWrapperSerializer(), wrapper);
+
+        assertEquals("Message IDs should survive serialization", wrapper.getLongTreeSet(), copy.getLongTreeSet());
+    }
+
+    @Test
+    public void testTreeSetSlotWrapperRoundTrip() throws IOException {
+        Slot slot = createSlot(100, 200);
+        slot.setAnOverlappingSlot(true);
+        TreeSetSlotWrapper wrapper = new TreeSetSlotWrapper();
+        wrapper.setSlotTreeSet(new TreeSet<>(Arrays.asList(slot, createSlot(201, 300))));
+
+        TreeSetSlotWrapper copy = roundTrip(new TreeSetSlotWrapperSerializer(), wrapper);
+
+        assertEquals("All slots should survive serialization", 2, copy.getSlotTreeSet().size());
+        Slot copiedSlot = copy.getSlotTreeSet().first();
+        assertSlotEquals(slot, copiedSlot);
+        assertTrue("Overlapping flag should survive serialization", copiedSlot.isAnOverlappingSlot());
+        assertFalse("Overlapping flag should survive serialization",
+                copy.getSlotTreeSet().last().isAnOverlappingSlot());
+    }
+
+    @Test
+    public void testHashMapStringTreeSetWrapperRoundTrip() throws IOException {
+        Slot slot = createSlot(100, 200);
+        HashMap<String, TreeSet<Slot>> queueToSlotMap = new HashMap<>();
+        queueToSlotMap.put(QUEUE_NAME, new TreeSet<>(Arrays.asList(slot)));
+        queueToSlotMap.put("carbon:queue2", new TreeSet<Slot>());
+        HashmapStringTreeSetWrapper wrapper = new HashmapStringTreeSetWrapper();
+        wrapper.setStringListHashMap(queueToSlotMap);
+
+        HashmapStringTreeSetWrapper copy = roundTrip(new HashMapStringTreeSetWrapperSerializer(), wrapper);
+
+        assertEquals("All queues should survive serialization", queueToSlotMap.keySet(),
+                copy.getStringListHashMap().keySet());
+        assertTrue("Queue without slots should be read as empty",
+                copy.getStringListHashMap().get("carbon:queue2").isEmpty());
+        assertSlotEquals(slot, copy.getStringListHashMap().get(QUEUE_NAME).first());
+    }
+
+    /**
+     * A wrapper without values is read back as an empty wrapper
+     */
+    @Test
+    public void testNullValuesAreReadAsEmpty() throws IOException {
+        assertTrue("Null message ID set should be read as empty",
+                roundTrip(new TreeSetLongWrapperSerializer(), new TreeSetLongWrapper()).getLongTreeSet().isEmpty());
+        assertTrue("Null slot set should be read as empty",
+                roundTrip(new TreeSetSlotWrapperSerializer(), new TreeSetSlotWrapper()).getSlotTreeSet().isEmpty());
+        assertTrue("Empty slot map should be read as empty",
+                roundTrip(new HashMapStringTreeSetWrapperSerializer(), new HashmapStringTreeSetWrapper())
+                        .getStringListHashMap().isEmpty());
+    }
+
+    /**
+     * Write the value with the serializer and read it back
+     *
+     * @param serializer serializer to use
+     * @param value      value to write
+     * @param <T>        type of the value
+     * @return value read back
+     * @throws IOException on an error while serializing
+     */
+    private <T> T roundTrip(StreamSerializer<T> serializer, T value) throws IOException {
+        BufferObjectDataOutput output = serializationService.createObjectDataOutput(256);
+        serializer.write(output, value);
+        return serializer.read(serializationService.createObjectDataInput(output.toByteArray()));
+    }
+
+    private Slot createSlot(long start, long end) {
+        Slot slot = new Slot(start, end, "queue1");
+        slot.setStorageQueueName(QUEUE_NAME);
+        slot.addState(SlotState.ASSIGNED);
+        return slot;
+    }
+
+    private void assertSlotEquals(Slot expected, Slot actual) {
+        assertEquals("Start message ID should match", expected.getStartMessageId(), actual.getStartMessageId());
+        assertEquals("End message ID should match", expected.getEndMessageId(), actual.getEndMessageId());
+        assertEquals("Storage queue should match", expected.getStorageQueueName(), actual.getStorageQueueName());
+        assertEquals("Destination should match", expected.getDestinationOfMessagesInSlot(),
+                actual.getDestinationOfMessagesInSlot());
+        assertEquals("Slot states should match", expected.encodeSlotStates(), actual.encodeSlotStates());
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.server.cluster.coordination.hazelcast.processor;
+
+import com.hazelcast.nio.BufferObjectDataOutput;
+import com.hazelcast.nio.serialization.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.SerializationService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.andes.kernel.slot.Slot;
+import org.wso2.andes.kernel.slot.SlotState;
+import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.HashmapStringTreeSetWrapper;
+import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.TreeSetLongWrapper;
+import org.wso2.andes.server.cluster.coordination.hazelcast.custom.serializer.wrapper.TreeSetSlotWrapper;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for the serialized form of the {@link SlotMapEntryProcessor} implementations.
+ * Each processor is written and read back through a Hazelcast serialization service, and the copy is then applied
+ * to a map entry to verify that the fields survived the round trip.
+ */
+public class SlotMapEntryProcessorSerializationTest {
+
+    private static final String QUEUE_NAME = "carbon:queue1";
+
+    private SerializationService serializationService;
+
+    @Before
+    public void setUp() {
+        serializationService = new DefaultSerializationServiceBuilder().build();
+    }
+
+    @After
+    public void tearDown() {
+        serializationService.destroy();
+    }
+
+    @Test
+    public void testAddMessageIdProcessor() {
+        AddMessageIdProcessor processor = roundTrip(new AddMessageIdProcessor(42L));
+
+        Map.Entry<String, TreeSetLongWrapper> entry = new AbstractMap.SimpleEntry<>("node1", null);
+        processor.process(entry);
+
+        assertEquals("Message ID should survive serialization", new TreeSet<>(Arrays.asList(42L)),
+                entry.getValue().getLongTreeSet());
+    }
+
+    @Test
+    public void testPollMessageIdProcessor() {
+        PollMessageIdProcessor processor = roundTrip(new PollMessageIdProcessor());
+
+        TreeSetLongWrapper wrapper = new TreeSetLongWrapper();
+        wrapper.setLongTreeSet(new TreeSet<>(Arrays.asList(7L, 3L, 5L)));
+        Map.Entry<String, TreeSetLongWrapper> entry = new AbstractMap.SimpleEntry<>("node1", wrapper);
+
+        assertEquals("Smallest message ID should be polled", 3L, processor.process(entry));
+        assertEquals("Polled message ID should be removed", 2, entry.getValue().getLongTreeSet().size());
+    }
+
+    @Test
+    public void testAddSlotProcessor() {
+        Slot slot = createSlot(100, 200);
+        AddSlotProcessor processor = roundTrip(new AddSlotProcessor(QUEUE_NAME, slot));
+
+        Map.Entry<String, HashmapStringTreeSetWrapper> entry = new AbstractMap.SimpleEntry<>("node1", null);
+        processor.process(entry);
+
+        TreeSet<Slot> slots = entry.getValue().getStringListHashMap().get(QUEUE_NAME);
+        assertEquals("Slot should be added under the serialized queue name", 1, slots.size());
+        Slot addedSlot = slots.first();
+        assertNotSame("Slot should be a de-serialized copy", slot, addedSlot);
+        assertSlotEquals(slot, addedSlot);
+    }
+
+    @Test
+    public void testDeleteSlotProcessor() {
+        Slot slot = createSlot(100, 200);
+        Map.Entry<String, HashmapStringTreeSetWrapper> entry =
+                new AbstractMap.SimpleEntry<>("node1", createQueueSlotWrapper(slot, createSlot(201, 300)));
+
+        assertTrue("Slot with the serialized start ID should be deleted",
+                (Boolean) roundTrip(new DeleteSlotProcessor(QUEUE_NAME, 100)).process(entry));
+
+        TreeSet<Slot> slots = entry.getValue().getStringListHashMap().get(QUEUE_NAME);
+        assertEquals("Only the matching slot should be deleted", 1, slots.size());
+        assertEquals("Remaining slot should be the non matching one", 201, slots.first().getStartMessageId());
+    }
+
+    @Test
+    public void testPollQueueSlotProcessor() {
+        Map.Entry<String, HashmapStringTreeSetWrapper> entry =
+                new AbstractMap.SimpleEntry<>("node1", createQueueSlotWrapper(createSlot(201, 300),
+                        createSlot(100, 200)));
+
+        TreeSetSlotWrapper polled = (TreeSetSlotWrapper) roundTrip(new PollQueueSlotProcessor(QUEUE_NAME))
+                .process(entry);
+
+        assertEquals("Slot of the serialized queue name should be polled", 100,
+                polled.getSlotTreeSet().first().getStartMessageId());
+        assertEquals("Polled slot should be removed", 1,
+                entry.getValue().getStringListHashMap().get(QUEUE_NAME).size());
+    }
+
+    @Test
+    public void testRemoveQueueSlotsProcessor() {
+        Map.Entry<String, HashmapStringTreeSetWrapper> entry =
+                new AbstractMap.SimpleEntry<>("node1", createQueueSlotWrapper(createSlot(100, 200),
+                        createSlot(201, 300)));
+
+        TreeSetSlotWrapper removed = (TreeSetSlotWrapper) roundTrip(new RemoveQueueSlotsProcessor(QUEUE_NAME))
+                .process(entry);
+
+        assertEquals("All slots of the serialized queue name should be removed", 2,
+                removed.getSlotTreeSet().size());
+        assertFalse("Queue should no longer be in the map",
+                entry.getValue().getStringListHashMap().containsKey(QUEUE_NAME));
+    }
+
+    @Test
+    public void testAddUnassignedSlotsProcessor() {
+        Slot firstSlot = createSlot(100, 200);
+        Slot secondSlot = createSlot(201, 300);
+        AddUnassignedSlotsProcessor processor =
+                roundTrip(new AddUnassignedSlotsProcessor(Arrays.asList(firstSlot, secondSlot)));
+
+        Map.Entry<String, TreeSetSlotWrapper> entry = new AbstractMap.SimpleEntry<>(QUEUE_NAME, null);
+        processor.process(entry);
+
+        TreeSet<Slot> slots = entry.getValue().getSlotTreeSet();
+        assertEquals("All serialized slots should be added", 2, slots.size());
+        assertSlotEquals(firstSlot, slots.first());
+        assertSlotEquals(secondSlot, slots.last());
+    }
+
+    @Test
+    public void testPollUnassignedSlotProcessor() {
+        TreeSetSlotWrapper wrapper = new TreeSetSlotWrapper();
+        wrapper.setSlotTreeSet(new TreeSet<>(Arrays.asList(createSlot(201, 300), createSlot(100, 200))));
+        Map.Entry<String, TreeSetSlotWrapper> entry = new AbstractMap.SimpleEntry<>(QUEUE_NAME, wrapper);
+
+        TreeSetSlotWrapper polled = (TreeSetSlotWrapper) roundTrip(new PollUnassignedSlotProcessor()).process(entry);
+
+        assertEquals("First unassigned slot should be polled", 100,
+                polled.getSlotTreeSet().first().getStartMessageId());
+        assertEquals("Polled slot should be removed", 1, entry.getValue().getSlotTreeSet().size());
+    }
+
+    /**
+     * A processor written with a different serialization version should not be read
+     */
+    @Test
+    public void testUnsupportedVersionIsRejected() throws IOException {
+        BufferObjectDataOutput output = serializationService.createObjectDataOutput(64);
+        output.writeByte(SlotMapEntryProcessor.SERIALIZATION_VERSION + 1);
+        output.writeLong(42L);
+
+        try {
+            new AddMessageIdProcessor().readData(serializationService.createObjectDataInput(output.toByteArray()));
+            fail("Processor with an unsupported serialization version should be rejected");
+        } catch (IOException e) {
+            assertTrue("Error should mention the version", e.getMessage().contains("version"));
+        }
+    }
+
+    /**
+     * Serialize the processor and de-serialize it back
+     *
+     * @param processor processor to serialize
+     * @param <T>       type of the processor
+     * @return de-serialized copy of the processor
+     */
+    private <T extends SlotMapEntryProcessor<?>> T roundTrip(T processor) {
+        T copy = serializationService.toObject(serializationService.toData(processor));
+        assertNotSame("Processor should be a de-serialized copy", processor, copy);
+        return copy;
+    }
+
+    private Slot createSlot(long start, long end) {
+        Slot slot = new Slot(start, end, "queue1");
+        slot.setStorageQueueName(QUEUE_NAME);
+        slot.addState(SlotState.ASSIGNED);
+        return slot;
+    }
+
+    private HashmapStringTreeSetWrapper createQueueSlotWrapper(Slot... slots) {
+        HashMap<String, TreeSet<Slot>> queueToSlotMap = new HashMap<>();
+        queueToSlotMap.put(QUEUE_NAME, new TreeSet<>(Arrays.asList(slots)));
+        HashmapStringTreeSetWrapper wrapper = new HashmapStringTreeSetWrapper();
+        wrapper.setStringListHashMap(queueToSlotMap);
+        return wrapper;
+    }
+
+    private void assertSlotEquals(Slot expected, Slot actual) {
+        assertEquals("Start message ID should match", expected.getStartMessageId(), actual.getStartMessageId());
+        assertEquals("End message ID should match", expected.getEndMessageId(), actual.getEndMessageId());
+        assertEquals("Storage queue should match", expected.getStorageQueueName(), actual.getStorageQueueName());
+        assertEquals("Destination should match", expected.getDestinationOfMessagesInSlot(),
+                actual.getDestinationOfMessagesInSlot());
+        assertEquals("Slot states should match", expected.encodeSlotStates(), actual.encodeSlotStates());
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.server.filter;
+
+import junit.framework.TestCase;
+import org.wso2.andes.server.message.AMQMessageHeader;
+import org.wso2.andes.server.queue.Filterable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Test class for {@link PropertyEqualityPredicate}
+ * Checks which selectors are recognised as property equalities and how the compared property is read from messages.
+ */
+public class PropertyEqualityPredicateTest extends TestCase
+{
+    public void testEquality() throws Exception
+    {
+        assertPredicate("region = 'EU'", "region", "EU");
+        assertPredicate("'EU' = region", "region", "EU");
+    }
+
+    public void testIn() throws Exception
+    {
+        assertPredicate("region IN ('EU', 'US')", "region", "EU", "US");
+    }
+
+    public void testOrOnSameProperty() throws Exception
+    {
+        assertPredicate("region = 'EU' OR region = 'US'", "region", "EU", "US");
+        assertPredicate("region = 'EU' OR region IN ('US', 'LK')", "region", "EU", "US", "LK");
+    }
+
+    public void testNotAnEquality() throws Exception
+    {
+        assertNoPredicate("region <> 'EU'");
+        assertNoPredicate("region NOT IN ('EU', 'US')");
+        assertNoPredicate("region = 'EU' AND country = 'FR'");
+        assertNoPredicate("region = 'EU' OR country = 'FR'");
+        assertNoPredicate("region LIKE 'E%'");
+        assertNoPredicate("price = 5");
+        assertNoPredicate("region = country");
+    }
+
+    public void testPropertyValueOfMatchingMessage() throws Exception
+    {
+        PropertyEqualityPredicate predicate = getPredicate("region IN ('EU', 'US')");
+
+        String value = predicate.getPropertyValue(createMessage("region", "EU"));
+        assertEquals("EU", value);
+        assertTrue(predicate.getValues().contains(value));
+    }
+
+    public void testPropertyValueOfNonMatchingMessage() throws Exception
+    {
+        PropertyEqualityPredicate predicate = getPredicate("region = 'EU'");
+
+        String value = predicate.getPropertyValue(createMessage("region", "ASIA"));
+        assertEquals("ASIA", value);
+        assertFalse(predicate.getValues().contains(value));
+    }
+
+    public void testPropertyValueOfMessageWithoutProperty() throws Exception
+    {
+        PropertyEqualityPredicate predicate = getPredicate("region = 'EU'");
+
+        assertNull(predicate.getPropertyValue(createMessage("country", "EU")));
+        // Only string values are compared
+        assertNull(predicate.getPropertyValue(createMessage("region", 5)));
+    }
+
+    private void assertPredicate(String selector, String propertyName, String... values) throws Exception
+    {
+        PropertyEqualityPredicate predicate = getPredicate(selector);
+        assertNotNull("No predicate for " + selector, predicate);
+        assertEquals(propertyName, predicate.getPropertyName());
+        assertEquals(new HashSet<String>(Arrays.asList(values)), predicate.getValues());
+    }
+
+    private void assertNoPredicate(String selector) throws Exception
+    {
+        assertNull("Predicate created for " + selector, getPredicate(selector));
+    }
+
+    private PropertyEqualityPredicate getPredicate(String selector) throws Exception
+    {
+        return new JMSSelectorFilter(selector).getEqualityPredicate();
+    }
+
+    private Filterable createMessage(String propertyName, Object propertyValue)
+    {
+        final MockHeader header = new MockHeader();
+        header.setObject(propertyName, propertyValue);
+        return new Filterable()
+        {
+            public AMQMessageHeader getMessageHeader()
+            {
+                return header;
+            }
+
+            public boolean isPersistent()
+            {
+                return false;
+            }
+
+            public boolean isRedelivered()
+            {
+                return false;
+            }
+        };
+    }
+
+    private static class MockHeader implements AMQMessageHeader
+    {
+        private final Map<String, Object> _headers = new HashMap<String, Object>();
+
+        public String getCorrelationId()
+        {
+            return null;
+        }
+
+        public long getExpiration()
+        {
+            return 0;
+        }
+
+        public String getMessageId()
+        {
+            return null;
+        }
+
+        public String getMimeType()
+        {
+            return null;
+        }
+
+        public String getEncoding()
+        {
+            return null;
+        }
+
+        public byte getPriority()
+        {
+            return 0;
+        }
+
+        public long getTimestamp()
+        {
+            return 0;
+        }
+
+        public String getType()
+        {
+            return null;
+        }
+
+        public String getReplyTo()
+        {
+            return null;
+        }
+
+        public String getReplyToExchange()
+        {
+            return null;
+        }
+
+        public String getReplyToRoutingKey()
+        {
+            return null;
+        }
+
+        public Object getHeader(String name)
+        {
+            return _headers.get(name);
+        }
+
+        public boolean containsHeaders(Set<String> names)
+        {
+            return _headers.keySet().containsAll(names);
+        }
+
+        public boolean containsHeader(String name)
+        {
+            return _headers.containsKey(name);
+        }
+
+        public void setObject(String key, Object value)
+        {
+            _headers.put(key, value);
+        }
+    }
+}
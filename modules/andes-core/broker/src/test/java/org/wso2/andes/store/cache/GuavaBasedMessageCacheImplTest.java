@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.store.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.andes.kernel.AndesMessage;
+import org.wso2.andes.kernel.AndesMessageMetadata;
+import org.wso2.andes.kernel.SharedMessageContent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link GuavaBasedMessageCacheImpl}
+ * A cache of 1000 bytes with a single segment is used so that the weight limit applies to all messages at once.
+ */
+public class GuavaBasedMessageCacheImplTest {
+
+    private static final int CACHE_SIZE = 1000;
+
+    private GuavaBasedMessageCacheImpl messageCache;
+
+    @Before
+    public void setUp() {
+        messageCache = new GuavaBasedMessageCacheImpl(CACHE_SIZE, 65500, 1, 3600, "strong", false);
+    }
+
+    /**
+     * Content shared by several clones is counted once against the cache size
+     */
+    @Test
+    public void testSharedContentWeighedOnce() {
+        AndesMessage[] clones = createClones(1, 10, 400);
+        for (AndesMessage clone : clones) {
+            messageCache.addToCache(clone);
+        }
+        messageCache.addToCache(createMessage(100, 500));
+
+        for (AndesMessage clone : clones) {
+            assertNotNull("Clone evicted although the shared content fits in the cache",
+                          messageCache.getMessageFromCache(clone.getMetadata().getMessageID()));
+        }
+        assertNotNull("Message evicted although it fits in the cache", messageCache.getMessageFromCache(100));
+    }
+
+    /**
+     * Content stays charged in full to the remaining clones when the clone it was charged to leaves the cache
+     */
+    @Test
+    public void testSharedContentChargeMovesToRemainingClone() {
+        AndesMessage[] clones = createClones(1, 3, 400);
+        for (AndesMessage clone : clones) {
+            messageCache.addToCache(clone);
+        }
+        messageCache.removeFromCache(1);
+        messageCache.addToCache(createMessage(100, 700));
+
+        assertTrue("Shared content of the remaining clones is not counted in full", countCached(2, 3, 100) < 3);
+    }
+
+    /**
+     * Content is no longer counted once the last clone leaves the cache
+     */
+    @Test
+    public void testSharedContentReleasedWithLastClone() {
+        AndesMessage[] clones = createClones(1, 3, 400);
+        for (AndesMessage clone : clones) {
+            messageCache.addToCache(clone);
+        }
+        for (AndesMessage clone : clones) {
+            messageCache.removeFromCache(clone.getMetadata().getMessageID());
+        }
+        messageCache.addToCache(createMessage(100, 900));
+        messageCache.addToCache(createMessage(101, 100));
+
+        assertEquals("Shared content still counted after the last clone left the cache", 2, countCached(100, 101));
+    }
+
+    /**
+     * Count the given messages present in the cache
+     */
+    private int countCached(long... messageIds) {
+        int count = 0;
+        for (long messageId : messageIds) {
+            if (null != messageCache.getMessageFromCache(messageId)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Create clones of a topic message referring to the same content
+     */
+    private static AndesMessage[] createClones(long firstMessageId, int cloneCount, int contentLength) {
+        SharedMessageContent sharedContent = new SharedMessageContent(contentLength);
+        AndesMessage[] clones = new AndesMessage[cloneCount];
+        for (int i = 0; i < cloneCount; i++) {
+            clones[i] = createMessage(firstMessageId + i, contentLength);
+            clones[i].setSharedContent(sharedContent);
+        }
+        return clones;
+    }
+
+    /**
+     * Create a message with the given content length
+     */
+    private static AndesMessage createMessage(long messageId, int contentLength) {
+        AndesMessage message = new AndesMessage(new AndesMessageMetadata(messageId, null, false));
+        message.getMetadata().setMessageContentLength(contentLength);
+        return message;
+    }
+}
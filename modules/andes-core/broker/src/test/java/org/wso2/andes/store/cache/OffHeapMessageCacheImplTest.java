@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.store.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.andes.kernel.AndesMessage;
+import org.wso2.andes.kernel.AndesMessageMetadata;
+import org.wso2.andes.kernel.AndesMessagePart;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link OffHeapMessageCacheImpl}
+ * A small cache of 10 pages of 16 bytes in slabs of 4 pages is used so that content spans pages and slabs, and
+ * page allocation runs out quickly.
+ */
+public class OffHeapMessageCacheImplTest {
+
+    private static final int PAGE_SIZE = 16;
+
+    private static final int TOTAL_PAGES = 10;
+
+    private OffHeapMessageCacheImpl messageCache;
+
+    @Before
+    public void setUp() {
+        messageCache = new OffHeapMessageCacheImpl(TOTAL_PAGES * PAGE_SIZE, PAGE_SIZE, 4 * PAGE_SIZE, 3600, false);
+    }
+
+    /**
+     * Content spanning several pages and slabs is read back as the original chunks
+     */
+    @Test
+    public void testReadContentAcrossPagesAndSlabs() {
+        AndesMessage message = createMessage(1, 30, 50, 7);
+        messageCache.addToCache(message);
+
+        assertContent(message, messageCache.getMessageFromCache(1));
+
+        AndesMessagePart part = messageCache.getContentFromCache(1, 30);
+        assertNotNull("Chunk not found by offset", part);
+        assertArrayEquals("Content mismatch", message.getContentChunkList().get(1).getData(), part.getData());
+        assertNull("Chunk found for an offset which is not a chunk start", messageCache.getContentFromCache(1, 31));
+    }
+
+    /**
+     * Pages of a removed message are reused
+     */
+    @Test
+    public void testRemoveReleasesPages() {
+        messageCache.addToCache(createMessage(1, TOTAL_PAGES * PAGE_SIZE));
+        messageCache.removeFromCache(1);
+        assertNull("Removed message was read", messageCache.getMessageFromCache(1));
+
+        AndesMessage message = createMessage(2, TOTAL_PAGES * PAGE_SIZE);
+        messageCache.addToCache(message);
+        assertContent(message, messageCache.getMessageFromCache(2));
+    }
+
+    /**
+     * Pages of a replaced message are released
+     */
+    @Test
+    public void testReplaceReleasesPages() {
+        messageCache.addToCache(createMessage(1, 6 * PAGE_SIZE));
+        AndesMessage replacement = createMessage(1, 4 * PAGE_SIZE);
+        messageCache.addToCache(replacement);
+
+        // Fits in the pages left by the replaced content without evicting the replacement
+        AndesMessage message = createMessage(2, 6 * PAGE_SIZE);
+        messageCache.addToCache(message);
+
+        assertContent(replacement, messageCache.getMessageFromCache(1));
+        assertContent(message, messageCache.getMessageFromCache(2));
+    }
+
+    /**
+     * When pages run out, messages which were not read since the clock hand last passed are evicted first
+     */
+    @Test
+    public void testClockEviction() {
+        AndesMessage first = createMessage(1, 4 * PAGE_SIZE);
+        AndesMessage second = createMessage(2, 4 * PAGE_SIZE);
+        messageCache.addToCache(first);
+        messageCache.addToCache(second);
+
+        // Reading gives the first message a second chance
+        assertNotNull("Message not cached", messageCache.getMessageFromCache(1));
+
+        AndesMessage third = createMessage(3, 4 * PAGE_SIZE);
+        messageCache.addToCache(third);
+
+        assertContent(first, messageCache.getMessageFromCache(1));
+        assertNull("Unreferenced message was not evicted", messageCache.getMessageFromCache(2));
+        assertContent(third, messageCache.getMessageFromCache(3));
+    }
+
+    /**
+     * A message larger than the cache is not cached and does not evict other messages
+     */
+    @Test
+    public void testMessageLargerThanCache() {
+        AndesMessage message = createMessage(1, PAGE_SIZE);
+        messageCache.addToCache(message);
+        messageCache.addToCache(createMessage(2, TOTAL_PAGES * PAGE_SIZE + 1));
+
+        assertNull("Message larger than the cache was cached", messageCache.getMessageFromCache(2));
+        assertContent(message, messageCache.getMessageFromCache(1));
+    }
+
+    /**
+     * Messages without content take no pages
+     */
+    @Test
+    public void testEmptyContent() {
+        messageCache.addToCache(createMessage(1, TOTAL_PAGES * PAGE_SIZE));
+        AndesMessage message = createMessage(2);
+        messageCache.addToCache(message);
+
+        AndesMessage cachedMessage = messageCache.getMessageFromCache(2);
+        assertNotNull("Message without content not cached", cachedMessage);
+        assertTrue("Content found for message without content", cachedMessage.getContentChunkList().isEmpty());
+        assertNotNull("Message evicted for a message without content", messageCache.getMessageFromCache(1));
+    }
+
+    /**
+     * Content found in the cache is filled and the message ids are removed from the list to read
+     */
+    @Test
+    public void testFillContentFromCache() {
+        AndesMessage message = createMessage(1, 20);
+        messageCache.addToCache(message);
+
+        List<Long> messageIds = new ArrayList<>(Arrays.asList(1L, 2L));
+        Map<Long, List<AndesMessagePart>> content = new HashMap<>();
+        messageCache.fillContentFromCache(messageIds, content);
+
+        assertEquals("Incorrect ids left to read", Arrays.asList(2L), messageIds);
+        assertEquals("Incorrect content count", 1, content.size());
+        assertArrayEquals("Content mismatch", message.getContentChunkList().get(0).getData(),
+                          content.get(1L).get(0).getData());
+    }
+
+    private static void assertContent(AndesMessage expected, AndesMessage actual) {
+        assertNotNull("Message not found in cache", actual);
+        List<AndesMessagePart> expectedParts = expected.getContentChunkList();
+        List<AndesMessagePart> actualParts = actual.getContentChunkList();
+        assertEquals("Incorrect chunk count", expectedParts.size(), actualParts.size());
+        for (int i = 0; i < expectedParts.size(); i++) {
+            assertEquals("Incorrect offset", expectedParts.get(i).getOffset(), actualParts.get(i).getOffset());
+            assertEquals("Incorrect message id", expectedParts.get(i).getMessageID(),
+                         actualParts.get(i).getMessageID());
+            assertArrayEquals("Content mismatch", expectedParts.get(i).getData(), actualParts.get(i).getData());
+        }
+    }
+
+    /**
+     * Create a message with chunks of the given lengths. Content bytes depend on the message id and position.
+     */
+    private static AndesMessage createMessage(long messageId, int... chunkLengths) {
+        AndesMessage message = new AndesMessage(new AndesMessageMetadata(messageId, null, false));
+        int offset = 0;
+        for (int chunkLength : chunkLengths) {
+            byte[] data = new byte[chunkLength];
+            for (int i = 0; i < chunkLength; i++) {
+                data[i] = (byte) (messageId * 31 + offset + i);
+            }
+            AndesMessagePart part = new AndesMessagePart();
+            part.setMessageID(messageId);
+            part.setOffSet(offset);
+            part.setData(data);
+            part.setDataLength(chunkLength);
+            message.addMessagePart(part);
+            offset = offset + chunkLength;
+        }
+        return message;
+    }
+}
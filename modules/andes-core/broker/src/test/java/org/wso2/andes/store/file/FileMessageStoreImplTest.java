@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.store.file;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wso2.andes.configuration.util.ConfigurationProperties;
+import org.wso2.andes.kernel.AndesException;
+import org.wso2.andes.kernel.AndesMessage;
+import org.wso2.andes.kernel.AndesMessageMetadata;
+import org.wso2.andes.kernel.AndesMessagePart;
+import org.wso2.andes.mqtt.utils.MQTTUtils;
+import org.wso2.andes.store.cache.AndesMessageCache;
+import org.wso2.andes.store.cache.DisabledMessageCacheImpl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link FileMessageStoreImpl}
+ * Messages are written to a store in a temporary directory and read back, including after the store is
+ * reopened on the same directory.
+ */
+public class FileMessageStoreImplTest {
+
+    private static final String QUEUE_NAME = "testQueue";
+
+    private static final String DLC_QUEUE_NAME = "DeadLetterChannel";
+
+    private static final int CHUNK_SIZE = 16;
+
+    /**
+     * Chunk size used to fill segments of 1MB quickly
+     */
+    private static final int LARGE_CHUNK_SIZE = 16 * 1024;
+
+    @Rule
+    public TemporaryFolder storeDirectory = new TemporaryFolder();
+
+    private FileMessageStoreImpl messageStore;
+
+    @Before
+    public void setUp() throws AndesException {
+        messageStore = openStore(new DisabledMessageCacheImpl());
+    }
+
+    @After
+    public void tearDown() {
+        messageStore.close();
+    }
+
+    /**
+     * Stored metadata and content are read back by message id and by queue
+     */
+    @Test
+    public void testStoreAndRead() throws AndesException {
+        messageStore.storeMessages(Arrays.asList(createMessage(1, 40), createMessage(2, 8)));
+
+        assertEquals("Incorrect message count", 2, messageStore.getMessageCountForQueue(QUEUE_NAME));
+        assertMessage(1, createMessage(1, 40));
+        assertMessage(2, createMessage(2, 8));
+
+        List<Long> messageIds = messageStore.getNextNMessageIdsFromQueue(QUEUE_NAME, 0, 10);
+        assertEquals("Incorrect message ids", Arrays.asList(1L, 2L), messageIds);
+
+        List<AndesMessageMetadata> metadataList = messageStore.getNextNMessageMetadataFromQueue(QUEUE_NAME, 2, 10);
+        assertEquals("Incorrect metadata count", 1, metadataList.size());
+        assertEquals("Incorrect message id", 2, metadataList.get(0).getMessageID());
+    }
+
+    /**
+     * Deleted messages are removed with their content
+     */
+    @Test
+    public void testDelete() throws AndesException {
+        messageStore.storeMessages(Arrays.asList(createMessage(1, 40), createMessage(2, 8)));
+
+        messageStore.deleteMessages(QUEUE_NAME, Collections.singletonList(createMetadata(1, 40)));
+
+        assertEquals("Incorrect message count", 1, messageStore.getMessageCountForQueue(QUEUE_NAME));
+        assertNull("Deleted metadata was read", messageStore.getMetadata(1));
+        assertNull("Deleted content was read", messageStore.getContent(1, 0));
+        assertMessage(2, createMessage(2, 8));
+    }
+
+    /**
+     * Messages moved to the dead letter channel are read, restored and deleted from there
+     */
+    @Test
+    public void testDeadLetterChannel() throws AndesException {
+        messageStore.storeMessages(Arrays.asList(createMessage(1, 40), createMessage(2, 8), createMessage(3, 20)));
+
+        messageStore.moveMetadataToDLC(1, DLC_QUEUE_NAME);
+        messageStore.moveMetadataToDLC(2, DLC_QUEUE_NAME);
+
+        assertEquals("Incorrect queue message count", 1, messageStore.getMessageCountForQueue(QUEUE_NAME));
+        assertEquals("Incorrect DLC message count", 2, messageStore.getMessageCountForDLCQueue(DLC_QUEUE_NAME));
+        assertEquals("Incorrect DLC message count for queue", 2,
+                     messageStore.getMessageCountForQueueInDLC(QUEUE_NAME, DLC_QUEUE_NAME));
+
+        List<AndesMessageMetadata> dlcMessages = messageStore.getNextNMessageMetadataFromDLC(DLC_QUEUE_NAME, 0, 10);
+        assertEquals("Incorrect DLC metadata count", 2, dlcMessages.size());
+
+        // Only the given messages which are in the DLC are read by id
+        dlcMessages = messageStore.getMessageMetadataFromDLC(DLC_QUEUE_NAME, Arrays.asList(2L, 3L, 5L));
+        assertEquals("Incorrect DLC metadata count by id", 1, dlcMessages.size());
+        assertEquals("Incorrect DLC message read by id", 2, dlcMessages.get(0).getMessageID());
+
+        // Messages in the DLC are not deleted as queue messages
+        messageStore.deleteMessages(QUEUE_NAME, Collections.singletonList(createMetadata(1, 40)));
+        assertEquals("DLC message was deleted", 2, messageStore.getMessageCountForDLCQueue(DLC_QUEUE_NAME));
+
+        Map<Long, AndesMessageMetadata> restoredMessages = new HashMap<>();
+        restoredMessages.put(1L, createMetadata(4, 40));
+        messageStore.restoreMessagesFromDLC(restoredMessages);
+
+        assertEquals("Incorrect DLC message count", 1, messageStore.getMessageCountForDLCQueue(DLC_QUEUE_NAME));
+        assertEquals("Incorrect queue message count", 2, messageStore.getMessageCountForQueue(QUEUE_NAME));
+        // Restored message keeps the content of the original message
+        assertMessage(4, createMessage(1, 40));
+
+        messageStore.deleteDLCMessages(Collections.singletonList(createMetadata(2, 8)));
+        assertEquals("Incorrect DLC message count", 0, messageStore.getMessageCountForDLCQueue(DLC_QUEUE_NAME));
+        assertNull("Deleted content was read", messageStore.getContent(2, 0));
+    }
+
+    /**
+     * Live messages, deletions and dead letter channel moves are recovered when the store is reopened
+     */
+    @Test
+    public void testRecoveryOnRestart() throws AndesException {
+        messageStore.storeMessages(Arrays.asList(createMessage(1, 40), createMessage(2, 8), createMessage(3, 20)));
+        messageStore.deleteMessages(QUEUE_NAME, Collections.singletonList(createMetadata(2, 8)));
+        messageStore.moveMetadataToDLC(3, DLC_QUEUE_NAME);
+
+        messageStore.close();
+        messageStore = openStore(new DisabledMessageCacheImpl());
+
+        assertEquals("Incorrect queue message count", 1, messageStore.getMessageCountForQueue(QUEUE_NAME));
+        assertEquals("Incorrect DLC message count", 1, messageStore.getMessageCountForDLCQueue(DLC_QUEUE_NAME));
+        assertMessage(1, createMessage(1, 40));
+        assertMessage(3, createMessage(3, 20));
+        assertNull("Deleted metadata was recovered", messageStore.getMetadata(2));
+        assertNull("Deleted content was recovered", messageStore.getContent(2, 0));
+    }
+
+    /**
+     * Content found in the cache is returned without being read again from the log
+     */
+    @Test
+    public void testContentServedFromCache() throws AndesException {
+        messageStore.storeMessages(Arrays.asList(createMessage(1, 40), createMessage(2, 8)));
+
+        final List<AndesMessagePart> cachedContent = createMessage(1, 40).getContentChunkList();
+        messageStore.close();
+        messageStore = openStore(new DisabledMessageCacheImpl() {
+            @Override
+            public void fillContentFromCache(List<Long> messageIDList,
+                                             Map<Long, List<AndesMessagePart>> contentList) {
+                contentList.put(1L, cachedContent);
+            }
+        });
+
+        Map<Long, List<AndesMessagePart>> content = messageStore.getContent(Arrays.asList(1L, 2L));
+
+        assertSame("Cached content was replaced", cachedContent, content.get(1L));
+        assertEquals("Incorrect chunk count", 1, content.get(2L).size());
+    }
+
+    /**
+     * A segment with a single live message above the compaction threshold does not prevent later segments without
+     * live data from being compacted. Deletions of messages in the kept segment survive a restart.
+     */
+    @Test
+    public void testCompactionSkipsMostlyLiveSegment() throws AndesException {
+        // Segment 0 is mostly taken by message 1, the rest of it and segment 1 by messages 2 to 20
+        messageStore.storeMessages(Collections.singletonList(createMessage(1, 48 * LARGE_CHUNK_SIZE,
+                                                                           LARGE_CHUNK_SIZE)));
+        List<AndesMessage> messages = new ArrayList<>();
+        List<AndesMessageMetadata> deletedMessages = new ArrayList<>();
+        for (long messageId = 2; messageId <= 20; messageId++) {
+            messages.add(createMessage(messageId, 4 * LARGE_CHUNK_SIZE, LARGE_CHUNK_SIZE));
+            deletedMessages.add(createMetadata(messageId, 4 * LARGE_CHUNK_SIZE));
+        }
+        messageStore.storeMessages(messages);
+        messageStore.deleteMessages(QUEUE_NAME, deletedMessages);
+
+        // Roll over to a new segment so that the segment holding the delete records is sealed
+        messageStore.storeMessages(Collections.singletonList(createMessage(21, 60 * LARGE_CHUNK_SIZE,
+                                                                           LARGE_CHUNK_SIZE)));
+        messageStore.deleteMessages(QUEUE_NAME, Collections.singletonList(createMetadata(21, 60 * LARGE_CHUNK_SIZE)));
+        assertTrue("Messages did not fill the second segment", getSegmentFile(2).exists());
+
+        messageStore.compact();
+
+        assertTrue("Mostly live segment was compacted", getSegmentFile(0).exists());
+        assertFalse("Segment without live data was not compacted", getSegmentFile(1).exists());
+        assertMessage(1, createMessage(1, 48 * LARGE_CHUNK_SIZE, LARGE_CHUNK_SIZE));
+
+        messageStore.close();
+        messageStore = openStore(new DisabledMessageCacheImpl());
+
+        assertEquals("Deleted messages were recovered", 1, messageStore.getMessageCountForQueue(QUEUE_NAME));
+        for (long messageId = 2; messageId <= 21; messageId++) {
+            assertNull("Deleted metadata was recovered", messageStore.getMetadata(messageId));
+        }
+        assertMessage(1, createMessage(1, 48 * LARGE_CHUNK_SIZE, LARGE_CHUNK_SIZE));
+    }
+
+    private File getSegmentFile(long segmentId) {
+        return new File(storeDirectory.getRoot(), FileStoreConstants.SEGMENT_FILE_PREFIX
+                                                  + String.format("%020d", segmentId)
+                                                  + FileStoreConstants.SEGMENT_FILE_SUFFIX);
+    }
+
+    private FileMessageStoreImpl openStore(AndesMessageCache messageCache) throws AndesException {
+        ConfigurationProperties properties = new ConfigurationProperties();
+        properties.addProperty(FileStoreConstants.PROP_STORE_DIRECTORY, storeDirectory.getRoot().getAbsolutePath());
+        properties.addProperty(FileStoreConstants.PROP_SEGMENT_SIZE, "1");
+        FileMessageStoreImpl store = new FileMessageStoreImpl(messageCache);
+        store.initializeMessageStore(null, properties);
+        return store;
+    }
+
+    /**
+     * Check that the stored message has the metadata and content of the expected message
+     */
+    private void assertMessage(long messageId, AndesMessage expectedMessage) throws AndesException {
+        AndesMessageMetadata metadata = messageStore.getMetadata(messageId);
+        assertNotNull("Metadata not found for message " + messageId, metadata);
+        assertEquals("Incorrect content length", expectedMessage.getMetadata().getMessageContentLength(),
+                     metadata.getMessageContentLength());
+
+        List<AndesMessagePart> storedContent =
+                messageStore.getContent(Collections.singletonList(messageId)).get(messageId);
+        List<AndesMessagePart> expectedContent = expectedMessage.getContentChunkList();
+        assertEquals("Incorrect chunk count", expectedContent.size(), storedContent.size());
+        for (int i = 0; i < expectedContent.size(); i++) {
+            AndesMessagePart expectedPart = expectedContent.get(i);
+            AndesMessagePart storedPart = messageStore.getContent(messageId, expectedPart.getOffset());
+            assertEquals("Incorrect offset", expectedPart.getOffset(), storedContent.get(i).getOffset());
+            assertArrayEquals("Content mismatch", expectedPart.getData(), storedContent.get(i).getData());
+            assertArrayEquals("Content mismatch", expectedPart.getData(), storedPart.getData());
+        }
+    }
+
+    private static AndesMessageMetadata createMetadata(long messageId, int contentLength) {
+        return MQTTUtils.convertToAndesHeader(messageId, QUEUE_NAME, 1, contentLength, false, null);
+    }
+
+    /**
+     * Create a message with content split into chunks of {@link #CHUNK_SIZE}
+     */
+    private static AndesMessage createMessage(long messageId, int contentLength) {
+        return createMessage(messageId, contentLength, CHUNK_SIZE);
+    }
+
+    /**
+     * Create a message with content split into chunks of the given size. Content bytes depend on the message id
+     * and offset so that content of different messages differs.
+     */
+    private static AndesMessage createMessage(long messageId, int contentLength, int chunkSize) {
+        AndesMessage message = new AndesMessage(createMetadata(messageId, contentLength));
+        for (int offset = 0; offset < contentLength; offset = offset + chunkSize) {
+            int length = Math.min(chunkSize, contentLength - offset);
+            byte[] data = new byte[length];
+            for (int i = 0; i < length; i++) {
+                data[i] = (byte) (messageId + offset + i);
+            }
+            AndesMessagePart part = new AndesMessagePart();
+            part.setMessageID(messageId);
+            part.setOffSet(offset);
+            part.setData(data);
+            part.setDataLength(length);
+            message.addMessagePart(part);
+        }
+        return message;
+    }
+}
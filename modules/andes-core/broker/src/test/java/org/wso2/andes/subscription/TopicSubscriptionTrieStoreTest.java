@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.andes.subscription;
+
+import org.junit.Test;
+import org.wso2.andes.kernel.AndesException;
+import org.wso2.andes.kernel.AndesSubscription;
+import org.wso2.andes.kernel.DestinationType;
+import org.wso2.andes.kernel.ProtocolType;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for {@link TopicSubscriptionTrieStore}
+ * Covers wildcard matching of MQTT ('/', '+', '#') and AMQP ('.', '*', '#') destinations and keeping the trie
+ * consistent while subscriptions are added, removed and added again.
+ */
+public class TopicSubscriptionTrieStoreTest {
+
+    /**
+     * A destination without wildcards only matches the same routing key
+     */
+    @Test
+    public void testMqttExactMatch() throws AndesException {
+        TopicSubscriptionTrieStore store = new TopicSubscriptionTrieStore(ProtocolType.MQTT);
+        AndesSubscription cricket = addSubscription(store, "cricket", "sports/cricket");
+
+        assertMatches(store, "sports/cricket", cricket);
+        assertMatches(store, "sports/football");
+        assertMatches(store, "sports");
+        assertMatches(store, "sports/cricket/score");
+    }
+
+    /**
+     * '+' matches exactly one level, at any position
+     */
+    @Test
+    public void testMqttSingleLevelWildcard() throws AndesException {
+        TopicSubscriptionTrieStore store = new TopicSubscriptionTrieStore(ProtocolType.MQTT);
+        AndesSubscription anySport = addSubscription(store, "anySport", "sports/+");
+        AndesSubscription anyCricket = addSubscription(store, "anyCricket", "+/cricket");
+        AndesSubscription anyScore = addSubscription(store, "anyScore", "sports/+/score");
+
+        assertMatches(store, "sports/cricket", anySport, anyCricket);
+        assertMatches(store, "sports/football", anySport);
+        assertMatches(store, "games/cricket", anyCricket);
+        assertMatches(store, "sports/cricket/score", anyScore);
+        assertMatches(store, "sports");
+        assertMatches(store, "sports/cricket/score/live");
+    }
+
+    /**
+     * '#' matches the parent level and any number of levels below it
+     */
+    @Test
+    public void testMqttMultiLevelWildcard() throws AndesException {
+        TopicSubscriptionTrieStore store = new TopicSubscriptionTrieStore(ProtocolType.MQTT);
+        AndesSubscription allSports = addSubscription(store, "allSports", "sports/#");
+        AndesSubscription everything = addSubscription(store, "everything", "#");
+        AndesSubscription cricketAndBelow = addSubscription(store, "cricketAndBelow", "+/cricket/#");
+
+        assertMatches(store, "sports", allSports, everything);
+        assertMatches(store, "sports/cricket", allSports, everything, cricketAndBelow);
+        assertMatches(store, "sports/cricket/score/live", allSports, everything, cricketAndBelow);
+        assertMatches(store, "games/cricket/score", everything, cricketAndBelow);
+        assertMatches(store, "news", everything);
+    }
+
+    /**
+     * Empty levels are kept as constituents. '+' matches an empty level while an exact destination does not match
+     * the same key without the empty level.
+     */
+    @Test
+    public void testMqttEmptyLevel() throws AndesException {
+        TopicSubscriptionTrieStore store = new TopicSubscriptionTrieStore(ProtocolType.MQTT);
+        AndesSubscription emptyMiddle = addSubscription(store, "emptyMiddle", "sports//score");
+        AndesSubscription anyMiddle = addSubscription(store, "anyMiddle", "sports/+/score");
+        AndesSubscription leadingEmpty = addSubscription(store, "leadingEmpty", "/sports");
+        AndesSubscription anyFirst = addSubscription(store, "anyFirst", "+/sports");
+
+        assertMatches(store, "sports//score", emptyMiddle, anyMiddle);
+        assertMatches(store, "sports/score");
+        assertMatches(store, "/sports", leadingEmpty, anyFirst);
+        assertMatches(store, "sports");
+        assertMatches(store, "sports/");
+    }
+
+    /**
+     * '*' matches exactly one word
+     */
+    @Test
+    public void testAmqpSingleWordWildcard() throws AndesException {
+        TopicSubscriptionTrieStore store = new TopicSubscriptionTrieStore(ProtocolType.AMQP);
+        AndesSubscription anySport = addSubscription(store, "anySport", "sports.*");
+        AndesSubscription anyCricket = addSubscription(store, "anyCricket", "*.cricket");
+
+        assertMatches(store, "sports.cricket", anySport, anyCricket);
+        assertMatches(store, "sports.football", anySport);
+        assertMatches(store, "sports");
+        assertMatches(store, "sports.cricket.score");
+    }
+
+    /**
+     * '#' matches zero or more words at any position
+     */
+    @Test
+    public void testAmqpMultiWordWildcard() throws AndesException {
+        TopicSubscriptionTrieStore store = new TopicSubscriptionTrieStore(ProtocolType.AMQP);
+        AndesSubscription allSports = addSubscription(store, "allSports", "sports.#");
+        AndesSubscription allScores = addSubscription(store, "allScores", "#.score");
+        AndesSubscription cricketAndBelow = addSubscription(store, "cricketAndBelow", "*.cricket.#");
+
+        assertMatches(store, "sports", allSports);
+        assertMatches(store, "score", allScores);
+        assertMatches(store, "sports.cricket", allSports, cricketAndBelow);
+        assertMatches(store, "sports.cricket.score", allSports, allScores, cricketAndBelow);
+        assertMatches(store, "games.cricket.live.score", allScores, cricketAndBelow);
+        assertMatches(store, "games.football");
+    }
+
+    /**
+     * Delimiters and wildcards of the other protocol are plain characters
+     */
+    @Test
+    public void testDelimiterOfOtherProtocolIsNotSplit() throws AndesException {
+        TopicSubscriptionTrieStore amqpStore = new TopicSubscriptionTrieStore(ProtocolType.AMQP);
+        AndesSubscription amqpSubscription = addSubscription(amqpStore, "amqp", "sports/+");
+
+        assertMatches(amqpStore, "sports/+", amqpSubscription);
+        assertMatches(amqpStore, "sports/cricket");
+
+        TopicSubscriptionTrieStore mqttStore = new TopicSubscriptionTrieStore(ProtocolType.MQTT);
+        AndesSubscription mqttSubscription = addSubscription(mqttStore, "mqtt", "sports.*");
+
+        assertMatches(mqttStore, "sports.*", mqttSubscription);
+        assertMatches(mqttStore, "sports.cricket");
+    }
+
+    /**
+     * A removed subscription stops matching, including routing keys matched before the removal, and matches again
+     * once added back
+     */
+    @Test
+    public void testAddRemoveAndAddAgain() throws AndesException {
+        TopicSubscriptionTrieStore store = new TopicSubscriptionTrieStore(ProtocolType.MQTT);
+        AndesSubscription anySport = createSubscription("anySport", "sports/+");
+        store.addSubscription(anySport);
+        assertMatches(store, "sports/cricket", anySport);
+
+        store.removeSubscription(anySport);
+        assertFalse("Removed subscription is still available", store.isSubscriptionAvailable(anySport));
+        assertMatches(store, "sports/cricket");
+        assertTrue("Removed subscription is still listed", store.getAllSubscriptions().isEmpty());
+
+        store.addSubscription(anySport);
+        assertTrue("Subscription added again is not available", store.isSubscriptionAvailable(anySport));
+        assertMatches(store, "sports/cricket", anySport);
+    }
+
+    /**
+     * Removing a subscription keeps other subscriptions of the same destination and of sibling branches
+     */
+    @Test
+    public void testRemoveKeepsOtherSubscriptions() throws AndesException {
+        TopicSubscriptionTrieStore store = new TopicSubscriptionTrieStore(ProtocolType.MQTT);
+        AndesSubscription first = addSubscription(store, "first", "sports/cricket");
+        AndesSubscription second = addSubscription(store, "second", "sports/cricket");
+        AndesSubscription anySport = addSubscription(store, "anySport", "sports/+");
+        AndesSubscription allSports = addSubscription(store, "allSports", "sports/#");
+        AndesSubscription cricketScore = addSubscription(store, "cricketScore", "sports/cricket/score");
+
+        store.removeSubscription(first);
+        assertMatches(store, "sports/cricket", second, anySport, allSports);
+
+        store.removeSubscription(anySport);
+        assertMatches(store, "sports/cricket", second, allSports);
+
+        store.removeSubscription(second);
+        assertMatches(store, "sports/cricket", allSports);
+        assertMatches(store, "sports/cricket/score", allSports, cricketScore);
+
+        store.removeSubscription(allSports);
+        assertMatches(store, "sports/cricket");
+        assertMatches(store, "sports/cricket/score", cricketScore);
+    }
+
+    /**
+     * Adding a subscription which is already available replaces the stored instance
+     */
+    @Test
+    public void testAddExistingSubscriptionUpdates() throws AndesException {
+        TopicSubscriptionTrieStore store = new TopicSubscriptionTrieStore(ProtocolType.AMQP);
+        addSubscription(store, "cricket", "sports.cricket");
+        AndesSubscription updated = createSubscription("cricket", "sports.cricket");
+
+        store.addSubscription(updated);
+
+        Set<AndesSubscription> matches = store.getMatchingSubscriptions("sports.cricket", DestinationType.TOPIC);
+        assertEquals("Subscription added twice should match once", 1, matches.size());
+        assertSame("Latest instance of the subscription should match", updated, matches.iterator().next());
+        assertEquals("Subscription added twice should be listed once", 1, store.getAllSubscriptions().size());
+    }
+
+    /**
+     * Removing an unknown subscription does not change the store
+     */
+    @Test
+    public void testRemoveUnknownSubscription() throws AndesException {
+        TopicSubscriptionTrieStore store = new TopicSubscriptionTrieStore(ProtocolType.MQTT);
+        AndesSubscription cricket = addSubscription(store, "cricket", "sports/cricket");
+
+        store.removeSubscription(createSubscription("unknown", "sports/cricket"));
+
+        assertMatches(store, "sports/cricket", cricket);
+    }
+
+    @Test
+    public void testEmptyDestinations() throws AndesException {
+        TopicSubscriptionTrieStore store = new TopicSubscriptionTrieStore(ProtocolType.MQTT);
+        addSubscription(store, "everything", "#");
+
+        assertTrue("Empty routing key should not match",
+                   store.getMatchingSubscriptions("", DestinationType.TOPIC).isEmpty());
+
+        try {
+            store.addSubscription(createSubscription("empty", ""));
+            fail("Subscription to an empty destination should be rejected");
+        } catch (AndesException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Routing keys keep being cached after many distinct keys were matched, and the cache is dropped when
+     * subscriptions change
+     */
+    @Test
+    public void testMatchesCachedAfterManyRoutingKeys() throws AndesException {
+        TopicSubscriptionTrieStore store = new TopicSubscriptionTrieStore(ProtocolType.AMQP);
+        AndesSubscription cricket = addSubscription(store, "cricket", "sports.*");
+
+        for (int i = 0; i < 20000; i++) {
+            store.getMatchingSubscriptions("sports.event" + i, DestinationType.TOPIC);
+        }
+
+        Set<AndesSubscription> matches = store.getMatchingSubscriptions("sports.cricket", DestinationType.TOPIC);
+        assertSame("Match of a new routing key should be cached once many keys were matched", matches,
+                   store.getMatchingSubscriptions("sports.cricket", DestinationType.TOPIC));
+
+        AndesSubscription football = addSubscription(store, "football", "sports.#");
+        assertMatches(store, "sports.cricket", cricket, football);
+    }
+
+    private AndesSubscription addSubscription(TopicSubscriptionTrieStore store, String subscriptionId,
+                                              String destination) throws AndesException {
+        AndesSubscription subscription = createSubscription(subscriptionId, destination);
+        store.addSubscription(subscription);
+        return subscription;
+    }
+
+    private AndesSubscription createSubscription(String subscriptionId, String destination) {
+        return new BasicSubscription(subscriptionId, destination, false, false, "node1", 0L, subscriptionId + "-queue",
+                                     null, "amq.topic", "topic", (short) 0, false, DestinationType.TOPIC);
+    }
+
+    private void assertMatches(TopicSubscriptionTrieStore store, String routingKey,
+                               AndesSubscription... expectedSubscriptions) {
+        Set<AndesSubscription> expected = new HashSet<>(Arrays.asList(expectedSubscriptions));
+        Set<AndesSubscription> matches = store.getMatchingSubscriptions(routingKey, DestinationType.TOPIC);
+        assertEquals("Unexpected subscriptions matched for routing key " + routingKey, expected, matches);
+        assertEquals("Repeated match for routing key " + routingKey + " should give the same result", expected,
+                     store.getMatchingSubscriptions(routingKey, DestinationType.TOPIC));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.andes.transport.network.netty;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.timeout.IdleStateHandler;
+import org.wso2.andes.transport.Sender;
+import org.wso2.andes.transport.network.NetworkConnection;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Network connection of an AMQP client accepted by {@link NettyNetworkTransport}. Reading from the channel is
+ * suspended while the connection is blocked by flow control or while the outbound buffer of the channel is above
+ * its high water mark, so that a client which does not keep up with its deliveries stops sending acknowledgements
+ * and new messages until the buffered frames are written.
+ */
+public class NettyNetworkConnection implements NetworkConnection
+{
+    static final String IDLE_STATE_HANDLER = "idleStateHandler";
+
+    private final Channel _channel;
+    private final Sender<ByteBuffer> _sender;
+
+    private int _maxReadIdle = 0;
+    private int _maxWriteIdle = 0;
+
+    private boolean _blocked = false;
+    private boolean _writable = true;
+
+    public NettyNetworkConnection(Channel channel)
+    {
+        _channel = channel;
+        _sender = new NettySender(channel);
+    }
+
+    public Sender<ByteBuffer> getSender()
+    {
+        return _sender;
+    }
+
+    public void close()
+    {
+        _channel.close();
+    }
+
+    public SocketAddress getRemoteAddress()
+    {
+        return _channel.remoteAddress();
+    }
+
+    public SocketAddress getLocalAddress()
+    {
+        return _channel.localAddress();
+    }
+
+    public synchronized void setMaxWriteIdle(int sec)
+    {
+        _maxWriteIdle = sec;
+        updateIdleStateHandler();
+    }
+
+    public synchronized void setMaxReadIdle(int sec)
+    {
+        _maxReadIdle = sec;
+        updateIdleStateHandler();
+    }
+
+    @Override
+    public synchronized void block()
+    {
+        _blocked = true;
+        updateAutoRead();
+    }
+
+    @Override
+    public synchronized boolean isBlocked()
+    {
+        return _blocked;
+    }
+
+    @Override
+    public synchronized void unblock()
+    {
+        _blocked = false;
+        updateAutoRead();
+    }
+
+    /**
+     * Called by the network handler when the outbound buffer of the channel crosses one of its water marks.
+     */
+    synchronized void writabilityChanged()
+    {
+        _writable = _channel.isWritable();
+        updateAutoRead();
+    }
+
+    private void updateAutoRead()
+    {
+        _channel.config().setAutoRead(!_blocked && _writable);
+    }
+
+    private void updateIdleStateHandler()
+    {
+        ChannelPipeline pipeline = _channel.pipeline();
+        if (pipeline.get(IDLE_STATE_HANDLER) != null)
+        {
+            pipeline.replace(IDLE_STATE_HANDLER, IDLE_STATE_HANDLER,
+                             new IdleStateHandler(_maxReadIdle, _maxWriteIdle, 0, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.andes.transport.network.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.andes.protocol.ProtocolEngine;
+import org.wso2.andes.protocol.ProtocolEngineFactory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Connects a Netty channel to the protocol engine of the connection. An instance is created per channel.
+ */
+public class NettyNetworkHandler extends ChannelInboundHandlerAdapter
+{
+    private static final Logger log = LoggerFactory.getLogger(NettyNetworkHandler.class);
+
+    private final ProtocolEngineFactory _factory;
+
+    private NettyNetworkConnection _connection;
+    private ProtocolEngine _engine;
+
+    public NettyNetworkHandler(ProtocolEngineFactory factory)
+    {
+        _factory = factory;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception
+    {
+        if (log.isDebugEnabled())
+        {
+            log.debug("Created session: " + ctx.channel().remoteAddress());
+        }
+
+        _connection = new NettyNetworkConnection(ctx.channel());
+        _engine = _factory.newProtocolEngine(_connection);
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception
+    {
+        ByteBuf buf = (ByteBuf) msg;
+        try
+        {
+            // Frames decoded by the engine keep slices of the received buffer and are processed asynchronously,
+            // hence the content is moved out of the pooled buffer before it is released.
+            ByteBuffer received = ByteBuffer.allocate(buf.readableBytes());
+            buf.readBytes(received);
+            received.flip();
+            _engine.received(received);
+        }
+        catch (RuntimeException re)
+        {
+            _engine.exception(re);
+        }
+        finally
+        {
+            ReferenceCountUtil.release(buf);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception
+    {
+        if (_connection != null)
+        {
+            _connection.writabilityChanged();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception
+    {
+        if (evt instanceof IdleStateEvent && _engine != null)
+        {
+            IdleState state = ((IdleStateEvent) evt).state();
+            if (IdleState.WRITER_IDLE == state)
+            {
+                _engine.writerIdle();
+            }
+            else if (IdleState.READER_IDLE == state)
+            {
+                _engine.readerIdle();
+            }
+        }
+        else
+        {
+            super.userEventTriggered(ctx, evt);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception
+    {
+        if (_engine != null)
+        {
+            log.error("Exception caught by Netty", cause);
+            _engine.exception(cause);
+        }
+        else
+        {
+            log.error("Exception caught by Netty but without protocol engine to handle it", cause);
+            ctx.close();
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception
+    {
+        if (log.isDebugEnabled())
+        {
+            log.debug("closed: " + ctx.channel().remoteAddress());
+        }
+
+        if (_engine != null)
+        {
+            _engine.closed();
+        }
+        else
+        {
+            log.error("Unable to close ProtocolEngine as none was present");
+        }
+        super.channelInactive(ctx);
+    }
+}
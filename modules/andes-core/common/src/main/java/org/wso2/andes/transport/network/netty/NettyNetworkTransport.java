@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.andes.transport.network.netty;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.andes.protocol.ProtocolEngineFactory;
+import org.wso2.andes.ssl.SSLContextFactory;
+import org.wso2.andes.transport.NetworkTransportConfiguration;
+import org.wso2.andes.transport.TransportException;
+import org.wso2.andes.transport.network.IncomingNetworkTransport;
+import org.wso2.andes.transport.network.NetworkConnection;
+import org.wso2.andes.transport.network.Transport;
+
+import javax.net.ssl.SSLEngine;
+import java.net.InetSocketAddress;
+
+import static org.wso2.andes.transport.ConnectionSettings.WILDCARD_ADDRESS;
+
+/**
+ * Accepts AMQP connections on Netty. Connections are served by a fixed number of event loop threads, read into
+ * pooled direct buffers and use the native epoll transport where it is available.
+ * <p/>
+ * The transport is selected with -Dqpid.broker.transport=org.wso2.andes.transport.network.netty
+ * .NettyNetworkTransport. The number of event loop threads is taken from the connector processors of the
+ * configuration, while the following system properties tune the transport.
+ * <ul>
+ * <li>qpid.broker.netty.epoll - use native epoll if available, true by default</li>
+ * <li>qpid.broker.netty.writeBufferHighWaterMark - outbound bytes of a connection above which reading from the
+ * connection is suspended</li>
+ * <li>qpid.broker.netty.writeBufferLowWaterMark - outbound bytes of a connection below which reading from the
+ * connection is resumed</li>
+ * </ul>
+ */
+public class NettyNetworkTransport implements IncomingNetworkTransport
+{
+    private static final Logger log = LoggerFactory.getLogger(NettyNetworkTransport.class);
+
+    public static final String EPOLL_PROPNAME = "qpid.broker.netty.epoll";
+    public static final String WRITE_BUFFER_HIGH_WATER_MARK_PROPNAME = "qpid.broker.netty.writeBufferHighWaterMark";
+    public static final String WRITE_BUFFER_LOW_WATER_MARK_PROPNAME = "qpid.broker.netty.writeBufferLowWaterMark";
+
+    private static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 1024 * 1024;
+    private static final int DEFAULT_WRITE_BUFFER_LOW_WATER_MARK = 512 * 1024;
+
+    private EventLoopGroup _bossGroup;
+    private EventLoopGroup _workerGroup;
+    private Channel _serverChannel;
+
+    public void accept(final NetworkTransportConfiguration config, final ProtocolEngineFactory factory,
+                       final SSLContextFactory sslFactory)
+    {
+        if (!Transport.TCP.equalsIgnoreCase(config.getTransport()))
+        {
+            throw new TransportException("Unknown transport: " + config.getTransport());
+        }
+
+        final InetSocketAddress address;
+        if (config.getHost().equals(WILDCARD_ADDRESS))
+        {
+            address = new InetSocketAddress(config.getPort());
+        }
+        else
+        {
+            address = new InetSocketAddress(config.getHost(), config.getPort());
+        }
+
+        int workerThreads = config.getConnectorProcessors();
+        int highWaterMark = Integer.getInteger(WRITE_BUFFER_HIGH_WATER_MARK_PROPNAME,
+                                               DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK);
+        int lowWaterMark = Math.min(Integer.getInteger(WRITE_BUFFER_LOW_WATER_MARK_PROPNAME,
+                                                       DEFAULT_WRITE_BUFFER_LOW_WATER_MARK), highWaterMark);
+
+        final Class<? extends ServerChannel> channelClass;
+        if (useEpoll())
+        {
+            _bossGroup = new EpollEventLoopGroup(1, new DefaultThreadFactory("NettyNetworkTransport(Acceptor)"));
+            _workerGroup = new EpollEventLoopGroup(workerThreads, new DefaultThreadFactory("NettyNetworkTransport"));
+            channelClass = EpollServerSocketChannel.class;
+        }
+        else
+        {
+            _bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("NettyNetworkTransport(Acceptor)"));
+            _workerGroup = new NioEventLoopGroup(workerThreads, new DefaultThreadFactory("NettyNetworkTransport"));
+            channelClass = NioServerSocketChannel.class;
+        }
+
+        ServerBootstrap bootstrap = new ServerBootstrap();
+        bootstrap.group(_bossGroup, _workerGroup)
+                 .channel(channelClass)
+                 .option(ChannelOption.SO_REUSEADDR, true)
+                 .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                 .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                 .childOption(ChannelOption.TCP_NODELAY, config.getTcpNoDelay())
+                 .childOption(ChannelOption.SO_SNDBUF, config.getSendBufferSize())
+                 .childOption(ChannelOption.SO_RCVBUF, config.getReceiveBufferSize())
+                 .childOption(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, highWaterMark)
+                 .childOption(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, lowWaterMark)
+                 .childHandler(new ChannelInitializer<SocketChannel>()
+                 {
+                     @Override
+                     protected void initChannel(SocketChannel channel) throws Exception
+                     {
+                         ChannelPipeline pipeline = channel.pipeline();
+                         if (sslFactory != null)
+                         {
+                             SSLEngine sslEngine = sslFactory.buildServerContext().createSSLEngine();
+                             sslEngine.setUseClientMode(false);
+                             pipeline.addLast("sslHandler", new SslHandler(sslEngine));
+                         }
+                         // Idle times are set by the protocol engine once the connection is tuned
+                         pipeline.addLast(NettyNetworkConnection.IDLE_STATE_HANDLER, new IdleStateHandler(0, 0, 0));
+                         pipeline.addLast("networkHandler", new NettyNetworkHandler(factory));
+                     }
+                 });
+
+        try
+        {
+            _serverChannel = bootstrap.bind(address).sync().channel();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            close();
+            throw new TransportException("Interrupted while binding to " + address, e);
+        }
+        catch (Exception e)
+        {
+            close();
+            throw new TransportException("Could not bind to " + address, e);
+        }
+
+        log.info("AMQP transport bound to " + address + " using " + channelClass.getSimpleName() + " with "
+                 + workerThreads + " event loop threads");
+    }
+
+    public void close()
+    {
+        if (_serverChannel != null)
+        {
+            _serverChannel.close().awaitUninterruptibly();
+        }
+        if (_bossGroup != null)
+        {
+            _bossGroup.shutdownGracefully();
+        }
+        if (_workerGroup != null)
+        {
+            _workerGroup.shutdownGracefully();
+        }
+    }
+
+    public NetworkConnection getConnection()
+    {
+        // Accepted connections are handed over to the protocol engines
+        return null;
+    }
+
+    /**
+     * Check whether the native epoll transport should be used.
+     *
+     * @return true if epoll is enabled and the native library could be loaded
+     */
+    private static boolean useEpoll()
+    {
+        if (!Boolean.parseBoolean(System.getProperty(EPOLL_PROPNAME, "true")))
+        {
+            return false;
+        }
+        try
+        {
+            return Epoll.isAvailable();
+        }
+        catch (LinkageError e)
+        {
+            log.debug("Native epoll transport is not available", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.andes.transport.network.netty;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import org.wso2.andes.transport.Sender;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Sender writing the frames of a connection to a Netty channel. Frame buffers are handed to the channel without
+ * copying, since they are not reused by the protocol engine after they are sent.
+ */
+public class NettySender implements Sender<ByteBuffer>
+{
+    private final Channel _channel;
+    private volatile ChannelFuture _lastWrite;
+
+    public NettySender(Channel channel)
+    {
+        _channel = channel;
+    }
+
+    public void send(ByteBuffer msg)
+    {
+        _lastWrite = _channel.writeAndFlush(Unpooled.wrappedBuffer(msg));
+    }
+
+    public void flush()
+    {
+        ChannelFuture lastWrite = _lastWrite;
+        // Waiting within the event loop of the channel would block the write itself
+        if (lastWrite != null && !_channel.eventLoop().inEventLoop())
+        {
+            lastWrite.awaitUninterruptibly();
+        }
+    }
+
+    public void close()
+    {
+        // Let the pending writes complete before the channel is closed
+        flush();
+        ChannelFuture closed = _channel.close();
+        if (!_channel.eventLoop().inEventLoop())
+        {
+            closed.awaitUninterruptibly();
+        }
+    }
+
+    public void setIdleTimeout(int i)
+    {
+        // Idle timeouts are set through the setMax[Read|Write]Idle methods of NettyNetworkConnection
+    }
+}
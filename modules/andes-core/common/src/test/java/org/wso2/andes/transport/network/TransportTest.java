@@ -31,6 +31,7 @@ import org.wso2.andes.transport.Receiver;
 import org.wso2.andes.transport.TransportException;
 import org.wso2.andes.transport.network.io.IoNetworkTransport;
 import org.wso2.andes.transport.network.mina.MinaNetworkTransport;
+import org.wso2.andes.transport.network.netty.NettyNetworkTransport;
 
 import java.nio.ByteBuffer;
 
@@ -87,6 +88,15 @@ public class TransportTest extends QpidTestCase
         assertTrue(networkTransport instanceof TestIncomingNetworkTransport);
     }
 
+    public void testNettyGetIncomingTransport() throws Exception
+    {
+        setTestSystemProperty(Transport.QPID_BROKER_TRANSPORT_PROPNAME, NettyNetworkTransport.class.getName());
+
+        final IncomingNetworkTransport networkTransport = Transport.getIncomingTransportInstance();
+        assertNotNull(networkTransport);
+        assertTrue(networkTransport instanceof NettyNetworkTransport);
+    }
+
     public void testInvalidOutgoingTransportClassName() throws Exception
     {
         setTestSystemProperty(Transport.QPID_TRANSPORT_PROPNAME, "invalid");
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.andes.transport.network.netty;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.wso2.andes.protocol.ProtocolEngine;
+import org.wso2.andes.protocol.ProtocolEngineFactory;
+import org.wso2.andes.test.utils.QpidTestCase;
+import org.wso2.andes.transport.NetworkTransportConfiguration;
+import org.wso2.andes.transport.network.NetworkConnection;
+import org.wso2.andes.transport.network.Transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class NettyNetworkTransportTest extends QpidTestCase
+{
+    private static final String TEST_DATA = "YHALOTHAR";
+
+    private NettyNetworkTransport _server;
+    private Socket _client;
+    private EmbeddedChannel _channel;
+
+    @Override
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            if (_client != null)
+            {
+                _client.close();
+            }
+
+            if (_server != null)
+            {
+                _server.close();
+            }
+
+            if (_channel != null)
+            {
+                _channel.finish();
+            }
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
+
+    /**
+     * Accepts a connection on the loopback address and checks that the bytes written by the client are handed to
+     * the protocol engine created for it.
+     */
+    public void testAcceptedConnectionReceivesBytes() throws Exception
+    {
+        String host = InetAddress.getLoopbackAddress().getHostAddress();
+        int port = findFreePort();
+        RecordingProtocolEngineFactory factory = new RecordingProtocolEngineFactory(TEST_DATA.length());
+
+        _server = new NettyNetworkTransport();
+        _server.accept(new TestNetworkTransportConfiguration(port, host), factory, null);
+
+        _client = new Socket(host, port);
+        OutputStream out = _client.getOutputStream();
+        out.write(TEST_DATA.getBytes());
+        out.flush();
+
+        RecordingProtocolEngine engine = factory.getEngine(10, TimeUnit.SECONDS);
+        assertNotNull("No protocol engine was created for the accepted connection", engine);
+        assertTrue("Protocol engine did not receive all the bytes",
+                   engine.getLatch().await(10, TimeUnit.SECONDS));
+        assertEquals("Protocol engine received unexpected bytes", TEST_DATA, engine.getReceived());
+    }
+
+    /**
+     * Checks that reading from the channel is suspended while the connection is blocked.
+     */
+    public void testBlockAndUnblockToggleAutoRead() throws Exception
+    {
+        RecordingProtocolEngineFactory factory = new RecordingProtocolEngineFactory(0);
+        _channel = new EmbeddedChannel(new NettyNetworkHandler(factory));
+        NetworkConnection connection = factory.getEngine(0, TimeUnit.SECONDS).getNetwork();
+
+        assertTrue("Channel should read before the connection is blocked", _channel.config().isAutoRead());
+
+        connection.block();
+        assertTrue(connection.isBlocked());
+        assertFalse("Channel should not read while the connection is blocked", _channel.config().isAutoRead());
+
+        connection.unblock();
+        assertFalse(connection.isBlocked());
+        assertTrue("Channel should read after the connection is unblocked", _channel.config().isAutoRead());
+    }
+
+    /**
+     * Checks that reading from the channel is suspended while its outbound buffer is above the high water mark, and
+     * is only resumed once the buffer drains and the connection is not blocked.
+     */
+    public void testWritabilityChangesToggleAutoRead() throws Exception
+    {
+        RecordingProtocolEngineFactory factory = new RecordingProtocolEngineFactory(0);
+        _channel = new EmbeddedChannel(new NettyNetworkHandler(factory));
+        _channel.config().setWriteBufferLowWaterMark(8);
+        _channel.config().setWriteBufferHighWaterMark(16);
+        NetworkConnection connection = factory.getEngine(0, TimeUnit.SECONDS).getNetwork();
+
+        _channel.write(Unpooled.wrappedBuffer(new byte[32]));
+        _channel.runPendingTasks();
+        assertFalse("Channel should be above its high water mark", _channel.isWritable());
+        assertFalse("Channel should not read while it is not writable", _channel.config().isAutoRead());
+
+        connection.block();
+        _channel.flush();
+        _channel.runPendingTasks();
+        assertTrue("Channel should be writable once flushed", _channel.isWritable());
+        assertFalse("Channel should not read while the connection is blocked", _channel.config().isAutoRead());
+
+        connection.unblock();
+        assertTrue("Channel should read once writable and unblocked", _channel.config().isAutoRead());
+    }
+
+    private static class RecordingProtocolEngineFactory implements ProtocolEngineFactory
+    {
+        private final int _expectedBytes;
+        private final CountDownLatch _created = new CountDownLatch(1);
+        private volatile RecordingProtocolEngine _engine;
+
+        public RecordingProtocolEngineFactory(int expectedBytes)
+        {
+            _expectedBytes = expectedBytes;
+        }
+
+        public ProtocolEngine newProtocolEngine(NetworkConnection network)
+        {
+            _engine = new RecordingProtocolEngine(network, _expectedBytes);
+            _created.countDown();
+            return _engine;
+        }
+
+        public RecordingProtocolEngine getEngine(long timeout, TimeUnit unit) throws InterruptedException
+        {
+            _created.await(timeout, unit);
+            return _engine;
+        }
+    }
+
+    private static class RecordingProtocolEngine implements ProtocolEngine
+    {
+        private final NetworkConnection _network;
+        private final CountDownLatch _latch;
+        private final ByteArrayOutputStream _received = new ByteArrayOutputStream();
+
+        public RecordingProtocolEngine(NetworkConnection network, int expectedBytes)
+        {
+            _network = network;
+            _latch = new CountDownLatch(expectedBytes);
+        }
+
+        public NetworkConnection getNetwork()
+        {
+            return _network;
+        }
+
+        public CountDownLatch getLatch()
+        {
+            return _latch;
+        }
+
+        public synchronized String getReceived()
+        {
+            return new String(_received.toByteArray());
+        }
+
+        public void received(ByteBuffer msg)
+        {
+            synchronized (this)
+            {
+                while (msg.hasRemaining())
+                {
+                    _received.write(msg.get());
+                    _latch.countDown();
+                }
+            }
+        }
+
+        public void exception(Throwable t)
+        {
+        }
+
+        public void closed()
+        {
+        }
+
+        public SocketAddress getRemoteAddress()
+        {
+            return _network.getRemoteAddress();
+        }
+
+        public SocketAddress getLocalAddress()
+        {
+            return _network.getLocalAddress();
+        }
+
+        public long getWrittenBytes()
+        {
+            return 0;
+        }
+
+        public long getReadBytes()
+        {
+            return _received.size();
+        }
+
+        public void writerIdle()
+        {
+        }
+
+        public void readerIdle()
+        {
+        }
+    }
+
+    private static class TestNetworkTransportConfiguration implements NetworkTransportConfiguration
+    {
+        private final int _port;
+        private final String _host;
+
+        public TestNetworkTransportConfiguration(final int port, final String host)
+        {
+            _port = port;
+            _host = host;
+        }
+
+        public Boolean getTcpNoDelay()
+        {
+            return true;
+        }
+
+        public Integer getReceiveBufferSize()
+        {
+            return 32768;
+        }
+
+        public Integer getSendBufferSize()
+        {
+            return 32768;
+        }
+
+        public Integer getPort()
+        {
+            return _port;
+        }
+
+        public String getHost()
+        {
+            return _host;
+        }
+
+        public String getTransport()
+        {
+            return Transport.TCP;
+        }
+
+        public Integer getConnectorProcessors()
+        {
+            return 1;
+        }
+    }
+}